@@ -0,0 +1,861 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package fuzzy.cluster;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import fuzzy.mf.GaussianMembershipFunction;
+import fuzzy.system.LinguisticVariable;
+import fuzzy.system.Shape;
+import fuzzy.system.Term;
+
+/**
+ * Fuzzy c-means clustering (Bezdek). Each row of the data belongs to every
+ * cluster with a membership value; the memberships of a row sum to one, and
+ * decrease with its distance to the center of the cluster:
+ * <code>u(i, k) = 1 / sum_j (d(i, k) / d(i, j))^(2 / (m - 1))</code>, where
+ * <code>m</code> is the fuzziness. The center of a cluster is the mean of
+ * the rows weighted by <code>u^m</code>. Both steps alternate until the
+ * centers move less than the tolerance.
+ *
+ * <p>
+ * The data is a flat row-major matrix of primitives, one row of features
+ * per sample. The memberships are not stored: each iteration computes them
+ * and sums the weighted rows in the same pass, split into blocks of rows
+ * that run on a {@link ForkJoinPool}. The sums of the blocks are reduced in
+ * a fixed order, and the block size only depends on the number of rows, so
+ * that the result is the same, bit for bit, whatever the parallelism of the
+ * pool. Data that does not fit in memory, or that arrives over time, is
+ * clustered by mini-batches with a {@link Stream}.
+ * </p>
+ *
+ * <p>
+ * This class is immutable and <strong>thread safe</strong>.
+ * </p>
+ *
+ * @since 0.5
+ */
+public final class FuzzyCMeans {
+
+	/**
+	 * Default minimum number of rows in a block.
+	 */
+	public static final int DEFAULT_CHUNK_SIZE = 4096;
+
+	/**
+	 * Maximum number of blocks a pass is split into; bigger passes have
+	 * bigger blocks.
+	 */
+	static final int MAX_BLOCKS = 1024;
+
+	private final int clusters;
+	private final double fuzziness;
+	private final int maxIterations;
+	private final double tolerance;
+	private final long seed;
+	private final ForkJoinPool pool;
+	private final int chunkSize;
+
+	private FuzzyCMeans(Builder builder) {
+		this.clusters = builder.clusters;
+		this.fuzziness = builder.fuzziness;
+		this.maxIterations = builder.maxIterations;
+		this.tolerance = builder.tolerance;
+		this.seed = builder.seed;
+		this.pool = builder.pool;
+		this.chunkSize = builder.chunkSize;
+	}
+
+	/**
+	 * @param clusters number of clusters
+	 * @return a new builder, with a fuzziness of 2, at most 100 iterations, a
+	 * tolerance of <code>1e-6</code>, seed 0, and the common pool
+	 */
+	public static Builder builder(int clusters) {
+		return new Builder(clusters);
+	}
+
+	/**
+	 * Clusters data, starting from centers on distinct rows chosen at
+	 * random.
+	 *
+	 * @param data rows of features, row-major
+	 * @param features number of features in a row
+	 * @return result of the clustering
+	 * @throws IllegalArgumentException if the data is not made of whole rows,
+	 * or has fewer rows than clusters
+	 */
+	public Result cluster(double[] data, int features) {
+		final int rows = rows(data, features);
+		return cluster(data, features, initialCenters(data, features, 0, rows, new Random(seed)));
+	}
+
+	/**
+	 * Clusters data, starting from given centers.
+	 *
+	 * @param data rows of features, row-major
+	 * @param features number of features in a row
+	 * @param centers initial centers, one row of features per cluster, not
+	 * modified
+	 * @return result of the clustering
+	 * @throws IllegalArgumentException if the data is not made of whole rows,
+	 * or there are not as many centers as clusters
+	 */
+	public Result cluster(double[] data, int features, double[] centers) {
+		final int rows = rows(data, features);
+		if (centers.length != clusters * features) {
+			throw new IllegalArgumentException("Expected " + clusters * features + " initial center values");
+		}
+		final int[] iterations = new int[1];
+		final double[] current = iterate(data, features, 0, rows, centers, iterations);
+		final Sums sums = sum(data, features, 0, rows, current, true);
+		return new Result(features, current, sums.spreads(current), Math.abs(iterations[0]), iterations[0] > 0,
+				sums.objective);
+	}
+
+	/**
+	 * Moves centers until they converge, over rows <code>from</code> to
+	 * <code>to - 1</code>.
+	 *
+	 * @param centers initial centers, not modified
+	 * @param iterations where the number of iterations is stored, negated if
+	 * the centers did not converge
+	 * @return the last centers
+	 */
+	private double[] iterate(double[] data, int features, int from, int to, double[] centers, int[] iterations) {
+		double[] current = centers.clone();
+		int iteration = 0;
+		boolean converged = false;
+		while (iteration < maxIterations && !converged) {
+			final double[] next = sum(data, features, from, to, current, false).centers(current);
+			converged = distance(current, next) < tolerance;
+			current = next;
+			iteration++;
+		}
+		iterations[0] = converged ? iteration : -iteration;
+		return current;
+	}
+
+	/**
+	 * @param features number of features in a row
+	 * @return a new stream, whose centers are fitted to the first mini-batch
+	 */
+	public Stream stream(int features) {
+		if (features < 1) {
+			throw new IllegalArgumentException("Invalid number of features " + features + " for fuzzy c-means");
+		}
+		return new Stream(features);
+	}
+
+	/**
+	 * @return number of rows
+	 * @throws IllegalArgumentException if the data is not made of whole rows
+	 */
+	private int rows(double[] data, int features) {
+		if (features < 1 || data.length % features != 0) {
+			throw new IllegalArgumentException("Invalid data of " + data.length + " values with " + features
+					+ " features for fuzzy c-means");
+		}
+		return data.length / features;
+	}
+
+	/**
+	 * @return centers on distinct rows chosen at random
+	 */
+	private double[] initialCenters(double[] data, int features, int from, int to, Random random) {
+		if (to - from < clusters) {
+			throw new IllegalArgumentException("Expected at least " + clusters + " rows for fuzzy c-means");
+		}
+		// Floyd's sampling of distinct rows, kept in the order they are drawn
+		final int[] chosen = new int[clusters];
+		int size = 0;
+		for (int j = to - from - clusters; j < to - from; j++) {
+			final int r = random.nextInt(j + 1);
+			int row = from + r;
+			for (int i = 0; i < size; i++) {
+				if (chosen[i] == row) {
+					row = from + j;
+					break;
+				}
+			}
+			chosen[size++] = row;
+		}
+		final double[] centers = new double[clusters * features];
+		for (int k = 0; k < clusters; k++) {
+			System.arraycopy(data, chosen[k] * features, centers, k * features, features);
+		}
+		return centers;
+	}
+
+	private static double distance(double[] a, double[] b) {
+		double max = 0.0;
+		for (int i = 0; i < a.length; i++) {
+			max = Math.max(max, Math.abs(a[i] - b[i]));
+		}
+		return max;
+	}
+
+	/**
+	 * Sums of a pass over rows, for each cluster: the weights
+	 * <code>u^m</code>, the weighted rows, and optionally the weighted squared
+	 * deviations from the centers; and the objective, the sum of the weighted
+	 * squared distances.
+	 */
+	private final class Sums {
+
+		final int features;
+		final double[] weights;
+		final double[] moments;
+		final double[] deviations;
+		double objective;
+
+		Sums(int features, boolean withDeviations) {
+			this.features = features;
+			this.weights = new double[clusters];
+			this.moments = new double[clusters * features];
+			this.deviations = withDeviations ? new double[clusters * features] : null;
+		}
+
+		void add(Sums that) {
+			for (int k = 0; k < clusters; k++) {
+				weights[k] += that.weights[k];
+			}
+			for (int i = 0; i < moments.length; i++) {
+				moments[i] += that.moments[i];
+			}
+			if (deviations != null) {
+				for (int i = 0; i < deviations.length; i++) {
+					deviations[i] += that.deviations[i];
+				}
+			}
+			objective += that.objective;
+		}
+
+		/**
+		 * @return the weighted means of the rows, or the previous centers of
+		 * the clusters without weight
+		 */
+		double[] centers(double[] previous) {
+			final double[] centers = new double[moments.length];
+			for (int k = 0; k < clusters; k++) {
+				for (int f = 0; f < features; f++) {
+					centers[k * features + f] = weights[k] > 0.0 ? moments[k * features + f] / weights[k]
+							: previous[k * features + f];
+				}
+			}
+			return centers;
+		}
+
+		/**
+		 * @return the weighted standard deviations of the rows around the
+		 * centers, zero for the clusters without weight
+		 */
+		double[] spreads(double[] centers) {
+			final double[] spreads = new double[deviations.length];
+			for (int k = 0; k < clusters; k++) {
+				for (int f = 0; f < features; f++) {
+					spreads[k * features + f] = weights[k] > 0.0 ? Math.sqrt(deviations[k * features + f] / weights[k])
+							: 0.0;
+				}
+			}
+			return spreads;
+		}
+
+	}
+
+	/**
+	 * Sums a range of blocks, splitting it in two until a single block is
+	 * left, and adding the sums of the right half to those of the left half.
+	 */
+	private final class BlockTask extends RecursiveTask<Sums> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final double[] data;
+		private final int features;
+		private final int from;
+		private final int to;
+		private final double[] centers;
+		private final boolean withDeviations;
+		private final int blockSize;
+		private final int lo;
+		private final int hi;
+
+		BlockTask(double[] data, int features, int from, int to, double[] centers, boolean withDeviations,
+				int blockSize, int lo, int hi) {
+			this.data = data;
+			this.features = features;
+			this.from = from;
+			this.to = to;
+			this.centers = centers;
+			this.withDeviations = withDeviations;
+			this.blockSize = blockSize;
+			this.lo = lo;
+			this.hi = hi;
+		}
+
+		@Override
+		protected Sums compute() {
+			if (hi - lo == 1) {
+				final Sums sums = new Sums(features, withDeviations);
+				sumBlock(data, features, from + lo * blockSize, Math.min(to, from + (lo + 1) * blockSize), centers, sums);
+				return sums;
+			}
+			final int middle = (lo + hi) >>> 1;
+			final BlockTask right = new BlockTask(data, features, from, to, centers, withDeviations, blockSize,
+					middle, hi);
+			right.fork();
+			final Sums sums = new BlockTask(data, features, from, to, centers, withDeviations, blockSize, lo,
+					middle).compute();
+			sums.add(right.join());
+			return sums;
+		}
+
+	}
+
+	/**
+	 * Sums rows <code>from</code> to <code>to - 1</code> on the pool.
+	 */
+	private Sums sum(double[] data, int features, int from, int to, double[] centers, boolean withDeviations) {
+		final int count = to - from;
+		final int blockSize = Math.max(chunkSize, (count + MAX_BLOCKS - 1) / MAX_BLOCKS);
+		final int blocks = (count + blockSize - 1) / blockSize;
+		if (blocks == 0) {
+			return new Sums(features, withDeviations);
+		}
+		return pool.invoke(new BlockTask(data, features, from, to, centers, withDeviations, blockSize, 0, blocks));
+	}
+
+	/**
+	 * Computes the memberships of rows, and adds their weighted sums.
+	 */
+	private void sumBlock(double[] data, int features, int from, int to, double[] centers, Sums sums) {
+		final double[] u = new double[clusters];
+		final double[] squares = new double[clusters];
+		final boolean square = fuzziness == 2.0;
+		for (int row = from; row < to; row++) {
+			memberships(data, row * features, features, centers, squares, u);
+			for (int k = 0; k < clusters; k++) {
+				final double weight = square ? u[k] * u[k] : Math.pow(u[k], fuzziness);
+				if (weight == 0.0) {
+					continue;
+				}
+				sums.weights[k] += weight;
+				sums.objective += weight * squares[k];
+				final int center = k * features;
+				for (int f = 0; f < features; f++) {
+					sums.moments[center + f] += weight * data[row * features + f];
+				}
+				if (sums.deviations != null) {
+					for (int f = 0; f < features; f++) {
+						final double d = data[row * features + f] - centers[center + f];
+						sums.deviations[center + f] += weight * d * d;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Computes the memberships of a row to each cluster. A row on one or more
+	 * centers belongs to them only, in equal parts.
+	 *
+	 * @param squares where the squared distances to the centers are stored
+	 * @param u where the memberships are stored
+	 */
+	void memberships(double[] data, int offset, int features, double[] centers, double[] squares, double[] u) {
+		final double exponent = 1 / (fuzziness - 1);
+		double nearest = Double.POSITIVE_INFINITY;
+		int zeros = 0;
+		for (int k = 0; k < clusters; k++) {
+			double square = 0.0;
+			final int center = k * features;
+			for (int f = 0; f < features; f++) {
+				final double d = data[offset + f] - centers[center + f];
+				square += d * d;
+			}
+			squares[k] = square;
+			nearest = Math.min(nearest, square);
+			if (square == 0.0) {
+				zeros++;
+			}
+		}
+		if (zeros > 0) {
+			for (int k = 0; k < clusters; k++) {
+				u[k] = squares[k] == 0.0 ? 1.0 / zeros : 0.0;
+			}
+			return;
+		}
+		// u(k) is proportional to d(k)^(-2 / (m - 1)); relative to the
+		// nearest center, every term is at most one and the powers do not
+		// overflow when m is close to one
+		double total = 0.0;
+		for (int k = 0; k < clusters; k++) {
+			final double ratio = nearest / squares[k];
+			u[k] = exponent == 1.0 ? ratio : Math.pow(ratio, exponent);
+			total += u[k];
+		}
+		for (int k = 0; k < clusters; k++) {
+			u[k] /= total;
+		}
+	}
+
+	/**
+	 * @return number of clusters
+	 */
+	public int getClusters() {
+		return clusters;
+	}
+
+	/**
+	 * @return fuzziness, the exponent <code>m</code> of the memberships
+	 */
+	public double getFuzziness() {
+		return fuzziness;
+	}
+
+	/**
+	 * @return maximum number of iterations
+	 */
+	public int getMaxIterations() {
+		return maxIterations;
+	}
+
+	/**
+	 * @return largest move of a center coordinate below which the clustering
+	 * has converged
+	 */
+	public double getTolerance() {
+		return tolerance;
+	}
+
+	/**
+	 * @return seed of the choice of the initial centers
+	 */
+	public long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * @return pool where the passes run
+	 */
+	public ForkJoinPool getPool() {
+		return pool;
+	}
+
+	/**
+	 * @return minimum number of rows in a block
+	 */
+	public int getChunkSize() {
+		return chunkSize;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "Fuzzy C-Means ["+clusters+" "+fuzziness+" "+maxIterations+" "+tolerance+" "+seed+" "+chunkSize+"]";
+	}
+
+	/**
+	 * Mini-batch fuzzy c-means: each mini-batch is fuzzified with the current
+	 * centers, its weighted sums are added to those of the previous
+	 * mini-batches, and the centers become the weighted means of all the rows
+	 * seen so far. Clusters data that arrives over time, or a large matrix
+	 * one slice of rows at a time, in a single pass. The first mini-batch is
+	 * clustered until it converges, to start from centers that fit the data;
+	 * it should have many more rows than clusters.
+	 * The spreads are the weighted standard deviations around the weighted
+	 * means of all the rows seen so far.
+	 *
+	 * <p>
+	 * This class is <strong>not thread safe</strong>; each mini-batch runs on
+	 * the pool of the clustering.
+	 * </p>
+	 */
+	public final class Stream {
+
+		private final int features;
+		private final Random random = new Random(seed);
+		private double[] centers;
+		private final double[] weights = new double[clusters];
+		private final double[] moments;
+		private final double[] squares;
+		private double objective;
+		private int batches;
+
+		private Stream(int features) {
+			this.features = features;
+			this.moments = new double[clusters * features];
+			this.squares = new double[clusters * features];
+		}
+
+		/**
+		 * Adds a mini-batch of rows.
+		 *
+		 * @param data rows of features, row-major
+		 * @return this stream
+		 * @throws IllegalArgumentException if the data is not made of whole
+		 * rows, or the first mini-batch has fewer rows than clusters
+		 */
+		public Stream update(double[] data) {
+			return update(data, 0, rows(data, features));
+		}
+
+		/**
+		 * Adds rows <code>from</code> to <code>to - 1</code> of a matrix as a
+		 * mini-batch.
+		 *
+		 * @param data rows of features, row-major
+		 * @param from first row, inclusive
+		 * @param to last row, exclusive
+		 * @return this stream
+		 * @throws IllegalArgumentException if the data is not made of whole
+		 * rows, or the first mini-batch has fewer rows than clusters
+		 */
+		public Stream update(double[] data, int from, int to) {
+			final int rows = rows(data, features);
+			if (from < 0 || to > rows || from > to) {
+				throw new IllegalArgumentException("Invalid rows " + from + " to " + to + " for fuzzy c-means");
+			}
+			if (centers == null) {
+				// a single pass from random centers would leave their
+				// weights in the sums for good
+				centers = iterate(data, features, from, to, initialCenters(data, features, from, to, random), new int[1]);
+			}
+			final Sums sums = sum(data, features, from, to, centers, true);
+			for (int k = 0; k < clusters; k++) {
+				weights[k] += sums.weights[k];
+				for (int f = 0; f < features; f++) {
+					// sum of w x^2 from the sums of w (x - c)^2, w x and w
+					final int i = k * features + f;
+					final double c = centers[i];
+					moments[i] += sums.moments[i];
+					squares[i] += sums.deviations[i] + c * (2 * sums.moments[i] - c * sums.weights[k]);
+				}
+			}
+			objective += sums.objective;
+			for (int k = 0; k < clusters; k++) {
+				if (weights[k] > 0.0) {
+					for (int f = 0; f < features; f++) {
+						centers[k * features + f] = moments[k * features + f] / weights[k];
+					}
+				}
+			}
+			batches++;
+			return this;
+		}
+
+		/**
+		 * @return number of mini-batches added
+		 */
+		public int getBatchCount() {
+			return batches;
+		}
+
+		/**
+		 * @return current result, the centers being the weighted means of
+		 * the rows seen so far
+		 * @throws IllegalStateException if no mini-batch was added
+		 */
+		public Result getResult() {
+			if (centers == null) {
+				throw new IllegalStateException("No mini-batch added to the fuzzy c-means stream");
+			}
+			final double[] spreads = new double[centers.length];
+			for (int k = 0; k < clusters; k++) {
+				for (int f = 0; f < features; f++) {
+					final int i = k * features + f;
+					if (weights[k] > 0.0) {
+						final double mean = moments[i] / weights[k];
+						spreads[i] = Math.sqrt(Math.max(0.0, squares[i] / weights[k] - mean * mean));
+					}
+				}
+			}
+			return new Result(features, centers.clone(), spreads, batches, false, objective);
+		}
+
+	}
+
+	/**
+	 * Centers and spreads of the clusters.
+	 *
+	 * <p>
+	 * This class is immutable and <strong>thread safe</strong>.
+	 * </p>
+	 */
+	public final class Result {
+
+		private final int features;
+		private final double[] centers;
+		private final double[] spreads;
+		private final int iterations;
+		private final boolean converged;
+		private final double objective;
+
+		private Result(int features, double[] centers, double[] spreads, int iterations, boolean converged,
+				double objective) {
+			this.features = features;
+			this.centers = centers;
+			this.spreads = spreads;
+			this.iterations = iterations;
+			this.converged = converged;
+			this.objective = objective;
+		}
+
+		/**
+		 * @return number of clusters
+		 */
+		public int getClusters() {
+			return clusters;
+		}
+
+		/**
+		 * @return number of features in a row
+		 */
+		public int getFeatures() {
+			return features;
+		}
+
+		/**
+		 * @param cluster index of a cluster
+		 * @param feature index of a feature
+		 * @return coordinate of the center of the cluster
+		 */
+		public double getCenter(int cluster, int feature) {
+			return centers[cluster * features + feature];
+		}
+
+		/**
+		 * @param cluster index of a cluster
+		 * @param feature index of a feature
+		 * @return standard deviation of the rows around the center of the
+		 * cluster, weighted by their memberships to the power of the
+		 * fuzziness
+		 */
+		public double getSpread(int cluster, int feature) {
+			return spreads[cluster * features + feature];
+		}
+
+		/**
+		 * @return copy of the centers, one row of features per cluster
+		 */
+		public double[] getCenters() {
+			return centers.clone();
+		}
+
+		/**
+		 * @return number of iterations run, or of mini-batches added by a
+		 * stream
+		 */
+		public int getIterations() {
+			return iterations;
+		}
+
+		/**
+		 * @return whether the centers moved less than the tolerance in the
+		 * last iteration; always <code>false</code> for a stream
+		 */
+		public boolean isConverged() {
+			return converged;
+		}
+
+		/**
+		 * @return objective of the last pass, the sum of the squared distances
+		 * of the rows to the centers weighted by their memberships to the
+		 * power of the fuzziness
+		 */
+		public double getObjective() {
+			return objective;
+		}
+
+		/**
+		 * Computes the memberships of rows to the clusters.
+		 *
+		 * @param data rows of features, row-major
+		 * @param from first row, inclusive
+		 * @param to last row, exclusive
+		 * @param memberships where the memberships are stored, one row of
+		 * clusters per row of data, from index zero
+		 */
+		public void memberships(double[] data, int from, int to, double[] memberships) {
+			final double[] squares = new double[clusters];
+			final double[] u = new double[clusters];
+			for (int row = from; row < to; row++) {
+				FuzzyCMeans.this.memberships(data, row * features, features, centers, squares, u);
+				System.arraycopy(u, 0, memberships, (row - from) * clusters, clusters);
+			}
+		}
+
+		/**
+		 * Projects the clusters on a feature, as gaussian membership
+		 * functions centered on the centers, whose standard deviations are
+		 * the spreads.
+		 *
+		 * @param feature index of a feature
+		 * @param minSpread smallest standard deviation, for the clusters of
+		 * rows that share the value of the feature
+		 * @return a membership function per cluster
+		 */
+		public GaussianMembershipFunction[] membershipFunctions(int feature, double minSpread) {
+			final GaussianMembershipFunction[] functions = new GaussianMembershipFunction[clusters];
+			for (int k = 0; k < clusters; k++) {
+				functions[k] = new GaussianMembershipFunction(Math.max(minSpread, getSpread(k, feature)),
+						getCenter(k, feature));
+			}
+			return functions;
+		}
+
+		/**
+		 * Projects the clusters on a feature, as a linguistic variable with a
+		 * gaussian term per cluster, named <code>cluster0</code>,
+		 * <code>cluster1</code>, etc., in the order of their centers.
+		 *
+		 * @param feature index of a feature
+		 * @param name name of the variable
+		 * @param lower lower bound of the range of the variable
+		 * @param upper upper bound of the range of the variable
+		 * @param minSpread smallest standard deviation, for the clusters of
+		 * rows that share the value of the feature
+		 * @return a linguistic variable
+		 * @throws IllegalArgumentException if the name is empty or the range
+		 * invalid
+		 */
+		public LinguisticVariable variable(int feature, String name, double lower, double upper, double minSpread) {
+			final Integer[] order = new Integer[clusters];
+			for (int k = 0; k < clusters; k++) {
+				order[k] = k;
+			}
+			Arrays.sort(order, (a, b) -> Double.compare(getCenter(a, feature), getCenter(b, feature)));
+			final Term[] terms = new Term[clusters];
+			for (int i = 0; i < clusters; i++) {
+				final int k = order[i];
+				terms[i] = new Term("cluster" + i, Shape.GAUSSIAN, Math.max(minSpread, getSpread(k, feature)),
+						getCenter(k, feature));
+			}
+			return new LinguisticVariable(name, lower, upper, terms);
+		}
+
+		/* (non-Javadoc)
+		 * @see java.lang.Object#toString()
+		 */
+		@Override
+		public String toString() {
+			return "Fuzzy C-Means Result ["+clusters+" "+features+" "+iterations+" "+converged+" "+objective+" "
+					+Arrays.toString(centers)+"]";
+		}
+
+	}
+
+	/**
+	 * Collects the options of a {@link FuzzyCMeans}.
+	 *
+	 * <p>
+	 * This class is <strong>not thread safe</strong>.
+	 * </p>
+	 */
+	public static final class Builder {
+
+		private final int clusters;
+		private double fuzziness = 2.0;
+		private int maxIterations = 100;
+		private double tolerance = 1e-6;
+		private long seed;
+		private ForkJoinPool pool = ForkJoinPool.commonPool();
+		private int chunkSize = DEFAULT_CHUNK_SIZE;
+
+		private Builder(int clusters) {
+			this.clusters = clusters;
+		}
+
+		/**
+		 * @param fuzziness exponent <code>m</code> of the memberships,
+		 * greater than one; the higher, the fuzzier the clusters
+		 * @return this builder
+		 */
+		public Builder fuzziness(double fuzziness) {
+			this.fuzziness = fuzziness;
+			return this;
+		}
+
+		/**
+		 * @param maxIterations maximum number of iterations
+		 * @return this builder
+		 */
+		public Builder maxIterations(int maxIterations) {
+			this.maxIterations = maxIterations;
+			return this;
+		}
+
+		/**
+		 * @param tolerance largest move of a center coordinate below which
+		 * the clustering has converged
+		 * @return this builder
+		 */
+		public Builder tolerance(double tolerance) {
+			this.tolerance = tolerance;
+			return this;
+		}
+
+		/**
+		 * @param seed seed of the choice of the initial centers
+		 * @return this builder
+		 */
+		public Builder seed(long seed) {
+			this.seed = seed;
+			return this;
+		}
+
+		/**
+		 * @param pool pool where the passes run
+		 * @return this builder
+		 */
+		public Builder pool(ForkJoinPool pool) {
+			this.pool = pool;
+			return this;
+		}
+
+		/**
+		 * @param chunkSize minimum number of rows in a block; results only
+		 * depend on it when the number of rows is below
+		 * <code>1024 * chunkSize</code>
+		 * @return this builder
+		 */
+		public Builder chunkSize(int chunkSize) {
+			this.chunkSize = chunkSize;
+			return this;
+		}
+
+		/**
+		 * @return a new clustering
+		 * @throws IllegalArgumentException if the pool is missing, or an
+		 * option is out of range
+		 */
+		public FuzzyCMeans build() {
+			if (pool == null) {
+				throw new IllegalArgumentException("Missing pool for fuzzy c-means");
+			}
+			if (clusters < 1 || !(fuzziness > 1.0) || maxIterations < 1 || !(tolerance >= 0.0) || chunkSize < 1) {
+				throw new IllegalArgumentException("Invalid options for fuzzy c-means");
+			}
+			return new FuzzyCMeans(this);
+		}
+
+	}
+
+}
@@ -0,0 +1,147 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package fuzzy.df;
+
+import org.apache.commons.functor.generator.range.DoubleRange;
+import org.apache.commons.functor.generator.range.NumericRange;
+
+import fuzzy.mf.DoubleMembershipFunction;
+import fuzzy.mf.MembershipFunction;
+
+/**
+ * Adaptive bisector defuzzification function. Computes the bisector of
+ * the continuous area under the membership function with an
+ * {@link AdaptiveQuadrature}, to a given tolerance, instead of summing the
+ * fuzzy values of each crisp value of the range as
+ * {@link BisectorDefuzzificationFunction} does.
+ *
+ * <p>
+ * Only the endpoints of a {@link DoubleRange} are used, as the bounds of the
+ * universe; its step is ignored. Other ranges are sampled at their crisp
+ * values, as {@link BisectorDefuzzificationFunction} does, since the membership
+ * function is not defined in between. The number of evaluations used is
+ * available through
+ * {@link #estimate(double, double, DoubleMembershipFunction)}.
+ * </p>
+ *
+ * <p>
+ * This class is <strong>thread safe</strong>.
+ * </p>
+ *
+ * @param <T> numeric type used in this defuzzification function
+ * @since 0.5
+ */
+public class AdaptiveBisectorDefuzzificationFunction<T extends Number & Comparable<T>>
+		implements DefuzzificationFunction<T> {
+
+	/**
+	 * Default relative tolerance.
+	 */
+	public static final double DEFAULT_TOLERANCE = 1e-6;
+
+	private final AdaptiveQuadrature quadrature;
+
+	/**
+	 * Creates an adaptive bisector defuzzification function with the default
+	 * tolerance and the Gauss-Kronrod rule.
+	 */
+	public AdaptiveBisectorDefuzzificationFunction() {
+		this(new AdaptiveQuadrature(AdaptiveQuadrature.Rule.GAUSS_KRONROD, DEFAULT_TOLERANCE));
+	}
+
+	/**
+	 * Creates an adaptive bisector defuzzification function.
+	 *
+	 * @param quadrature adaptive quadrature, with its rule and tolerance
+	 */
+	public AdaptiveBisectorDefuzzificationFunction(AdaptiveQuadrature quadrature) {
+		this.quadrature = quadrature;
+	}
+
+	/**
+	 * @return adaptive quadrature
+	 */
+	public AdaptiveQuadrature getQuadrature() {
+		return quadrature;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * @throws IllegalArgumentException if total area is zero
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public Double apply(NumericRange<T> x, MembershipFunction<T> mf) {
+		if (!(x instanceof DoubleRange)) {
+			// a membership function over another type is only defined on the
+			// crisp values of the range
+			return new BisectorDefuzzificationFunction<T>().apply(x, mf);
+		}
+		return estimate(x.getLeftEndpoint().getValue().doubleValue(), x.getRightEndpoint().getValue().doubleValue(),
+				DoubleMembershipFunction.of((MembershipFunction<Double>) (MembershipFunction<?>) mf)).getValue();
+	}
+
+	/**
+	 * Defuzzifies a membership function over a universe, returning the crisp
+	 * result with the number of evaluations used.
+	 *
+	 * @param lower lower bound of the universe
+	 * @param upper upper bound of the universe
+	 * @param mf membership function
+	 * @return crisp result and number of evaluations
+	 * @throws IllegalArgumentException if total area is zero
+	 */
+	public AdaptiveQuadrature.Estimate estimate(double lower, double upper, DoubleMembershipFunction mf) {
+		return quadrature.bisector(mf, lower, upper);
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#equals(java.lang.Object)
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if(obj == null) {
+			return false;
+		}
+		if(obj == this) {
+			return true;
+		}
+		if(!(obj instanceof AdaptiveBisectorDefuzzificationFunction)) {
+			return false;
+		}
+		final AdaptiveBisectorDefuzzificationFunction<?> that = (AdaptiveBisectorDefuzzificationFunction<?>)obj;
+		return this.quadrature.equals(that.quadrature);
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#hashCode()
+	 */
+	@Override
+	public int hashCode() {
+		int hash = "AdaptiveBisectorDefuzzificationFunction".hashCode();
+		hash <<= 2;
+		hash ^= quadrature.hashCode();
+		return hash;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "Adaptive Bisector Defuzzification Function ["+quadrature+"]";
+	}
+
+}
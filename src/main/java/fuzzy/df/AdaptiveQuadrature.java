@@ -0,0 +1,538 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package fuzzy.df;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+
+import fuzzy.mf.DoubleMembershipFunction;
+import fuzzy.mf.Interval;
+
+/**
+ * Adaptive quadrature of a membership function over a continuous universe,
+ * used to compute its centroid and bisector to a given tolerance.
+ *
+ * <p>
+ * Instead of summing the fuzzy values of evenly spaced crisp values, the
+ * universe is split into a few segments, and the segment with the largest
+ * estimated error is split in two until the total estimated error is below
+ * the tolerance. Segments are only refined where the membership function has
+ * curvature or kinks, so smooth shapes such as the gaussian or bell need tens
+ * of evaluations instead of thousands.
+ * </p>
+ *
+ * <p>
+ * The tolerance is relative: the area is accurate to about
+ * <code>tolerance * area</code>, and the centroid and bisector to about
+ * <code>tolerance</code> times the width of the universe. The universe is
+ * first narrowed to the {@link DoubleMembershipFunction#support(double)
+ * support} of the membership function, ignoring fuzzy values below
+ * 2<sup>-52</sup>.
+ * </p>
+ *
+ * <p>
+ * This class is immutable and <strong>thread safe</strong>.
+ * </p>
+ *
+ * @since 0.5
+ */
+public final class AdaptiveQuadrature {
+
+	/**
+	 * Quadrature rule applied to each segment.
+	 */
+	public enum Rule {
+		/**
+		 * Simpson rule, with the error estimated from the Simpson rule over
+		 * the two halves of the segment. Five evaluations for the first
+		 * segment, four more for each split: the quarter points of its two
+		 * halves.
+		 */
+		SIMPSON,
+		/**
+		 * 15 point Gauss-Kronrod rule, with the error estimated from the
+		 * embedded 7 point Gauss rule. 15 evaluations for each segment.
+		 */
+		GAUSS_KRONROD
+	}
+
+	/**
+	 * Default maximum number of evaluations of the membership function.
+	 */
+	public static final int DEFAULT_MAXIMUM_EVALUATIONS = 100000;
+
+	/**
+	 * Fuzzy values ignored when narrowing the universe to the support.
+	 */
+	private static final double NEGLIGIBLE = 0x1.0p-52;
+
+	/**
+	 * Segments the universe is split into before refining.
+	 */
+	private static final int INITIAL_SEGMENTS = 4;
+
+	/**
+	 * Maximum number of Newton steps when solving for the bisector.
+	 */
+	private static final int MAXIMUM_NEWTON_STEPS = 50;
+
+	// Kronrod nodes, Kronrod weights and Gauss weights of the 7-15 point rule
+	private static final double[] XGK = {
+		0.991455371120812639206854697526329, 0.949107912342758524526189684047851,
+		0.864864423359769072789712788640926, 0.741531185599394439863864773280788,
+		0.586087235467691130294144845693013, 0.405845151377397166906606412076961,
+		0.207784955007898467600689403773245, 0.0
+	};
+	private static final double[] WGK = {
+		0.022935322010529224963732008058970, 0.063092092629978553290700663189204,
+		0.104790010322250183839876322541518, 0.140653259715525918745189590510238,
+		0.169004726639267902826583426598550, 0.190350578064785409913256402421014,
+		0.204432940075298892414161999234649, 0.209482141084727828012999174891714
+	};
+	private static final double[] WG = {
+		0.129484966168869693270611432679082, 0.279705391489276667901467771423780,
+		0.381830050505118944950369775488975, 0.417959183673469387755102040816327
+	};
+
+	private final Rule rule;
+	private final double tolerance;
+	private final int maximumEvaluations;
+
+	/**
+	 * Creates an adaptive quadrature with the default maximum number of
+	 * evaluations.
+	 *
+	 * @param rule quadrature rule
+	 * @param tolerance relative tolerance, greater than zero
+	 * @throws IllegalArgumentException if the tolerance is not greater than
+	 * zero
+	 */
+	public AdaptiveQuadrature(Rule rule, double tolerance) {
+		this(rule, tolerance, DEFAULT_MAXIMUM_EVALUATIONS);
+	}
+
+	/**
+	 * Creates an adaptive quadrature.
+	 *
+	 * @param rule quadrature rule
+	 * @param tolerance relative tolerance, greater than zero
+	 * @param maximumEvaluations maximum number of evaluations of the
+	 * membership function, after which the current estimate is returned;
+	 * solving for the bisector takes at least one more step
+	 * @throws IllegalArgumentException if the tolerance or the maximum number
+	 * of evaluations are not greater than zero
+	 */
+	public AdaptiveQuadrature(Rule rule, double tolerance, int maximumEvaluations) {
+		if (!(tolerance > 0.0)) {
+			throw new IllegalArgumentException("Invalid tolerance " + tolerance + " in adaptive quadrature");
+		}
+		if (maximumEvaluations <= 0) {
+			throw new IllegalArgumentException("Invalid maximum evaluations " + maximumEvaluations + " in adaptive quadrature");
+		}
+		this.rule = rule;
+		this.tolerance = tolerance;
+		this.maximumEvaluations = maximumEvaluations;
+	}
+
+	/**
+	 * @return quadrature rule
+	 */
+	public Rule getRule() {
+		return rule;
+	}
+
+	/**
+	 * @return relative tolerance
+	 */
+	public double getTolerance() {
+		return tolerance;
+	}
+
+	/**
+	 * @return maximum number of evaluations of the membership function
+	 */
+	public int getMaximumEvaluations() {
+		return maximumEvaluations;
+	}
+
+	/**
+	 * Computes the centroid of a membership function over a universe.
+	 *
+	 * @param mf membership function
+	 * @param lower lower bound of the universe
+	 * @param upper upper bound of the universe
+	 * @return centroid, with the number of evaluations used
+	 * @throws IllegalArgumentException if total area is zero, or the universe
+	 * is not bounded
+	 */
+	public Estimate centroid(DoubleMembershipFunction mf, double lower, double upper) {
+		final Integration integration = new Integration(mf, lower, upper);
+		if (integration.area == 0)
+			throw new IllegalArgumentException(
+					"Total area is zero in centroid defuzzification!");
+		final double centroid = integration.center + integration.moment / integration.area;
+		return new Estimate(centroid, integration.area, integration.evaluations);
+	}
+
+	/**
+	 * Computes the bisector of a membership function over a universe: the
+	 * crisp value that divides the area into two halves.
+	 *
+	 * @param mf membership function
+	 * @param lower lower bound of the universe
+	 * @param upper upper bound of the universe
+	 * @return bisector, with the number of evaluations used
+	 * @throws IllegalArgumentException if total area is zero, or the universe
+	 * is not bounded
+	 */
+	public Estimate bisector(DoubleMembershipFunction mf, double lower, double upper) {
+		final Integration integration = new Integration(mf, lower, upper);
+		if (integration.area == 0)
+			throw new IllegalArgumentException(
+					"Total area is zero in bisector defuzzification!");
+		final double bisector = integration.bisector();
+		return new Estimate(bisector, integration.area, integration.evaluations);
+	}
+
+	/**
+	 * Result of an adaptive quadrature.
+	 */
+	public static final class Estimate {
+
+		private final double value;
+		private final double area;
+		private final int evaluations;
+
+		Estimate(double value, double area, int evaluations) {
+			this.value = value;
+			this.area = area;
+			this.evaluations = evaluations;
+		}
+
+		/**
+		 * @return defuzzified crisp value
+		 */
+		public double getValue() {
+			return value;
+		}
+
+		/**
+		 * @return area under the membership function
+		 */
+		public double getArea() {
+			return area;
+		}
+
+		/**
+		 * @return number of evaluations of the membership function used
+		 */
+		public int getEvaluations() {
+			return evaluations;
+		}
+
+		/* (non-Javadoc)
+		 * @see java.lang.Object#toString()
+		 */
+		@Override
+		public String toString() {
+			return "Estimate ["+value+" "+area+" "+evaluations+"]";
+		}
+
+	}
+
+	/**
+	 * A segment of the universe, with its estimated integrals and error. For
+	 * the Simpson rule, the fuzzy values at the ends, quarters and middle are
+	 * kept so that the halves reuse them.
+	 */
+	private static final class Segment {
+		final double a;
+		final double b;
+		final double[] f;
+		double area;
+		double moment;
+		double error;
+
+		Segment(double a, double b, double[] f) {
+			this.a = a;
+			this.b = b;
+			this.f = f;
+		}
+	}
+
+	/**
+	 * State of a single integration: the segments, the running totals and the
+	 * number of evaluations.
+	 */
+	private final class Integration {
+
+		final DoubleMembershipFunction mf;
+		final double center;
+		final double scale;
+		final Segment[] segments;
+		double area;
+		double moment;
+		int evaluations;
+
+		Integration(DoubleMembershipFunction mf, double lower, double upper) {
+			this.mf = mf;
+			final Interval universe = new Interval(Math.min(lower, upper), Math.max(lower, upper))
+					.intersection(mf.support(NEGLIGIBLE));
+			if (!universe.isBounded()) {
+				throw new IllegalArgumentException("Unbounded universe " + universe + " in adaptive quadrature");
+			}
+			if (universe.isEmpty() || universe.getLower() == universe.getUpper()) {
+				this.center = 0.0;
+				this.scale = 1.0;
+				this.segments = new Segment[0];
+				return;
+			}
+			final double lo = universe.getLower();
+			final double hi = universe.getUpper();
+			this.center = lo + (hi - lo) / 2;
+			// the moment is taken about the center, and its error scaled by the half width
+			this.scale = (hi - lo) / 2;
+
+			final PriorityQueue<Segment> queue = new PriorityQueue<Segment>(INITIAL_SEGMENTS * 4,
+					new Comparator<Segment>() {
+						@Override
+						public int compare(Segment s1, Segment s2) {
+							return Double.compare(s2.error, s1.error);
+						}
+					});
+			double error = 0.0;
+			double a = lo;
+			double fa = Double.NaN;
+			for (int i = 1; i <= INITIAL_SEGMENTS; i++) {
+				final double b = i == INITIAL_SEGMENTS ? hi : lo + (hi - lo) * i / INITIAL_SEGMENTS;
+				final Segment segment;
+				if (rule == Rule.SIMPSON) {
+					if (i == 1) {
+						fa = evaluate(a);
+					}
+					final double fb = evaluate(b);
+					segment = simpson(a, b, fa, evaluate(a + (b - a) / 2), fb);
+					fa = fb;
+				} else {
+					segment = kronrod(a, b);
+				}
+				queue.add(segment);
+				error += segment.error;
+				area += segment.area;
+				a = b;
+			}
+
+			while (error > tolerance * Math.abs(area) && evaluations < maximumEvaluations) {
+				final Segment worst = queue.peek();
+				final double middle = worst.a + (worst.b - worst.a) / 2;
+				if (middle <= worst.a || middle >= worst.b) {
+					break;
+				}
+				queue.poll();
+				final Segment left;
+				final Segment right;
+				if (rule == Rule.SIMPSON) {
+					final double[] f = worst.f;
+					left = simpson(worst.a, middle, f[0], f[1], f[2]);
+					right = simpson(middle, worst.b, f[2], f[3], f[4]);
+				} else {
+					left = kronrod(worst.a, middle);
+					right = kronrod(middle, worst.b);
+				}
+				queue.add(left);
+				queue.add(right);
+				error += left.error + right.error - worst.error;
+				area += left.area + right.area - worst.area;
+			}
+
+			// sum again in order, rather than keeping the running sums
+			this.segments = queue.toArray(new Segment[queue.size()]);
+			Arrays.sort(segments, new Comparator<Segment>() {
+				@Override
+				public int compare(Segment s1, Segment s2) {
+					return Double.compare(s1.a, s2.a);
+				}
+			});
+			area = 0.0;
+			for (Segment segment : segments) {
+				area += segment.area;
+				moment += segment.moment;
+			}
+		}
+
+		double evaluate(double x) {
+			evaluations++;
+			return mf.applyAsDouble(x);
+		}
+
+		/**
+		 * Simpson rule over a segment and its two halves, with Richardson
+		 * extrapolation.
+		 */
+		Segment simpson(double a, double b, double fa, double fm, double fb) {
+			final double h = b - a;
+			final double m = a + h / 2;
+			final double q1 = a + h / 4;
+			final double q3 = m + h / 4;
+			final double[] f = { fa, evaluate(q1), fm, evaluate(q3), fb };
+			final double[] x = { a, q1, m, q3, b };
+			final Segment segment = new Segment(a, b, f);
+			final double whole = h / 6 * (f[0] + 4 * f[2] + f[4]);
+			final double halves = h / 12 * (f[0] + 4 * f[1] + 2 * f[2] + 4 * f[3] + f[4]);
+			final double[] g = new double[5];
+			for (int i = 0; i < 5; i++) {
+				g[i] = (x[i] - center) * f[i];
+			}
+			final double wholeMoment = h / 6 * (g[0] + 4 * g[2] + g[4]);
+			final double halvesMoment = h / 12 * (g[0] + 4 * g[1] + 2 * g[2] + 4 * g[3] + g[4]);
+			segment.area = halves + (halves - whole) / 15;
+			segment.moment = halvesMoment + (halvesMoment - wholeMoment) / 15;
+			segment.error = (Math.abs(halves - whole) + Math.abs(halvesMoment - wholeMoment) / scale) / 15;
+			return segment;
+		}
+
+		/**
+		 * 15 point Gauss-Kronrod rule over a segment.
+		 */
+		Segment kronrod(double a, double b) {
+			final double half = (b - a) / 2;
+			final double mid = a + half;
+			double kronrod = 0.0;
+			double gauss = 0.0;
+			double kronrodMoment = 0.0;
+			double gaussMoment = 0.0;
+			for (int i = 0; i < XGK.length; i++) {
+				final double dx = half * XGK[i];
+				final int points = i == XGK.length - 1 ? 1 : 2;
+				double f = evaluate(mid - dx);
+				double g = (mid - dx - center) * f;
+				if (points == 2) {
+					final double f2 = evaluate(mid + dx);
+					f += f2;
+					g += (mid + dx - center) * f2;
+				}
+				kronrod += WGK[i] * f;
+				kronrodMoment += WGK[i] * g;
+				if (i % 2 == 1) {
+					gauss += WG[i / 2] * f;
+					gaussMoment += WG[i / 2] * g;
+				}
+			}
+			final Segment segment = new Segment(a, b, null);
+			segment.area = kronrod * half;
+			segment.moment = kronrodMoment * half;
+			segment.error = (Math.abs(kronrod - gauss) + Math.abs(kronrodMoment - gaussMoment) / scale) * half;
+			return segment;
+		}
+
+		/**
+		 * Finds the crisp value where the area from the lower bound reaches
+		 * half of the total area, with Newton steps inside the segment where
+		 * it lies, kept inside a bracket.
+		 */
+		double bisector() {
+			final double target = area / 2;
+			double accumulated = 0.0;
+			int s = 0;
+			while (s < segments.length - 1 && accumulated + segments[s].area < target) {
+				accumulated += segments[s].area;
+				s++;
+			}
+			final Segment segment = segments[s];
+			final double remaining = target - accumulated;
+			double lo = segment.a;
+			double hi = segment.b;
+			double m = segment.area > 0 ? lo + (hi - lo) * Math.min(1.0, Math.max(0.0, remaining / segment.area)) : lo + (hi - lo) / 2;
+			final double accuracy = tolerance * scale;
+			for (int i = 0; i < MAXIMUM_NEWTON_STEPS && (i == 0 || evaluations < maximumEvaluations); i++) {
+				final double g = panel(segment.a, m) - remaining;
+				if (g > 0) {
+					hi = m;
+				} else {
+					lo = m;
+				}
+				final double f = evaluate(m);
+				double next = f > 0 ? m - g / f : Double.NaN;
+				if (!(next > lo && next < hi)) {
+					next = lo + (hi - lo) / 2;
+				}
+				final boolean converged = Math.abs(next - m) <= Math.max(accuracy, 4 * Math.ulp(m));
+				m = next;
+				if (converged || hi - lo <= accuracy) {
+					break;
+				}
+			}
+			return m;
+		}
+
+		/**
+		 * Area over a part of a converged segment, with a single application
+		 * of the rule.
+		 */
+		double panel(double a, double b) {
+			if (!(b > a)) {
+				return 0.0;
+			}
+			if (rule == Rule.SIMPSON) {
+				return simpson(a, b, evaluate(a), evaluate(a + (b - a) / 2), evaluate(b)).area;
+			}
+			return kronrod(a, b).area;
+		}
+
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#equals(java.lang.Object)
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if(obj == null) {
+			return false;
+		}
+		if(obj == this) {
+			return true;
+		}
+		if(!(obj instanceof AdaptiveQuadrature)) {
+			return false;
+		}
+		final AdaptiveQuadrature that = (AdaptiveQuadrature)obj;
+		return this.rule == that.rule && this.tolerance == that.tolerance
+				&& this.maximumEvaluations == that.maximumEvaluations;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#hashCode()
+	 */
+	@Override
+	public int hashCode() {
+		int hash = "AdaptiveQuadrature".hashCode();
+		hash <<= 2;
+		hash ^= rule.ordinal();
+		hash <<= 2;
+		hash ^= Double.valueOf(tolerance).hashCode();
+		hash <<= 2;
+		hash ^= maximumEvaluations;
+		return hash;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "Adaptive Quadrature ["+rule+" "+tolerance+" "+maximumEvaluations+"]";
+	}
+
+}
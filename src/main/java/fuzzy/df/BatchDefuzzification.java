@@ -0,0 +1,373 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package fuzzy.df;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import org.apache.commons.functor.generator.range.DoubleRange;
+
+import fuzzy.internal.functions.Doubles;
+import fuzzy.mf.DoubleMembershipFunction;
+import fuzzy.mf.Interval;
+import fuzzy.util.PlateauScanner.Plateaus;
+
+/**
+ * Defuzzifies many membership functions over the same universe of crisp
+ * values, which is sampled only once, into a primitive array shared by all
+ * the membership functions.
+ *
+ * <p>
+ * The membership functions are split into blocks. For the centroid and the
+ * bisector, each block is evaluated column by column: a tile of crisp values
+ * is evaluated for every membership function of the block before moving to
+ * the next tile, so that the tile stays in cache. The maxima are found one
+ * membership function at a time. Blocks may be defuzzified in parallel on a
+ * {@link ForkJoinPool}; the result of each membership function is computed
+ * on a single thread, in the order of the universe, and is the same as the
+ * result of the equivalent defuzzification function, whatever the pool.
+ * </p>
+ *
+ * <p>
+ * Unlike the defuzzification functions, a membership function with total
+ * area zero does not fail the whole batch: its centroid or bisector is NaN.
+ * </p>
+ *
+ * <p>
+ * This class is <strong>thread safe</strong>, if the membership functions
+ * are.
+ * </p>
+ *
+ * @since 0.5
+ */
+public final class BatchDefuzzification {
+
+	/**
+	 * Defuzzification computed for each membership function.
+	 */
+	public enum Method {
+		/**
+		 * As {@link CentroidDefuzzificationFunction}.
+		 */
+		CENTROID,
+		/**
+		 * As {@link BisectorDefuzzificationFunction}.
+		 */
+		BISECTOR,
+		/**
+		 * As {@link SmallestOfMaximaDefuzzificationFunction}.
+		 */
+		SMALLEST_OF_MAXIMA,
+		/**
+		 * As {@link LargestOfMaximaDefuzzificationFunction}.
+		 */
+		LARGEST_OF_MAXIMA,
+		/**
+		 * As {@link MeanOfMaximaDefuzzificationFunction}.
+		 */
+		MEAN_OF_MAXIMA
+	}
+
+	/**
+	 * Default number of membership functions in a block.
+	 */
+	public static final int DEFAULT_BLOCK_SIZE = 64;
+
+	/**
+	 * Number of crisp values in a tile.
+	 */
+	private static final int TILE_SIZE = 512;
+
+	private final double[] universe;
+	private final ForkJoinPool pool;
+	private final int blockSize;
+
+	/**
+	 * Creates a batch defuzzification that runs on the calling thread.
+	 *
+	 * @param universe crisp values shared by all membership functions
+	 */
+	public BatchDefuzzification(DoubleRange universe) {
+		this(universe, null, DEFAULT_BLOCK_SIZE);
+	}
+
+	/**
+	 * Creates a batch defuzzification.
+	 *
+	 * @param universe crisp values shared by all membership functions
+	 * @param pool pool that defuzzifies the blocks, or <code>null</code> to
+	 * run on the calling thread
+	 * @param blockSize number of membership functions in a block
+	 * @throws IllegalArgumentException if the block size is not positive
+	 */
+	public BatchDefuzzification(DoubleRange universe, ForkJoinPool pool, int blockSize) {
+		if (blockSize <= 0) {
+			throw new IllegalArgumentException("Invalid block size " + blockSize + " for batch defuzzification");
+		}
+		this.universe = Doubles.toArray(universe);
+		this.pool = pool;
+		this.blockSize = blockSize;
+	}
+
+	/**
+	 * @return number of crisp values in the universe
+	 */
+	public int getUniverseSize() {
+		return universe.length;
+	}
+
+	/**
+	 * @return pool that defuzzifies the blocks, or <code>null</code>
+	 */
+	public ForkJoinPool getPool() {
+		return pool;
+	}
+
+	/**
+	 * @return number of membership functions in a block
+	 */
+	public int getBlockSize() {
+		return blockSize;
+	}
+
+	/**
+	 * Defuzzifies membership functions over the universe.
+	 *
+	 * @param method defuzzification
+	 * @param mfs membership functions
+	 * @return crisp results, indexed like the membership functions
+	 */
+	public double[] apply(Method method, List<? extends DoubleMembershipFunction> mfs) {
+		final double[] results = new double[mfs.size()];
+		apply(method, mfs, results);
+		return results;
+	}
+
+	/**
+	 * Defuzzifies membership functions over the universe, into an existing
+	 * array.
+	 *
+	 * @param method defuzzification
+	 * @param mfs membership functions
+	 * @param results where the crisp results are stored, indexed like the
+	 * membership functions
+	 * @throws IllegalArgumentException if the results array is too small
+	 */
+	public void apply(Method method, List<? extends DoubleMembershipFunction> mfs, double[] results) {
+		if (results.length < mfs.size()) {
+			throw new IllegalArgumentException("Results array too small for " + mfs.size() + " membership functions");
+		}
+		final int blocks = (mfs.size() + blockSize - 1) / blockSize;
+		if (blocks == 0) {
+			return;
+		}
+		final BlockTask task = new BlockTask(method, mfs, results, 0, blocks);
+		if (pool == null || blocks == 1) {
+			task.compute();
+		} else {
+			pool.invoke(task);
+		}
+	}
+
+	/**
+	 * Defuzzifies a range of blocks, splitting it in two until a single block
+	 * is left.
+	 */
+	private final class BlockTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final Method method;
+		private final List<? extends DoubleMembershipFunction> mfs;
+		private final double[] results;
+		private final int lo;
+		private final int hi;
+
+		BlockTask(Method method, List<? extends DoubleMembershipFunction> mfs, double[] results, int lo, int hi) {
+			this.method = method;
+			this.mfs = mfs;
+			this.results = results;
+			this.lo = lo;
+			this.hi = hi;
+		}
+
+		@Override
+		protected void compute() {
+			if (hi - lo > 1 && pool != null) {
+				final int middle = (lo + hi) >>> 1;
+				invokeAll(new BlockTask(method, mfs, results, lo, middle),
+						new BlockTask(method, mfs, results, middle, hi));
+				return;
+			}
+			for (int block = lo; block < hi; block++) {
+				final int from = block * blockSize;
+				defuzzify(method, mfs, from, Math.min(mfs.size(), from + blockSize), results);
+			}
+		}
+
+	}
+
+	/**
+	 * Defuzzifies a block of membership functions.
+	 */
+	private void defuzzify(Method method, List<? extends DoubleMembershipFunction> mfs, int from, int to,
+			double[] results) {
+		final double[] fuzzyValues = new double[universe.length];
+		switch (method) {
+		case CENTROID:
+			centroids(mfs, from, to, fuzzyValues, results);
+			break;
+		case BISECTOR:
+			bisectors(mfs, from, to, fuzzyValues, results);
+			break;
+		default:
+			for (int k = from; k < to; k++) {
+				final Plateaus maxima = Maxima.of(universe, mfs.get(k), Double.POSITIVE_INFINITY);
+				if (method == Method.SMALLEST_OF_MAXIMA) {
+					results[k] = maxima.smallest(universe);
+				} else if (method == Method.LARGEST_OF_MAXIMA) {
+					results[k] = maxima.largest(universe);
+				} else {
+					results[k] = maxima.mean(universe);
+				}
+			}
+			break;
+		}
+	}
+
+	/**
+	 * Finds the indices of the first and last crisp values in the support of
+	 * each membership function of a block.
+	 *
+	 * @return for the k-th membership function, the first index at
+	 * <code>2 * k</code> and the last, exclusive, at <code>2 * k + 1</code>
+	 */
+	private int[] supports(List<? extends DoubleMembershipFunction> mfs, int from, int to) {
+		final int[] bounds = new int[2 * (to - from)];
+		for (int k = from; k < to; k++) {
+			final Interval support = mfs.get(k).support();
+			int first = 0;
+			int last = universe.length;
+			while (first < last && !support.contains(universe[first])) {
+				++first;
+			}
+			while (last > first && !support.contains(universe[last - 1])) {
+				--last;
+			}
+			bounds[2 * (k - from)] = first;
+			bounds[2 * (k - from) + 1] = last;
+		}
+		return bounds;
+	}
+
+	/**
+	 * Sums the fuzzy values, and optionally the moments, of each membership
+	 * function of a block, tile by tile.
+	 */
+	private void sums(List<? extends DoubleMembershipFunction> mfs, int from, int to, int[] bounds,
+			double[] fuzzyValues, double[] areas, double[] moments) {
+		final double[] x = universe;
+		for (int tile = 0; tile < x.length; tile += TILE_SIZE) {
+			final int tileEnd = Math.min(x.length, tile + TILE_SIZE);
+			for (int k = from; k < to; k++) {
+				final int start = Math.max(tile, bounds[2 * (k - from)]);
+				final int end = Math.min(tileEnd, bounds[2 * (k - from) + 1]);
+				if (start >= end) {
+					continue;
+				}
+				mfs.get(k).applyAll(x, start, end, fuzzyValues);
+				double area = areas[k - from];
+				if (moments == null) {
+					for (int i = start; i < end; i++) {
+						area += fuzzyValues[i];
+					}
+				} else {
+					double moment = moments[k - from];
+					for (int i = start; i < end; i++) {
+						area += fuzzyValues[i];
+						moment += x[i] * fuzzyValues[i];
+					}
+					moments[k - from] = moment;
+				}
+				areas[k - from] = area;
+			}
+		}
+	}
+
+	private void centroids(List<? extends DoubleMembershipFunction> mfs, int from, int to, double[] fuzzyValues,
+			double[] results) {
+		final int[] bounds = supports(mfs, from, to);
+		final double[] areas = new double[to - from];
+		final double[] moments = new double[to - from];
+		sums(mfs, from, to, bounds, fuzzyValues, areas, moments);
+		for (int k = from; k < to; k++) {
+			final double totalArea = areas[k - from];
+			results[k] = totalArea == 0 ? Double.NaN : moments[k - from] / totalArea;
+		}
+	}
+
+	private void bisectors(List<? extends DoubleMembershipFunction> mfs, int from, int to, double[] fuzzyValues,
+			double[] results) {
+		final int[] bounds = supports(mfs, from, to);
+		final double[] areas = new double[to - from];
+		sums(mfs, from, to, bounds, fuzzyValues, areas, null);
+		// second pass, until the running sum of each function reaches half of its area
+		final double[] runningAreas = new double[to - from];
+		final boolean[] found = new boolean[to - from];
+		int left = 0;
+		for (int k = from; k < to; k++) {
+			if (areas[k - from] == 0) {
+				results[k] = Double.NaN;
+				found[k - from] = true;
+			} else {
+				results[k] = universe[bounds[2 * (k - from) + 1] - 1];
+				left++;
+			}
+		}
+		final double[] x = universe;
+		for (int tile = 0; tile < x.length && left > 0; tile += TILE_SIZE) {
+			final int tileEnd = Math.min(x.length, tile + TILE_SIZE);
+			for (int k = from; k < to; k++) {
+				final int start = Math.max(tile, bounds[2 * (k - from)]);
+				final int end = Math.min(tileEnd, bounds[2 * (k - from) + 1]);
+				if (found[k - from] || start >= end) {
+					continue;
+				}
+				mfs.get(k).applyAll(x, start, end, fuzzyValues);
+				final double half = areas[k - from] / 2;
+				double temp = runningAreas[k - from];
+				for (int i = start; i < end; i++) {
+					temp = temp + fuzzyValues[i];
+					if (temp >= half) {
+						results[k] = x[i];
+						found[k - from] = true;
+						left--;
+						break;
+					}
+				}
+				runningAreas[k - from] = temp;
+			}
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "Batch Defuzzification ["+universe.length+" "+blockSize+"]";
+	}
+
+}
@@ -14,11 +14,16 @@
 package fuzzy.df;
 
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.List;
 
+import org.apache.commons.functor.generator.range.DoubleRange;
 import org.apache.commons.functor.generator.range.NumericRange;
 
+import fuzzy.internal.functions.Doubles;
 import fuzzy.internal.functions.Sum;
+import fuzzy.mf.AnalyticallyDefuzzifiable;
+import fuzzy.mf.DoubleMembershipFunction;
+import fuzzy.mf.Interval;
 import fuzzy.mf.MembershipFunction;
 
 /**
@@ -33,6 +38,19 @@ import fuzzy.mf.MembershipFunction;
  * </p>
  *
  * <p>
+ * When the range is a {@link DoubleRange}, the range and the membership
+ * function are evaluated with primitive doubles, and the membership function
+ * is evaluated only once for each crisp value, and only for crisp values in
+ * its {@link DoubleMembershipFunction#support() support}.
+ * </p>
+ *
+ * <p>
+ * Membership functions that are {@link AnalyticallyDefuzzifiable} can also be
+ * defuzzified in closed form over a continuous universe, optionally clipped
+ * at a level, with {@link #apply(DoubleRange, double, DoubleMembershipFunction)}.
+ * </p>
+ *
+ * <p>
  * This class is <strong>thread safe</strong>.
  * </p>
  *
@@ -48,9 +66,14 @@ public class BisectorDefuzzificationFunction<T extends Number & Comparable<T>>
      * @throws IllegalArgumentException if total area is zero
      */
 	@Override
+	@SuppressWarnings("unchecked")
     public Double apply(NumericRange<T> x, MembershipFunction<T> mf) {
+        if (x instanceof DoubleRange) {
+            return apply(Doubles.toArray((DoubleRange) x),
+                    DoubleMembershipFunction.of((MembershipFunction<Double>) (MembershipFunction<?>) mf));
+        }
         ArrayList<T> values = new ArrayList<T>(x.toCollection());
-        Collection<Double> fuzzyValues = new ArrayList<Double>();
+        List<Double> fuzzyValues = new ArrayList<Double>();
         for (T crispValue : values) {
             fuzzyValues.add(mf.apply(crispValue));
         }
@@ -63,7 +86,96 @@ public class BisectorDefuzzificationFunction<T extends Number & Comparable<T>>
         for (int i = 0; i < values.size(); ++i) {
             T value = values.get(i);
             result = value.doubleValue();
-            temp = temp + mf.apply(value);
+            temp = temp + fuzzyValues.get(i);
+            if (temp >= (totalArea / 2)) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Defuzzifies the result of a membership function applied to an array of
+     * crisp values.
+     *
+     * @param values crisp values
+     * @param mf membership function applied to the crisp values
+     * @return crisp result
+     * @throws IllegalArgumentException if total area is zero
+     * @since 0.5
+     */
+    public double apply(double[] values, DoubleMembershipFunction mf) {
+        return bisector(values, mf, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Defuzzifies a membership function clipped at a level, over a universe of
+     * crisp values.
+     *
+     * <p>If the membership function is {@link AnalyticallyDefuzzifiable} the
+     * bisector of the continuous area is computed in closed form, in constant
+     * time. Otherwise the crisp values of the range are sampled, as in
+     * {@link #apply(NumericRange, MembershipFunction)}, and the fuzzy values
+     * are clipped at the level.</p>
+     *
+     * @param universe crisp values; the step is only used when sampling
+     * @param alpha clipping level, one or more to leave the membership function
+     * as is
+     * @param mf membership function
+     * @return crisp result
+     * @throws IllegalArgumentException if total area is zero
+     * @since 0.5
+     */
+    public double apply(DoubleRange universe, double alpha, DoubleMembershipFunction mf) {
+        if (mf instanceof AnalyticallyDefuzzifiable && ((AnalyticallyDefuzzifiable) mf).hasClosedForm()) {
+            final AnalyticallyDefuzzifiable analytic = (AnalyticallyDefuzzifiable) mf;
+            final double left = universe.getLeftEndpoint().getValue();
+            final double right = universe.getRightEndpoint().getValue();
+            final double lower = Math.min(left, right);
+            final double upper = Math.max(left, right);
+            if (analytic.area(lower, upper, alpha) == 0)
+                throw new IllegalArgumentException(
+                        "Total area is zero in bisector defuzzification!");
+            return analytic.bisector(lower, upper, alpha);
+        }
+        return bisector(Doubles.toArray(universe), mf, alpha);
+    }
+
+    /**
+     * Sampled bisector of a membership function clipped at a level.
+     *
+     * @param values crisp values
+     * @param mf membership function applied to the crisp values
+     * @param alpha clipping level
+     * @return crisp result
+     * @throws IllegalArgumentException if total area is zero
+     */
+    private double bisector(double[] values, DoubleMembershipFunction mf, double alpha) {
+        // crisp values outside the support add nothing to the area
+        final Interval support = mf.support();
+        int from = 0;
+        int to = values.length;
+        while (from < to && !support.contains(values[from])) {
+            ++from;
+        }
+        while (to > from && !support.contains(values[to - 1])) {
+            --to;
+        }
+        final double[] fuzzyValues = new double[values.length];
+        mf.applyAll(values, from, to, fuzzyValues);
+        double totalArea = 0.0;
+        for (int i = from; i < to; ++i) {
+            fuzzyValues[i] = Math.min(fuzzyValues[i], alpha);
+            totalArea += fuzzyValues[i];
+        }
+        if (totalArea == 0)
+            throw new IllegalArgumentException(
+                    "Total area is zero in bisector defuzzification!");
+        double result = 0.0;
+        double temp = 0.0;
+        for (int i = from; i < to; ++i) {
+            result = values[i];
+            temp = temp + fuzzyValues[i];
             if (temp >= (totalArea / 2)) {
                 break;
             }
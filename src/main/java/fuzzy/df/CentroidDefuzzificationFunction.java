@@ -13,15 +13,14 @@
  */
 package fuzzy.df;
 
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Collections;
-
+import org.apache.commons.functor.generator.range.DoubleRange;
 import org.apache.commons.functor.generator.range.NumericRange;
 
-import fuzzy.internal.functions.Sum;
+import fuzzy.internal.functions.Doubles;
+import fuzzy.mf.AnalyticallyDefuzzifiable;
+import fuzzy.mf.DoubleMembershipFunction;
+import fuzzy.mf.Interval;
 import fuzzy.mf.MembershipFunction;
-import fuzzy.util.CrispFuzzyProduct;
 
 /**
  * Centroid defuzzification function. Equivalent to Matlab
@@ -42,6 +41,19 @@ import fuzzy.util.CrispFuzzyProduct;
  * </p>
  *
  * <p>
+ * When the range is a {@link DoubleRange}, the range and the membership
+ * function are evaluated with primitive doubles, and the membership function
+ * is evaluated only once for each crisp value, and only for crisp values in
+ * its {@link DoubleMembershipFunction#support() support}.
+ * </p>
+ *
+ * <p>
+ * Membership functions that are {@link AnalyticallyDefuzzifiable} can also be
+ * defuzzified in closed form over a continuous universe, optionally clipped
+ * at a level, with {@link #apply(DoubleRange, double, DoubleMembershipFunction)}.
+ * </p>
+ *
+ * <p>
  * This class is <strong>thread safe</strong>.
  * </p>
  *
@@ -57,22 +69,110 @@ public class CentroidDefuzzificationFunction<T extends Number & Comparable<T>>
 	 * @throws IllegalArgumentException if total area is zero
 	 */
 	@Override
+	@SuppressWarnings("unchecked")
 	public Double apply(NumericRange<T> x, MembershipFunction<T> mf) {
-		Collection<T> values = Collections.unmodifiableCollection(x.toCollection());
-		Collection<Double> fuzzyValues = new ArrayList<Double>();
-		for (T crispValue : values) {
-			fuzzyValues.add(mf.apply(crispValue));
+		if (x instanceof DoubleRange) {
+			return apply(Doubles.toArray((DoubleRange) x),
+					DoubleMembershipFunction.of((MembershipFunction<Double>) (MembershipFunction<?>) mf));
+		}
+		// evaluates the membership function once for each crisp value
+		double totalArea = 0.0;
+		double sum2 = 0.0;
+		for (T crispValue : x.toCollection()) {
+			final double fuzzyValue = mf.apply(crispValue);
+			totalArea += fuzzyValue;
+			sum2 += crispValue.doubleValue() * fuzzyValue;
 		}
-		double totalArea = Sum.of(fuzzyValues);
 		if (totalArea == 0)
 			throw new IllegalArgumentException(
 					"Total area is zero in centroid defuzzification!");
-		Collection<Double> product = CrispFuzzyProduct.of(x.toCollection(), mf);
-		double sum2 = Sum.of(product);
 		double out = sum2 / totalArea;
 		return out;
 	}
 
+	/**
+	 * Defuzzifies the result of a membership function applied to an array of
+	 * crisp values.
+	 *
+	 * @param values crisp values
+	 * @param mf membership function applied to the crisp values
+	 * @return crisp result
+	 * @throws IllegalArgumentException if total area is zero
+	 * @since 0.5
+	 */
+	public double apply(double[] values, DoubleMembershipFunction mf) {
+		return centroid(values, mf, Double.POSITIVE_INFINITY);
+	}
+
+	/**
+	 * Defuzzifies a membership function clipped at a level, over a universe of
+	 * crisp values.
+	 *
+	 * <p>If the membership function is {@link AnalyticallyDefuzzifiable} the
+	 * centroid of the continuous area is computed in closed form, in constant
+	 * time. Otherwise the crisp values of the range are sampled, as in
+	 * {@link #apply(NumericRange, MembershipFunction)}, and the fuzzy values
+	 * are clipped at the level.</p>
+	 *
+	 * @param universe crisp values; the step is only used when sampling
+	 * @param alpha clipping level, one or more to leave the membership function
+	 * as is
+	 * @param mf membership function
+	 * @return crisp result
+	 * @throws IllegalArgumentException if total area is zero
+	 * @since 0.5
+	 */
+	public double apply(DoubleRange universe, double alpha, DoubleMembershipFunction mf) {
+		if (mf instanceof AnalyticallyDefuzzifiable && ((AnalyticallyDefuzzifiable) mf).hasClosedForm()) {
+			final AnalyticallyDefuzzifiable analytic = (AnalyticallyDefuzzifiable) mf;
+			final double left = universe.getLeftEndpoint().getValue();
+			final double right = universe.getRightEndpoint().getValue();
+			final double lower = Math.min(left, right);
+			final double upper = Math.max(left, right);
+			final double totalArea = analytic.area(lower, upper, alpha);
+			if (totalArea == 0)
+				throw new IllegalArgumentException(
+						"Total area is zero in centroid defuzzification!");
+			return analytic.firstMoment(lower, upper, alpha) / totalArea;
+		}
+		return centroid(Doubles.toArray(universe), mf, alpha);
+	}
+
+	/**
+	 * Sampled centroid of a membership function clipped at a level.
+	 *
+	 * @param values crisp values
+	 * @param mf membership function applied to the crisp values
+	 * @param alpha clipping level
+	 * @return crisp result
+	 * @throws IllegalArgumentException if total area is zero
+	 */
+	private double centroid(double[] values, DoubleMembershipFunction mf, double alpha) {
+		// crisp values outside the support add nothing to the sums
+		final Interval support = mf.support();
+		int from = 0;
+		int to = values.length;
+		while (from < to && !support.contains(values[from])) {
+			++from;
+		}
+		while (to > from && !support.contains(values[to - 1])) {
+			--to;
+		}
+		final double[] fuzzyValues = new double[values.length];
+		mf.applyAll(values, from, to, fuzzyValues);
+		double totalArea = 0.0;
+		double sum2 = 0.0;
+		for (int i = from; i < to; ++i) {
+			final double fuzzyValue = Math.min(fuzzyValues[i], alpha);
+			totalArea += fuzzyValue;
+			sum2 += values[i] * fuzzyValue;
+		}
+		if (totalArea == 0)
+			throw new IllegalArgumentException(
+					"Total area is zero in centroid defuzzification!");
+		return sum2 / totalArea;
+	}
+
 	/* (non-Javadoc)
 	 * @see java.lang.Object#equals(java.lang.Object)
 	 */
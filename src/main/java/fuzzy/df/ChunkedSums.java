@@ -0,0 +1,290 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package fuzzy.df;
+
+import java.util.Collection;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import org.apache.commons.functor.generator.range.DoubleRange;
+import org.apache.commons.functor.generator.range.NumericRange;
+
+import fuzzy.internal.functions.Doubles;
+import fuzzy.mf.DoubleMembershipFunction;
+import fuzzy.mf.Interval;
+import fuzzy.mf.MembershipFunction;
+
+/**
+ * Area and moment of a membership function applied to an array of crisp
+ * values, summed in fixed chunks of indices on a {@link ForkJoinPool}. Shared
+ * by the parallel centroid and bisector defuzzification functions.
+ *
+ * <p>
+ * Chunk <code>j</code> always covers the indices
+ * <code>[j * chunkSize, (j + 1) * chunkSize)</code>, whatever the number of
+ * threads. Each chunk is summed with Neumaier compensated summation, and the
+ * chunk sums are then added in chunk order with compensated summation too,
+ * so that the results are the same, bit for bit, for any number of threads.
+ * Crisp values outside the support of the membership function are skipped;
+ * as chunks are aligned to the array and not to the support, this does not
+ * change the results.
+ * </p>
+ *
+ * @since 0.5
+ */
+final class ChunkedSums {
+
+	/**
+	 * Default number of crisp values in a chunk.
+	 */
+	static final int DEFAULT_CHUNK_SIZE = 1 << 14;
+
+	private final double[] values;
+	private final DoubleMembershipFunction mf;
+	private final double[] fuzzyValues;
+	private final int chunkSize;
+	private final int from;
+	private final int to;
+	private final int firstChunk;
+	private final double[] areas;
+	private final double[] moments;
+
+	/**
+	 * Sums the fuzzy values, and optionally the moments, of each chunk. The
+	 * fuzzy values are either computed by the membership function, chunk by
+	 * chunk on the pool, or given already computed.
+	 *
+	 * @param pool pool that sums the chunks
+	 * @param values crisp values
+	 * @param mf membership function, or null if the fuzzy values are given
+	 * @param fuzzyValues fuzzy values of the crisp values, or null if the
+	 * membership function is given
+	 * @param chunkSize number of crisp values in a chunk
+	 * @param withMoments whether to sum the moments too
+	 */
+	ChunkedSums(ForkJoinPool pool, double[] values, DoubleMembershipFunction mf, double[] fuzzyValues,
+			int chunkSize, boolean withMoments) {
+		this.values = values;
+		this.mf = mf;
+		this.fuzzyValues = fuzzyValues;
+		this.chunkSize = chunkSize;
+		final Interval support = mf == null ? Interval.ALL : mf.support();
+		int from = 0;
+		int to = values.length;
+		while (from < to && !support.contains(values[from])) {
+			++from;
+		}
+		while (to > from && !support.contains(values[to - 1])) {
+			--to;
+		}
+		this.from = from;
+		this.to = to;
+		this.firstChunk = from / chunkSize;
+		final int chunks = from == to ? 0 : (to - 1) / chunkSize - firstChunk + 1;
+		this.areas = new double[chunks];
+		this.moments = withMoments ? new double[chunks] : null;
+		if (chunks > 0) {
+			pool.invoke(new ChunkTask(0, chunks));
+		}
+	}
+
+	/**
+	 * Sums a membership function over a range. A {@link DoubleRange} is
+	 * evaluated with primitive doubles, chunk by chunk on the pool; the fuzzy
+	 * values of other ranges are computed on the calling thread, and only
+	 * summed on the pool.
+	 *
+	 * @param pool pool that sums the chunks
+	 * @param x crisp values
+	 * @param mf membership function
+	 * @param chunkSize number of crisp values in a chunk
+	 * @param withMoments whether to sum the moments too
+	 * @return chunk sums
+	 */
+	@SuppressWarnings("unchecked")
+	static <T extends Number & Comparable<T>> ChunkedSums of(ForkJoinPool pool, NumericRange<T> x,
+			MembershipFunction<T> mf, int chunkSize, boolean withMoments) {
+		if (x instanceof DoubleRange) {
+			return new ChunkedSums(pool, Doubles.toArray((DoubleRange) x),
+					DoubleMembershipFunction.of((MembershipFunction<Double>) (MembershipFunction<?>) mf), null,
+					chunkSize, withMoments);
+		}
+		final Collection<T> crispValues = x.toCollection();
+		final double[] values = new double[crispValues.size()];
+		final double[] fuzzyValues = new double[values.length];
+		int i = 0;
+		for (T crispValue : crispValues) {
+			values[i] = crispValue.doubleValue();
+			fuzzyValues[i] = mf.apply(crispValue);
+			i++;
+		}
+		return new ChunkedSums(pool, values, null, fuzzyValues, chunkSize, withMoments);
+	}
+
+	/**
+	 * Sums a range of chunks, splitting it in two until a single chunk is
+	 * left.
+	 */
+	private final class ChunkTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int lo;
+		private final int hi;
+
+		ChunkTask(int lo, int hi) {
+			this.lo = lo;
+			this.hi = hi;
+		}
+
+		@Override
+		protected void compute() {
+			if (hi - lo == 1) {
+				sumChunk(lo);
+				return;
+			}
+			final int middle = (lo + hi) >>> 1;
+			invokeAll(new ChunkTask(lo, middle), new ChunkTask(middle, hi));
+		}
+
+	}
+
+	/**
+	 * @param chunk chunk, counted from the first chunk with crisp values in
+	 * the support
+	 * @return first index of the chunk
+	 */
+	private int start(int chunk) {
+		return Math.max(from, (firstChunk + chunk) * chunkSize);
+	}
+
+	/**
+	 * @param chunk chunk, counted from the first chunk with crisp values in
+	 * the support
+	 * @return last index of the chunk, exclusive
+	 */
+	private int end(int chunk) {
+		return Math.min(to, (firstChunk + chunk + 1) * chunkSize);
+	}
+
+	private void sumChunk(int chunk) {
+		final int start = start(chunk);
+		final int end = end(chunk);
+		final double[] fuzzyValues = new double[end - start];
+		evaluate(start, end, fuzzyValues);
+		double area = 0.0;
+		double areaCompensation = 0.0;
+		double moment = 0.0;
+		double momentCompensation = 0.0;
+		for (int i = start; i < end; i++) {
+			final double y = fuzzyValues[i - start];
+			double t = area + y;
+			areaCompensation += Math.abs(area) >= Math.abs(y) ? (area - t) + y : (y - t) + area;
+			area = t;
+			if (moments != null) {
+				final double xy = values[i] * y;
+				t = moment + xy;
+				momentCompensation += Math.abs(moment) >= Math.abs(xy) ? (moment - t) + xy : (xy - t) + moment;
+				moment = t;
+			}
+		}
+		areas[chunk] = area + areaCompensation;
+		if (moments != null) {
+			moments[chunk] = moment + momentCompensation;
+		}
+	}
+
+	/**
+	 * Fuzzifies the crisp values of <code>[start, end)</code> into a buffer
+	 * indexed from zero.
+	 */
+	private void evaluate(int start, int end, double[] fuzzyValues) {
+		if (mf == null) {
+			System.arraycopy(this.fuzzyValues, start, fuzzyValues, 0, end - start);
+			return;
+		}
+		final double[] crispValues = new double[end - start];
+		System.arraycopy(values, start, crispValues, 0, end - start);
+		mf.applyAll(crispValues, 0, crispValues.length, fuzzyValues);
+	}
+
+	/**
+	 * @return total area
+	 */
+	double area() {
+		return sum(areas);
+	}
+
+	/**
+	 * @return total moment
+	 */
+	double moment() {
+		return sum(moments);
+	}
+
+	/**
+	 * Neumaier compensated sum, in order.
+	 */
+	private static double sum(double[] xs) {
+		double sum = 0.0;
+		double compensation = 0.0;
+		for (double x : xs) {
+			final double t = sum + x;
+			compensation += Math.abs(sum) >= Math.abs(x) ? (sum - t) + x : (x - t) + sum;
+			sum = t;
+		}
+		return sum + compensation;
+	}
+
+	/**
+	 * Finds the first crisp value where the running sum of the fuzzy values
+	 * reaches half of the total area: a prefix sum over the chunks finds the
+	 * chunk, which is then evaluated again and scanned.
+	 *
+	 * @param totalArea total area, not zero
+	 * @return bisector
+	 */
+	double bisector(double totalArea) {
+		final double half = totalArea / 2;
+		double sum = 0.0;
+		double compensation = 0.0;
+		int chunk = 0;
+		for (; chunk < areas.length - 1; chunk++) {
+			final double x = areas[chunk];
+			final double t = sum + x;
+			final double c = compensation + (Math.abs(sum) >= Math.abs(x) ? (sum - t) + x : (x - t) + sum);
+			if (t + c >= half) {
+				break;
+			}
+			sum = t;
+			compensation = c;
+		}
+		final int start = start(chunk);
+		final int end = end(chunk);
+		final double[] fuzzyValues = new double[end - start];
+		evaluate(start, end, fuzzyValues);
+		for (int i = start; i < end; i++) {
+			final double y = fuzzyValues[i - start];
+			final double t = sum + y;
+			compensation += Math.abs(sum) >= Math.abs(y) ? (sum - t) + y : (y - t) + sum;
+			sum = t;
+			if (sum + compensation >= half) {
+				return values[i];
+			}
+		}
+		// the chunk sum reached half of the area, rounded differently
+		return values[end - 1];
+	}
+
+}
@@ -0,0 +1,292 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package fuzzy.df;
+
+import java.util.Arrays;
+
+import org.apache.commons.functor.generator.range.DoubleRange;
+
+import fuzzy.internal.functions.Doubles;
+import fuzzy.mf.DoubleMembershipFunction;
+import fuzzy.util.PlateauScanner;
+
+/**
+ * Streaming summary of a fuzzy set, that gives the results of several
+ * defuzzification functions after a single pass over the crisp values.
+ *
+ * <p>
+ * Each crisp value is given with its fuzzy value, either one at a time with
+ * {@link #add(double, double)}, or by evaluating a membership function over a
+ * range with {@link #addAll(DoubleRange, DoubleMembershipFunction)}. The
+ * membership function is evaluated once for each crisp value. The summary
+ * then answers with the area, the first moment, and the results of the
+ * centroid, bisector, smallest, largest and mean of maxima defuzzification
+ * functions, computed with the same formulas as those functions. The maxima
+ * are found after rounding the fuzzy values with a {@link PlateauScanner},
+ * to four significant digits by default, as the maxima defuzzification
+ * functions do.
+ * </p>
+ *
+ * <p>
+ * The running sums needed by the bisector are kept in buffers that grow as
+ * needed and are reused after {@link #clear()}, so that summarizing the same
+ * range again does not allocate memory.
+ * </p>
+ *
+ * <p>
+ * This class is <strong>not thread safe</strong>. Use one instance per
+ * thread.
+ * </p>
+ *
+ * @since 0.5
+ */
+public class DefuzzificationSummary {
+
+	private static final int INITIAL_CAPACITY = 64;
+
+	private final PlateauScanner scanner;
+	private double[] crispValues = new double[INITIAL_CAPACITY];
+	private double[] cumulativeAreas = new double[INITIAL_CAPACITY];
+	private int count;
+	private double area;
+	private double moment;
+	private double height;
+	private int maximaCount;
+	private double maximaSum;
+	private double smallestOfMaxima;
+	private double largestOfMaxima;
+
+	/**
+	 * Creates an empty summary, that rounds fuzzy values to four significant
+	 * digits to find the maxima.
+	 */
+	public DefuzzificationSummary() {
+		this(new PlateauScanner());
+	}
+
+	/**
+	 * Creates an empty summary.
+	 *
+	 * @param scanner rounds the fuzzy values to find the maxima
+	 */
+	public DefuzzificationSummary(PlateauScanner scanner) {
+		this.scanner = scanner;
+		clear();
+	}
+
+	/**
+	 * Removes all crisp values from this summary. The buffers are kept.
+	 */
+	public void clear() {
+		count = 0;
+		area = 0.0;
+		moment = 0.0;
+		height = Double.NEGATIVE_INFINITY;
+		maximaCount = 0;
+		maximaSum = 0.0;
+		smallestOfMaxima = Double.NaN;
+		largestOfMaxima = Double.NaN;
+	}
+
+	/**
+	 * Adds a crisp value and its fuzzy value.
+	 *
+	 * @param crispValue crisp value
+	 * @param fuzzyValue fuzzy value of the crisp value
+	 */
+	public void add(double crispValue, double fuzzyValue) {
+		if (count == crispValues.length) {
+			final int capacity = count * 2;
+			crispValues = Arrays.copyOf(crispValues, capacity);
+			cumulativeAreas = Arrays.copyOf(cumulativeAreas, capacity);
+		}
+		area += fuzzyValue;
+		moment += crispValue * fuzzyValue;
+		crispValues[count] = crispValue;
+		cumulativeAreas[count] = area;
+		count++;
+
+		final double rounded = scanner.round(fuzzyValue);
+		if (rounded > height) {
+			height = rounded;
+			maximaCount = 1;
+			maximaSum = crispValue;
+			smallestOfMaxima = crispValue;
+			largestOfMaxima = crispValue;
+		} else if (rounded == height) {
+			maximaCount++;
+			maximaSum += crispValue;
+			if (Math.abs(crispValue) < Math.abs(smallestOfMaxima)) {
+				smallestOfMaxima = crispValue;
+			}
+			if (Math.abs(crispValue) > Math.abs(largestOfMaxima)) {
+				largestOfMaxima = crispValue;
+			}
+		}
+	}
+
+	/**
+	 * Adds the crisp values of an array, evaluating a membership function
+	 * once for each of them.
+	 *
+	 * @param values crisp values
+	 * @param mf membership function
+	 */
+	public void addAll(double[] values, DoubleMembershipFunction mf) {
+		for (int i = 0; i < values.length; i++) {
+			add(values[i], mf.applyAsDouble(values[i]));
+		}
+	}
+
+	/**
+	 * Adds the crisp values of a range, evaluating a membership function once
+	 * for each of them. The crisp values are generated as the range generates
+	 * them, without creating a collection or an array.
+	 *
+	 * @param range crisp values
+	 * @param mf membership function
+	 */
+	public void addAll(DoubleRange range, DoubleMembershipFunction mf) {
+		final int size = Doubles.size(range);
+		final double step = range.getStep();
+		double value = Doubles.first(range);
+		for (int i = 0; i < size; i++) {
+			add(value, mf.applyAsDouble(value));
+			value += step;
+		}
+	}
+
+	/**
+	 * Summarizes a membership function over a range of crisp values.
+	 *
+	 * @param range crisp values
+	 * @param mf membership function
+	 * @return a new summary
+	 */
+	public static DefuzzificationSummary of(DoubleRange range, DoubleMembershipFunction mf) {
+		final DefuzzificationSummary summary = new DefuzzificationSummary();
+		summary.addAll(range, mf);
+		return summary;
+	}
+
+	/**
+	 * @return number of crisp values added
+	 */
+	public int getCount() {
+		return count;
+	}
+
+	/**
+	 * @return sum of the fuzzy values
+	 */
+	public double getArea() {
+		return area;
+	}
+
+	/**
+	 * @return sum of the products of each crisp value with its fuzzy value
+	 */
+	public double getMoment() {
+		return moment;
+	}
+
+	/**
+	 * @return maximum fuzzy value, rounded, or negative infinity if the
+	 * summary is empty
+	 */
+	public double getHeight() {
+		return height;
+	}
+
+	/**
+	 * Returns the same result as {@link CentroidDefuzzificationFunction}.
+	 *
+	 * @return centroid
+	 * @throws IllegalArgumentException if total area is zero
+	 */
+	public double getCentroid() {
+		if (area == 0)
+			throw new IllegalArgumentException(
+					"Total area is zero in centroid defuzzification!");
+		return moment / area;
+	}
+
+	/**
+	 * Returns the same result as {@link BisectorDefuzzificationFunction}: the
+	 * first crisp value where the running sum of the fuzzy values reaches half
+	 * of the area. Found by binary search over the running sums, which never
+	 * decrease as fuzzy values are not negative.
+	 *
+	 * @return bisector
+	 * @throws IllegalArgumentException if total area is zero
+	 */
+	public double getBisector() {
+		if (area == 0)
+			throw new IllegalArgumentException(
+					"Total area is zero in bisector defuzzification!");
+		final double half = area / 2;
+		int low = 0;
+		int high = count - 1;
+		while (low < high) {
+			final int middle = (low + high) >>> 1;
+			if (cumulativeAreas[middle] >= half) {
+				high = middle;
+			} else {
+				low = middle + 1;
+			}
+		}
+		return crispValues[low];
+	}
+
+	/**
+	 * Returns the crisp value with the smallest absolute value among those
+	 * with the maximum fuzzy value, as
+	 * {@link SmallestOfMaximaDefuzzificationFunction}.
+	 *
+	 * @return smallest of maxima, or NaN if the summary is empty
+	 */
+	public double getSmallestOfMaxima() {
+		return smallestOfMaxima;
+	}
+
+	/**
+	 * Returns the crisp value with the largest absolute value among those
+	 * with the maximum fuzzy value, as
+	 * {@link LargestOfMaximaDefuzzificationFunction}.
+	 *
+	 * @return largest of maxima, or NaN if the summary is empty
+	 */
+	public double getLargestOfMaxima() {
+		return largestOfMaxima;
+	}
+
+	/**
+	 * Returns the mean of the crisp values with the maximum fuzzy value, as
+	 * {@link MeanOfMaximaDefuzzificationFunction}.
+	 *
+	 * @return mean of maxima, or NaN if the summary is empty
+	 */
+	public double getMeanOfMaxima() {
+		return maximaSum / maximaCount;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "Defuzzification Summary ["+count+" "+area+" "+moment+" "+height+"]";
+	}
+
+}
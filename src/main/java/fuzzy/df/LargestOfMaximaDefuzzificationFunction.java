@@ -15,11 +15,14 @@ package fuzzy.df;
 
 import java.util.Collection;
 
+import org.apache.commons.functor.generator.range.DoubleRange;
 import org.apache.commons.functor.generator.range.NumericRange;
 
-import fuzzy.internal.functions.Max;
+import fuzzy.internal.functions.Doubles;
+import fuzzy.mf.AnalyticallyDefuzzifiable;
+import fuzzy.mf.DoubleMembershipFunction;
+import fuzzy.mf.Interval;
 import fuzzy.mf.MembershipFunction;
-import fuzzy.util.MaxMF;
 
 /**
  * Largest Of Maxima defuzzification function. Equivalent to Matlab
@@ -31,6 +34,11 @@ import fuzzy.util.MaxMF;
  * </p>
  *
  * <p>
+ * Fuzzy values are rounded to four significant digits before looking for
+ * the maximum, like Matlab, with a {@link fuzzy.util.PlateauScanner}.
+ * </p>
+ *
+ * <p>
  * This class is <strong>thread safe</strong>.
  * </p>
  *
@@ -45,13 +53,57 @@ public class LargestOfMaximaDefuzzificationFunction<T extends Number & Comparabl
 	 * @see fuzzy.df.DefuzzificationFunction#apply(org.apache.commons.functor.generator.range.NumericRange, fuzzy.mf.MembershipFunction)
 	 */
 	@Override
+	@SuppressWarnings("unchecked")
 	public Double apply(NumericRange<T> x, MembershipFunction<T> mf) {
-        Collection<Double> maximumValues = MaxMF.of(x.toCollection(), mf)
-                .keySet();
-        return Max.of(maximumValues, /* abs */ true);
-    }
+		if (x instanceof DoubleRange) {
+			return apply(Doubles.toArray((DoubleRange) x),
+					DoubleMembershipFunction.of((MembershipFunction<Double>) (MembershipFunction<?>) mf));
+		}
+		final Collection<T> values = x.toCollection();
+		final double[] crispValues = new double[values.size()];
+		return Maxima.of(values, mf, crispValues).largest(crispValues);
+	}
 
-    /* (non-Javadoc)
+	/**
+	 * Defuzzifies the result of a membership function applied to an array of
+	 * crisp values.
+	 *
+	 * @param values crisp values
+	 * @param mf membership function applied to the crisp values
+	 * @return crisp result, 0.0 if there are no crisp values
+	 * @since 0.5
+	 */
+	public double apply(double[] values, DoubleMembershipFunction mf) {
+		return Maxima.of(values, mf, Double.POSITIVE_INFINITY).largest(values);
+	}
+
+	/**
+	 * Defuzzifies a membership function clipped at a level, over a universe of
+	 * crisp values.
+	 *
+	 * <p>If the membership function is {@link AnalyticallyDefuzzifiable} the
+	 * maxima of the continuous universe are computed in closed form, in
+	 * constant time. Otherwise the crisp values of the range are sampled, as
+	 * in {@link #apply(NumericRange, MembershipFunction)}, and the fuzzy
+	 * values are clipped at the level.</p>
+	 *
+	 * @param universe crisp values; the step is only used when sampling
+	 * @param alpha clipping level, one or more to leave the membership function
+	 * as is
+	 * @param mf membership function
+	 * @return crisp result
+	 * @since 0.5
+	 */
+	public double apply(DoubleRange universe, double alpha, DoubleMembershipFunction mf) {
+		final Interval maxima = Maxima.analytic(universe, alpha, mf);
+		if (maxima == null) {
+			final double[] values = Doubles.toArray(universe);
+			return Maxima.of(values, mf, alpha).largest(values);
+		}
+		return Math.abs(maxima.getLower()) >= Math.abs(maxima.getUpper()) ? maxima.getLower() : maxima.getUpper();
+	}
+
+	/* (non-Javadoc)
 	 * @see java.lang.Object#equals(java.lang.Object)
 	 */
 	@Override
@@ -0,0 +1,114 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package fuzzy.df;
+
+import java.util.Collection;
+
+import org.apache.commons.functor.generator.range.DoubleRange;
+import org.apache.commons.functor.generator.range.NumericRange;
+
+import fuzzy.internal.functions.Doubles;
+import fuzzy.mf.DoubleMembershipFunction;
+import fuzzy.mf.MembershipFunction;
+
+/**
+ * Leftmost Maximum defuzzification function. Equivalent to the
+ * <code>LM</code> (left-most maximum) method of IEC 61131-7.
+ *
+ * <p>
+ * Uses the first crisp value of the range whose fuzzy value is the
+ * maximum, so the left-most one for a range in increasing order. Unlike
+ * {@link SmallestOfMaximaDefuzzificationFunction}, which compares absolute
+ * values like Matlab, the sign of the crisp values does not matter.
+ * </p>
+ *
+ * <p>
+ * Fuzzy values are rounded to four significant digits before looking for
+ * the maximum, like the other maxima defuzzification functions, with a
+ * {@link fuzzy.util.PlateauScanner}.
+ * </p>
+ *
+ * <p>
+ * This class is <strong>thread safe</strong>.
+ * </p>
+ *
+ * @param <T> numeric type used in this defuzzification function
+ * @since 0.5
+ */
+public class LeftmostMaximumDefuzzificationFunction<T extends Number & Comparable<T>> implements
+		DefuzzificationFunction<T> {
+
+	/*
+	 * (non-Javadoc)
+	 * @see fuzzy.df.DefuzzificationFunction#apply(org.apache.commons.functor.generator.range.NumericRange, fuzzy.mf.MembershipFunction)
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public Double apply(NumericRange<T> x, MembershipFunction<T> mf) {
+		if (x instanceof DoubleRange) {
+			return apply(Doubles.toArray((DoubleRange) x),
+					DoubleMembershipFunction.of((MembershipFunction<Double>) (MembershipFunction<?>) mf));
+		}
+		final Collection<T> values = x.toCollection();
+		final double[] crispValues = new double[values.size()];
+		return Maxima.of(values, mf, crispValues).first(crispValues);
+	}
+
+	/**
+	 * Defuzzifies the result of a membership function applied to an array of
+	 * crisp values.
+	 *
+	 * @param values crisp values
+	 * @param mf membership function applied to the crisp values
+	 * @return crisp result, NaN if there are no crisp values
+	 */
+	public double apply(double[] values, DoubleMembershipFunction mf) {
+		return Maxima.of(values, mf, Double.POSITIVE_INFINITY).first(values);
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#equals(java.lang.Object)
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if(obj == null) {
+			return false;
+		}
+		if(obj == this) {
+			return true;
+		}
+		if(!(obj instanceof LeftmostMaximumDefuzzificationFunction)) {
+			return false;
+		}
+		return true;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#hashCode()
+	 */
+	@Override
+	public int hashCode() {
+		int hash = "LeftmostMaximumDefuzzificationFunction".hashCode();
+		return hash;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "Leftmost Maximum Defuzzification Function";
+	}
+
+}
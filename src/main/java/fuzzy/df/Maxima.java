@@ -0,0 +1,126 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package fuzzy.df;
+
+import java.util.Collection;
+
+import org.apache.commons.functor.generator.range.DoubleRange;
+
+import fuzzy.mf.AnalyticallyDefuzzifiable;
+import fuzzy.mf.DoubleMembershipFunction;
+import fuzzy.mf.Interval;
+import fuzzy.mf.MembershipFunction;
+import fuzzy.util.PlateauScanner;
+import fuzzy.util.PlateauScanner.Plateaus;
+
+/**
+ * Maxima of a membership function, shared by the smallest, largest and mean
+ * of maxima defuzzification functions.
+ *
+ * @since 0.5
+ */
+final class Maxima {
+
+	private static final PlateauScanner SCANNER = new PlateauScanner();
+
+	private Maxima() {
+	}
+
+	/**
+	 * Finds the maxima of a membership function applied to a collection.
+	 *
+	 * @param x crisp values
+	 * @param mf membership function
+	 * @param crispValues where the crisp values are copied, of the size of
+	 * the collection
+	 * @return maxima
+	 */
+	static <T extends Number & Comparable<T>> Plateaus of(Collection<T> x, MembershipFunction<T> mf, double[] crispValues) {
+		final double[] fuzzyValues = new double[crispValues.length];
+		int i = 0;
+		for (T crispValue : x) {
+			crispValues[i] = crispValue.doubleValue();
+			fuzzyValues[i] = mf.apply(crispValue);
+			i++;
+		}
+		return SCANNER.scan(fuzzyValues);
+	}
+
+	/**
+	 * Finds the maxima of a membership function, clipped at a level, applied
+	 * to an array of crisp values. Crisp values outside the support are only
+	 * evaluated if no fuzzy value inside is greater than zero.
+	 *
+	 * @param values crisp values
+	 * @param mf membership function
+	 * @param alpha clipping level, positive infinity to leave the membership
+	 * function as is
+	 * @return maxima
+	 */
+	static Plateaus of(double[] values, DoubleMembershipFunction mf, double alpha) {
+		final Interval support = mf.support();
+		int from = 0;
+		int to = values.length;
+		while (from < to && !support.contains(values[from])) {
+			++from;
+		}
+		while (to > from && !support.contains(values[to - 1])) {
+			--to;
+		}
+		final double[] fuzzyValues = new double[values.length];
+		final Plateaus plateaus = new Plateaus();
+		evaluate(values, mf, alpha, from, to, fuzzyValues);
+		SCANNER.scan(fuzzyValues, from, to, plateaus);
+		if (!(plateaus.getHeight() > 0.0) && (from > 0 || to < values.length)) {
+			// values outside the support are maxima too
+			evaluate(values, mf, alpha, 0, from, fuzzyValues);
+			evaluate(values, mf, alpha, to, values.length, fuzzyValues);
+			SCANNER.scan(fuzzyValues, 0, values.length, plateaus);
+		}
+		return plateaus;
+	}
+
+	/**
+	 * Fuzzifies <code>values[from]</code> to <code>values[to - 1]</code>,
+	 * clipping the fuzzy values at a level.
+	 */
+	private static void evaluate(double[] values, DoubleMembershipFunction mf, double alpha, int from, int to,
+			double[] fuzzyValues) {
+		mf.applyAll(values, from, to, fuzzyValues);
+		if (alpha != Double.POSITIVE_INFINITY) {
+			for (int i = from; i < to; i++) {
+				fuzzyValues[i] = Math.min(fuzzyValues[i], alpha);
+			}
+		}
+	}
+
+	/**
+	 * Returns the maxima of a membership function clipped at a level, in
+	 * closed form.
+	 *
+	 * @param universe crisp values
+	 * @param alpha clipping level
+	 * @param mf membership function
+	 * @return maxima, or <code>null</code> if there is no closed form
+	 */
+	static Interval analytic(DoubleRange universe, double alpha, DoubleMembershipFunction mf) {
+		if (!(mf instanceof AnalyticallyDefuzzifiable) || !((AnalyticallyDefuzzifiable) mf).hasClosedForm()) {
+			return null;
+		}
+		final double left = universe.getLeftEndpoint().getValue();
+		final double right = universe.getRightEndpoint().getValue();
+		return ((AnalyticallyDefuzzifiable) mf).maxima(Math.min(left, right), Math.max(left, right), alpha);
+	}
+
+}
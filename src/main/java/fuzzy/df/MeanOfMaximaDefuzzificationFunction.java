@@ -15,12 +15,14 @@ package fuzzy.df;
 
 import java.util.Collection;
 
+import org.apache.commons.functor.generator.range.DoubleRange;
 import org.apache.commons.functor.generator.range.NumericRange;
-import org.apache.commons.math3.stat.descriptive.moment.Mean;
 
 import fuzzy.internal.functions.Doubles;
+import fuzzy.mf.AnalyticallyDefuzzifiable;
+import fuzzy.mf.DoubleMembershipFunction;
+import fuzzy.mf.Interval;
 import fuzzy.mf.MembershipFunction;
-import fuzzy.util.MaxMF;
 
 /**
  * Mean Of Maxima defuzzification function. Equivalent to Matlab
@@ -32,6 +34,11 @@ import fuzzy.util.MaxMF;
  * </p>
  *
  * <p>
+ * Fuzzy values are rounded to four significant digits before looking for
+ * the maximum, like Matlab, with a {@link fuzzy.util.PlateauScanner}.
+ * </p>
+ *
+ * <p>
  * This class is <strong>thread safe</strong>.
  * </p>
  *
@@ -41,16 +48,60 @@ import fuzzy.util.MaxMF;
 public class MeanOfMaximaDefuzzificationFunction<T extends Number & Comparable<T>>
         implements DefuzzificationFunction<T> {
 
-    /*
-     * (non-Javadoc)
-     * @see fuzzy.df.DefuzzificationFunction#apply(org.apache.commons.functor.generator.range.NumericRange, fuzzy.mf.MembershipFunction)
-     */
-    public Double apply(NumericRange<T> x, MembershipFunction<T> mf) {
-        Collection<Double> maximumValues = MaxMF.of(x.toCollection(), mf)
-                .keySet();
-        double mean = new Mean().evaluate(Doubles.toArray(maximumValues));
-        return mean;
-    }
+	/*
+	 * (non-Javadoc)
+	 * @see fuzzy.df.DefuzzificationFunction#apply(org.apache.commons.functor.generator.range.NumericRange, fuzzy.mf.MembershipFunction)
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public Double apply(NumericRange<T> x, MembershipFunction<T> mf) {
+		if (x instanceof DoubleRange) {
+			return apply(Doubles.toArray((DoubleRange) x),
+					DoubleMembershipFunction.of((MembershipFunction<Double>) (MembershipFunction<?>) mf));
+		}
+		final Collection<T> values = x.toCollection();
+		final double[] crispValues = new double[values.size()];
+		return Maxima.of(values, mf, crispValues).mean(crispValues);
+	}
+
+	/**
+	 * Defuzzifies the result of a membership function applied to an array of
+	 * crisp values.
+	 *
+	 * @param values crisp values
+	 * @param mf membership function applied to the crisp values
+	 * @return crisp result, NaN if there are no crisp values
+	 * @since 0.5
+	 */
+	public double apply(double[] values, DoubleMembershipFunction mf) {
+		return Maxima.of(values, mf, Double.POSITIVE_INFINITY).mean(values);
+	}
+
+	/**
+	 * Defuzzifies a membership function clipped at a level, over a universe of
+	 * crisp values.
+	 *
+	 * <p>If the membership function is {@link AnalyticallyDefuzzifiable} the
+	 * maxima of the continuous universe are computed in closed form, in
+	 * constant time. Otherwise the crisp values of the range are sampled, as
+	 * in {@link #apply(NumericRange, MembershipFunction)}, and the fuzzy
+	 * values are clipped at the level.</p>
+	 *
+	 * @param universe crisp values; the step is only used when sampling
+	 * @param alpha clipping level, one or more to leave the membership function
+	 * as is
+	 * @param mf membership function
+	 * @return crisp result
+	 * @since 0.5
+	 */
+	public double apply(DoubleRange universe, double alpha, DoubleMembershipFunction mf) {
+		final Interval maxima = Maxima.analytic(universe, alpha, mf);
+		if (maxima == null) {
+			final double[] values = Doubles.toArray(universe);
+			return Maxima.of(values, mf, alpha).mean(values);
+		}
+		return maxima.getLower() + (maxima.getUpper() - maxima.getLower()) / 2;
+	}
 
 	/* (non-Javadoc)
 	 * @see java.lang.Object#equals(java.lang.Object)
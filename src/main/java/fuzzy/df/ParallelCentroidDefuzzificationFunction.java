@@ -0,0 +1,174 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package fuzzy.df;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.apache.commons.functor.generator.range.DoubleRange;
+import org.apache.commons.functor.generator.range.NumericRange;
+
+import fuzzy.mf.DoubleMembershipFunction;
+import fuzzy.mf.MembershipFunction;
+
+/**
+ * Parallel centroid defuzzification function. Computes the centroid (center of
+ * gravity) of the fuzzy values, as {@link CentroidDefuzzificationFunction}
+ * does, splitting the range into chunks of indices that are evaluated and
+ * summed on a {@link ForkJoinPool}. Meant for ranges with millions of crisp
+ * values.
+ *
+ * <p>
+ * The chunks have a fixed size, and do not depend on the number of threads of
+ * the pool. Each chunk is summed with compensated (Neumaier) summation, and
+ * the chunk sums are added in order, so that the result is the same, bit for
+ * bit, whatever the parallelism of the pool. As the sums are compensated, the
+ * result may differ in the last bits from the sequential function.
+ * </p>
+ *
+ * <p>
+ * When the range is a {@link DoubleRange} the membership function is
+ * evaluated on the pool, with primitive doubles; for other ranges it is
+ * evaluated on the calling thread, and only the sums are parallel.
+ * </p>
+ *
+ * <p>
+ * This class is <strong>thread safe</strong>, if the membership function is.
+ * </p>
+ *
+ * @param <T> numeric type used in this defuzzification function
+ * @since 0.5
+ */
+public class ParallelCentroidDefuzzificationFunction<T extends Number & Comparable<T>>
+		implements DefuzzificationFunction<T> {
+
+	/**
+	 * Default number of crisp values in a chunk.
+	 */
+	public static final int DEFAULT_CHUNK_SIZE = ChunkedSums.DEFAULT_CHUNK_SIZE;
+
+	private final ForkJoinPool pool;
+	private final int chunkSize;
+
+	/**
+	 * Creates a parallel centroid defuzzification function that runs on the
+	 * common pool, with the default chunk size.
+	 */
+	public ParallelCentroidDefuzzificationFunction() {
+		this(ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+	}
+
+	/**
+	 * Creates a parallel centroid defuzzification function.
+	 *
+	 * @param pool pool that evaluates and sums the chunks
+	 * @param chunkSize number of crisp values in a chunk
+	 * @throws IllegalArgumentException if the chunk size is not positive
+	 */
+	public ParallelCentroidDefuzzificationFunction(ForkJoinPool pool, int chunkSize) {
+		if (pool == null) {
+			throw new IllegalArgumentException("Missing pool for parallel centroid defuzzification");
+		}
+		if (chunkSize <= 0) {
+			throw new IllegalArgumentException("Invalid chunk size " + chunkSize + " for parallel centroid defuzzification");
+		}
+		this.pool = pool;
+		this.chunkSize = chunkSize;
+	}
+
+	/**
+	 * @return pool that evaluates and sums the chunks
+	 */
+	public ForkJoinPool getPool() {
+		return pool;
+	}
+
+	/**
+	 * @return number of crisp values in a chunk
+	 */
+	public int getChunkSize() {
+		return chunkSize;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * @throws IllegalArgumentException if total area is zero
+	 */
+	@Override
+	public Double apply(NumericRange<T> x, MembershipFunction<T> mf) {
+		return centroid(ChunkedSums.of(pool, x, mf, chunkSize, true));
+	}
+
+	/**
+	 * Defuzzifies the result of a membership function applied to an array of
+	 * crisp values.
+	 *
+	 * @param values crisp values
+	 * @param mf membership function applied to the crisp values
+	 * @return crisp result
+	 * @throws IllegalArgumentException if total area is zero
+	 */
+	public double apply(double[] values, DoubleMembershipFunction mf) {
+		final ChunkedSums sums = new ChunkedSums(pool, values, mf, null, chunkSize, true);
+		return centroid(sums);
+	}
+
+	private static double centroid(ChunkedSums sums) {
+		final double totalArea = sums.area();
+		if (totalArea == 0)
+			throw new IllegalArgumentException(
+					"Total area is zero in centroid defuzzification!");
+		return sums.moment() / totalArea;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#equals(java.lang.Object)
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if(obj == null) {
+			return false;
+		}
+		if(obj == this) {
+			return true;
+		}
+		if(!(obj instanceof ParallelCentroidDefuzzificationFunction)) {
+			return false;
+		}
+		final ParallelCentroidDefuzzificationFunction<?> that = (ParallelCentroidDefuzzificationFunction<?>)obj;
+		return this.pool == that.pool && this.chunkSize == that.chunkSize;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#hashCode()
+	 */
+	@Override
+	public int hashCode() {
+		int hash = "ParallelCentroidDefuzzificationFunction".hashCode();
+		hash <<= 2;
+		hash ^= System.identityHashCode(pool);
+		hash <<= 2;
+		hash ^= chunkSize;
+		return hash;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "Parallel Centroid Defuzzification Function ["+pool.getParallelism()+" "+chunkSize+"]";
+	}
+
+}
@@ -0,0 +1,237 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package fuzzy.df;
+
+/**
+ * Type reduction of an interval type-2 fuzzy set, sampled over crisp values
+ * in increasing order: the centroid of the set is an interval
+ * <code>[left, right]</code>, the range of the centroids of the type-1 sets
+ * between its lower and upper membership values, and its midpoint is the
+ * crisp output.
+ *
+ * <p>
+ * {@link #ENHANCED_KARNIK_MENDEL} computes the exact interval, iterating on
+ * the switch points; {@link #WU_MENDEL} approximates it with the uncertainty
+ * bounds, in one pass; {@link #NIE_TAN} only gives the crisp output, the
+ * centroid of the mean of the lower and upper membership values, in one pass
+ * too. The methods work on arrays of primitives, and do not allocate memory.
+ * </p>
+ *
+ * @since 0.5
+ */
+public enum TypeReduction {
+
+	/**
+	 * Enhanced Karnik-Mendel algorithm: starts from the switch points
+	 * <code>n / 2.4</code> and <code>n / 1.7</code>, and updates the sums
+	 * incrementally from one switch point to the next, until the centroid
+	 * stays between the same crisp values. Exact.
+	 */
+	ENHANCED_KARNIK_MENDEL {
+		@Override
+		public double apply(double[] x, double[] lower, double[] upper, int from, int to, double[] interval) {
+			return karnikMendel(x, lower, upper, from, to, interval);
+		}
+	},
+	/**
+	 * Wu-Mendel uncertainty bounds: the inner bounds are the centroids of the
+	 * lower and upper membership values, the outer bounds are derived from
+	 * them, and each end of the interval is approximated by the mean of its
+	 * bounds, in one pass. Falls back to {@link #ENHANCED_KARNIK_MENDEL} when
+	 * every lower membership value is zero, as the bounds are undefined.
+	 */
+	WU_MENDEL {
+		@Override
+		public double apply(double[] x, double[] lower, double[] upper, int from, int to, double[] interval) {
+			double lowerSum = 0.0;
+			double upperSum = 0.0;
+			double lowerMoment = 0.0;
+			double upperMoment = 0.0;
+			for (int i = from; i < to; i++) {
+				lowerSum += lower[i];
+				upperSum += upper[i];
+				lowerMoment += x[i] * lower[i];
+				upperMoment += x[i] * upper[i];
+			}
+			if (!(lowerSum > 0.0)) {
+				return karnikMendel(x, lower, upper, from, to, interval);
+			}
+			// distances to the ends of the universe, weighted, follow from the sums
+			final double first = x[from];
+			final double last = x[to - 1];
+			final double lowerFromFirst = lowerMoment - first * lowerSum;
+			final double lowerToLast = last * lowerSum - lowerMoment;
+			final double upperFromFirst = upperMoment - first * upperSum;
+			final double upperToLast = last * upperSum - upperMoment;
+			final double lowerCentroid = lowerMoment / lowerSum;
+			final double upperCentroid = upperMoment / upperSum;
+			final double innerLeft = Math.min(lowerCentroid, upperCentroid);
+			final double innerRight = Math.max(lowerCentroid, upperCentroid);
+			final double spread = (upperSum - lowerSum) / (upperSum * lowerSum);
+			final double outerLeft = innerLeft - spread * harmonic(lowerFromFirst, upperToLast);
+			final double outerRight = innerRight + spread * harmonic(upperFromFirst, lowerToLast);
+			final double left = (outerLeft + innerLeft) / 2;
+			final double right = (innerRight + outerRight) / 2;
+			if (interval != null) {
+				interval[0] = left;
+				interval[1] = right;
+			}
+			return (left + right) / 2;
+		}
+	},
+	/**
+	 * Nie-Tan: the centroid of the mean of the lower and upper membership
+	 * values, which is close to the midpoint of the exact interval. The
+	 * interval is reduced to that point.
+	 */
+	NIE_TAN {
+		@Override
+		public double apply(double[] x, double[] lower, double[] upper, int from, int to, double[] interval) {
+			double sum = 0.0;
+			double moment = 0.0;
+			for (int i = from; i < to; i++) {
+				final double m = lower[i] + upper[i];
+				sum += m;
+				moment += x[i] * m;
+			}
+			final double y = sum > 0.0 ? moment / sum : Double.NaN;
+			if (interval != null) {
+				interval[0] = y;
+				interval[1] = y;
+			}
+			return y;
+		}
+	};
+
+	/**
+	 * Type-reduces an interval type-2 fuzzy set.
+	 *
+	 * @param x crisp values, in increasing order
+	 * @param lower lower membership values, indexed like the crisp values
+	 * @param upper upper membership values, indexed like the crisp values, not
+	 * smaller than the lower ones
+	 * @param from first index, inclusive
+	 * @param to last index, exclusive
+	 * @param interval where the ends of the centroid interval are stored, or
+	 * <code>null</code>
+	 * @return midpoint of the centroid interval, NaN if every upper
+	 * membership value is zero
+	 */
+	public abstract double apply(double[] x, double[] lower, double[] upper, int from, int to, double[] interval);
+
+	/**
+	 * @return <code>a * b / (a + b)</code>, zero if both are zero
+	 */
+	private static double harmonic(double a, double b) {
+		final double sum = a + b;
+		return sum > 0.0 ? a * b / sum : 0.0;
+	}
+
+	private static double karnikMendel(double[] x, double[] lower, double[] upper, int from, int to,
+			double[] interval) {
+		// restricted to the support of the upper membership values, so that no
+		// switch point leaves a sum of zero
+		int first = from;
+		while (first < to && !(upper[first] > 0.0)) {
+			first++;
+		}
+		int last = to - 1;
+		while (last > first && !(upper[last] > 0.0)) {
+			last--;
+		}
+		final double left;
+		final double right;
+		if (first == to) {
+			left = Double.NaN;
+			right = Double.NaN;
+		} else if (first == last) {
+			left = x[first];
+			right = x[first];
+		} else {
+			left = karnikMendel(x, lower, upper, first, last + 1, true);
+			right = karnikMendel(x, lower, upper, first, last + 1, false);
+		}
+		if (interval != null) {
+			interval[0] = left;
+			interval[1] = right;
+		}
+		return (left + right) / 2;
+	}
+
+	/**
+	 * Computes one end of the centroid interval. The left end takes the upper
+	 * membership values up to the switch point and the lower ones after it,
+	 * the right end the opposite.
+	 *
+	 * @param from first index, where the upper membership value is above zero
+	 * @param to last index, exclusive, after the last upper membership value
+	 * above zero, at least two after the first index
+	 */
+	private static double karnikMendel(double[] x, double[] lower, double[] upper, int from, int to,
+			boolean left) {
+		final int n = to - from;
+		// index of the last crisp value before the switch
+		int k = from + Math.min(Math.max((int) Math.round(n / (left ? 2.4 : 1.7)), 1), n - 1) - 1;
+		final double[] before = left ? upper : lower;
+		final double[] after = left ? lower : upper;
+		double moment = 0.0;
+		double sum = 0.0;
+		for (int i = from; i <= k; i++) {
+			moment += x[i] * before[i];
+			sum += before[i];
+		}
+		for (int i = k + 1; i < to; i++) {
+			moment += x[i] * after[i];
+			sum += after[i];
+		}
+		double y = moment / sum;
+		// the switch point moves monotonically, so at most n updates
+		for (int iteration = 0; iteration < n; iteration++) {
+			final int next = switchPoint(x, from, to - 1, y);
+			if (next == k) {
+				break;
+			}
+			// moving right turns lower values into upper ones for the left end,
+			// and upper values into lower ones for the right end
+			final double sign = (next > k) == left ? 1.0 : -1.0;
+			for (int i = Math.min(k, next) + 1; i <= Math.max(k, next); i++) {
+				final double difference = upper[i] - lower[i];
+				moment += sign * x[i] * difference;
+				sum += sign * difference;
+			}
+			k = next;
+			y = moment / sum;
+		}
+		return y;
+	}
+
+	/**
+	 * @return largest index in <code>[from, to)</code> whose crisp value is
+	 * not greater than <code>y</code>, or <code>from</code>
+	 */
+	private static int switchPoint(double[] x, int from, int to, double y) {
+		int low = from;
+		int high = to - 1;
+		while (low < high) {
+			final int middle = (low + high + 1) >>> 1;
+			if (x[middle] <= y) {
+				low = middle;
+			} else {
+				high = middle - 1;
+			}
+		}
+		return low;
+	}
+
+}
@@ -0,0 +1,366 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package fuzzy.fcl;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * Splits Fuzzy Control Language text into tokens, reading it in blocks
+ * from a {@link Reader} as it goes: words, numbers and the symbols
+ * <code>:= : ; , ( ) ..</code>. Comments, <code>(* *)</code>,
+ * <code>/* *&#47;</code> and <code>//</code> to the end of the line, are
+ * skipped.
+ *
+ * <p>
+ * This class is <strong>not thread safe</strong>.
+ * </p>
+ *
+ * @since 0.5
+ */
+final class FclLexer {
+
+	static final int EOF = 0;
+	static final int WORD = 1;
+	static final int NUMBER = 2;
+	static final int SYMBOL = 3;
+
+	private static final int BUFFER_SIZE = 8192;
+
+	// powers of ten that are exact doubles
+	private static final double[] POWERS_OF_TEN = new double[23];
+
+	static {
+		POWERS_OF_TEN[0] = 1.0;
+		for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+			POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10.0;
+		}
+	}
+
+	private final Reader reader;
+	private char[] buffer = new char[BUFFER_SIZE];
+	private int position;
+	private int limit;
+	private int line = 1;
+
+	// words already read, so that repeated names are shared and not copied
+	private String[] words = new String[256];
+	private int[] wordHashes = new int[256];
+	private int wordCount;
+
+	// current token
+	private int type;
+	private String value;
+	private double number;
+	private int tokenLine;
+	private int tokenStart;
+
+	/**
+	 * @param reader source text, read until its end and not closed
+	 */
+	FclLexer(Reader reader) {
+		this.reader = reader;
+	}
+
+	/**
+	 * @return type of the current token
+	 */
+	int type() {
+		return type;
+	}
+
+	/**
+	 * @return text of the current word or symbol
+	 */
+	String value() {
+		return value;
+	}
+
+	/**
+	 * @return value of the current number
+	 */
+	double number() {
+		return number;
+	}
+
+	/**
+	 * @return line of the current token, from one
+	 */
+	int line() {
+		return tokenLine;
+	}
+
+	/**
+	 * @param word keyword, compared ignoring case
+	 * @return whether the current token is the keyword
+	 */
+	boolean isWord(String word) {
+		return type == WORD && value.equalsIgnoreCase(word);
+	}
+
+	/**
+	 * @param symbol symbol
+	 * @return whether the current token is the symbol
+	 */
+	boolean isSymbol(String symbol) {
+		return type == SYMBOL && value.equals(symbol);
+	}
+
+	/**
+	 * @param ahead number of characters after the current one
+	 * @return character, or -1 past the end of the text
+	 */
+	private int peek(int ahead) throws IOException {
+		while (position + ahead >= limit) {
+			if (position > 0) {
+				System.arraycopy(buffer, position, buffer, 0, limit - position);
+				limit -= position;
+				position = 0;
+			} else if (limit == buffer.length) {
+				buffer = Arrays.copyOf(buffer, 2 * buffer.length);
+			}
+			final int read = reader.read(buffer, limit, buffer.length - limit);
+			if (read < 0) {
+				return -1;
+			}
+			limit += read;
+		}
+		return buffer[position + ahead];
+	}
+
+	private char take() {
+		final char c = buffer[position++];
+		if (c == '\n') {
+			line++;
+		}
+		return c;
+	}
+
+	/**
+	 * Moves to the next token.
+	 *
+	 * @throws IOException if the text cannot be read
+	 * @throws IllegalArgumentException if a comment is not closed, or a
+	 * character cannot start a token
+	 */
+	void next() throws IOException {
+		skipBlanks();
+		tokenLine = line;
+		value = null;
+		final int c = peek(0);
+		if (c < 0) {
+			type = EOF;
+			tokenStart = position;
+		} else if (isWordStart(c)) {
+			int length = 1;
+			while (isWordPart(peek(length))) {
+				length++;
+			}
+			type = WORD;
+			tokenStart = position;
+			value = word(position, length);
+			position += length;
+		} else if (isDigit(c) || (c == '-' || c == '+' || c == '.') && startsNumber()) {
+			readNumber();
+		} else if (c == ':' && peek(1) == '=') {
+			symbol(":=", 2);
+		} else if (c == '.' && peek(1) == '.') {
+			symbol("..", 2);
+		} else if (c == ':' || c == ';' || c == ',' || c == '(' || c == ')') {
+			symbol(String.valueOf((char) c), 1);
+		} else {
+			throw error("unexpected character '" + (char) c + "'");
+		}
+	}
+
+	private static boolean isWordStart(int c) {
+		return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c == '_' || c > 127 && Character.isLetter(c);
+	}
+
+	private static boolean isWordPart(int c) {
+		return isWordStart(c) || isDigit(c) || c > 127 && Character.isLetterOrDigit(c);
+	}
+
+	/**
+	 * @return the word in the buffer, shared with the previous occurrences
+	 */
+	private String word(int from, int length) {
+		int hash = 0;
+		for (int i = from; i < from + length; i++) {
+			hash = 31 * hash + buffer[i];
+		}
+		final int mask = words.length - 1;
+		int slot = hash & mask;
+		for (String word = words[slot]; word != null; word = words[slot]) {
+			if (wordHashes[slot] == hash && matches(word, from, length)) {
+				return word;
+			}
+			slot = (slot + 1) & mask;
+		}
+		final String word = new String(buffer, from, length);
+		words[slot] = word;
+		wordHashes[slot] = hash;
+		if (++wordCount > words.length / 2) {
+			rehash();
+		}
+		return word;
+	}
+
+	private boolean matches(String word, int from, int length) {
+		if (word.length() != length) {
+			return false;
+		}
+		for (int i = 0; i < length; i++) {
+			if (word.charAt(i) != buffer[from + i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void rehash() {
+		final String[] oldWords = words;
+		final int[] oldHashes = wordHashes;
+		words = new String[2 * oldWords.length];
+		wordHashes = new int[words.length];
+		final int mask = words.length - 1;
+		for (int i = 0; i < oldWords.length; i++) {
+			if (oldWords[i] != null) {
+				int slot = oldHashes[i] & mask;
+				while (words[slot] != null) {
+					slot = (slot + 1) & mask;
+				}
+				words[slot] = oldWords[i];
+				wordHashes[slot] = oldHashes[i];
+			}
+		}
+	}
+
+	private void symbol(String symbol, int length) {
+		tokenStart = position;
+		position += length;
+		type = SYMBOL;
+		value = symbol;
+	}
+
+	private static boolean isDigit(int c) {
+		return c >= '0' && c <= '9';
+	}
+
+	/**
+	 * @return whether the sign or dot under the cursor starts a number
+	 */
+	private boolean startsNumber() throws IOException {
+		final int c = peek(0);
+		if (c == '.') {
+			return isDigit(peek(1));
+		}
+		return isDigit(peek(1)) || peek(1) == '.' && isDigit(peek(2));
+	}
+
+	private void readNumber() throws IOException {
+		int length = 0;
+		final boolean negative = peek(0) == '-';
+		if (negative || peek(0) == '+') {
+			length++;
+		}
+		// digits of the mantissa, while they fit in a long exactly
+		long mantissa = 0;
+		int digits = 0;
+		int fraction = 0;
+		while (isDigit(peek(length))) {
+			mantissa = 10 * mantissa + (buffer[position + length] - '0');
+			digits++;
+			length++;
+		}
+		// a dot followed by another dot is a range
+		if (peek(length) == '.' && isDigit(peek(length + 1))) {
+			length++;
+			while (isDigit(peek(length))) {
+				mantissa = 10 * mantissa + (buffer[position + length] - '0');
+				digits++;
+				fraction++;
+				length++;
+			}
+		}
+		boolean exponent = false;
+		if ((peek(length) == 'e' || peek(length) == 'E') && (isDigit(peek(length + 1))
+				|| (peek(length + 1) == '-' || peek(length + 1) == '+') && isDigit(peek(length + 2)))) {
+			exponent = true;
+			length += 2;
+			while (isDigit(peek(length))) {
+				length++;
+			}
+		}
+		type = NUMBER;
+		tokenStart = position;
+		if (!exponent && digits <= 15 && fraction < POWERS_OF_TEN.length) {
+			// both exact, so the division is correctly rounded
+			final double value = mantissa / POWERS_OF_TEN[fraction];
+			number = negative ? -value : value;
+		} else {
+			number = Double.parseDouble(new String(buffer, position, length));
+		}
+		position += length;
+	}
+
+	private void skipBlanks() throws IOException {
+		for (;;) {
+			final int c = peek(0);
+			if (c == ' ' || c == '\t' || c == '\r' || c == '\n' || c == '\f') {
+				take();
+			} else if ((c == '(' || c == '/') && peek(1) == '*') {
+				final int from = line;
+				final char close = c == '(' ? ')' : '/';
+				take();
+				take();
+				while (!(peek(0) == '*' && peek(1) == close)) {
+					if (peek(0) < 0) {
+						tokenLine = from;
+						throw error("comment not closed");
+					}
+					take();
+				}
+				take();
+				take();
+			} else if (c == '/' && peek(1) == '/') {
+				while (peek(0) >= 0 && peek(0) != '\n') {
+					take();
+				}
+			} else {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * @return description of the current token, for error messages
+	 */
+	String describe() {
+		if (type == EOF) {
+			return "end of text";
+		}
+		return "'" + new String(buffer, tokenStart, position - tokenStart) + "'";
+	}
+
+	/**
+	 * @param message what is wrong
+	 * @return an exception locating the error at the current token
+	 */
+	IllegalArgumentException error(String message) {
+		return new IllegalArgumentException("Invalid FCL at line " + tokenLine + ": " + message);
+	}
+
+}
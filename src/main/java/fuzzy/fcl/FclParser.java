@@ -0,0 +1,714 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package fuzzy.fcl;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import fuzzy.df.BisectorDefuzzificationFunction;
+import fuzzy.df.CentroidDefuzzificationFunction;
+import fuzzy.df.DefuzzificationFunction;
+import fuzzy.df.LeftmostMaximumDefuzzificationFunction;
+import fuzzy.df.MeanOfMaximaDefuzzificationFunction;
+import fuzzy.df.RightmostMaximumDefuzzificationFunction;
+import fuzzy.system.FuzzySystem;
+import fuzzy.system.LinguisticVariable;
+import fuzzy.system.MamdaniFuzzySystem;
+import fuzzy.system.Rule;
+import fuzzy.system.SNorm;
+import fuzzy.system.Shape;
+import fuzzy.system.Term;
+import fuzzy.system.TNorm;
+import fuzzy.system.TskFuzzySystem;
+
+/**
+ * Parser of the Fuzzy Control Language (FCL) of IEC 61131-7, that compiles a
+ * function block into a {@link FuzzySystem}.
+ *
+ * <p>
+ * The text is read once, token by token, and each section goes straight into
+ * the builder of the fuzzy system, which compiles the variables and rules
+ * into flat arrays; no syntax tree is kept. Variable and term names are
+ * checked when the system is built, so the sections may come in any order.
+ * </p>
+ *
+ * <p>
+ * A function block contains:
+ * </p>
+ *
+ * <ul>
+ * <li><code>VAR_INPUT</code> and <code>VAR_OUTPUT</code>, declaring
+ * <code>name : REAL;</code> variables, in the order of the system;</li>
+ * <li>a <code>FUZZIFY</code> section for each input, and a
+ * <code>DEFUZZIFY</code> section for each output, with their terms, and an
+ * optional <code>RANGE := (lower .. upper);</code>, which otherwise spans the
+ * terms;</li>
+ * <li><code>RULEBLOCK</code> sections with operators and rules.</li>
+ * </ul>
+ *
+ * <p>
+ * Terms are written <code>TERM name := ...;</code> with points
+ * <code>(x, y) (x, y) ...</code> ({@link Shape#PIECEWISE_LINEAR}), a single
+ * number (a singleton), or, as in jFuzzyLogic, a shape and its parameters:
+ * <code>trian a b c</code>, <code>trape a b c d</code>, <code>gauss mean
+ * sigma</code>, <code>gbell a b mean</code>, <code>sigm gain center</code>,
+ * <code>dsigm</code> and <code>psigm gain1 center1 gain2 center2</code>,
+ * <code>smf a b</code>, <code>zmf a b</code> and <code>pimf a b c d</code>.
+ * </p>
+ *
+ * <p>
+ * The operators are <code>AND : MIN | PROD | BDIF;</code> and
+ * <code>OR : MAX | ASUM | BSUM;</code>, each implying its dual unless both
+ * are given, <code>ACT : MIN | PROD;</code> and
+ * <code>ACCU : MAX | BSUM | ASUM;</code>. Defuzzification is
+ * <code>METHOD : COG | COA | LM | RM | MM | COGS;</code>, with an optional
+ * <code>DEFAULT := value;</code>; <code>LM</code> and <code>RM</code> are the
+ * left-most and right-most maxima, whatever the sign of the crisp values. Rules are written
+ * <code>RULE label : IF x IS [NOT] a AND|OR ... THEN y IS b, ... [WITH
+ * weight];</code>.
+ * </p>
+ *
+ * <p>
+ * Function blocks whose outputs only have singleton terms, defuzzified with
+ * <code>COGS</code>, are compiled into a zero-order {@link TskFuzzySystem};
+ * the others into a {@link MamdaniFuzzySystem}, sampled at its default
+ * resolution. As these systems have a single set of operators, all the
+ * outputs must share the same method and default value, and all the rule
+ * blocks the same operators. Nested conditions, <code>NSUM</code>,
+ * <code>DEFAULT := NC</code> and several function blocks are not supported.
+ * </p>
+ *
+ * <p>
+ * This class is immutable and <strong>thread safe</strong>.
+ * </p>
+ *
+ * @since 0.5
+ */
+public final class FclParser {
+
+	private FclParser() {
+	}
+
+	/**
+	 * Terms and settings of a variable, until it is built.
+	 */
+	private static final class Variable {
+
+		final String name;
+		final List<String> terms = new ArrayList<String>();
+		// null for singletons
+		final List<Shape> shapes = new ArrayList<Shape>();
+		final List<double[]> parameters = new ArrayList<double[]>();
+		double lower = Double.NaN;
+		double upper = Double.NaN;
+		boolean defined;
+		String method;
+		Double defaultValue;
+
+		Variable(String name) {
+			this.name = name;
+		}
+
+	}
+
+	/**
+	 * Reads and compiles a function block.
+	 *
+	 * @param file FCL file, in UTF-8
+	 * @return the fuzzy system
+	 * @throws IOException if the file cannot be read
+	 * @throws IllegalArgumentException if the text is not valid FCL, or uses
+	 * a feature that is not supported
+	 */
+	public static FuzzySystem load(Path file) throws IOException {
+		try (Reader reader = new InputStreamReader(Files.newInputStream(file), StandardCharsets.UTF_8)) {
+			return parse(reader, false);
+		}
+	}
+
+	/**
+	 * Reads and compiles a function block.
+	 *
+	 * @param reader FCL text, read until its end and not closed
+	 * @return the fuzzy system
+	 * @throws IOException if the text cannot be read
+	 * @throws IllegalArgumentException if the text is not valid FCL, or uses
+	 * a feature that is not supported
+	 */
+	public static FuzzySystem parse(Reader reader) throws IOException {
+		return parse(reader, false);
+	}
+
+	/**
+	 * Reads and compiles a function block.
+	 *
+	 * @param reader FCL text, read until its end and not closed
+	 * @param indexRules whether to index the rules over the supports of their
+	 * antecedents
+	 * @return the fuzzy system
+	 * @throws IOException if the text cannot be read
+	 * @throws IllegalArgumentException if the text is not valid FCL, or uses
+	 * a feature that is not supported
+	 */
+	public static FuzzySystem parse(Reader reader, boolean indexRules) throws IOException {
+		return new Parse(new FclLexer(reader)).functionBlock(indexRules);
+	}
+
+	/**
+	 * State of the parse of a function block.
+	 */
+	private static final class Parse {
+
+		private final FclLexer lexer;
+		private final Map<String, Variable> inputs = new LinkedHashMap<String, Variable>();
+		private final Map<String, Variable> outputs = new LinkedHashMap<String, Variable>();
+		private final List<Rule> rules = new ArrayList<Rule>();
+		// propositions of the current rule
+		private final List<Rule.Proposition> antecedents = new ArrayList<Rule.Proposition>();
+		private final List<Rule.Proposition> consequents = new ArrayList<Rule.Proposition>();
+		private TNorm conjunction;
+		private SNorm disjunction;
+		private TNorm implication;
+		private SNorm aggregation;
+
+		Parse(FclLexer lexer) {
+			this.lexer = lexer;
+		}
+
+		FuzzySystem functionBlock(boolean indexRules) throws IOException {
+			lexer.next();
+			expectWord("FUNCTION_BLOCK");
+			if (lexer.type() == FclLexer.WORD && !isSection()) {
+				lexer.next();
+			}
+			while (!lexer.isWord("END_FUNCTION_BLOCK")) {
+				if (lexer.isWord("VAR_INPUT")) {
+					variables(inputs);
+				} else if (lexer.isWord("VAR_OUTPUT")) {
+					variables(outputs);
+				} else if (lexer.isWord("FUZZIFY")) {
+					fuzzify(inputs, "FUZZIFY", "END_FUZZIFY");
+				} else if (lexer.isWord("DEFUZZIFY")) {
+					fuzzify(outputs, "DEFUZZIFY", "END_DEFUZZIFY");
+				} else if (lexer.isWord("RULEBLOCK")) {
+					ruleBlock();
+				} else {
+					throw lexer.error("expected a section but found " + lexer.describe());
+				}
+			}
+			lexer.next();
+			if (lexer.type() != FclLexer.EOF) {
+				throw lexer.error("expected end of text but found " + lexer.describe());
+			}
+			return build(indexRules);
+		}
+
+		private boolean isSection() {
+			return lexer.isWord("VAR_INPUT") || lexer.isWord("VAR_OUTPUT") || lexer.isWord("FUZZIFY")
+					|| lexer.isWord("DEFUZZIFY") || lexer.isWord("RULEBLOCK") || lexer.isWord("END_FUNCTION_BLOCK");
+		}
+
+		private void variables(Map<String, Variable> variables) throws IOException {
+			lexer.next();
+			while (!lexer.isWord("END_VAR")) {
+				final String name = name();
+				if (inputs.containsKey(name) || outputs.containsKey(name)) {
+					throw lexer.error("duplicate variable " + name);
+				}
+				expectSymbol(":");
+				name();
+				expectSymbol(";");
+				variables.put(name, new Variable(name));
+			}
+			lexer.next();
+		}
+
+		private void fuzzify(Map<String, Variable> variables, String section, String end) throws IOException {
+			lexer.next();
+			final Variable variable = variables.get(lexer.type() == FclLexer.WORD ? lexer.value() : null);
+			if (variable == null) {
+				throw lexer.error(section + " of undeclared " + (variables == inputs ? "input " : "output ")
+						+ lexer.describe());
+			}
+			if (variable.defined) {
+				throw lexer.error("duplicate " + section + " " + variable.name);
+			}
+			variable.defined = true;
+			lexer.next();
+			while (!lexer.isWord(end)) {
+				if (lexer.isWord("TERM")) {
+					lexer.next();
+					term(variable);
+				} else if (lexer.isWord("RANGE")) {
+					lexer.next();
+					expectSymbol(":=");
+					expectSymbol("(");
+					variable.lower = number();
+					expectSymbol("..");
+					variable.upper = number();
+					expectSymbol(")");
+					expectSymbol(";");
+				} else if (variables == outputs && lexer.isWord("METHOD")) {
+					lexer.next();
+					expectSymbol(":");
+					final String method = name().toUpperCase(Locale.ROOT);
+					if (!method.equals("COGS") && defuzzification(method) == null) {
+						throw lexer.error("unsupported METHOD " + method);
+					}
+					variable.method = method;
+					expectSymbol(";");
+				} else if (variables == outputs && lexer.isWord("DEFAULT")) {
+					lexer.next();
+					expectSymbol(":=");
+					if (lexer.isWord("NC")) {
+						throw lexer.error("DEFAULT := NC is not supported");
+					}
+					variable.defaultValue = number();
+					expectSymbol(";");
+				} else if (variables == outputs && lexer.isWord("ACCU")) {
+					accumulation();
+				} else {
+					throw lexer.error("unexpected " + lexer.describe() + " in " + section + " " + variable.name);
+				}
+			}
+			lexer.next();
+		}
+
+		private void term(Variable variable) throws IOException {
+			final String name = name();
+			if (variable.terms.contains(name)) {
+				throw lexer.error("duplicate term " + name + " in variable " + variable.name);
+			}
+			expectSymbol(":=");
+			final Shape shape;
+			final List<Double> values = new ArrayList<Double>();
+			if (lexer.isSymbol("(")) {
+				shape = Shape.PIECEWISE_LINEAR;
+				while (lexer.isSymbol("(")) {
+					lexer.next();
+					values.add(number());
+					expectSymbol(",");
+					values.add(number());
+					expectSymbol(")");
+				}
+			} else if (lexer.type() == FclLexer.NUMBER) {
+				shape = null;
+				values.add(number());
+			} else {
+				final String keyword = name().toLowerCase(Locale.ROOT);
+				shape = shape(keyword);
+				if (shape == null && !keyword.equals("singleton")) {
+					throw lexer.error("unknown membership function " + keyword);
+				}
+				while (lexer.type() == FclLexer.NUMBER) {
+					values.add(number());
+				}
+			}
+			final double[] parameters = new double[values.size()];
+			for (int i = 0; i < parameters.length; i++) {
+				parameters[i] = values.get(i);
+			}
+			if (shape == null ? parameters.length != 1 : !shape.accepts(parameters.length)) {
+				throw lexer.error("invalid number of parameters " + parameters.length + " for term " + name);
+			}
+			if (shape == Shape.GAUSSIAN) {
+				// FCL writes the mean first
+				final double mean = parameters[0];
+				parameters[0] = parameters[1];
+				parameters[1] = mean;
+			}
+			expectSymbol(";");
+			variable.terms.add(name);
+			variable.shapes.add(shape);
+			variable.parameters.add(parameters);
+		}
+
+		private void ruleBlock() throws IOException {
+			lexer.next();
+			if (lexer.type() == FclLexer.WORD && !lexer.isWord("END_RULEBLOCK") && !isRuleBlockEntry()) {
+				lexer.next();
+			}
+			TNorm and = null;
+			SNorm or = null;
+			while (!lexer.isWord("END_RULEBLOCK")) {
+				if (lexer.isWord("AND")) {
+					lexer.next();
+					expectSymbol(":");
+					and = tNorm(name().toUpperCase(Locale.ROOT), true);
+					expectSymbol(";");
+				} else if (lexer.isWord("OR")) {
+					lexer.next();
+					expectSymbol(":");
+					or = sNorm(name().toUpperCase(Locale.ROOT));
+					expectSymbol(";");
+				} else if (lexer.isWord("ACT")) {
+					lexer.next();
+					expectSymbol(":");
+					implication = merge(implication, tNorm(name().toUpperCase(Locale.ROOT), false), "ACT");
+					expectSymbol(";");
+				} else if (lexer.isWord("ACCU")) {
+					accumulation();
+				} else if (lexer.isWord("RULE")) {
+					rule();
+				} else {
+					throw lexer.error("unexpected " + lexer.describe() + " in RULEBLOCK");
+				}
+			}
+			lexer.next();
+			// each of AND and OR implies its dual, after De Morgan
+			if (and != null && or == null) {
+				or = and == TNorm.MINIMUM ? SNorm.MAXIMUM : and == TNorm.PRODUCT ? SNorm.PROBABILISTIC_SUM
+						: SNorm.BOUNDED_SUM;
+			} else if (or != null && and == null) {
+				and = or == SNorm.MAXIMUM ? TNorm.MINIMUM : or == SNorm.PROBABILISTIC_SUM ? TNorm.PRODUCT
+						: TNorm.BOUNDED_DIFFERENCE;
+			}
+			if (and != null) {
+				conjunction = merge(conjunction, and, "AND");
+				disjunction = merge(disjunction, or, "OR");
+			}
+		}
+
+		private boolean isRuleBlockEntry() {
+			return lexer.isWord("AND") || lexer.isWord("OR") || lexer.isWord("ACT") || lexer.isWord("ACCU")
+					|| lexer.isWord("RULE");
+		}
+
+		private void accumulation() throws IOException {
+			lexer.next();
+			expectSymbol(":");
+			final String name = name().toUpperCase(Locale.ROOT);
+			if (name.equals("NSUM")) {
+				throw lexer.error("ACCU : NSUM is not supported");
+			}
+			aggregation = merge(aggregation, sNorm(name), "ACCU");
+			expectSymbol(";");
+		}
+
+		private <T> T merge(T current, T value, String setting) {
+			if (current != null && current != value) {
+				throw lexer.error("conflicting " + setting + " " + current + " and " + value);
+			}
+			return value;
+		}
+
+		private void rule() throws IOException {
+			lexer.next();
+			if (lexer.type() != FclLexer.WORD && lexer.type() != FclLexer.NUMBER) {
+				throw lexer.error("expected a rule label but found " + lexer.describe());
+			}
+			lexer.next();
+			expectSymbol(":");
+			expectWord("IF");
+			antecedents.clear();
+			consequents.clear();
+			boolean disjunctive = false;
+			for (;;) {
+				if (lexer.isSymbol("(")) {
+					throw lexer.error("nested conditions are not supported");
+				}
+				boolean negated = false;
+				if (lexer.isWord("NOT")) {
+					negated = true;
+					lexer.next();
+				}
+				final String variable = name();
+				expectWord("IS");
+				if (lexer.isWord("NOT")) {
+					negated = !negated;
+					lexer.next();
+				}
+				antecedents.add(new Rule.Proposition(variable, name(), negated));
+				if (lexer.isWord("THEN")) {
+					lexer.next();
+					break;
+				}
+				final boolean or = lexer.isWord("OR");
+				if (!or && !lexer.isWord("AND")) {
+					throw lexer.error("expected AND, OR or THEN but found " + lexer.describe());
+				}
+				if (antecedents.size() > 1 && or != disjunctive) {
+					throw lexer.error("rules mixing AND and OR are not supported");
+				}
+				disjunctive = or;
+				lexer.next();
+			}
+			for (;;) {
+				final String variable = name();
+				expectWord("IS");
+				consequents.add(new Rule.Proposition(variable, name(), false));
+				if (!lexer.isSymbol(",")) {
+					break;
+				}
+				lexer.next();
+			}
+			double weight = 1.0;
+			if (lexer.isWord("WITH")) {
+				lexer.next();
+				weight = number();
+				if (!(weight >= 0.0 && weight <= 1.0)) {
+					throw lexer.error("invalid rule weight " + weight);
+				}
+			}
+			expectSymbol(";");
+			rules.add(Rule.of(antecedents, disjunctive, consequents, weight));
+		}
+
+		private FuzzySystem build(boolean indexRules) {
+			if (outputs.isEmpty()) {
+				throw new IllegalArgumentException("Invalid FCL: no VAR_OUTPUT");
+			}
+			String method = null;
+			Double defaultValue = null;
+			boolean singletons = true;
+			for (Variable output : outputs.values()) {
+				if (!output.defined) {
+					throw new IllegalArgumentException("Invalid FCL: no DEFUZZIFY for output " + output.name);
+				}
+				final String m = output.method == null ? "COG" : output.method;
+				if (method != null && !method.equals(m)) {
+					throw new IllegalArgumentException("Invalid FCL: outputs with different methods " + method + " and " + m);
+				}
+				method = m;
+				if (defaultValue != null && !defaultValue.equals(output.defaultValue)) {
+					throw new IllegalArgumentException("Invalid FCL: outputs with different default values");
+				}
+				defaultValue = output.defaultValue;
+				for (Shape shape : output.shapes) {
+					singletons &= shape == null;
+				}
+			}
+			if (method.equals("COGS") != singletons) {
+				throw new IllegalArgumentException("Invalid FCL: METHOD " + method
+						+ (singletons ? " with singleton terms" : " needs singleton terms"));
+			}
+			final double value = defaultValue == null ? Double.NaN : defaultValue.doubleValue();
+			if (singletons) {
+				final TskFuzzySystem.Builder builder = TskFuzzySystem.builder().defaultValue(value)
+						.indexRules(indexRules);
+				for (Variable input : inputs.values()) {
+					builder.input(variable(input));
+				}
+				for (Variable output : outputs.values()) {
+					builder.output(output.name);
+					for (int t = 0; t < output.terms.size(); t++) {
+						builder.constant(output.name, output.terms.get(t), output.parameters.get(t)[0]);
+					}
+				}
+				if (conjunction != null) {
+					builder.conjunction(conjunction).disjunction(disjunction);
+				}
+				return builder.rules(rules).build();
+			}
+			final MamdaniFuzzySystem.Builder builder = MamdaniFuzzySystem.builder().defaultValue(value)
+					.defuzzification(defuzzification(method)).indexRules(indexRules);
+			for (Variable input : inputs.values()) {
+				builder.input(variable(input));
+			}
+			for (Variable output : outputs.values()) {
+				builder.output(variable(output));
+			}
+			if (conjunction != null) {
+				builder.conjunction(conjunction).disjunction(disjunction);
+			}
+			if (implication != null) {
+				builder.implication(implication);
+			}
+			if (aggregation != null) {
+				builder.aggregation(aggregation);
+			}
+			return builder.rules(rules).build();
+		}
+
+		private LinguisticVariable variable(Variable variable) {
+			if (!variable.defined) {
+				throw new IllegalArgumentException("Invalid FCL: no FUZZIFY for input " + variable.name);
+			}
+			double lower = variable.lower;
+			double upper = variable.upper;
+			if (Double.isNaN(lower)) {
+				lower = Double.POSITIVE_INFINITY;
+				upper = Double.NEGATIVE_INFINITY;
+				for (int t = 0; t < variable.terms.size(); t++) {
+					final double[] extent = extent(variable.shapes.get(t), variable.parameters.get(t));
+					lower = Math.min(lower, extent[0]);
+					upper = Math.max(upper, extent[1]);
+				}
+			}
+			final List<Term> terms = new ArrayList<Term>();
+			for (int t = 0; t < variable.terms.size(); t++) {
+				if (variable.shapes.get(t) == null) {
+					throw new IllegalArgumentException("Invalid FCL: singleton term " + variable.terms.get(t)
+							+ " in variable " + variable.name);
+				}
+				terms.add(new Term(variable.terms.get(t), variable.shapes.get(t), variable.parameters.get(t)));
+			}
+			return new LinguisticVariable(variable.name, lower, upper, terms);
+		}
+
+		private String name() throws IOException {
+			if (lexer.type() != FclLexer.WORD) {
+				throw lexer.error("expected a name but found " + lexer.describe());
+			}
+			final String name = lexer.value();
+			lexer.next();
+			return name;
+		}
+
+		private double number() throws IOException {
+			if (lexer.type() != FclLexer.NUMBER) {
+				throw lexer.error("expected a number but found " + lexer.describe());
+			}
+			final double number = lexer.number();
+			lexer.next();
+			return number;
+		}
+
+		private void expectWord(String word) throws IOException {
+			if (!lexer.isWord(word)) {
+				throw lexer.error("expected " + word + " but found " + lexer.describe());
+			}
+			lexer.next();
+		}
+
+		private void expectSymbol(String symbol) throws IOException {
+			if (!lexer.isSymbol(symbol)) {
+				throw lexer.error("expected '" + symbol + "' but found " + lexer.describe());
+			}
+			lexer.next();
+		}
+
+		private TNorm tNorm(String name, boolean conjunction) {
+			if (name.equals("MIN")) {
+				return TNorm.MINIMUM;
+			} else if (name.equals("PROD")) {
+				return TNorm.PRODUCT;
+			} else if (conjunction && name.equals("BDIF")) {
+				return TNorm.BOUNDED_DIFFERENCE;
+			}
+			throw lexer.error("unsupported operator " + name);
+		}
+
+		private SNorm sNorm(String name) {
+			if (name.equals("MAX")) {
+				return SNorm.MAXIMUM;
+			} else if (name.equals("ASUM")) {
+				return SNorm.PROBABILISTIC_SUM;
+			} else if (name.equals("BSUM")) {
+				return SNorm.BOUNDED_SUM;
+			}
+			throw lexer.error("unsupported operator " + name);
+		}
+
+	}
+
+	/**
+	 * @return shape of a jFuzzyLogic membership function keyword, or
+	 * <code>null</code>
+	 */
+	private static Shape shape(String keyword) {
+		switch (keyword) {
+		case "trian":
+			return Shape.TRIANGULAR;
+		case "trape":
+			return Shape.TRAPEZOIDAL;
+		case "gauss":
+			return Shape.GAUSSIAN;
+		case "gbell":
+			return Shape.GENERALIZED_BELL;
+		case "sigm":
+			return Shape.SIGMOIDAL;
+		case "dsigm":
+			return Shape.DIFFERENTIAL_SIGMOIDAL;
+		case "psigm":
+			return Shape.PRODUCT_SIGMOIDAL;
+		case "smf":
+			return Shape.S_SHAPED;
+		case "zmf":
+			return Shape.Z_SHAPED;
+		case "pimf":
+			return Shape.PI_SHAPED;
+		default:
+			return null;
+		}
+	}
+
+	/**
+	 * @return defuzzification function of a method, or <code>null</code>
+	 */
+	private static DefuzzificationFunction<Double> defuzzification(String method) {
+		switch (method) {
+		case "COG":
+			return new CentroidDefuzzificationFunction<Double>();
+		case "COA":
+			return new BisectorDefuzzificationFunction<Double>();
+		case "LM":
+			return new LeftmostMaximumDefuzzificationFunction<Double>();
+		case "RM":
+			return new RightmostMaximumDefuzzificationFunction<Double>();
+		case "MM":
+			return new MeanOfMaximaDefuzzificationFunction<Double>();
+		default:
+			return null;
+		}
+	}
+
+	/**
+	 * Crisp values where a term matters, used as the range of a variable
+	 * without <code>RANGE</code>: its breakpoints, three widths around the
+	 * center of bell shapes, and six over the gain around the center of
+	 * sigmoids.
+	 *
+	 * @param shape shape, or <code>null</code> for a singleton
+	 * @param p parameters
+	 * @return lower and upper bounds
+	 */
+	private static double[] extent(Shape shape, double[] p) {
+		if (shape == null) {
+			return new double[] { p[0], p[0] };
+		}
+		switch (shape) {
+		case GAUSSIAN:
+			return new double[] { p[1] - 3 * p[0], p[1] + 3 * p[0] };
+		case GENERALIZED_BELL:
+			return new double[] { p[2] - 3 * Math.abs(p[0]), p[2] + 3 * Math.abs(p[0]) };
+		case SIGMOIDAL:
+			return new double[] { p[1] - 6 / Math.abs(p[0]), p[1] + 6 / Math.abs(p[0]) };
+		case DIFFERENTIAL_SIGMOIDAL:
+		case PRODUCT_SIGMOIDAL:
+			return new double[] { Math.min(p[1] - 6 / Math.abs(p[0]), p[3] - 6 / Math.abs(p[2])),
+					Math.max(p[1] + 6 / Math.abs(p[0]), p[3] + 6 / Math.abs(p[2])) };
+		case PIECEWISE_LINEAR:
+			return new double[] { p[0], p[p.length - 2] };
+		default:
+			double lower = Double.POSITIVE_INFINITY;
+			double upper = Double.NEGATIVE_INFINITY;
+			for (double x : p) {
+				lower = Math.min(lower, x);
+				upper = Math.max(upper, x);
+			}
+			return new double[] { lower, upper };
+		}
+	}
+
+}
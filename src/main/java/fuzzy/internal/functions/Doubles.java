@@ -15,6 +15,9 @@ package fuzzy.internal.functions;
 
 import java.util.Collection;
 
+import org.apache.commons.functor.generator.range.BoundType;
+import org.apache.commons.functor.generator.range.DoubleRange;
+
 /**
  * Utility methods for Doubles.
  *
@@ -47,4 +50,79 @@ public class Doubles {
         return r;
     }
 
+    /**
+     * Sample a range of doubles into an array with primitive doubles. The
+     * values are generated exactly as {@link DoubleRange#run} generates them,
+     * so that results computed over the array match the results computed over
+     * {@link DoubleRange#toCollection()}.
+     *
+     * @param range range of doubles
+     * @return array with primitive doubles
+     * @since 0.5
+     */
+    public static double[] toArray(DoubleRange range) {
+        final int size = size(range);
+        final double step = range.getStep();
+        double[] r = new double[size];
+        double value = first(range);
+        for (int i = 0; i < size; i++) {
+            r[i] = value;
+            value += step;
+        }
+        return r;
+    }
+
+    /**
+     * Returns the first value of a range of doubles, or a value past the range
+     * if it is empty.
+     *
+     * @param range a range of doubles
+     * @return first value
+     * @since 0.5
+     */
+    public static double first(DoubleRange range) {
+        final double leftValue = range.getLeftEndpoint().getValue();
+        if (range.getLeftEndpoint().getBoundType() == BoundType.CLOSED) {
+            return leftValue;
+        }
+        return leftValue + range.getStep();
+    }
+
+    /**
+     * Returns the number of values of a range of doubles. Starting from
+     * {@link #first(DoubleRange)} and adding the step for each value gives
+     * the same values as iterating the range.
+     *
+     * @param range a range of doubles
+     * @return number of values
+     * @since 0.5
+     */
+    public static int size(DoubleRange range) {
+        final double step = range.getStep();
+        final boolean includeRightValue = range.getRightEndpoint()
+            .getBoundType() == BoundType.CLOSED;
+        final double rightValue = range.getRightEndpoint().getValue();
+        int size = 0;
+        for (double i = first(range); inRange(i, rightValue, step, includeRightValue); i += step) {
+            size++;
+        }
+        return size;
+    }
+
+    /**
+     * Whether a value has not gone past the right end of a range yet.
+     *
+     * @param value current value
+     * @param rightValue right end of the range
+     * @param step increment
+     * @param includeRightValue whether the right end is closed
+     * @return <code>true</code> if the value belongs to the range
+     */
+    private static boolean inRange(double value, double rightValue, double step, boolean includeRightValue) {
+        if (step < 0) {
+            return includeRightValue ? value >= rightValue : value > rightValue;
+        }
+        return includeRightValue ? value <= rightValue : value < rightValue;
+    }
+
 }
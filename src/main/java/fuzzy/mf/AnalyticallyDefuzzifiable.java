@@ -0,0 +1,87 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package fuzzy.mf;
+
+/**
+ * <p>Membership function whose area, first moment, bisector and maxima have a
+ * closed form. Defuzzification functions check for this interface first, and
+ * only sample the membership function when it is not implemented, or when
+ * {@link #hasClosedForm()} returns <code>false</code>.</p>
+ *
+ * <p>All methods work on the membership function truncated to the universe
+ * <code>[lower, upper]</code>, and clipped at the level <code>alpha</code>,
+ * that is, on <code>min(mf(x), alpha)</code>. An alpha of one or greater
+ * leaves the membership function as is.</p>
+ *
+ * @since 0.5
+ */
+public interface AnalyticallyDefuzzifiable extends DoubleMembershipFunction {
+
+	/**
+	 * Tells whether the closed forms apply to the parameters of this
+	 * membership function. Degenerate parameters, such as a gaussian with a
+	 * zero standard deviation, have no closed form.
+	 *
+	 * @return <code>true</code> if the other methods of this interface can be
+	 * used
+	 */
+	boolean hasClosedForm();
+
+	/**
+	 * Returns the area under the clipped membership function.
+	 *
+	 * @param lower lower bound of the universe
+	 * @param upper upper bound of the universe
+	 * @param alpha clipping level
+	 * @return area
+	 */
+	double area(double lower, double upper, double alpha);
+
+	/**
+	 * Returns the first moment of the area under the clipped membership
+	 * function. Dividing it by the {@link #area(double, double, double) area}
+	 * gives the centroid.
+	 *
+	 * @param lower lower bound of the universe
+	 * @param upper upper bound of the universe
+	 * @param alpha clipping level
+	 * @return first moment
+	 */
+	double firstMoment(double lower, double upper, double alpha);
+
+	/**
+	 * Returns the crisp value that divides the area under the clipped
+	 * membership function into two halves. The result is undefined when the
+	 * area is zero.
+	 *
+	 * @param lower lower bound of the universe
+	 * @param upper upper bound of the universe
+	 * @param alpha clipping level
+	 * @return bisector
+	 */
+	double bisector(double lower, double upper, double alpha);
+
+	/**
+	 * Returns the crisp values of the universe where the clipped membership
+	 * function reaches its maximum. When the membership function is zero over
+	 * the whole universe, the whole universe is returned.
+	 *
+	 * @param lower lower bound of the universe
+	 * @param upper upper bound of the universe
+	 * @param alpha clipping level
+	 * @return maxima, never empty for a non empty universe
+	 */
+	Interval maxima(double lower, double upper, double alpha);
+
+}
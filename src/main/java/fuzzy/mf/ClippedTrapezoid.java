@@ -0,0 +1,138 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package fuzzy.mf;
+
+/**
+ * Closed forms for a trapezoid clipped at a level. The clipped trapezoid is
+ * again a trapezoid, made of a rising, a flat and a falling segment, so every
+ * quantity is a sum over three linear segments. Shared by the triangular and
+ * trapezoidal membership functions.
+ *
+ * @since 0.5
+ */
+final class ClippedTrapezoid {
+
+	private final double[] x = new double[4];
+	private final double[] y = new double[4];
+
+	/**
+	 * @param a left foot
+	 * @param b left shoulder
+	 * @param c right shoulder
+	 * @param d right foot
+	 * @param alpha clipping level
+	 */
+	ClippedTrapezoid(double a, double b, double c, double d, double alpha) {
+		final double h = Math.max(0.0, Math.min(alpha, 1.0));
+		x[0] = a;
+		x[1] = a + h * (b - a);
+		x[2] = d - h * (d - c);
+		x[3] = d;
+		y[1] = h;
+		y[2] = h;
+	}
+
+	/**
+	 * @param i index of the segment
+	 * @param t crisp value inside the segment
+	 * @return value of the segment at the crisp value
+	 */
+	private double value(int i, double t) {
+		if (y[i] == y[i + 1]) {
+			return y[i];
+		}
+		return y[i] + (y[i + 1] - y[i]) * (t - x[i]) / (x[i + 1] - x[i]);
+	}
+
+	/**
+	 * @see AnalyticallyDefuzzifiable#area(double, double, double)
+	 */
+	double area(double lower, double upper) {
+		double area = 0.0;
+		for (int i = 0; i < 3; i++) {
+			final double l = Math.max(lower, x[i]);
+			final double u = Math.min(upper, x[i + 1]);
+			if (l < u) {
+				area += (u - l) * (value(i, l) + value(i, u)) / 2;
+			}
+		}
+		return area;
+	}
+
+	/**
+	 * @see AnalyticallyDefuzzifiable#firstMoment(double, double, double)
+	 */
+	double firstMoment(double lower, double upper) {
+		double moment = 0.0;
+		for (int i = 0; i < 3; i++) {
+			final double l = Math.max(lower, x[i]);
+			final double u = Math.min(upper, x[i + 1]);
+			if (l < u) {
+				final double yl = value(i, l);
+				final double yu = value(i, u);
+				moment += (u - l) * (l * (2 * yl + yu) + u * (yl + 2 * yu)) / 6;
+			}
+		}
+		return moment;
+	}
+
+	/**
+	 * @see AnalyticallyDefuzzifiable#bisector(double, double, double)
+	 */
+	double bisector(double lower, double upper) {
+		final double half = area(lower, upper) / 2;
+		double accumulated = 0.0;
+		double result = lower;
+		for (int i = 0; i < 3; i++) {
+			final double l = Math.max(lower, x[i]);
+			final double u = Math.min(upper, x[i + 1]);
+			if (!(l < u)) {
+				continue;
+			}
+			final double yl = value(i, l);
+			final double yu = value(i, u);
+			final double segment = (u - l) * (yl + yu) / 2;
+			if (accumulated + segment >= half) {
+				// solve yl * t + slope * t^2 / 2 = remaining, without cancellation
+				final double remaining = half - accumulated;
+				if (remaining <= 0.0) {
+					return l;
+				}
+				final double slope = (yu - yl) / (u - l);
+				final double root = Math.sqrt(Math.max(0.0, yl * yl + 2 * slope * remaining));
+				return Math.min(u, l + 2 * remaining / (yl + root));
+			}
+			accumulated += segment;
+			result = u;
+		}
+		return result;
+	}
+
+	/**
+	 * @see AnalyticallyDefuzzifiable#maxima(double, double, double)
+	 */
+	Interval maxima(double lower, double upper) {
+		if (y[1] == 0.0 || upper <= x[0] || lower >= x[3]) {
+			return new Interval(lower, upper);
+		}
+		if (upper < x[1]) {
+			return new Interval(upper, upper);
+		}
+		if (lower > x[2]) {
+			return new Interval(lower, lower);
+		}
+		return new Interval(Math.max(lower, x[1]), Math.min(upper, x[2]));
+	}
+
+}
@@ -0,0 +1,48 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package fuzzy.mf;
+
+/**
+ * <p>Membership function with analytic partial derivatives with respect to
+ * its parameters, for training the parameters by gradient descent without
+ * finite differences.</p>
+ *
+ * <p>The parameters are those of the constructor, in the same order, without
+ * the asymptotes of the sigmoidal membership functions, which are constants.
+ * Piecewise linear membership functions have no derivative at their corners;
+ * there, the derivative of the segment chosen by
+ * {@link #applyAsDouble(double)} is used.</p>
+ *
+ * @since 0.5
+ */
+public interface DifferentiableMembershipFunction extends DoubleMembershipFunction {
+
+	/**
+	 * @return number of parameters with a derivative
+	 */
+	int getParameterCount();
+
+	/**
+	 * Fuzzifies a crisp value, and computes the partial derivatives of the
+	 * fuzzy value with respect to each parameter.
+	 *
+	 * @param x crisp value
+	 * @param gradient where the partial derivatives are stored, from
+	 * <code>offset</code> to <code>offset + getParameterCount() - 1</code>
+	 * @param offset index of the derivative of the first parameter
+	 * @return fuzzy value, the same as {@link #applyAsDouble(double)}
+	 */
+	double gradient(double x, double[] gradient, int offset);
+
+}
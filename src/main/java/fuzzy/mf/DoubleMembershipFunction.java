@@ -0,0 +1,144 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package fuzzy.mf;
+
+/**
+ * <p>Membership function specialized for primitive <code>double</code> values. All
+ * membership functions provided by nebular implement this interface.</p>
+ *
+ * <p>Callers that work with primitives should use {@link #applyAsDouble(double)},
+ * which neither boxes the crisp value nor the fuzzy result. The
+ * {@link #apply(Double)} method is kept as a bridge for code written against
+ * {@link MembershipFunction}.</p>
+ *
+ * @since 0.5
+ */
+public interface DoubleMembershipFunction extends MembershipFunction<Double> {
+
+	/**
+	 * Fuzzify the given crisp variable.
+	 *
+	 * @param x crisp variable
+	 * @return fuzzy value
+	 */
+	double applyAsDouble(double x);
+
+	/**
+	 * Fuzzify the crisp variables <code>xs[from]</code> to
+	 * <code>xs[to - 1]</code>, storing each result in <code>out</code> at the
+	 * same index. <code>out</code> may be the same array as <code>xs</code>.
+	 *
+	 * <p>The results are the same as calling {@link #applyAsDouble(double)}
+	 * for each crisp variable. Implementations override this method with loops
+	 * that avoid a call per value, and that the JIT compiler can unroll and
+	 * vectorize.</p>
+	 *
+	 * @param xs crisp variables
+	 * @param from first index, inclusive
+	 * @param to last index, exclusive
+	 * @param out fuzzy values
+	 * @since 0.5
+	 */
+	default void applyAll(double[] xs, int from, int to, double[] out) {
+		for (int i = from; i < to; i++) {
+			out[i] = applyAsDouble(xs[i]);
+		}
+	}
+
+	/**
+	 * Fuzzify all the given crisp variables.
+	 *
+	 * @param xs crisp variables
+	 * @return fuzzy values, in a new array
+	 * @since 0.5
+	 */
+	default double[] applyAll(double[] xs) {
+		final double[] out = new double[xs.length];
+		applyAll(xs, 0, xs.length, out);
+		return out;
+	}
+
+	/**
+	 * Returns the support of this membership function: an interval that
+	 * contains every crisp value whose fuzzy value is not zero. Callers may
+	 * skip crisp values outside the support, as their fuzzy value is zero.
+	 *
+	 * <p>Membership functions that cannot tell their support return
+	 * {@link Interval#ALL}, which is also the support of shapes with infinite
+	 * tails, such as the gaussian membership function. See
+	 * {@link #support(double)} for a bounded approximation.</p>
+	 *
+	 * @return support
+	 * @since 0.5
+	 */
+	default Interval support() {
+		return support(0.0);
+	}
+
+	/**
+	 * Returns an interval that contains every crisp value whose fuzzy value is
+	 * greater than <code>epsilon</code>. With a positive epsilon, shapes with
+	 * infinite tails return a bounded interval, outside which their fuzzy
+	 * value is negligible.
+	 *
+	 * <p>The interval may be larger than needed. The default implementation
+	 * returns {@link Interval#ALL}.</p>
+	 *
+	 * @param epsilon cutoff, between 0 and 1
+	 * @return interval with the fuzzy values greater than epsilon
+	 * @since 0.5
+	 */
+	default Interval support(double epsilon) {
+		return Interval.ALL;
+	}
+
+	/**
+	 * Returns the core of this membership function: an interval whose crisp
+	 * values all have fuzzy value one.
+	 *
+	 * <p>The interval may be smaller than the actual core. The default
+	 * implementation returns {@link Interval#EMPTY}.</p>
+	 *
+	 * @return core
+	 * @since 0.5
+	 */
+	default Interval core() {
+		return Interval.EMPTY;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see fuzzy.mf.MembershipFunction#apply(java.lang.Object)
+	 */
+	@Override
+	default Double apply(Double x) {
+		return applyAsDouble(x);
+	}
+
+	/**
+	 * Returns a primitive view of a membership function. If the membership
+	 * function already implements this interface it is returned as is,
+	 * otherwise each call is delegated to {@link MembershipFunction#apply(Object)}.
+	 *
+	 * @param mf membership function
+	 * @return primitive membership function
+	 */
+	static DoubleMembershipFunction of(final MembershipFunction<Double> mf) {
+		if (mf instanceof DoubleMembershipFunction) {
+			return (DoubleMembershipFunction) mf;
+		}
+		return x -> mf.apply(x);
+	}
+
+}
@@ -13,6 +13,7 @@
  */
 package fuzzy.mf;
 
+import org.apache.commons.math3.special.Erf;
 import org.apache.commons.math3.util.FastMath;
 
 /**
@@ -22,7 +23,7 @@ import org.apache.commons.math3.util.FastMath;
  *
  * @since 0.1
  */
-public class GaussianMembershipFunction implements MembershipFunction<Double> {
+public class GaussianMembershipFunction implements AnalyticallyDefuzzifiable, DifferentiableMembershipFunction {
 
 	// TODO Revisit this class later, and see if we can use [math] Gaussian
 	//protected final Gaussian gaussian;
@@ -37,11 +38,227 @@ public class GaussianMembershipFunction implements MembershipFunction<Double> {
 
 	/*
 	 * (non-Javadoc)
-	 * @see fuzzy.mf.MembershipFunction#apply(java.lang.Object)
+	 * @see fuzzy.mf.DoubleMembershipFunction#applyAsDouble(double)
 	 */
 	@Override
-	public Double apply(Double x) {
-		return FastMath.exp(-FastMath.pow(x-c, 2) / (2 * FastMath.pow(sigma, 2)));
+	public double applyAsDouble(double x) {
+		final double t = x - c;
+		return FastMath.exp(-(t * t) / (2 * (sigma * sigma)));
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see fuzzy.mf.DoubleMembershipFunction#applyAll(double[], int, int, double[])
+	 */
+	@Override
+	public void applyAll(double[] xs, int from, int to, double[] out) {
+		final double twoSigmaSquared = 2 * (sigma * sigma);
+		for (int i = from; i < to; i++) {
+			final double t = xs[i] - c;
+			out[i] = FastMath.exp(-(t * t) / twoSigmaSquared);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see fuzzy.mf.DoubleMembershipFunction#support(double)
+	 */
+	@Override
+	public Interval support(double epsilon) {
+		if (epsilon <= 0.0 || sigma == 0.0) {
+			return Interval.ALL;
+		} else if (epsilon >= 1.0) {
+			return Interval.EMPTY;
+		}
+		final double width = FastMath.abs(sigma) * FastMath.sqrt(-2 * FastMath.log(epsilon));
+		return new Interval(c - width, c + width);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see fuzzy.mf.DoubleMembershipFunction#core()
+	 */
+	@Override
+	public Interval core() {
+		if (sigma == 0.0) {
+			return Interval.EMPTY;
+		}
+		return new Interval(c, c);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see fuzzy.mf.AnalyticallyDefuzzifiable#hasClosedForm()
+	 */
+	@Override
+	public boolean hasClosedForm() {
+		return sigma != 0.0 && !Double.isNaN(sigma) && !Double.isInfinite(sigma);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see fuzzy.mf.AnalyticallyDefuzzifiable#area(double, double, double)
+	 */
+	@Override
+	public double area(double lower, double upper, double alpha) {
+		if (alpha <= 0.0) {
+			return 0.0;
+		}
+		final double w = halfWidth(alpha);
+		return tailArea(lower, Math.min(upper, c - w))
+				+ FastMath.min(alpha, 1.0) * Math.max(0.0, Math.min(upper, c + w) - Math.max(lower, c - w))
+				+ tailArea(Math.max(lower, c + w), upper);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see fuzzy.mf.AnalyticallyDefuzzifiable#firstMoment(double, double, double)
+	 */
+	@Override
+	public double firstMoment(double lower, double upper, double alpha) {
+		if (alpha <= 0.0) {
+			return 0.0;
+		}
+		final double w = halfWidth(alpha);
+		final double l = Math.max(lower, c - w);
+		final double u = Math.min(upper, c + w);
+		final double plateau = l < u ? FastMath.min(alpha, 1.0) * (u - l) * (u + l) / 2 : 0.0;
+		return tailMoment(lower, Math.min(upper, c - w)) + plateau + tailMoment(Math.max(lower, c + w), upper);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see fuzzy.mf.AnalyticallyDefuzzifiable#bisector(double, double, double)
+	 */
+	@Override
+	public double bisector(double lower, double upper, double alpha) {
+		final double half = area(lower, upper, alpha) / 2;
+		final double w = halfWidth(alpha);
+		final double leftUpper = Math.min(upper, c - w);
+		final double left = tailArea(lower, leftUpper);
+		if (left >= half) {
+			return solveTail(lower, leftUpper, half);
+		}
+		final double h = FastMath.min(alpha, 1.0);
+		final double l = Math.max(lower, c - w);
+		final double u = Math.min(upper, c + w);
+		final double plateau = h * Math.max(0.0, u - l);
+		if (left + plateau >= half) {
+			return l + (half - left) / h;
+		}
+		return solveTail(Math.max(lower, c + w), upper, half - left - plateau);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see fuzzy.mf.AnalyticallyDefuzzifiable#maxima(double, double, double)
+	 */
+	@Override
+	public Interval maxima(double lower, double upper, double alpha) {
+		if (alpha <= 0.0) {
+			return new Interval(lower, upper);
+		}
+		final double w = halfWidth(alpha);
+		final double l = Math.max(lower, c - w);
+		final double u = Math.min(upper, c + w);
+		if (l <= u) {
+			return new Interval(l, u);
+		} else if (upper < c - w) {
+			return new Interval(upper, upper);
+		}
+		return new Interval(lower, lower);
+	}
+
+	/**
+	 * Returns the half width of the plateau left by clipping at a level.
+	 *
+	 * @param alpha clipping level, greater than zero
+	 * @return half width, zero when the membership function is not clipped
+	 */
+	private double halfWidth(double alpha) {
+		if (alpha >= 1.0) {
+			return 0.0;
+		}
+		return FastMath.abs(sigma) * FastMath.sqrt(-2 * FastMath.log(alpha));
+	}
+
+	/**
+	 * Returns the area under the gaussian, without clipping, between two
+	 * crisp values.
+	 *
+	 * @param l lower crisp value
+	 * @param u upper crisp value
+	 * @return area, zero if <code>l</code> is not less than <code>u</code>
+	 */
+	private double tailArea(double l, double u) {
+		if (!(l < u)) {
+			return 0.0;
+		}
+		final double s = FastMath.abs(sigma) * FastMath.sqrt(2.0);
+		return FastMath.abs(sigma) * FastMath.sqrt(FastMath.PI / 2) * (Erf.erf((u - c) / s) - Erf.erf((l - c) / s));
+	}
+
+	/**
+	 * Returns the first moment of the area under the gaussian, without
+	 * clipping, between two crisp values.
+	 *
+	 * @param l lower crisp value
+	 * @param u upper crisp value
+	 * @return first moment, zero if <code>l</code> is not less than <code>u</code>
+	 */
+	private double tailMoment(double l, double u) {
+		if (!(l < u)) {
+			return 0.0;
+		}
+		return c * tailArea(l, u) + sigma * sigma * (applyAsDouble(l) - applyAsDouble(u));
+	}
+
+	/**
+	 * Finds, by bisection, the crisp value <code>m</code> where the area under
+	 * the gaussian between <code>l</code> and <code>m</code> reaches a target.
+	 *
+	 * @param l lower crisp value
+	 * @param u upper crisp value
+	 * @param target area to reach
+	 * @return crisp value between <code>l</code> and <code>u</code>
+	 */
+	private double solveTail(double l, double u, double target) {
+		double lo = l;
+		double hi = u;
+		while (true) {
+			final double m = lo + (hi - lo) / 2;
+			if (m <= lo || m >= hi) {
+				return hi;
+			}
+			if (tailArea(l, m) < target) {
+				lo = m;
+			} else {
+				hi = m;
+			}
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see fuzzy.mf.DifferentiableMembershipFunction#getParameterCount()
+	 */
+	@Override
+	public int getParameterCount() {
+		return 2;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see fuzzy.mf.DifferentiableMembershipFunction#gradient(double, double[], int)
+	 */
+	@Override
+	public double gradient(double x, double[] gradient, int offset) {
+		final double t = x - c;
+		final double sigmaSquared = sigma * sigma;
+		final double m = FastMath.exp(-(t * t) / (2 * sigmaSquared));
+		gradient[offset] = m * t * t / (sigmaSquared * sigma);
+		gradient[offset + 1] = m * t / sigmaSquared;
+		return m;
 	}
 
 	/* (non-Javadoc)
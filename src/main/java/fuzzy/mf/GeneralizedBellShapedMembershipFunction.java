@@ -22,7 +22,7 @@ import org.apache.commons.math3.util.FastMath;
  *
  * @since 0.1
  */
-public class GeneralizedBellShapedMembershipFunction implements MembershipFunction<Double> {
+public class GeneralizedBellShapedMembershipFunction implements DifferentiableMembershipFunction {
 
 	private final double a;
 	private final double b;
@@ -36,13 +36,80 @@ public class GeneralizedBellShapedMembershipFunction implements MembershipFuncti
 
 	/*
 	 * (non-Javadoc)
-	 * @see fuzzy.mf.MembershipFunction#apply(java.lang.Object)
+	 * @see fuzzy.mf.DoubleMembershipFunction#applyAsDouble(double)
 	 */
 	@Override
-	public Double apply(Double x) {
+	public double applyAsDouble(double x) {
 		return 1/(1+FastMath.pow(FastMath.abs((x-c)/a), 2*b));
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * @see fuzzy.mf.DoubleMembershipFunction#applyAll(double[], int, int, double[])
+	 */
+	@Override
+	public void applyAll(double[] xs, int from, int to, double[] out) {
+		final double twoB = 2 * b;
+		for (int i = from; i < to; i++) {
+			out[i] = 1 / (1 + FastMath.pow(FastMath.abs((xs[i] - c) / a), twoB));
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see fuzzy.mf.DoubleMembershipFunction#support(double)
+	 */
+	@Override
+	public Interval support(double epsilon) {
+		if (epsilon <= 0.0 || !(b > 0.0) || a == 0.0) {
+			return Interval.ALL;
+		} else if (epsilon >= 1.0) {
+			return Interval.EMPTY;
+		}
+		final double width = FastMath.abs(a) * FastMath.pow(1 / epsilon - 1, 1 / (2 * b));
+		return new Interval(c - width, c + width);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see fuzzy.mf.DoubleMembershipFunction#core()
+	 */
+	@Override
+	public Interval core() {
+		if (!(b > 0.0) || a == 0.0) {
+			return Interval.EMPTY;
+		}
+		return new Interval(c, c);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see fuzzy.mf.DifferentiableMembershipFunction#getParameterCount()
+	 */
+	@Override
+	public int getParameterCount() {
+		return 3;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see fuzzy.mf.DifferentiableMembershipFunction#gradient(double, double[], int)
+	 */
+	@Override
+	public double gradient(double x, double[] gradient, int offset) {
+		final double t = x - c;
+		final double ratio = FastMath.abs(t / a);
+		final double u = FastMath.pow(ratio, 2 * b);
+		final double m = 1 / (1 + u);
+		final double uSquared = u * m * m;
+		// u log(ratio) and u / t tend to zero at the center
+		final boolean center = u == 0.0 || t == 0.0;
+		gradient[offset] = 2 * b * uSquared / a;
+		gradient[offset + 1] = center ? 0.0 : -2 * uSquared * FastMath.log(ratio);
+		gradient[offset + 2] = center ? 0.0 : 2 * b * uSquared / t;
+		return m;
+	}
+
 	/* (non-Javadoc)
 	 * @see java.lang.Object#equals(java.lang.Object)
 	 */
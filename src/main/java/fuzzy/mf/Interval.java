@@ -0,0 +1,149 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package fuzzy.mf;
+
+/**
+ * A closed interval of crisp values, used to describe where a membership
+ * function is not zero (its support) or where it is one (its core). The
+ * bounds may be infinite. An interval whose lower bound is greater than its
+ * upper bound is empty.
+ *
+ * <p>This class is immutable.</p>
+ *
+ * @since 0.5
+ */
+public final class Interval {
+
+	/**
+	 * Interval with all crisp values.
+	 */
+	public static final Interval ALL = new Interval(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+
+	/**
+	 * Interval without crisp values.
+	 */
+	public static final Interval EMPTY = new Interval(Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY);
+
+	private final double lower;
+	private final double upper;
+
+	/**
+	 * Creates a closed interval.
+	 *
+	 * @param lower lower bound, may be negative infinity
+	 * @param upper upper bound, may be positive infinity
+	 * @throws IllegalArgumentException if a bound is NaN
+	 */
+	public Interval(double lower, double upper) {
+		if (Double.isNaN(lower) || Double.isNaN(upper)) {
+			throw new IllegalArgumentException("Invalid interval [" + lower + " " + upper + "]");
+		}
+		// adding zero turns -0.0 into 0.0, so that equal intervals have equal hash codes
+		this.lower = lower + 0.0;
+		this.upper = upper + 0.0;
+	}
+
+	/**
+	 * @return lower bound
+	 */
+	public double getLower() {
+		return lower;
+	}
+
+	/**
+	 * @return upper bound
+	 */
+	public double getUpper() {
+		return upper;
+	}
+
+	/**
+	 * @return <code>true</code> if the interval has no crisp values
+	 */
+	public boolean isEmpty() {
+		return lower > upper;
+	}
+
+	/**
+	 * @return <code>true</code> if both bounds are finite, or the interval is
+	 * empty
+	 */
+	public boolean isBounded() {
+		return isEmpty() || (!Double.isInfinite(lower) && !Double.isInfinite(upper));
+	}
+
+	/**
+	 * @param x crisp value
+	 * @return <code>true</code> if the interval contains the crisp value
+	 */
+	public boolean contains(double x) {
+		return lower <= x && x <= upper;
+	}
+
+	/**
+	 * @param that another interval
+	 * @return crisp values contained in both intervals
+	 */
+	public Interval intersection(Interval that) {
+		final double l = Math.max(this.lower, that.lower);
+		final double u = Math.min(this.upper, that.upper);
+		return l > u ? EMPTY : new Interval(l, u);
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#equals(java.lang.Object)
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if(obj == null) {
+			return false;
+		}
+		if(obj == this) {
+			return true;
+		}
+		if(!(obj instanceof Interval)) {
+			return false;
+		}
+		final Interval that = (Interval)obj;
+		if (this.isEmpty() || that.isEmpty()) {
+			return this.isEmpty() && that.isEmpty();
+		}
+		return this.lower == that.lower && this.upper == that.upper;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#hashCode()
+	 */
+	@Override
+	public int hashCode() {
+		int hash = "Interval".hashCode();
+		if (isEmpty()) {
+			return hash;
+		}
+		hash <<= 2;
+		hash ^= Double.valueOf(this.lower).hashCode();
+		hash <<= 2;
+		hash ^= Double.valueOf(this.upper).hashCode();
+		return hash;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return isEmpty() ? "[]" : "["+lower+" "+upper+"]";
+	}
+
+}
@@ -13,8 +13,6 @@
  */
 package fuzzy.mf;
 
-import org.apache.commons.math3.util.FastMath;
-
 /**
  * PI Shaped Membership Function. Equivalent to Matlab
  * <a href="http://www.mathworks.com/help/toolbox/fuzzy/pimf.html">pimf</a>
@@ -22,7 +20,7 @@ import org.apache.commons.math3.util.FastMath;
  *
  * @since 0.1
  */
-public class PiShapedMembershipFunction implements MembershipFunction<Double> {
+public class PiShapedMembershipFunction implements DoubleMembershipFunction {
 
 	private final double a;
 	private final double b;
@@ -38,28 +36,82 @@ public class PiShapedMembershipFunction implements MembershipFunction<Double> {
 
 	/*
 	 * (non-Javadoc)
-	 * @see fuzzy.mf.MembershipFunction#apply(java.lang.Object)
+	 * @see fuzzy.mf.DoubleMembershipFunction#applyAsDouble(double)
 	 */
 	@Override
-	public Double apply(Double x) {
+	public double applyAsDouble(double x) {
 		if(x <= a) {
 			return 0.0;
 		} else if (a <= x && x <= ((a+b)/2)) {
-			return 2 * (FastMath.pow((x-a)/(b-a), 2));
+			final double t = (x-a)/(b-a);
+			return 2 * (t * t);
 		} else if(((a+b)/2) <= x && x <= b) {
-			return 1 - (2 * FastMath.pow((x-b)/(b-a), 2));
+			final double t = (x-b)/(b-a);
+			return 1 - (2 * (t * t));
 		} else if(b <= x && x <= c) {
 			return 1.0;
 		} else if(c <= x && x <= (c+d)/2) {
-			return 1 - (2 * (FastMath.pow((x-c)/(d-c), 2)));
+			final double t = (x-c)/(d-c);
+			return 1 - (2 * (t * t));
 		} else if((c+d)/2 <= x && x <= d) {
-			return 2 * (FastMath.pow((x-d)/(d-c), 2));
+			final double t = (x-d)/(d-c);
+			return 2 * (t * t);
 		} else if(x >= d) {
 			return 0.0;
 		}
 		return 0.0;
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * @see fuzzy.mf.DoubleMembershipFunction#applyAll(double[], int, int, double[])
+	 */
+	@Override
+	public void applyAll(double[] xs, int from, int to, double[] out) {
+		final double m1 = (a + b) / 2;
+		final double m2 = (c + d) / 2;
+		final double ba = b - a;
+		final double dc = d - c;
+		for (int i = from; i < to; i++) {
+			final double x = xs[i];
+			final double t1 = (x - a) / ba;
+			final double t2 = (x - b) / ba;
+			final double t3 = (x - c) / dc;
+			final double t4 = (x - d) / dc;
+			out[i] = x <= a ? 0.0
+					: x <= m1 ? 2 * (t1 * t1)
+					: x <= b ? 1 - (2 * (t2 * t2))
+					: x <= c ? 1.0
+					: x <= m2 ? 1 - (2 * (t3 * t3))
+					: x <= d ? 2 * (t4 * t4)
+					: 0.0;
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see fuzzy.mf.DoubleMembershipFunction#support(double)
+	 */
+	@Override
+	public Interval support(double epsilon) {
+		if (!(a <= b && b <= c && c <= d)) {
+			return Interval.ALL;
+		}
+		return new Interval(a, d);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see fuzzy.mf.DoubleMembershipFunction#core()
+	 */
+	@Override
+	public Interval core() {
+		if (!(a < b && b <= c && c < d)) {
+			return Interval.EMPTY;
+		}
+		return new Interval(b, c);
+	}
+
 	/* (non-Javadoc)
 	 * @see java.lang.Object#equals(java.lang.Object)
 	 */
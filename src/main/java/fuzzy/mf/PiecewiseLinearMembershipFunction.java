@@ -0,0 +1,441 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package fuzzy.mf;
+
+import java.util.Arrays;
+
+/**
+ * Piecewise Linear Membership Function. Joins any number of breakpoints with
+ * straight lines. Triangular and trapezoidal membership functions are the
+ * piecewise linear membership functions with three and four breakpoints.
+ *
+ * <p>Crisp values before the first breakpoint, or after the last breakpoint,
+ * get the fuzzy value of that breakpoint.</p>
+ *
+ * <p>The slope of each segment is computed once, and evaluation finds the
+ * segment with a binary search, so that evaluation takes <code>O(log n)</code>
+ * time for <code>n</code> breakpoints. The running area and first moment at
+ * each breakpoint are computed once too, so that area, first moment, centroid
+ * and bisector over any interval are computed exactly, in
+ * <code>O(log n)</code> time, without sampling the membership function.</p>
+ *
+ * @since 0.5
+ */
+public class PiecewiseLinearMembershipFunction implements DoubleMembershipFunction {
+
+	private final double[] x;
+	private final double[] y;
+	private final double[] slopes;
+	/**
+	 * Area from the first breakpoint to each breakpoint.
+	 */
+	private final double[] areas;
+	/**
+	 * First moment from the first breakpoint to each breakpoint.
+	 */
+	private final double[] moments;
+
+	/**
+	 * Creates a piecewise linear membership function. The arrays are copied.
+	 *
+	 * @param x crisp values of the breakpoints, in strictly increasing order
+	 * @param y fuzzy values of the breakpoints, not negative
+	 * @throws IllegalArgumentException if there are less than two breakpoints,
+	 * if the arrays have different lengths, if the crisp values are not in
+	 * strictly increasing order, or if a fuzzy value is negative
+	 */
+	public PiecewiseLinearMembershipFunction(double[] x, double[] y) {
+		if (x.length != y.length) {
+			throw new IllegalArgumentException("Got " + x.length + " crisp values and " + y.length + " fuzzy values");
+		}
+		if (x.length < 2) {
+			throw new IllegalArgumentException("At least two breakpoints are required");
+		}
+		final int n = x.length;
+		this.x = Arrays.copyOf(x, n);
+		this.y = Arrays.copyOf(y, n);
+		this.slopes = new double[n - 1];
+		this.areas = new double[n];
+		this.moments = new double[n];
+		for (int i = 0; i < n; i++) {
+			if (Double.isNaN(x[i]) || Double.isInfinite(x[i])) {
+				throw new IllegalArgumentException("Invalid crisp value " + x[i]);
+			}
+			if (!(y[i] >= 0.0) || Double.isInfinite(y[i])) {
+				throw new IllegalArgumentException("Invalid fuzzy value " + y[i]);
+			}
+			if (i > 0) {
+				if (!(x[i] > x[i - 1])) {
+					throw new IllegalArgumentException("Crisp values must be in strictly increasing order: "
+							+ x[i - 1] + " " + x[i]);
+				}
+				slopes[i - 1] = (y[i] - y[i - 1]) / (x[i] - x[i - 1]);
+				areas[i] = areas[i - 1] + area(x[i - 1], y[i - 1], x[i], y[i]);
+				moments[i] = moments[i - 1] + moment(x[i - 1], y[i - 1], x[i], y[i]);
+			}
+		}
+	}
+
+	/**
+	 * Area of a segment.
+	 */
+	private static double area(double x0, double y0, double x1, double y1) {
+		return (x1 - x0) * (y0 + y1) / 2;
+	}
+
+	/**
+	 * First moment of a segment.
+	 */
+	private static double moment(double x0, double y0, double x1, double y1) {
+		return (x1 - x0) * (x0 * (2 * y0 + y1) + x1 * (y0 + 2 * y1)) / 6;
+	}
+
+	/**
+	 * Returns the segment that contains a crisp value, between 0 and
+	 * <code>n - 2</code>.
+	 *
+	 * @param value crisp value
+	 * @return index of the first breakpoint of the segment
+	 */
+	private int segment(double value) {
+		int i = Arrays.binarySearch(x, value);
+		if (i < 0) {
+			i = -i - 2;
+		}
+		return Math.max(0, Math.min(i, x.length - 2));
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see fuzzy.mf.DoubleMembershipFunction#applyAsDouble(double)
+	 */
+	@Override
+	public double applyAsDouble(double value) {
+		final int last = x.length - 1;
+		if (value <= x[0]) {
+			return y[0];
+		} else if (value >= x[last]) {
+			return y[last];
+		}
+		final int i = segment(value);
+		return y[i] + slopes[i] * (value - x[i]);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see fuzzy.mf.DoubleMembershipFunction#applyAll(double[], int, int, double[])
+	 */
+	@Override
+	public void applyAll(double[] xs, int from, int to, double[] out) {
+		final int last = x.length - 1;
+		int i = 0;
+		for (int k = from; k < to; k++) {
+			final double value = xs[k];
+			if (value <= x[0]) {
+				out[k] = y[0];
+			} else if (value >= x[last]) {
+				out[k] = y[last];
+			} else {
+				// sorted crisp values usually fall in the same or the next segment
+				if (!(x[i] <= value && value < x[i + 1])) {
+					i = i + 1 < last && x[i + 1] <= value && value < x[i + 2] ? i + 1 : segment(value);
+				}
+				out[k] = y[i] + slopes[i] * (value - x[i]);
+			}
+		}
+	}
+
+	/**
+	 * Area under the membership function from the first breakpoint to a crisp
+	 * value. Negative before the first breakpoint.
+	 *
+	 * @param value crisp value
+	 * @return running area
+	 */
+	private double runningArea(double value) {
+		final int last = x.length - 1;
+		if (value <= x[0]) {
+			return -(x[0] - value) * y[0];
+		} else if (value >= x[last]) {
+			return areas[last] + (value - x[last]) * y[last];
+		}
+		final int i = segment(value);
+		return areas[i] + area(x[i], y[i], value, y[i] + slopes[i] * (value - x[i]));
+	}
+
+	/**
+	 * First moment of the membership function from the first breakpoint to a
+	 * crisp value. Negative before the first breakpoint.
+	 *
+	 * @param value crisp value
+	 * @return running first moment
+	 */
+	private double runningMoment(double value) {
+		final int last = x.length - 1;
+		if (value <= x[0]) {
+			return -moment(value, y[0], x[0], y[0]);
+		} else if (value >= x[last]) {
+			return moments[last] + moment(x[last], y[last], value, y[last]);
+		}
+		final int i = segment(value);
+		return moments[i] + moment(x[i], y[i], value, y[i] + slopes[i] * (value - x[i]));
+	}
+
+	/**
+	 * Returns the exact area under the membership function, between the
+	 * first and the last breakpoints.
+	 *
+	 * @return area
+	 */
+	public double area() {
+		return areas[x.length - 1];
+	}
+
+	/**
+	 * Returns the exact area under the membership function, between two crisp
+	 * values.
+	 *
+	 * @param lower lower crisp value
+	 * @param upper upper crisp value
+	 * @return area
+	 */
+	public double area(double lower, double upper) {
+		return runningArea(upper) - runningArea(lower);
+	}
+
+	/**
+	 * Returns the exact first moment of the membership function, that is, the
+	 * integral of <code>x * mf(x)</code>, between the first and the last
+	 * breakpoints.
+	 *
+	 * @return first moment
+	 */
+	public double firstMoment() {
+		return moments[x.length - 1];
+	}
+
+	/**
+	 * Returns the exact first moment of the membership function between two
+	 * crisp values.
+	 *
+	 * @param lower lower crisp value
+	 * @param upper upper crisp value
+	 * @return first moment
+	 */
+	public double firstMoment(double lower, double upper) {
+		return runningMoment(upper) - runningMoment(lower);
+	}
+
+	/**
+	 * Returns the exact centroid between the first and the last breakpoints.
+	 *
+	 * @return centroid
+	 * @throws IllegalArgumentException if total area is zero
+	 */
+	public double centroid() {
+		return centroid(x[0], x[x.length - 1]);
+	}
+
+	/**
+	 * Returns the exact centroid between two crisp values.
+	 *
+	 * @param lower lower crisp value
+	 * @param upper upper crisp value
+	 * @return centroid
+	 * @throws IllegalArgumentException if total area is zero
+	 */
+	public double centroid(double lower, double upper) {
+		final double totalArea = area(lower, upper);
+		if (totalArea == 0)
+			throw new IllegalArgumentException(
+					"Total area is zero in centroid defuzzification!");
+		return firstMoment(lower, upper) / totalArea;
+	}
+
+	/**
+	 * Returns the exact bisector between the first and the last breakpoints.
+	 *
+	 * @return bisector
+	 * @throws IllegalArgumentException if total area is zero
+	 */
+	public double bisector() {
+		return bisector(x[0], x[x.length - 1]);
+	}
+
+	/**
+	 * Returns the exact bisector between two crisp values, that is, the crisp
+	 * value that divides the area between them in two halves.
+	 *
+	 * @param lower lower crisp value
+	 * @param upper upper crisp value
+	 * @return bisector
+	 * @throws IllegalArgumentException if total area is zero
+	 */
+	public double bisector(double lower, double upper) {
+		final double start = runningArea(lower);
+		final double end = runningArea(upper);
+		if (end - start == 0)
+			throw new IllegalArgumentException(
+					"Total area is zero in bisector defuzzification!");
+		final double half = (start + end) / 2;
+		final int last = x.length - 1;
+		final double result;
+		if (half <= 0.0) {
+			// before the first breakpoint, where the fuzzy value is y[0] > 0
+			result = x[0] + half / y[0];
+		} else if (half >= areas[last]) {
+			result = x[last] + (half - areas[last]) / y[last];
+		} else {
+			int i = Arrays.binarySearch(areas, half);
+			if (i < 0) {
+				i = -i - 2;
+			}
+			// skip segments with no area, so that the root is well defined
+			while (i < last - 1 && areas[i + 1] == areas[i]) {
+				i++;
+			}
+			final double target = half - areas[i];
+			// root of y[i] * t + slopes[i] * t^2 / 2 = target, in a stable form
+			final double root = Math.sqrt(Math.max(0.0, y[i] * y[i] + 2 * slopes[i] * target));
+			result = target == 0.0 ? x[i] : x[i] + 2 * target / (y[i] + root);
+		}
+		return Math.max(lower, Math.min(upper, result));
+	}
+
+	/**
+	 * Returns the alpha-cut of this membership function between the first and
+	 * the last breakpoints: the crisp values whose fuzzy value is greater than
+	 * or equal to <code>alpha</code>.
+	 *
+	 * @param alpha alpha level
+	 * @return pairs of lower and upper crisp values of each interval in the
+	 * alpha-cut, in increasing order
+	 */
+	public double[] alphaCut(double alpha) {
+		final int n = x.length;
+		double[] cut = new double[n + 1];
+		int size = 0;
+		boolean inside = false;
+		for (int i = 0; i < n; i++) {
+			final boolean above = y[i] >= alpha;
+			if (above && !inside) {
+				// enters the cut at x[i], or inside the segment before it
+				cut[size++] = i == 0 ? x[0] : x[i] - (y[i] - alpha) / slopes[i - 1];
+				inside = true;
+			} else if (!above && inside) {
+				// leaves the cut inside the segment before x[i]
+				cut[size++] = x[i - 1] + (alpha - y[i - 1]) / slopes[i - 1];
+				inside = false;
+			}
+		}
+		if (inside) {
+			cut[size++] = x[n - 1];
+		}
+		return Arrays.copyOf(cut, size);
+	}
+
+	/**
+	 * Returns the number of breakpoints.
+	 *
+	 * @return number of breakpoints
+	 */
+	public int getSize() {
+		return x.length;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see fuzzy.mf.DoubleMembershipFunction#support(double)
+	 */
+	@Override
+	public Interval support(double epsilon) {
+		final int n = x.length;
+		int first = 0;
+		while (first < n && !(y[first] > epsilon)) {
+			first++;
+		}
+		if (first == n) {
+			return Interval.EMPTY;
+		}
+		int last = n - 1;
+		while (!(y[last] > epsilon)) {
+			last--;
+		}
+		// the segments next to the breakpoints found go above epsilon too
+		return new Interval(first == 0 ? Double.NEGATIVE_INFINITY : x[first - 1],
+				last == n - 1 ? Double.POSITIVE_INFINITY : x[last + 1]);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see fuzzy.mf.DoubleMembershipFunction#core()
+	 */
+	@Override
+	public Interval core() {
+		final int n = x.length;
+		int first = 0;
+		while (first < n && y[first] != 1.0) {
+			first++;
+		}
+		if (first == n) {
+			return Interval.EMPTY;
+		}
+		int last = first;
+		while (last + 1 < n && y[last + 1] == 1.0) {
+			last++;
+		}
+		return new Interval(first == 0 ? Double.NEGATIVE_INFINITY : x[first],
+				last == n - 1 ? Double.POSITIVE_INFINITY : x[last]);
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#equals(java.lang.Object)
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if(obj == null) {
+			return false;
+		}
+		if(obj == this) {
+			return true;
+		}
+		if(!(obj instanceof PiecewiseLinearMembershipFunction)) {
+			return false;
+		}
+		final PiecewiseLinearMembershipFunction that = (PiecewiseLinearMembershipFunction)obj;
+		return Arrays.equals(this.x, that.x) && Arrays.equals(this.y, that.y);
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#hashCode()
+	 */
+	@Override
+	public int hashCode() {
+		int hash = "PiecewiseLinearMembershipFunction".hashCode();
+		hash <<= 2;
+		hash ^= Arrays.hashCode(this.x);
+		hash <<= 2;
+		hash ^= Arrays.hashCode(this.y);
+		return hash;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "Piecewise Linear Membership Function "+Arrays.toString(x)+" "+Arrays.toString(y);
+	}
+
+}
@@ -14,6 +14,7 @@
 package fuzzy.mf;
 
 import org.apache.commons.math3.analysis.function.Sigmoid;
+import org.apache.commons.math3.util.FastMath;
 
 /**
  * Product Sigmoidal Membership Function. Equivalent to Matlab
@@ -22,13 +23,16 @@ import org.apache.commons.math3.analysis.function.Sigmoid;
  *
  * @since 0.1
  */
-public class ProductSigmoidalMembershipFunction implements MembershipFunction<Double> {
+public class ProductSigmoidalMembershipFunction implements DifferentiableMembershipFunction {
 
 	protected final static double DEFAULT_LOW_ASYMPTOTE = 0.0;
 	protected final static double DEFAULT_HIGH_ASYMPTOTE = 1.0;
 
 	protected transient Sigmoid sigmoid;
 
+	private final double lowAsymptote;
+	private final double highAsymptote;
+
 	private double a1;
 	private double c1;
 	private double a2;
@@ -40,6 +44,8 @@ public class ProductSigmoidalMembershipFunction implements MembershipFunction<Do
 
 	public ProductSigmoidalMembershipFunction(double lowAsymptote, double highAsymptote, double a1, double c1, double a2, double c2) {
 		sigmoid = new Sigmoid(lowAsymptote, highAsymptote);
+		this.lowAsymptote = lowAsymptote;
+		this.highAsymptote = highAsymptote;
 		this.a1 = a1;
 		this.c1 = c1;
 		this.a2 = a2;
@@ -48,16 +54,74 @@ public class ProductSigmoidalMembershipFunction implements MembershipFunction<Do
 
 	/*
 	 * (non-Javadoc)
-	 * @see fuzzy.mf.MembershipFunction#apply(java.lang.Object)
+	 * @see fuzzy.mf.DoubleMembershipFunction#applyAsDouble(double)
 	 */
 	@Override
-	public Double apply(Double x) {
+	public double applyAsDouble(double x) {
 		final double r1 = sigmoid.value(a1*(x-c1));
 		final double r2 = sigmoid.value(a2*(x-c2));
 
 		return r1 * r2;
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * @see fuzzy.mf.DoubleMembershipFunction#applyAll(double[], int, int, double[])
+	 */
+	@Override
+	public void applyAll(double[] xs, int from, int to, double[] out) {
+		final Sigmoid s = sigmoid;
+		for (int i = from; i < to; i++) {
+			final double x = xs[i];
+			out[i] = s.value(a1 * (x - c1)) * s.value(a2 * (x - c2));
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see fuzzy.mf.DoubleMembershipFunction#support(double)
+	 */
+	@Override
+	public Interval support(double epsilon) {
+		if (lowAsymptote != DEFAULT_LOW_ASYMPTOTE || highAsymptote != DEFAULT_HIGH_ASYMPTOTE) {
+			return Interval.ALL;
+		}
+		// the product is not greater than each sigmoid
+		return SigmoidalMembershipFunction.sigmoidSupport(a1, c1, epsilon)
+				.intersection(SigmoidalMembershipFunction.sigmoidSupport(a2, c2, epsilon));
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see fuzzy.mf.DifferentiableMembershipFunction#getParameterCount()
+	 */
+	@Override
+	public int getParameterCount() {
+		return 4;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see fuzzy.mf.DifferentiableMembershipFunction#gradient(double, double[], int)
+	 */
+	@Override
+	public double gradient(double x, double[] gradient, int offset) {
+		final double e1 = FastMath.exp(-a1 * (x - c1));
+		final double e2 = FastMath.exp(-a2 * (x - c2));
+		final double s1 = 1 / (1 + e1);
+		final double s2 = 1 / (1 + e2);
+		final double range = highAsymptote - lowAsymptote;
+		final double r1 = lowAsymptote + range / (1 + e1);
+		final double r2 = lowAsymptote + range / (1 + e2);
+		final double slope1 = range * s1 * (1 - s1) * r2;
+		final double slope2 = range * s2 * (1 - s2) * r1;
+		gradient[offset] = slope1 * (x - c1);
+		gradient[offset + 1] = -slope1 * a1;
+		gradient[offset + 2] = slope2 * (x - c2);
+		gradient[offset + 3] = -slope2 * a2;
+		return r1 * r2;
+	}
+
 	/* (non-Javadoc)
 	 * @see java.lang.Object#equals(java.lang.Object)
 	 */
@@ -13,8 +13,6 @@
  */
 package fuzzy.mf;
 
-import org.apache.commons.math3.util.FastMath;
-
 /**
  * S-Shaped Membership Function. Equivalent to Matlab
  * <a href="http://www.mathworks.com/help/toolbox/fuzzy/smf.html">smf</a>
@@ -22,7 +20,7 @@ import org.apache.commons.math3.util.FastMath;
  *
  * @since 0.1
  */
-public class SShapedMembershipFunction implements MembershipFunction<Double> {
+public class SShapedMembershipFunction implements DoubleMembershipFunction {
 
 	private final double a;
 	private final double b;
@@ -34,16 +32,18 @@ public class SShapedMembershipFunction implements MembershipFunction<Double> {
 
 	/*
 	 * (non-Javadoc)
-	 * @see fuzzy.mf.MembershipFunction#apply(java.lang.Object)
+	 * @see fuzzy.mf.DoubleMembershipFunction#applyAsDouble(double)
 	 */
 	@Override
-	public Double apply(Double x) {
+	public double applyAsDouble(double x) {
 		if(x <= a) {
 			return 0.0;
 		} else if(a <= x && x <= (a+b)/2) {
-			return 2 * FastMath.pow((x-a)/(b-a), 2);
+			final double t = (x-a)/(b-a);
+			return 2 * (t * t);
 		} else if((a+b)/2 <= x && x <= b) {
-			return 1 - 2 * FastMath.pow((x-b)/(b-a), 2);
+			final double t = (x-b)/(b-a);
+			return 1 - 2 * (t * t);
 		} else if(x >= b) {
 			return 1.0;
 		}
@@ -51,6 +51,43 @@ public class SShapedMembershipFunction implements MembershipFunction<Double> {
 		return 0.0;
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * @see fuzzy.mf.DoubleMembershipFunction#applyAll(double[], int, int, double[])
+	 */
+	@Override
+	public void applyAll(double[] xs, int from, int to, double[] out) {
+		final double m = (a + b) / 2;
+		final double w = b - a;
+		for (int i = from; i < to; i++) {
+			final double x = xs[i];
+			final double t1 = (x - a) / w;
+			final double t2 = (x - b) / w;
+			out[i] = x <= a ? 0.0
+					: x <= m ? 2 * (t1 * t1)
+					: x <= b ? 1 - 2 * (t2 * t2)
+					: x >= b ? 1.0 : 0.0;
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see fuzzy.mf.DoubleMembershipFunction#support(double)
+	 */
+	@Override
+	public Interval support(double epsilon) {
+		return new Interval(a, Double.POSITIVE_INFINITY);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see fuzzy.mf.DoubleMembershipFunction#core()
+	 */
+	@Override
+	public Interval core() {
+		return new Interval(a < b ? b : Math.nextUp(a), Double.POSITIVE_INFINITY);
+	}
+
 	/* (non-Javadoc)
 	 * @see java.lang.Object#equals(java.lang.Object)
 	 */
@@ -0,0 +1,342 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package fuzzy.mf;
+
+import java.util.Arrays;
+
+import org.apache.commons.functor.generator.range.DoubleRange;
+
+/**
+ * Tabulated Membership Function. Samples another membership function once,
+ * over a bounded range of crisp values, and answers later evaluations by
+ * interpolating between the samples. Useful to replace membership functions
+ * that call <code>exp</code> or <code>pow</code> on each evaluation, such as
+ * the gaussian, bell or sigmoidal membership functions.
+ *
+ * <p>The membership function is sampled at evenly spaced points that include
+ * both ends of the range, no more than the step of the range apart. Crisp
+ * values outside the range get the value of the nearest end.</p>
+ *
+ * <p>{@link Interpolation#LINEAR} costs two array loads and a multiply-add.
+ * {@link Interpolation#CUBIC} uses monotone (Fritsch-Carlson) cubic Hermite
+ * interpolation, which is more accurate on smooth shapes and, unlike other
+ * cubic splines, never overshoots the samples, so the result stays between
+ * 0 and 1.</p>
+ *
+ * <p>The maximum interpolation error is measured against the sampled
+ * membership function when this membership function is created, and is
+ * available through {@link #getMaximumError()}.</p>
+ *
+ * @since 0.5
+ */
+public class SampledMembershipFunction implements DoubleMembershipFunction {
+
+	/**
+	 * Interpolation used between two samples.
+	 */
+	public enum Interpolation {
+		/**
+		 * Linear interpolation.
+		 */
+		LINEAR,
+		/**
+		 * Monotone cubic Hermite interpolation.
+		 */
+		CUBIC
+	}
+
+	/**
+	 * Number of points, inside each interval between two samples, where the
+	 * interpolation error is measured.
+	 */
+	private static final int ERROR_POINTS = 3;
+
+	private final double lower;
+	private final double upper;
+	private final double inverseStep;
+	private final double[] values;
+	/**
+	 * Slopes at each sample, scaled to an interval of length 1. Only used by
+	 * cubic interpolation.
+	 */
+	private final double[] slopes;
+	private final Interpolation interpolation;
+	private final double maximumError;
+
+	/**
+	 * Samples a membership function using linear interpolation.
+	 *
+	 * @param mf membership function
+	 * @param range bounded range of crisp values, whose step is the resolution
+	 * @throws IllegalArgumentException if the step of the range is zero
+	 */
+	public SampledMembershipFunction(MembershipFunction<Double> mf, DoubleRange range) {
+		this(mf, range, Interpolation.LINEAR);
+	}
+
+	/**
+	 * Samples a membership function.
+	 *
+	 * @param mf membership function
+	 * @param range bounded range of crisp values, whose step is the resolution
+	 * @param interpolation interpolation used between two samples
+	 * @throws IllegalArgumentException if the step of the range is zero
+	 */
+	public SampledMembershipFunction(MembershipFunction<Double> mf, DoubleRange range, Interpolation interpolation) {
+		final double left = range.getLeftEndpoint().getValue();
+		final double right = range.getRightEndpoint().getValue();
+		final double step = Math.abs(range.getStep());
+		if (step == 0.0 || Double.isNaN(step)) {
+			throw new IllegalArgumentException("Invalid step " + range.getStep() + " to sample a membership function");
+		}
+		this.lower = Math.min(left, right);
+		this.upper = Math.max(left, right);
+		this.interpolation = interpolation;
+
+		final int intervals = Math.max(1, (int) Math.ceil((upper - lower) / step));
+		this.inverseStep = upper > lower ? intervals / (upper - lower) : 0.0;
+		final DoubleMembershipFunction source = DoubleMembershipFunction.of(mf);
+		this.values = new double[intervals + 1];
+		for (int i = 0; i <= intervals; i++) {
+			values[i] = source.applyAsDouble(sample(i));
+		}
+
+		if (interpolation == Interpolation.CUBIC) {
+			this.slopes = monotoneSlopes(values);
+		} else {
+			this.slopes = null;
+		}
+		this.maximumError = measureError(source, intervals);
+	}
+
+	/**
+	 * Computes Fritsch-Carlson slopes, so that the cubic Hermite interpolation
+	 * preserves the monotonicity of the samples.
+	 *
+	 * @param values samples
+	 * @return slopes at each sample
+	 */
+	private static double[] monotoneSlopes(double[] values) {
+		final int n = values.length;
+		final double[] slopes = new double[n];
+		if (n < 2) {
+			return slopes;
+		}
+		slopes[0] = values[1] - values[0];
+		slopes[n - 1] = values[n - 1] - values[n - 2];
+		for (int i = 1; i < n - 1; i++) {
+			final double left = values[i] - values[i - 1];
+			final double right = values[i + 1] - values[i];
+			if (left * right <= 0.0) {
+				slopes[i] = 0.0;
+			} else {
+				slopes[i] = 2 / (1 / left + 1 / right);
+			}
+		}
+		return slopes;
+	}
+
+	/**
+	 * Measures the maximum interpolation error inside each interval between
+	 * two samples.
+	 *
+	 * @param source sampled membership function
+	 * @param intervals number of intervals
+	 * @return maximum absolute difference found
+	 */
+	private double measureError(DoubleMembershipFunction source, int intervals) {
+		double max = 0.0;
+		for (int i = 0; i < intervals; i++) {
+			for (int j = 1; j <= ERROR_POINTS; j++) {
+				final double x = lower + (upper - lower) * (i + j / (ERROR_POINTS + 1.0)) / intervals;
+				final double error = Math.abs(applyAsDouble(x) - source.applyAsDouble(x));
+				if (error > max) {
+					max = error;
+				}
+			}
+		}
+		return max;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see fuzzy.mf.DoubleMembershipFunction#applyAsDouble(double)
+	 */
+	@Override
+	public double applyAsDouble(double x) {
+		if (x <= lower) {
+			return values[0];
+		} else if (x >= upper) {
+			return values[values.length - 1];
+		}
+		final double position = (x - lower) * inverseStep;
+		final int i = Math.min((int) position, values.length - 2);
+		final double t = position - i;
+		if (slopes == null) {
+			return values[i] + t * (values[i + 1] - values[i]);
+		}
+		return hermite(values[i], values[i + 1], slopes[i], slopes[i + 1], t);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see fuzzy.mf.DoubleMembershipFunction#applyAll(double[], int, int, double[])
+	 */
+	@Override
+	public void applyAll(double[] xs, int from, int to, double[] out) {
+		final double[] v = values;
+		final int last = v.length - 1;
+		final double first = v[0];
+		final double end = v[last];
+		if (slopes == null) {
+			for (int i = from; i < to; i++) {
+				final double x = xs[i];
+				final double position = (x - lower) * inverseStep;
+				final int k = Math.min(Math.max((int) position, 0), last - 1);
+				final double t = position - k;
+				final double y = v[k] + t * (v[k + 1] - v[k]);
+				out[i] = x <= lower ? first : x >= upper ? end : y;
+			}
+		} else {
+			final double[] s = slopes;
+			for (int i = from; i < to; i++) {
+				final double x = xs[i];
+				final double position = (x - lower) * inverseStep;
+				final int k = Math.min(Math.max((int) position, 0), last - 1);
+				final double y = hermite(v[k], v[k + 1], s[k], s[k + 1], position - k);
+				out[i] = x <= lower ? first : x >= upper ? end : y;
+			}
+		}
+	}
+
+	/**
+	 * Cubic Hermite interpolation over an interval of length 1.
+	 *
+	 * @param y0 value at the start of the interval
+	 * @param y1 value at the end of the interval
+	 * @param m0 slope at the start of the interval
+	 * @param m1 slope at the end of the interval
+	 * @param t position inside the interval, between 0 and 1
+	 * @return interpolated value
+	 */
+	private static double hermite(double y0, double y1, double m0, double m1, double t) {
+		final double t2 = t * t;
+		final double t3 = t2 * t;
+		return (2 * t3 - 3 * t2 + 1) * y0 + (t3 - 2 * t2 + t) * m0 + (3 * t2 - 2 * t3) * y1 + (t3 - t2) * m1;
+	}
+
+	/**
+	 * Returns the maximum interpolation error measured against the sampled
+	 * membership function.
+	 *
+	 * @return maximum absolute interpolation error
+	 */
+	public double getMaximumError() {
+		return maximumError;
+	}
+
+	/**
+	 * Returns the number of samples in the table.
+	 *
+	 * @return number of samples
+	 */
+	public int getSize() {
+		return values.length;
+	}
+
+	/**
+	 * Returns the interpolation used between two samples.
+	 *
+	 * @return interpolation
+	 */
+	public Interpolation getInterpolation() {
+		return interpolation;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see fuzzy.mf.DoubleMembershipFunction#support(double)
+	 */
+	@Override
+	public Interval support(double epsilon) {
+		final int n = values.length;
+		int first = 0;
+		while (first < n && !(values[first] > epsilon)) {
+			first++;
+		}
+		if (first == n) {
+			return Interval.EMPTY;
+		}
+		int last = n - 1;
+		while (!(values[last] > epsilon)) {
+			last--;
+		}
+		// both interpolations stay between the samples they join
+		return new Interval(first == 0 ? Double.NEGATIVE_INFINITY : sample(first - 1),
+				last == n - 1 ? Double.POSITIVE_INFINITY : sample(last + 1));
+	}
+
+	/**
+	 * Returns the crisp value of a sample.
+	 *
+	 * @param i index of the sample
+	 * @return crisp value
+	 */
+	private double sample(int i) {
+		final int intervals = values.length - 1;
+		return i == intervals ? upper : lower + (upper - lower) * i / intervals;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#equals(java.lang.Object)
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if(obj == null) {
+			return false;
+		}
+		if(obj == this) {
+			return true;
+		}
+		if(!(obj instanceof SampledMembershipFunction)) {
+			return false;
+		}
+		final SampledMembershipFunction that = (SampledMembershipFunction)obj;
+		return this.lower == that.lower && this.upper == that.upper
+				&& this.interpolation == that.interpolation
+				&& Arrays.equals(this.values, that.values);
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#hashCode()
+	 */
+	@Override
+	public int hashCode() {
+		int hash = "SampledMembershipFunction".hashCode();
+		hash <<= 2;
+		hash ^= interpolation.ordinal();
+		hash <<= 2;
+		hash ^= Arrays.hashCode(values);
+		return hash;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "Sampled Membership Function ["+lower+" "+upper+" "+values.length+" "+interpolation+"]";
+	}
+
+}
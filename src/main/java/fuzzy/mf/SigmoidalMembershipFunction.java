@@ -14,6 +14,7 @@
 package fuzzy.mf;
 
 import org.apache.commons.math3.analysis.function.Sigmoid;
+import org.apache.commons.math3.util.FastMath;
 
 /**
  * Sigmoidal Membership Function. Equivalent to Matlab
@@ -22,13 +23,16 @@ import org.apache.commons.math3.analysis.function.Sigmoid;
  *
  * @since 0.1
  */
-public class SigmoidalMembershipFunction implements MembershipFunction<Double> {
+public class SigmoidalMembershipFunction implements DifferentiableMembershipFunction {
 
 	protected final static double DEFAULT_LOW_ASYMPTOTE = 0.0;
 	protected final static double DEFAULT_HIGH_ASYMPTOTE = 1.0;
 
 	protected transient Sigmoid sigmoid;
 
+	private final double lowAsymptote;
+	private final double highAsymptote;
+
 	private final double a;
 	private final double c;
 
@@ -38,19 +42,89 @@ public class SigmoidalMembershipFunction implements MembershipFunction<Double> {
 
 	public SigmoidalMembershipFunction(double lowAsymptote, double highAsymptote, double a, double c) {
 		sigmoid = new Sigmoid(lowAsymptote, highAsymptote);
+		this.lowAsymptote = lowAsymptote;
+		this.highAsymptote = highAsymptote;
 		this.a = a;
 		this.c = c;
 	}
 
 	/*
 	 * (non-Javadoc)
-	 * @see fuzzy.mf.MembershipFunction#apply(java.lang.Object)
+	 * @see fuzzy.mf.DoubleMembershipFunction#applyAsDouble(double)
 	 */
 	@Override
-	public Double apply(Double x) {
+	public double applyAsDouble(double x) {
 		return sigmoid.value(a*(x-c));
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * @see fuzzy.mf.DoubleMembershipFunction#applyAll(double[], int, int, double[])
+	 */
+	@Override
+	public void applyAll(double[] xs, int from, int to, double[] out) {
+		final Sigmoid s = sigmoid;
+		for (int i = from; i < to; i++) {
+			out[i] = s.value(a * (xs[i] - c));
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see fuzzy.mf.DoubleMembershipFunction#support(double)
+	 */
+	@Override
+	public Interval support(double epsilon) {
+		if (lowAsymptote != DEFAULT_LOW_ASYMPTOTE || highAsymptote != DEFAULT_HIGH_ASYMPTOTE) {
+			return Interval.ALL;
+		}
+		return sigmoidSupport(a, c, epsilon);
+	}
+
+	/**
+	 * Returns an interval that contains the crisp values whose sigmoid,
+	 * <code>1 / (1 + exp(-a * (x - c)))</code>, is greater than epsilon.
+	 *
+	 * @param a slope
+	 * @param c crossover point
+	 * @param epsilon cutoff
+	 * @return interval with the sigmoid values greater than epsilon
+	 */
+	static Interval sigmoidSupport(double a, double c, double epsilon) {
+		if (epsilon <= 0.0 || Double.isNaN(a)) {
+			return Interval.ALL;
+		} else if (epsilon >= 1.0) {
+			return Interval.EMPTY;
+		} else if (a == 0.0) {
+			return epsilon < 0.5 ? Interval.ALL : Interval.EMPTY;
+		}
+		final double bound = c + FastMath.log(epsilon / (1 - epsilon)) / a;
+		return a > 0.0 ? new Interval(bound, Double.POSITIVE_INFINITY) : new Interval(Double.NEGATIVE_INFINITY, bound);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see fuzzy.mf.DifferentiableMembershipFunction#getParameterCount()
+	 */
+	@Override
+	public int getParameterCount() {
+		return 2;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see fuzzy.mf.DifferentiableMembershipFunction#gradient(double, double[], int)
+	 */
+	@Override
+	public double gradient(double x, double[] gradient, int offset) {
+		final double e = FastMath.exp(-a * (x - c));
+		final double s = 1 / (1 + e);
+		final double slope = (highAsymptote - lowAsymptote) * s * (1 - s);
+		gradient[offset] = slope * (x - c);
+		gradient[offset + 1] = -slope * a;
+		return lowAsymptote + (highAsymptote - lowAsymptote) / (1 + e);
+	}
+
 	/* (non-Javadoc)
 	 * @see java.lang.Object#equals(java.lang.Object)
 	 */
@@ -1,96 +1,225 @@
-/*
- * Licensed under the Apache License, Version 2.0 (the "License");
- * you may not use this file except in compliance with the License.
- * You may obtain a copy of the License at
- *
- *     http://www.apache.org/licenses/LICENSE-2.0
- *
- * Unless required by applicable law or agreed to in writing, software
- * distributed under the License is distributed on an
- * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
- * either express or implied. See the License for the specific language
- * governing permissions and limitations under the License.
- */
-package fuzzy.mf;
-
-
-/**
- * Trapezoidal Shaped Membership Function. Equivalent to Matlab
- * <a href="http://www.mathworks.com/help/toolbox/fuzzy/trapmf.html">trapmf</a>
- * function.
- *
- * @since 0.1
- */
-public class TrapezoidalMembershipFunction implements MembershipFunction<Double> {
-
-	private final double a;
-	private final double b;
-	private final double c;
-	private final double d;
-
-	public TrapezoidalMembershipFunction(double a, double b, double c, double d) {
-		this.a = a;
-		this.b = b;
-		this.c = c;
-		this.d = d;
-	}
-
-	/*
-	 * (non-Javadoc)
-	 * @see fuzzy.mf.MembershipFunction#apply(java.lang.Object)
-	 */
-	@Override
-	public Double apply(Double x) {
-		if(x <= a) {
-			return 0.0;
-		} else if(a <= x && x <= b) {
-			return ((x-a)/(b-a));
-		} else if(c <= x && x <= d) {
-			return ((d-x)/(d-c));
-		} else if(d <= x) {
-			return 0.0;
-		}
-
-		return 1.0;
-	}
-
-	/* (non-Javadoc)
-	 * @see java.lang.Object#equals(java.lang.Object)
-	 */
-	@Override
-	public boolean equals(Object obj) {
-		if(obj == null) {
-			return false;
-		}
-		if(obj == this) {
-			return true;
-		}
-		if(!(obj instanceof TrapezoidalMembershipFunction)) {
-			return false;
-		}
-		final TrapezoidalMembershipFunction that = (TrapezoidalMembershipFunction)obj;
-		return this.a == that.a && this.b == that.b && this.c == that.c && this.d == that.d;
-	}
-
-	/* (non-Javadoc)
-	 * @see java.lang.Object#hashCode()
-	 */
-	@Override
-	public int hashCode() {
-		int hash = "TrapezoidalMembershipFunction".hashCode();
-		hash <<= 2;
-		hash ^= (int)this.a;
-		hash <<= 2;
-		hash ^= (int)this.b;
-		return hash;
-	}
-
-	/* (non-Javadoc)
-	 * @see java.lang.Object#toString()
-	 */
-	@Override
-	public String toString() {
-		return "Trapezoidal-Shaped Membership Function ["+this.a+" "+this.b+"]";
-	}
-
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package fuzzy.mf;
+
+
+/**
+ * Trapezoidal Shaped Membership Function. Equivalent to Matlab
+ * <a href="http://www.mathworks.com/help/toolbox/fuzzy/trapmf.html">trapmf</a>
+ * function.
+ *
+ * @since 0.1
+ */
+public class TrapezoidalMembershipFunction implements AnalyticallyDefuzzifiable, DifferentiableMembershipFunction {
+
+	private final double a;
+	private final double b;
+	private final double c;
+	private final double d;
+
+	public TrapezoidalMembershipFunction(double a, double b, double c, double d) {
+		this.a = a;
+		this.b = b;
+		this.c = c;
+		this.d = d;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see fuzzy.mf.DoubleMembershipFunction#applyAsDouble(double)
+	 */
+	@Override
+	public double applyAsDouble(double x) {
+		if(x <= a) {
+			return 0.0;
+		} else if(a <= x && x <= b) {
+			return ((x-a)/(b-a));
+		} else if(c <= x && x <= d) {
+			return ((d-x)/(d-c));
+		} else if(d <= x) {
+			return 0.0;
+		}
+
+		return 1.0;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see fuzzy.mf.DoubleMembershipFunction#applyAll(double[], int, int, double[])
+	 */
+	@Override
+	public void applyAll(double[] xs, int from, int to, double[] out) {
+		if (!(a < b && b <= c && c < d)) {
+			// degenerate shapes rely on the order of the tests in applyAsDouble
+			AnalyticallyDefuzzifiable.super.applyAll(xs, from, to, out);
+			return;
+		}
+		final double ba = b - a;
+		final double dc = d - c;
+		for (int i = from; i < to; i++) {
+			final double x = xs[i];
+			// NaN fails every test of applyAsDouble, which then returns one
+			out[i] = x != x ? 1.0 : Math.max(Math.min(Math.min((x - a) / ba, 1.0), (d - x) / dc), 0.0);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see fuzzy.mf.DoubleMembershipFunction#support(double)
+	 */
+	@Override
+	public Interval support(double epsilon) {
+		if (!(a <= b && b <= c && c <= d)) {
+			return Interval.ALL;
+		}
+		return new Interval(a, d);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see fuzzy.mf.DoubleMembershipFunction#core()
+	 */
+	@Override
+	public Interval core() {
+		if (!(a <= b && b <= c && c <= d)) {
+			return Interval.EMPTY;
+		}
+		// with a vertical side, the fuzzy value at the foot is not one
+		return new Interval(a < b ? b : Math.nextUp(b), c < d ? c : Math.nextDown(c));
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see fuzzy.mf.AnalyticallyDefuzzifiable#hasClosedForm()
+	 */
+	@Override
+	public boolean hasClosedForm() {
+		return a <= b && b <= c && c <= d;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see fuzzy.mf.AnalyticallyDefuzzifiable#area(double, double, double)
+	 */
+	@Override
+	public double area(double lower, double upper, double alpha) {
+		return new ClippedTrapezoid(a, b, c, d, alpha).area(lower, upper);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see fuzzy.mf.AnalyticallyDefuzzifiable#firstMoment(double, double, double)
+	 */
+	@Override
+	public double firstMoment(double lower, double upper, double alpha) {
+		return new ClippedTrapezoid(a, b, c, d, alpha).firstMoment(lower, upper);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see fuzzy.mf.AnalyticallyDefuzzifiable#bisector(double, double, double)
+	 */
+	@Override
+	public double bisector(double lower, double upper, double alpha) {
+		return new ClippedTrapezoid(a, b, c, d, alpha).bisector(lower, upper);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see fuzzy.mf.AnalyticallyDefuzzifiable#maxima(double, double, double)
+	 */
+	@Override
+	public Interval maxima(double lower, double upper, double alpha) {
+		return new ClippedTrapezoid(a, b, c, d, alpha).maxima(lower, upper);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see fuzzy.mf.DifferentiableMembershipFunction#getParameterCount()
+	 */
+	@Override
+	public int getParameterCount() {
+		return 4;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see fuzzy.mf.DifferentiableMembershipFunction#gradient(double, double[], int)
+	 */
+	@Override
+	public double gradient(double x, double[] gradient, int offset) {
+		gradient[offset] = 0.0;
+		gradient[offset + 1] = 0.0;
+		gradient[offset + 2] = 0.0;
+		gradient[offset + 3] = 0.0;
+		// the same segments as applyAsDouble
+		if(x <= a) {
+			return 0.0;
+		} else if(a <= x && x <= b) {
+			final double width = b - a;
+			gradient[offset] = (x - b) / (width * width);
+			gradient[offset + 1] = -(x - a) / (width * width);
+			return ((x-a)/(b-a));
+		} else if(c <= x && x <= d) {
+			final double width = d - c;
+			gradient[offset + 2] = (d - x) / (width * width);
+			gradient[offset + 3] = (x - c) / (width * width);
+			return ((d-x)/(d-c));
+		} else if(d <= x) {
+			return 0.0;
+		}
+
+		return 1.0;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#equals(java.lang.Object)
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if(obj == null) {
+			return false;
+		}
+		if(obj == this) {
+			return true;
+		}
+		if(!(obj instanceof TrapezoidalMembershipFunction)) {
+			return false;
+		}
+		final TrapezoidalMembershipFunction that = (TrapezoidalMembershipFunction)obj;
+		return this.a == that.a && this.b == that.b && this.c == that.c && this.d == that.d;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#hashCode()
+	 */
+	@Override
+	public int hashCode() {
+		int hash = "TrapezoidalMembershipFunction".hashCode();
+		hash <<= 2;
+		hash ^= (int)this.a;
+		hash <<= 2;
+		hash ^= (int)this.b;
+		return hash;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "Trapezoidal-Shaped Membership Function ["+this.a+" "+this.b+"]";
+	}
+
 }
\ No newline at end of file
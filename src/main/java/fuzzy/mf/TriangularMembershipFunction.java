@@ -22,7 +22,7 @@ import org.apache.commons.math3.util.FastMath;
  *
  * @since 0.1
  */
-public class TriangularMembershipFunction implements MembershipFunction<Double> {
+public class TriangularMembershipFunction implements AnalyticallyDefuzzifiable, DifferentiableMembershipFunction {
 
 	private final double a;
 	private final double b;
@@ -36,13 +36,132 @@ public class TriangularMembershipFunction implements MembershipFunction<Double>
 
 	/*
 	 * (non-Javadoc)
-	 * @see fuzzy.mf.MembershipFunction#apply(java.lang.Object)
+	 * @see fuzzy.mf.DoubleMembershipFunction#applyAsDouble(double)
 	 */
 	@Override
-	public Double apply(Double x) {
+	public double applyAsDouble(double x) {
 		return FastMath.max(FastMath.min((x-a)/(b-a), (c-x)/(c-b)), 0.0);
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * @see fuzzy.mf.DoubleMembershipFunction#applyAll(double[], int, int, double[])
+	 */
+	@Override
+	public void applyAll(double[] xs, int from, int to, double[] out) {
+		final double ba = b - a;
+		final double cb = c - b;
+		for (int i = from; i < to; i++) {
+			final double x = xs[i];
+			out[i] = Math.max(Math.min((x - a) / ba, (c - x) / cb), 0.0);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see fuzzy.mf.DoubleMembershipFunction#support(double)
+	 */
+	@Override
+	public Interval support(double epsilon) {
+		if (!(a < b && b < c)) {
+			return Interval.ALL;
+		}
+		return new Interval(a, c);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see fuzzy.mf.DoubleMembershipFunction#core()
+	 */
+	@Override
+	public Interval core() {
+		if (!(a < b && b < c)) {
+			return Interval.EMPTY;
+		}
+		return new Interval(b, b);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see fuzzy.mf.AnalyticallyDefuzzifiable#hasClosedForm()
+	 */
+	@Override
+	public boolean hasClosedForm() {
+		return a <= b && b <= c;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see fuzzy.mf.AnalyticallyDefuzzifiable#area(double, double, double)
+	 */
+	@Override
+	public double area(double lower, double upper, double alpha) {
+		return new ClippedTrapezoid(a, b, b, c, alpha).area(lower, upper);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see fuzzy.mf.AnalyticallyDefuzzifiable#firstMoment(double, double, double)
+	 */
+	@Override
+	public double firstMoment(double lower, double upper, double alpha) {
+		return new ClippedTrapezoid(a, b, b, c, alpha).firstMoment(lower, upper);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see fuzzy.mf.AnalyticallyDefuzzifiable#bisector(double, double, double)
+	 */
+	@Override
+	public double bisector(double lower, double upper, double alpha) {
+		return new ClippedTrapezoid(a, b, b, c, alpha).bisector(lower, upper);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see fuzzy.mf.AnalyticallyDefuzzifiable#maxima(double, double, double)
+	 */
+	@Override
+	public Interval maxima(double lower, double upper, double alpha) {
+		return new ClippedTrapezoid(a, b, b, c, alpha).maxima(lower, upper);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see fuzzy.mf.DifferentiableMembershipFunction#getParameterCount()
+	 */
+	@Override
+	public int getParameterCount() {
+		return 3;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see fuzzy.mf.DifferentiableMembershipFunction#gradient(double, double[], int)
+	 */
+	@Override
+	public double gradient(double x, double[] gradient, int offset) {
+		final double left = (x - a) / (b - a);
+		final double right = (c - x) / (c - b);
+		final double m = FastMath.max(FastMath.min(left, right), 0.0);
+		gradient[offset] = 0.0;
+		gradient[offset + 1] = 0.0;
+		gradient[offset + 2] = 0.0;
+		if (!(m > 0.0)) {
+			return m;
+		}
+		if (left <= right) {
+			final double width = b - a;
+			gradient[offset] = (x - b) / (width * width);
+			gradient[offset + 1] = -(x - a) / (width * width);
+		} else {
+			final double width = c - b;
+			gradient[offset + 1] = (c - x) / (width * width);
+			gradient[offset + 2] = (x - b) / (width * width);
+		}
+		return m;
+	}
+
 	/* (non-Javadoc)
 	 * @see java.lang.Object#equals(java.lang.Object)
 	 */
@@ -0,0 +1,602 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package fuzzy.set;
+
+import java.util.Arrays;
+
+import org.apache.commons.functor.generator.range.DoubleRange;
+
+import fuzzy.internal.functions.Doubles;
+import fuzzy.mf.DoubleMembershipFunction;
+import fuzzy.util.PlateauScanner;
+import fuzzy.util.PlateauScanner.Plateaus;
+
+/**
+ * A fuzzy set over a discrete universe, stored as an array of membership
+ * values: one for each crisp value of the universe.
+ *
+ * <p>
+ * The universe is either an array of crisp values, or evenly spaced crisp
+ * values described by a start and a step, the crisp value at index
+ * <code>i</code> being <code>start + i * step</code>. An array universe is
+ * not copied, so that several sets can share it; it must not be modified
+ * afterwards.
+ * </p>
+ *
+ * <p>
+ * Union, intersection, clipping and scaling modify the membership values in
+ * place, and return this set, so that rules can be aggregated into a single
+ * buffer that is cleared and reused for each inference, without evaluating
+ * nested membership functions at defuzzification time. Defuzzification uses
+ * the same formulas as the defuzzification functions of
+ * <code>fuzzy.df</code>, and gives the same results over the same crisp
+ * values.
+ * </p>
+ *
+ * <p>
+ * Two sets are equal if they have the same crisp values and membership
+ * values. As the membership values change in place, the hash code changes
+ * with them: a set must not be modified while it is a key of a map or an
+ * element of a set.
+ * </p>
+ *
+ * <p>
+ * This class is <strong>not thread safe</strong>.
+ * </p>
+ *
+ * @since 0.5
+ */
+public final class DiscreteFuzzySet {
+
+	private static final PlateauScanner SCANNER = new PlateauScanner();
+
+	/**
+	 * Crisp values, or <code>null</code> if described by start and step.
+	 */
+	private final double[] universe;
+	private final double start;
+	private final double step;
+	private final double[] memberships;
+	/**
+	 * Maxima, reused by each maxima defuzzification.
+	 */
+	private final Plateaus plateaus = new Plateaus();
+	/**
+	 * Crisp values of a universe described by start and step, for the maxima
+	 * defuzzifications, or <code>null</code> until needed.
+	 */
+	private double[] sampledUniverse;
+
+	/**
+	 * Creates an empty fuzzy set (every membership value zero) over an array
+	 * of crisp values.
+	 *
+	 * @param universe crisp values, not copied
+	 */
+	public DiscreteFuzzySet(double[] universe) {
+		this(universe, 0.0, 0.0, new double[universe.length]);
+	}
+
+	/**
+	 * Creates an empty fuzzy set (every membership value zero) over evenly
+	 * spaced crisp values.
+	 *
+	 * @param start first crisp value
+	 * @param step distance between two crisp values
+	 * @param size number of crisp values
+	 * @throws IllegalArgumentException if the start or the step are not finite,
+	 * the step is zero, or the size is negative
+	 */
+	public DiscreteFuzzySet(double start, double step, int size) {
+		this(null, start, step, new double[checkSize(size)]);
+		if (Double.isNaN(start) || Double.isInfinite(start) || step == 0.0 || Double.isNaN(step)
+				|| Double.isInfinite(step)) {
+			throw new IllegalArgumentException("Invalid universe " + start + " " + step + " for a discrete fuzzy set");
+		}
+	}
+
+	private DiscreteFuzzySet(double[] universe, double start, double step, double[] memberships) {
+		this.universe = universe;
+		this.start = start;
+		this.step = step;
+		this.memberships = memberships;
+	}
+
+	private static int checkSize(int size) {
+		if (size < 0) {
+			throw new IllegalArgumentException("Invalid size " + size + " for a discrete fuzzy set");
+		}
+		return size;
+	}
+
+	/**
+	 * Samples a membership function over the crisp values of a range, as the
+	 * defuzzification functions do.
+	 *
+	 * @param range crisp values
+	 * @param mf membership function
+	 * @return a new fuzzy set
+	 */
+	public static DiscreteFuzzySet of(DoubleRange range, DoubleMembershipFunction mf) {
+		return new DiscreteFuzzySet(Doubles.toArray(range)).fill(mf);
+	}
+
+	/**
+	 * @return a new fuzzy set, over the same universe, with a copy of the
+	 * membership values
+	 */
+	public DiscreteFuzzySet copy() {
+		return new DiscreteFuzzySet(universe, start, step, memberships.clone());
+	}
+
+	/**
+	 * @return number of crisp values in the universe
+	 */
+	public int size() {
+		return memberships.length;
+	}
+
+	/**
+	 * @param i index
+	 * @return crisp value at the index
+	 */
+	public double getCrispValue(int i) {
+		return universe != null ? universe[i] : start + i * step;
+	}
+
+	/**
+	 * @param i index
+	 * @return membership value of the crisp value at the index
+	 */
+	public double getMembership(int i) {
+		return memberships[i];
+	}
+
+	/**
+	 * @param i index
+	 * @param membership membership value of the crisp value at the index
+	 */
+	public void setMembership(int i, double membership) {
+		memberships[i] = membership;
+	}
+
+	/**
+	 * Reads this set as a membership function: interpolates linearly between
+	 * the membership values of the two crisp values around a value.
+	 *
+	 * @param x crisp value
+	 * @return interpolated membership value, zero outside the universe
+	 */
+	public double interpolate(double x) {
+		final int n = memberships.length;
+		if (n == 0 || Double.isNaN(x)) {
+			return 0.0;
+		}
+		final double first = getCrispValue(0);
+		final double last = getCrispValue(n - 1);
+		if (x < Math.min(first, last) || x > Math.max(first, last)) {
+			return 0.0;
+		}
+		if (n == 1) {
+			return memberships[0];
+		}
+		final int i;
+		final double t;
+		if (universe != null) {
+			final int found = Arrays.binarySearch(universe, x);
+			if (found >= 0) {
+				return memberships[found];
+			}
+			i = -found - 2;
+			t = (x - universe[i]) / (universe[i + 1] - universe[i]);
+		} else {
+			final double position = (x - start) / step;
+			i = Math.min(n - 2, (int) position);
+			t = position - i;
+		}
+		return memberships[i] + t * (memberships[i + 1] - memberships[i]);
+	}
+
+	/**
+	 * Returns the membership values. The array is not copied: changes to it
+	 * change this set.
+	 *
+	 * @return membership values, indexed like the universe
+	 */
+	public double[] getMemberships() {
+		return memberships;
+	}
+
+	/**
+	 * Sets every membership value to zero.
+	 *
+	 * @return this set
+	 */
+	public DiscreteFuzzySet clear() {
+		Arrays.fill(memberships, 0.0);
+		return this;
+	}
+
+	/**
+	 * Sets the membership values to those of a membership function.
+	 *
+	 * @param mf membership function
+	 * @return this set
+	 */
+	public DiscreteFuzzySet fill(DoubleMembershipFunction mf) {
+		if (universe != null) {
+			mf.applyAll(universe, 0, universe.length, memberships);
+		} else {
+			for (int i = 0; i < memberships.length; i++) {
+				memberships[i] = mf.applyAsDouble(start + i * step);
+			}
+		}
+		return this;
+	}
+
+	/**
+	 * Standard union: each membership value becomes the maximum of both
+	 * sets.
+	 *
+	 * @param that a fuzzy set over the same universe
+	 * @return this set
+	 * @throws IllegalArgumentException if the universes differ
+	 */
+	public DiscreteFuzzySet union(DiscreteFuzzySet that) {
+		checkUniverse(that);
+		final double[] m = memberships;
+		final double[] other = that.memberships;
+		for (int i = 0; i < m.length; i++) {
+			m[i] = Math.max(m[i], other[i]);
+		}
+		return this;
+	}
+
+	/**
+	 * Standard intersection: each membership value becomes the minimum of
+	 * both sets.
+	 *
+	 * @param that a fuzzy set over the same universe
+	 * @return this set
+	 * @throws IllegalArgumentException if the universes differ
+	 */
+	public DiscreteFuzzySet intersection(DiscreteFuzzySet that) {
+		checkUniverse(that);
+		final double[] m = memberships;
+		final double[] other = that.memberships;
+		for (int i = 0; i < m.length; i++) {
+			m[i] = Math.min(m[i], other[i]);
+		}
+		return this;
+	}
+
+	/**
+	 * Clips the membership values at a level, as the minimum implication.
+	 *
+	 * @param alpha clipping level
+	 * @return this set
+	 */
+	public DiscreteFuzzySet clip(double alpha) {
+		final double[] m = memberships;
+		for (int i = 0; i < m.length; i++) {
+			m[i] = Math.min(m[i], alpha);
+		}
+		return this;
+	}
+
+	/**
+	 * Multiplies the membership values by a factor, as the product
+	 * implication.
+	 *
+	 * @param factor factor, usually between 0 and 1
+	 * @return this set
+	 */
+	public DiscreteFuzzySet scale(double factor) {
+		final double[] m = memberships;
+		for (int i = 0; i < m.length; i++) {
+			m[i] *= factor;
+		}
+		return this;
+	}
+
+	/**
+	 * Union with a membership function clipped at a level, without creating
+	 * an intermediate set: aggregates the consequent of a rule with minimum
+	 * implication.
+	 *
+	 * @param mf membership function
+	 * @param alpha clipping level, the firing strength of the rule
+	 * @return this set
+	 */
+	public DiscreteFuzzySet unionClipped(DoubleMembershipFunction mf, double alpha) {
+		final double[] m = memberships;
+		for (int i = 0; i < m.length; i++) {
+			m[i] = Math.max(m[i], Math.min(mf.applyAsDouble(getCrispValue(i)), alpha));
+		}
+		return this;
+	}
+
+	/**
+	 * Union with a membership function multiplied by a factor, without
+	 * creating an intermediate set: aggregates the consequent of a rule with
+	 * product implication.
+	 *
+	 * @param mf membership function
+	 * @param factor factor, the firing strength of the rule
+	 * @return this set
+	 */
+	public DiscreteFuzzySet unionScaled(DoubleMembershipFunction mf, double factor) {
+		final double[] m = memberships;
+		for (int i = 0; i < m.length; i++) {
+			m[i] = Math.max(m[i], mf.applyAsDouble(getCrispValue(i)) * factor);
+		}
+		return this;
+	}
+
+	/**
+	 * @return maximum membership value, zero if the universe is empty
+	 */
+	public double height() {
+		double height = 0.0;
+		for (double m : memberships) {
+			if (m > height) {
+				height = m;
+			}
+		}
+		return height;
+	}
+
+	/**
+	 * Returns the scalar cardinality (sigma count) of this set, that is, the
+	 * sum of the membership values. It is also the total area used by the
+	 * centroid and bisector defuzzifications.
+	 *
+	 * @return cardinality
+	 */
+	public double cardinality() {
+		double sum = 0.0;
+		for (double m : memberships) {
+			sum += m;
+		}
+		return sum;
+	}
+
+	/**
+	 * Returns the alpha-cut of this set: the crisp values whose membership
+	 * value is greater than or equal to <code>alpha</code>, as runs of
+	 * consecutive crisp values.
+	 *
+	 * @param alpha alpha level
+	 * @return pairs of first and last crisp values of each run, in the order
+	 * of the universe
+	 */
+	public double[] alphaCut(double alpha) {
+		final double[] m = memberships;
+		double[] cut = new double[8];
+		int size = 0;
+		int i = 0;
+		while (i < m.length) {
+			if (!(m[i] >= alpha)) {
+				i++;
+				continue;
+			}
+			final int first = i;
+			while (i < m.length && m[i] >= alpha) {
+				i++;
+			}
+			if (size == cut.length) {
+				cut = Arrays.copyOf(cut, size * 2);
+			}
+			cut[size++] = getCrispValue(first);
+			cut[size++] = getCrispValue(i - 1);
+		}
+		return Arrays.copyOf(cut, size);
+	}
+
+	/**
+	 * Returns the same result as the centroid defuzzification function.
+	 *
+	 * @return centroid
+	 * @throws IllegalArgumentException if total area is zero
+	 */
+	public double centroid() {
+		final double[] m = memberships;
+		double totalArea = 0.0;
+		double sum2 = 0.0;
+		for (int i = 0; i < m.length; i++) {
+			totalArea += m[i];
+			sum2 += getCrispValue(i) * m[i];
+		}
+		if (totalArea == 0)
+			throw new IllegalArgumentException(
+					"Total area is zero in centroid defuzzification!");
+		return sum2 / totalArea;
+	}
+
+	/**
+	 * Returns the same result as the bisector defuzzification function: the
+	 * first crisp value where the running sum of the membership values reaches
+	 * half of the total area.
+	 *
+	 * @return bisector
+	 * @throws IllegalArgumentException if total area is zero
+	 */
+	public double bisector() {
+		final double totalArea = cardinality();
+		if (totalArea == 0)
+			throw new IllegalArgumentException(
+					"Total area is zero in bisector defuzzification!");
+		final double[] m = memberships;
+		double temp = 0.0;
+		for (int i = 0; i < m.length; i++) {
+			temp += m[i];
+			if (temp >= totalArea / 2) {
+				return getCrispValue(i);
+			}
+		}
+		return getCrispValue(m.length - 1);
+	}
+
+	/**
+	 * Returns the crisp value with the smallest absolute value among those
+	 * with the maximum membership value, rounded to four significant digits,
+	 * as the smallest of maxima defuzzification function.
+	 *
+	 * @return smallest of maxima, zero if the universe is empty
+	 */
+	public double smallestOfMaxima() {
+		return scanMaxima().smallest(crispValues());
+	}
+
+	/**
+	 * Returns the crisp value with the largest absolute value among those
+	 * with the maximum membership value, rounded to four significant digits,
+	 * as the largest of maxima defuzzification function.
+	 *
+	 * @return largest of maxima, zero if the universe is empty
+	 */
+	public double largestOfMaxima() {
+		return scanMaxima().largest(crispValues());
+	}
+
+	/**
+	 * Returns the mean of the crisp values with the maximum membership value,
+	 * rounded to four significant digits, as the mean of maxima
+	 * defuzzification function.
+	 *
+	 * @return mean of maxima, NaN if the universe is empty
+	 */
+	public double meanOfMaxima() {
+		return scanMaxima().mean(crispValues());
+	}
+
+	/**
+	 * Returns the first crisp value of the universe with the maximum
+	 * membership value, rounded to four significant digits, as the leftmost
+	 * maximum defuzzification function.
+	 *
+	 * @return leftmost maximum, NaN if the universe is empty
+	 */
+	public double leftmostMaximum() {
+		return scanMaxima().first(crispValues());
+	}
+
+	/**
+	 * Returns the last crisp value of the universe with the maximum
+	 * membership value, rounded to four significant digits, as the rightmost
+	 * maximum defuzzification function.
+	 *
+	 * @return rightmost maximum, NaN if the universe is empty
+	 */
+	public double rightmostMaximum() {
+		return scanMaxima().last(crispValues());
+	}
+
+	private Plateaus scanMaxima() {
+		return SCANNER.scan(memberships, 0, memberships.length, plateaus);
+	}
+
+	/**
+	 * @return crisp values of the universe, computed the first time for a
+	 * universe described by start and step
+	 */
+	private double[] crispValues() {
+		if (universe != null) {
+			return universe;
+		}
+		if (sampledUniverse == null) {
+			final double[] values = new double[memberships.length];
+			for (int i = 0; i < values.length; i++) {
+				values[i] = start + i * step;
+			}
+			sampledUniverse = values;
+		}
+		return sampledUniverse;
+	}
+
+	/**
+	 * @param that another set
+	 * @throws IllegalArgumentException if the universes differ
+	 */
+	private void checkUniverse(DiscreteFuzzySet that) {
+		if (!sameUniverse(that)) {
+			throw new IllegalArgumentException("Discrete fuzzy sets over different universes");
+		}
+	}
+
+	/**
+	 * @param that another set
+	 * @return <code>true</code> if both sets have the same crisp values
+	 */
+	private boolean sameUniverse(DiscreteFuzzySet that) {
+		if (this.memberships.length != that.memberships.length) {
+			return false;
+		}
+		if (this.universe == null && that.universe == null) {
+			return this.start == that.start && this.step == that.step;
+		}
+		if (this.universe == that.universe) {
+			return true;
+		}
+		for (int i = 0; i < memberships.length; i++) {
+			if (this.getCrispValue(i) != that.getCrispValue(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#equals(java.lang.Object)
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if(obj == null) {
+			return false;
+		}
+		if(obj == this) {
+			return true;
+		}
+		if(!(obj instanceof DiscreteFuzzySet)) {
+			return false;
+		}
+		final DiscreteFuzzySet that = (DiscreteFuzzySet)obj;
+		return sameUniverse(that) && Arrays.equals(this.memberships, that.memberships);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * <p>
+	 * Computed from the current membership values: it changes when the set is
+	 * modified.
+	 * </p>
+	 */
+	@Override
+	public int hashCode() {
+		int hash = "DiscreteFuzzySet".hashCode();
+		hash <<= 2;
+		hash ^= Arrays.hashCode(memberships);
+		return hash;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "Discrete Fuzzy Set ["+size()+" "+height()+" "+cardinality()+"]";
+	}
+
+}
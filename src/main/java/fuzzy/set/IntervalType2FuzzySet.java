@@ -0,0 +1,346 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package fuzzy.set;
+
+import java.util.Arrays;
+
+import org.apache.commons.functor.generator.range.DoubleRange;
+
+import fuzzy.df.TypeReduction;
+import fuzzy.internal.functions.Doubles;
+import fuzzy.mf.DoubleMembershipFunction;
+
+/**
+ * An interval type-2 fuzzy set over a discrete universe: each crisp value
+ * has an interval of membership values, between a lower and an upper
+ * membership value, stored as two arrays. The area between them is the
+ * footprint of uncertainty.
+ *
+ * <p>
+ * The lower and upper membership functions are any membership functions of
+ * <code>fuzzy.mf</code>, for instance a triangle and a narrower triangle
+ * under it, or two gaussians of different widths. Lower membership values
+ * above the upper ones are cut to them. The universe is not copied, so that
+ * several sets can share it; it must be in increasing order, and must not be
+ * modified afterwards.
+ * </p>
+ *
+ * <p>
+ * Union, intersection, clipping and scaling apply to both bounds, in place,
+ * as with {@link DiscreteFuzzySet}. The centroid is computed with a
+ * {@link TypeReduction}.
+ * </p>
+ *
+ * <p>
+ * Equality and the hash code follow the membership values, which change in
+ * place, as for a {@link DiscreteFuzzySet}: a set must not be modified while
+ * it is a key of a map or an element of a set.
+ * </p>
+ *
+ * <p>
+ * This class is <strong>not thread safe</strong>.
+ * </p>
+ *
+ * @since 0.5
+ */
+public final class IntervalType2FuzzySet {
+
+	private final double[] universe;
+	private final double[] lower;
+	private final double[] upper;
+
+	/**
+	 * Creates an empty fuzzy set (every membership value zero) over an array
+	 * of crisp values.
+	 *
+	 * @param universe crisp values in increasing order, not copied
+	 */
+	public IntervalType2FuzzySet(double[] universe) {
+		this(universe, new double[universe.length], new double[universe.length]);
+	}
+
+	private IntervalType2FuzzySet(double[] universe, double[] lower, double[] upper) {
+		this.universe = universe;
+		this.lower = lower;
+		this.upper = upper;
+	}
+
+	/**
+	 * Samples lower and upper membership functions over the crisp values of a
+	 * range.
+	 *
+	 * @param range crisp values
+	 * @param lower lower membership function
+	 * @param upper upper membership function
+	 * @return a new fuzzy set
+	 */
+	public static IntervalType2FuzzySet of(DoubleRange range, DoubleMembershipFunction lower,
+			DoubleMembershipFunction upper) {
+		return new IntervalType2FuzzySet(Doubles.toArray(range)).fill(lower, upper);
+	}
+
+	/**
+	 * @return a new fuzzy set, over the same universe, with a copy of the
+	 * membership values
+	 */
+	public IntervalType2FuzzySet copy() {
+		return new IntervalType2FuzzySet(universe, lower.clone(), upper.clone());
+	}
+
+	/**
+	 * @return number of crisp values in the universe
+	 */
+	public int size() {
+		return universe.length;
+	}
+
+	/**
+	 * @param i index
+	 * @return crisp value at the index
+	 */
+	public double getCrispValue(int i) {
+		return universe[i];
+	}
+
+	/**
+	 * @param i index
+	 * @return lower membership value of the crisp value at the index
+	 */
+	public double getLowerMembership(int i) {
+		return lower[i];
+	}
+
+	/**
+	 * @param i index
+	 * @return upper membership value of the crisp value at the index
+	 */
+	public double getUpperMembership(int i) {
+		return upper[i];
+	}
+
+	/**
+	 * Returns the lower membership values. The array is not copied: changes
+	 * to it change this set, and must keep them below the upper ones.
+	 *
+	 * @return lower membership values, indexed like the universe
+	 */
+	public double[] getLowerMemberships() {
+		return lower;
+	}
+
+	/**
+	 * Returns the upper membership values. The array is not copied: changes
+	 * to it change this set, and must keep them above the lower ones.
+	 *
+	 * @return upper membership values, indexed like the universe
+	 */
+	public double[] getUpperMemberships() {
+		return upper;
+	}
+
+	/**
+	 * Sets every membership value to zero.
+	 *
+	 * @return this set
+	 */
+	public IntervalType2FuzzySet clear() {
+		Arrays.fill(lower, 0.0);
+		Arrays.fill(upper, 0.0);
+		return this;
+	}
+
+	/**
+	 * Sets the membership values to those of lower and upper membership
+	 * functions. Lower membership values above the upper ones are cut to
+	 * them.
+	 *
+	 * @param lowerMf lower membership function
+	 * @param upperMf upper membership function
+	 * @return this set
+	 */
+	public IntervalType2FuzzySet fill(DoubleMembershipFunction lowerMf, DoubleMembershipFunction upperMf) {
+		lowerMf.applyAll(universe, 0, universe.length, lower);
+		upperMf.applyAll(universe, 0, universe.length, upper);
+		for (int i = 0; i < lower.length; i++) {
+			lower[i] = Math.min(lower[i], upper[i]);
+		}
+		return this;
+	}
+
+	/**
+	 * Standard union: each lower and upper membership value becomes the
+	 * maximum of both sets.
+	 *
+	 * @param that a fuzzy set over the same universe
+	 * @return this set
+	 * @throws IllegalArgumentException if the universes differ
+	 */
+	public IntervalType2FuzzySet union(IntervalType2FuzzySet that) {
+		checkUniverse(that);
+		for (int i = 0; i < lower.length; i++) {
+			lower[i] = Math.max(lower[i], that.lower[i]);
+			upper[i] = Math.max(upper[i], that.upper[i]);
+		}
+		return this;
+	}
+
+	/**
+	 * Standard intersection: each lower and upper membership value becomes
+	 * the minimum of both sets.
+	 *
+	 * @param that a fuzzy set over the same universe
+	 * @return this set
+	 * @throws IllegalArgumentException if the universes differ
+	 */
+	public IntervalType2FuzzySet intersection(IntervalType2FuzzySet that) {
+		checkUniverse(that);
+		for (int i = 0; i < lower.length; i++) {
+			lower[i] = Math.min(lower[i], that.lower[i]);
+			upper[i] = Math.min(upper[i], that.upper[i]);
+		}
+		return this;
+	}
+
+	/**
+	 * Clips the membership values with a firing interval, as the minimum
+	 * implication: the lower values at the lower level, the upper values at
+	 * the upper level.
+	 *
+	 * @param lowerAlpha lower clipping level
+	 * @param upperAlpha upper clipping level, not smaller than the lower one
+	 * @return this set
+	 */
+	public IntervalType2FuzzySet clip(double lowerAlpha, double upperAlpha) {
+		for (int i = 0; i < lower.length; i++) {
+			lower[i] = Math.min(lower[i], lowerAlpha);
+			upper[i] = Math.min(upper[i], upperAlpha);
+		}
+		return this;
+	}
+
+	/**
+	 * Multiplies the membership values by a firing interval, as the product
+	 * implication: the lower values by the lower factor, the upper values by
+	 * the upper factor.
+	 *
+	 * @param lowerFactor lower factor
+	 * @param upperFactor upper factor, not smaller than the lower one
+	 * @return this set
+	 */
+	public IntervalType2FuzzySet scale(double lowerFactor, double upperFactor) {
+		for (int i = 0; i < lower.length; i++) {
+			lower[i] *= lowerFactor;
+			upper[i] *= upperFactor;
+		}
+		return this;
+	}
+
+	/**
+	 * @return maximum upper membership value, zero if the universe is empty
+	 */
+	public double height() {
+		double height = 0.0;
+		for (double m : upper) {
+			if (m > height) {
+				height = m;
+			}
+		}
+		return height;
+	}
+
+	/**
+	 * Returns the area of the footprint of uncertainty, the sum of the
+	 * differences between the upper and lower membership values. Zero for a
+	 * type-1 set.
+	 *
+	 * @return area of the footprint of uncertainty
+	 */
+	public double uncertainty() {
+		double sum = 0.0;
+		for (int i = 0; i < lower.length; i++) {
+			sum += upper[i] - lower[i];
+		}
+		return sum;
+	}
+
+	/**
+	 * @param reduction type reduction
+	 * @return midpoint of the centroid interval, NaN if every upper
+	 * membership value is zero
+	 */
+	public double centroid(TypeReduction reduction) {
+		return reduction.apply(universe, lower, upper, 0, universe.length, null);
+	}
+
+	/**
+	 * @param reduction type reduction
+	 * @param interval where the ends of the centroid interval are stored
+	 * @return midpoint of the centroid interval, NaN if every upper
+	 * membership value is zero
+	 */
+	public double centroid(TypeReduction reduction, double[] interval) {
+		return reduction.apply(universe, lower, upper, 0, universe.length, interval);
+	}
+
+	/**
+	 * @param that another set
+	 * @throws IllegalArgumentException if the universes differ
+	 */
+	private void checkUniverse(IntervalType2FuzzySet that) {
+		if (!(this.universe == that.universe || Arrays.equals(this.universe, that.universe))) {
+			throw new IllegalArgumentException("Interval type-2 fuzzy sets over different universes");
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#equals(java.lang.Object)
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if(obj == null) {
+			return false;
+		}
+		if(obj == this) {
+			return true;
+		}
+		if(!(obj instanceof IntervalType2FuzzySet)) {
+			return false;
+		}
+		final IntervalType2FuzzySet that = (IntervalType2FuzzySet)obj;
+		return Arrays.equals(this.universe, that.universe) && Arrays.equals(this.lower, that.lower)
+				&& Arrays.equals(this.upper, that.upper);
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#hashCode()
+	 */
+	@Override
+	public int hashCode() {
+		int hash = "IntervalType2FuzzySet".hashCode();
+		hash <<= 2;
+		hash ^= Arrays.hashCode(lower);
+		hash <<= 2;
+		hash ^= Arrays.hashCode(upper);
+		return hash;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "Interval Type-2 Fuzzy Set ["+size()+" "+height()+" "+uncertainty()+"]";
+	}
+
+}
@@ -0,0 +1,944 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package fuzzy.system;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import fuzzy.mf.DifferentiableMembershipFunction;
+import fuzzy.mf.DoubleMembershipFunction;
+
+/**
+ * Trains a {@link TskFuzzySystem} on samples with the hybrid learning rule of
+ * ANFIS (adaptive neuro-fuzzy inference system). Each epoch fits the
+ * coefficients of the consequent terms to the samples by least squares, the
+ * membership functions being fixed, then tunes the parameters of the input
+ * terms by mini-batch gradient descent on the mean squared error, the
+ * coefficients being fixed. The partial derivatives of the membership
+ * functions are analytic: every input term must have a
+ * {@link DifferentiableMembershipFunction}. The trained system has the
+ * order of the initial one, and the same variables, terms and rules: the
+ * consequents of a zero-order system stay constants.
+ *
+ * <p>
+ * The samples are flat row-major arrays of primitives, one row of inputs
+ * and one row of targets per sample. Both passes split the samples, or each
+ * mini-batch, into blocks whose size only depends on the number of samples
+ * or the batch size, and run them on a {@link ForkJoinPool}; the sums of the
+ * blocks are reduced in a fixed order, so that training gives the same
+ * result, bit for bit, whatever the parallelism of the pool. The samples of
+ * the mini-batches are shuffled with a seeded random generator.
+ * </p>
+ *
+ * <p>
+ * Training stops early when the root mean squared error of the validation
+ * samples, or of the training samples when there are none, has not improved
+ * for a number of epochs, and returns the system of the best epoch. The
+ * rules must be conjunctive, with a product or minimum <code>AND</code>;
+ * samples for which no rule fires are left out of the errors. Parameters of
+ * triangular and trapezoidal terms are kept in increasing order.
+ * </p>
+ *
+ * <p>
+ * This class is immutable and <strong>thread safe</strong>.
+ * </p>
+ *
+ * @since 0.5
+ */
+public final class AnfisTrainer {
+
+	/**
+	 * Default minimum number of samples in a block.
+	 */
+	public static final int DEFAULT_CHUNK_SIZE = 1024;
+
+	/**
+	 * Maximum number of blocks a pass is split into; bigger passes have
+	 * bigger blocks, so that the sums of the least squares pass stay few.
+	 */
+	static final int MAX_BLOCKS = 256;
+
+	/**
+	 * Number of blocks a mini-batch is split into, for the gradient descent
+	 * to run in parallel.
+	 */
+	static final int BATCH_BLOCKS = 16;
+
+	private final ForkJoinPool pool;
+	private final int chunkSize;
+	private final int epochs;
+	private final int batchSize;
+	private final double learningRate;
+	private final int patience;
+	private final double ridge;
+	private final long seed;
+
+	private AnfisTrainer(Builder builder) {
+		this.pool = builder.pool;
+		this.chunkSize = builder.chunkSize;
+		this.epochs = builder.epochs;
+		this.batchSize = builder.batchSize;
+		this.learningRate = builder.learningRate;
+		this.patience = builder.patience;
+		this.ridge = builder.ridge;
+		this.seed = builder.seed;
+	}
+
+	/**
+	 * @return a new builder, with 100 epochs, mini-batches of 256 samples, a
+	 * learning rate of 0.01, a patience of 10 epochs, a ridge of
+	 * <code>1e-9</code>, seed 0, and the common pool
+	 */
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	/**
+	 * Trains a system, stopping early on the training error.
+	 *
+	 * @param system initial system, of order zero or one
+	 * @param inputs inputs of the samples, row-major
+	 * @param targets target outputs of the samples, row-major
+	 * @return result of the training
+	 * @throws IllegalArgumentException if the system cannot be trained, or
+	 * the sizes of the arrays do not match its variables
+	 */
+	public Result train(TskFuzzySystem system, double[] inputs, double[] targets) {
+		return train(system, inputs, targets, null, null);
+	}
+
+	/**
+	 * Trains a system, stopping early on the validation error.
+	 *
+	 * @param system initial system, of order zero or one
+	 * @param inputs inputs of the training samples, row-major
+	 * @param targets target outputs of the training samples, row-major
+	 * @param validationInputs inputs of the validation samples, row-major,
+	 * or <code>null</code>
+	 * @param validationTargets target outputs of the validation samples,
+	 * row-major, or <code>null</code>
+	 * @return result of the training
+	 * @throws IllegalArgumentException if the system cannot be trained, or
+	 * the sizes of the arrays do not match its variables
+	 */
+	public Result train(TskFuzzySystem system, double[] inputs, double[] targets, double[] validationInputs,
+			double[] validationTargets) {
+		final Session session = new Session(system);
+		final int count = session.count(inputs, targets);
+		final int validationCount = validationInputs == null ? 0 : session.count(validationInputs, validationTargets);
+		if (count == 0) {
+			throw new IllegalArgumentException("No samples for ANFIS training");
+		}
+		final int[] order = new int[count];
+		for (int s = 0; s < count; s++) {
+			order[s] = s;
+		}
+		final Random random = new Random(seed);
+		final double[] trainingErrors = new double[epochs];
+		final double[] validationErrors = new double[validationCount > 0 ? epochs : 0];
+		double best = Double.POSITIVE_INFINITY;
+		int bestEpoch = -1;
+		double[] bestParameters = session.parameters.clone();
+		double[] bestCoefficients = session.coefficients.clone();
+		int epoch = 0;
+		while (epoch < epochs) {
+			session.fitConsequents(inputs, targets, count);
+			shuffle(order, random);
+			for (int from = 0; from < count; from += batchSize) {
+				session.descend(inputs, targets, order, from, Math.min(count, from + batchSize));
+			}
+			trainingErrors[epoch] = session.error(inputs, targets, count);
+			final double error;
+			if (validationCount > 0) {
+				validationErrors[epoch] = session.error(validationInputs, validationTargets, validationCount);
+				error = validationErrors[epoch];
+			} else {
+				error = trainingErrors[epoch];
+			}
+			epoch++;
+			if (error < best) {
+				best = error;
+				bestEpoch = epoch - 1;
+				bestParameters = session.parameters.clone();
+				bestCoefficients = session.coefficients.clone();
+			} else if (epoch - 1 - bestEpoch >= patience) {
+				break;
+			}
+		}
+		return new Result(session.build(bestParameters, bestCoefficients), Arrays.copyOf(trainingErrors, epoch),
+				Arrays.copyOf(validationErrors, validationCount > 0 ? epoch : 0), bestEpoch);
+	}
+
+	private static void shuffle(int[] order, Random random) {
+		for (int i = order.length - 1; i > 0; i--) {
+			final int j = random.nextInt(i + 1);
+			final int swap = order[i];
+			order[i] = order[j];
+			order[j] = swap;
+		}
+	}
+
+	/**
+	 * @return pool where the passes run
+	 */
+	public ForkJoinPool getPool() {
+		return pool;
+	}
+
+	/**
+	 * @return minimum number of samples in a block
+	 */
+	public int getChunkSize() {
+		return chunkSize;
+	}
+
+	/**
+	 * @return maximum number of epochs
+	 */
+	public int getEpochs() {
+		return epochs;
+	}
+
+	/**
+	 * @return number of samples in a mini-batch
+	 */
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	/**
+	 * @return learning rate of the gradient descent
+	 */
+	public double getLearningRate() {
+		return learningRate;
+	}
+
+	/**
+	 * @return number of epochs without improvement before stopping
+	 */
+	public int getPatience() {
+		return patience;
+	}
+
+	/**
+	 * @return weight that pulls the least squares coefficients towards their
+	 * previous values
+	 */
+	public double getRidge() {
+		return ridge;
+	}
+
+	/**
+	 * @return seed of the shuffling of the mini-batches
+	 */
+	public long getSeed() {
+		return seed;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "ANFIS Trainer ["+epochs+" "+batchSize+" "+learningRate+" "+patience+" "+ridge+" "+seed+" "+chunkSize+"]";
+	}
+
+	/**
+	 * Computes a sum over a range of samples, into a new array.
+	 */
+	private interface Kernel {
+
+		double[] sum(int from, int to);
+
+	}
+
+	/**
+	 * Sums a range of blocks, splitting it in two until a single block is
+	 * left, and adding the sums of the right half to those of the left half.
+	 */
+	private static final class BlockTask extends RecursiveTask<double[]> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final Kernel kernel;
+		private final int count;
+		private final int blockSize;
+		private final int lo;
+		private final int hi;
+
+		BlockTask(Kernel kernel, int count, int blockSize, int lo, int hi) {
+			this.kernel = kernel;
+			this.count = count;
+			this.blockSize = blockSize;
+			this.lo = lo;
+			this.hi = hi;
+		}
+
+		@Override
+		protected double[] compute() {
+			if (hi - lo == 1) {
+				return kernel.sum(lo * blockSize, Math.min(count, (lo + 1) * blockSize));
+			}
+			final int middle = (lo + hi) >>> 1;
+			final BlockTask right = new BlockTask(kernel, count, blockSize, middle, hi);
+			right.fork();
+			final double[] sums = new BlockTask(kernel, count, blockSize, lo, middle).compute();
+			final double[] rightSums = right.join();
+			for (int i = 0; i < sums.length; i++) {
+				sums[i] += rightSums[i];
+			}
+			return sums;
+		}
+
+	}
+
+	/**
+	 * @return sums of the kernel over <code>count</code> samples, in blocks
+	 * whose size only depends on the count
+	 */
+	private double[] sum(Kernel kernel, int count) {
+		return sum(kernel, count, Math.max(chunkSize, (count + MAX_BLOCKS - 1) / MAX_BLOCKS));
+	}
+
+	/**
+	 * @return sums of the kernel over <code>count</code> samples, in blocks
+	 * of a given size
+	 */
+	private double[] sum(Kernel kernel, int count, int blockSize) {
+		final int blocks = (count + blockSize - 1) / blockSize;
+		return pool.invoke(new BlockTask(kernel, count, blockSize, 0, blocks));
+	}
+
+	/**
+	 * The system being trained: its structure, read from the compiled
+	 * system, and its parameters and coefficients, updated by each pass.
+	 */
+	private final class Session {
+
+		private final TskFuzzySystem system;
+		private final Antecedents antecedents;
+		private final Consequents consequents;
+		private final int n;
+		private final int m;
+		private final int stride;
+		/**
+		 * Number of coefficients fitted for each consequent term: one for a
+		 * zero-order system, the stride for a first-order one.
+		 */
+		private final int width;
+		private final boolean product;
+
+		final double[] parameters;
+		final double[] coefficients;
+		private DifferentiableMembershipFunction[] functions;
+
+		// offsets of the least squares matrix and vector of each output
+		private final int[] normalOffsets;
+
+		Session(TskFuzzySystem system) {
+			this.system = system;
+			this.antecedents = system.antecedents;
+			this.consequents = system.consequents;
+			this.n = antecedents.inputs.length;
+			this.m = consequents.outputs.length;
+			this.stride = system.stride;
+			this.width = system.getOrder() == 0 ? 1 : stride;
+			if (antecedents.conjunction != TNorm.PRODUCT && antecedents.conjunction != TNorm.MINIMUM) {
+				throw new IllegalArgumentException("Invalid conjunction " + antecedents.conjunction + " for ANFIS training");
+			}
+			this.product = antecedents.conjunction == TNorm.PRODUCT;
+			for (int k = 0; k < antecedents.getRuleCount(); k++) {
+				if (antecedents.disjunctive[k] && antecedents.antecedentOffsets[k + 1] - antecedents.antecedentOffsets[k] > 1) {
+					throw new IllegalArgumentException("Invalid rule " + system.getRules().get(k) + " for ANFIS training");
+				}
+			}
+			this.parameters = antecedents.termParameters.clone();
+			this.coefficients = system.coefficients.clone();
+			this.functions = functions(parameters);
+			this.normalOffsets = new int[m + 1];
+			for (int o = 0; o < m; o++) {
+				final int p = termCount(o) * width;
+				normalOffsets[o + 1] = normalOffsets[o] + p * p + p;
+			}
+		}
+
+		private int termCount(int o) {
+			return consequents.outputTermOffsets[o + 1] - consequents.outputTermOffsets[o];
+		}
+
+		/**
+		 * @return number of samples
+		 * @throws IllegalArgumentException if the sizes of the arrays differ
+		 */
+		int count(double[] inputs, double[] targets) {
+			if (targets == null || inputs.length % n != 0 || inputs.length / n * m != targets.length) {
+				throw new IllegalArgumentException("Invalid samples of " + inputs.length + " inputs and "
+						+ (targets == null ? 0 : targets.length) + " targets for ANFIS training");
+			}
+			return inputs.length / n;
+		}
+
+		private DifferentiableMembershipFunction[] functions(double[] parameters) {
+			final int[] offsets = antecedents.termParameterOffsets;
+			final DifferentiableMembershipFunction[] functions = new DifferentiableMembershipFunction[antecedents.getTermCount()];
+			for (int t = 0; t < functions.length; t++) {
+				final DoubleMembershipFunction mf = antecedents.termShapes[t].create(parameters, offsets[t],
+						offsets[t + 1] - offsets[t]);
+				if (!(mf instanceof DifferentiableMembershipFunction)) {
+					throw new IllegalArgumentException("Invalid shape " + antecedents.termShapes[t] + " for ANFIS training");
+				}
+				functions[t] = (DifferentiableMembershipFunction) mf;
+			}
+			return functions;
+		}
+
+		/**
+		 * Memory of the evaluation of one sample.
+		 */
+		private final class Scratch {
+
+			final double[] memberships = new double[antecedents.getTermCount()];
+			final double[] gradients = new double[parameters.length];
+			final double[] strengths = new double[antecedents.getRuleCount()];
+			final double[] values = new double[consequents.consequentRules.length];
+			final double[] outputs = new double[m];
+			final double[] denominators = new double[m];
+			final double[] strengthErrors = new double[strengths.length];
+			final double[] membershipErrors = new double[memberships.length];
+
+		}
+
+		/**
+		 * Fuzzifies the inputs of a sample, fires the rules and computes the
+		 * outputs, NaN where no rule fires.
+		 */
+		private void evaluate(double[] inputs, int row, Scratch scratch, boolean withGradients) {
+			final int[] termOffsets = antecedents.inputTermOffsets;
+			final int[] parameterOffsets = antecedents.termParameterOffsets;
+			for (int v = 0; v < n; v++) {
+				final double x = inputs[row + v];
+				for (int t = termOffsets[v]; t < termOffsets[v + 1]; t++) {
+					scratch.memberships[t] = withGradients ? functions[t].gradient(x, scratch.gradients, parameterOffsets[t])
+							: functions[t].applyAsDouble(x);
+				}
+			}
+			final int[] offsets = antecedents.antecedentOffsets;
+			for (int k = 0; k < scratch.strengths.length; k++) {
+				double strength = 1.0;
+				for (int a = offsets[k]; a < offsets[k + 1]; a++) {
+					final double membership = membership(a, scratch.memberships);
+					strength = product ? strength * membership : Math.min(strength, membership);
+				}
+				scratch.strengths[k] = strength * antecedents.weights[k];
+			}
+			final int[] consequentOffsets = consequents.consequentOffsets;
+			for (int o = 0; o < m; o++) {
+				double numerator = 0.0;
+				double denominator = 0.0;
+				for (int c = consequentOffsets[o]; c < consequentOffsets[o + 1]; c++) {
+					final int coefficientRow = consequents.consequentTerms[c] * stride;
+					double value = coefficients[coefficientRow];
+					for (int v = 0; v < n; v++) {
+						value += coefficients[coefficientRow + v + 1] * inputs[row + v];
+					}
+					scratch.values[c] = value;
+					final double strength = scratch.strengths[consequents.consequentRules[c]];
+					numerator += strength * value;
+					denominator += strength;
+				}
+				scratch.denominators[o] = denominator;
+				scratch.outputs[o] = denominator > 0.0 ? numerator / denominator : Double.NaN;
+			}
+		}
+
+		private double membership(int a, double[] memberships) {
+			final double membership = memberships[antecedents.antecedentTerms[a]];
+			return antecedents.antecedentNegated[a] ? 1.0 - membership : membership;
+		}
+
+		/**
+		 * @return root mean squared error over the samples for which a rule
+		 * fires, NaN if there are none
+		 */
+		double error(final double[] inputs, final double[] targets, int count) {
+			final double[] sums = sum((from, to) -> {
+				final Scratch scratch = new Scratch();
+				double squares = 0.0;
+				double used = 0.0;
+				for (int s = from; s < to; s++) {
+					evaluate(inputs, s * n, scratch, false);
+					for (int o = 0; o < m; o++) {
+						if (scratch.denominators[o] > 0.0) {
+							final double e = scratch.outputs[o] - targets[s * m + o];
+							squares += e * e;
+							used++;
+						}
+					}
+				}
+				return new double[] { squares, used };
+			}, count);
+			return Math.sqrt(sums[0] / sums[1]);
+		}
+
+		/**
+		 * Fits the coefficients of the consequent terms by least squares, the
+		 * normal equations of each output being summed over the samples, and
+		 * pulled towards the current coefficients by the ridge.
+		 */
+		void fitConsequents(final double[] inputs, final double[] targets, int count) {
+			final double[] sums = sum((from, to) -> {
+				final Scratch scratch = new Scratch();
+				final double[] normal = new double[normalOffsets[m]];
+				final int[] indices = new int[consequents.consequentRules.length * width];
+				final double[] row = new double[indices.length];
+				for (int s = from; s < to; s++) {
+					evaluate(inputs, s * n, scratch, false);
+					for (int o = 0; o < m; o++) {
+						final double denominator = scratch.denominators[o];
+						if (!(denominator > 0.0)) {
+							continue;
+						}
+						// the nonzero entries of the row of the sample
+						int size = 0;
+						for (int c = consequents.consequentOffsets[o]; c < consequents.consequentOffsets[o + 1]; c++) {
+							final double normalized = scratch.strengths[consequents.consequentRules[c]] / denominator;
+							if (!(normalized > 0.0)) {
+								continue;
+							}
+							final int column = (consequents.consequentTerms[c] - consequents.outputTermOffsets[o]) * width;
+							indices[size] = column;
+							row[size++] = normalized;
+							for (int v = 0; v < width - 1; v++) {
+								indices[size] = column + v + 1;
+								row[size++] = normalized * inputs[s * n + v];
+							}
+						}
+						final int p = termCount(o) * width;
+						final int matrix = normalOffsets[o];
+						final int vector = matrix + p * p;
+						final double target = targets[s * m + o];
+						// upper triangle only, mirrored before solving
+						for (int i = 0; i < size; i++) {
+							final int index = indices[i];
+							final int offset = matrix + index * p;
+							final double value = row[i];
+							for (int j = 0; j < size; j++) {
+								if (indices[j] >= index) {
+									normal[offset + indices[j]] += value * row[j];
+								}
+							}
+							normal[vector + index] += value * target;
+						}
+					}
+				}
+				return normal;
+			}, count);
+			for (int o = 0; o < m; o++) {
+				final int p = termCount(o) * width;
+				final int first = consequents.outputTermOffsets[o];
+				final double[] a = Arrays.copyOfRange(sums, normalOffsets[o], normalOffsets[o] + p * p);
+				final double[] b = Arrays.copyOfRange(sums, normalOffsets[o] + p * p, normalOffsets[o + 1]);
+				for (int i = 0; i < p; i++) {
+					for (int j = 0; j < i; j++) {
+						a[i * p + j] = a[j * p + i];
+					}
+					a[i * p + i] += ridge;
+					b[i] += ridge * coefficients[(first + i / width) * stride + i % width];
+				}
+				if (solve(a, b, p)) {
+					for (int i = 0; i < p; i++) {
+						coefficients[(first + i / width) * stride + i % width] = b[i];
+					}
+				}
+			}
+		}
+
+		/**
+		 * Takes a gradient descent step on the parameters of the input terms,
+		 * over the samples <code>order[from]</code> to
+		 * <code>order[to - 1]</code>.
+		 */
+		void descend(final double[] inputs, final double[] targets, final int[] order, final int from, int to) {
+			final double[] sums = sum((first, last) -> {
+				final Scratch scratch = new Scratch();
+				final double[] gradient = new double[parameters.length + 1];
+				for (int i = from + first; i < from + last; i++) {
+					final int s = order[i];
+					evaluate(inputs, s * n, scratch, true);
+					if (accumulate(scratch, targets, s, gradient)) {
+						gradient[parameters.length]++;
+					}
+				}
+				return gradient;
+			}, to - from, (batchSize + BATCH_BLOCKS - 1) / BATCH_BLOCKS);
+			final double used = sums[parameters.length];
+			if (!(used > 0.0)) {
+				return;
+			}
+			for (int j = 0; j < parameters.length; j++) {
+				parameters[j] -= learningRate * sums[j] / used;
+			}
+			final int[] offsets = antecedents.termParameterOffsets;
+			for (int t = 0; t < functions.length; t++) {
+				final Shape shape = antecedents.termShapes[t];
+				if (shape == Shape.TRIANGULAR || shape == Shape.TRAPEZOIDAL) {
+					Arrays.sort(parameters, offsets[t], offsets[t + 1]);
+				}
+			}
+			functions = functions(parameters);
+		}
+
+		/**
+		 * Adds the gradient of the squared error of a sample, halved, with
+		 * respect to the parameters of the input terms.
+		 *
+		 * @return whether a rule fires for an output of the sample
+		 */
+		private boolean accumulate(Scratch scratch, double[] targets, int s, double[] gradient) {
+			final double[] strengthErrors = scratch.strengthErrors;
+			final double[] membershipErrors = scratch.membershipErrors;
+			Arrays.fill(strengthErrors, 0.0);
+			Arrays.fill(membershipErrors, 0.0);
+			boolean used = false;
+			for (int o = 0; o < m; o++) {
+				final double denominator = scratch.denominators[o];
+				if (!(denominator > 0.0)) {
+					continue;
+				}
+				used = true;
+				final double y = scratch.outputs[o];
+				final double e = y - targets[s * m + o];
+				for (int c = consequents.consequentOffsets[o]; c < consequents.consequentOffsets[o + 1]; c++) {
+					strengthErrors[consequents.consequentRules[c]] += e * (scratch.values[c] - y) / denominator;
+				}
+			}
+			final int[] offsets = antecedents.antecedentOffsets;
+			for (int k = 0; k < strengthErrors.length; k++) {
+				if (strengthErrors[k] == 0.0) {
+					continue;
+				}
+				final double error = strengthErrors[k] * antecedents.weights[k];
+				int minimum = offsets[k];
+				for (int a = offsets[k]; a < offsets[k + 1]; a++) {
+					final double derivative;
+					if (product) {
+						double others = 1.0;
+						for (int b = offsets[k]; b < offsets[k + 1]; b++) {
+							if (b != a) {
+								others *= membership(b, scratch.memberships);
+							}
+						}
+						derivative = others;
+					} else {
+						if (a == offsets[k]) {
+							for (int b = offsets[k] + 1; b < offsets[k + 1]; b++) {
+								if (membership(b, scratch.memberships) < membership(minimum, scratch.memberships)) {
+									minimum = b;
+								}
+							}
+						}
+						derivative = a == minimum ? 1.0 : 0.0;
+					}
+					membershipErrors[antecedents.antecedentTerms[a]] += antecedents.antecedentNegated[a]
+							? -error * derivative : error * derivative;
+				}
+			}
+			final int[] parameterOffsets = antecedents.termParameterOffsets;
+			for (int t = 0; t < membershipErrors.length; t++) {
+				final double error = membershipErrors[t];
+				if (error == 0.0) {
+					continue;
+				}
+				for (int j = parameterOffsets[t]; j < parameterOffsets[t + 1]; j++) {
+					gradient[j] += error * scratch.gradients[j];
+				}
+			}
+			return used;
+		}
+
+		/**
+		 * @return the trained system, of the order of the initial one
+		 */
+		TskFuzzySystem build(double[] parameters, double[] coefficients) {
+			final TskFuzzySystem.Builder builder = TskFuzzySystem.builder();
+			final int[] parameterOffsets = antecedents.termParameterOffsets;
+			for (int v = 0; v < n; v++) {
+				final LinguisticVariable input = antecedents.inputs[v];
+				final List<Term> terms = new ArrayList<Term>();
+				for (int t = antecedents.inputTermOffsets[v]; t < antecedents.inputTermOffsets[v + 1]; t++) {
+					terms.add(new Term(input.getTerms().get(t - antecedents.inputTermOffsets[v]).getName(),
+							antecedents.termShapes[t],
+							Arrays.copyOfRange(parameters, parameterOffsets[t], parameterOffsets[t + 1])));
+				}
+				builder.input(new LinguisticVariable(input.getName(), input.getLower(), input.getUpper(), terms));
+			}
+			for (int o = 0; o < m; o++) {
+				builder.output(consequents.outputs[o]);
+				for (int t = consequents.outputTermOffsets[o]; t < consequents.outputTermOffsets[o + 1]; t++) {
+					if (width == 1) {
+						builder.constant(consequents.outputs[o], consequents.termNames[t], coefficients[t * stride]);
+					} else {
+						builder.linear(consequents.outputs[o], consequents.termNames[t],
+								Arrays.copyOfRange(coefficients, t * stride, (t + 1) * stride));
+					}
+				}
+			}
+			return builder.rules(system.getRules())
+					.conjunction(system.getConjunction())
+					.disjunction(system.getDisjunction())
+					.defaultValue(system.getDefaultValue())
+					.indexRules(system.isRuleIndexed())
+					.build();
+		}
+
+	}
+
+	/**
+	 * Solves a symmetric positive definite system in place, by Cholesky
+	 * decomposition.
+	 *
+	 * @param a matrix, row-major, overwritten by its decomposition
+	 * @param b right-hand side, overwritten by the solution
+	 * @param p size
+	 * @return <code>false</code> if the matrix is not positive definite
+	 */
+	static boolean solve(double[] a, double[] b, int p) {
+		for (int j = 0; j < p; j++) {
+			double diagonal = a[j * p + j];
+			for (int k = 0; k < j; k++) {
+				diagonal -= a[j * p + k] * a[j * p + k];
+			}
+			if (!(diagonal > 0.0)) {
+				return false;
+			}
+			final double l = Math.sqrt(diagonal);
+			a[j * p + j] = l;
+			for (int i = j + 1; i < p; i++) {
+				double value = a[i * p + j];
+				for (int k = 0; k < j; k++) {
+					value -= a[i * p + k] * a[j * p + k];
+				}
+				a[i * p + j] = value / l;
+			}
+		}
+		for (int i = 0; i < p; i++) {
+			double value = b[i];
+			for (int k = 0; k < i; k++) {
+				value -= a[i * p + k] * b[k];
+			}
+			b[i] = value / a[i * p + i];
+		}
+		for (int i = p - 1; i >= 0; i--) {
+			double value = b[i];
+			for (int k = i + 1; k < p; k++) {
+				value -= a[k * p + i] * b[k];
+			}
+			b[i] = value / a[i * p + i];
+		}
+		return true;
+	}
+
+	/**
+	 * Trained system, and the errors of each epoch.
+	 *
+	 * <p>
+	 * This class is immutable and <strong>thread safe</strong>.
+	 * </p>
+	 */
+	public static final class Result {
+
+		private final TskFuzzySystem system;
+		private final double[] trainingErrors;
+		private final double[] validationErrors;
+		private final int bestEpoch;
+
+		private Result(TskFuzzySystem system, double[] trainingErrors, double[] validationErrors, int bestEpoch) {
+			this.system = system;
+			this.trainingErrors = trainingErrors;
+			this.validationErrors = validationErrors;
+			this.bestEpoch = bestEpoch;
+		}
+
+		/**
+		 * @return system of the best epoch
+		 */
+		public TskFuzzySystem getSystem() {
+			return system;
+		}
+
+		/**
+		 * @return number of epochs run
+		 */
+		public int getEpochCount() {
+			return trainingErrors.length;
+		}
+
+		/**
+		 * @return index of the epoch with the lowest error, the one of the
+		 * returned system, or -1 if no rule ever fired and the returned
+		 * system is the initial one
+		 */
+		public int getBestEpoch() {
+			return bestEpoch;
+		}
+
+		/**
+		 * @return root mean squared error of the training samples after each
+		 * epoch
+		 */
+		public double[] getTrainingErrors() {
+			return trainingErrors.clone();
+		}
+
+		/**
+		 * @return root mean squared error of the validation samples after
+		 * each epoch, empty without validation samples
+		 */
+		public double[] getValidationErrors() {
+			return validationErrors.clone();
+		}
+
+		/* (non-Javadoc)
+		 * @see java.lang.Object#toString()
+		 */
+		@Override
+		public String toString() {
+			return "ANFIS Result ["+getEpochCount()+" "+bestEpoch+" "+(bestEpoch < 0 ? Double.NaN : trainingErrors[bestEpoch])+"]";
+		}
+
+	}
+
+	/**
+	 * Collects the options of an {@link AnfisTrainer}.
+	 *
+	 * <p>
+	 * This class is <strong>not thread safe</strong>.
+	 * </p>
+	 */
+	public static final class Builder {
+
+		private ForkJoinPool pool = ForkJoinPool.commonPool();
+		private int chunkSize = DEFAULT_CHUNK_SIZE;
+		private int epochs = 100;
+		private int batchSize = 256;
+		private double learningRate = 0.01;
+		private int patience = 10;
+		private double ridge = 1e-9;
+		private long seed;
+
+		private Builder() {
+		}
+
+		/**
+		 * @param pool pool where the passes run
+		 * @return this builder
+		 */
+		public Builder pool(ForkJoinPool pool) {
+			this.pool = pool;
+			return this;
+		}
+
+		/**
+		 * @param chunkSize minimum number of samples in a block of the least
+		 * squares and error passes; results only depend on it when the number
+		 * of samples is below <code>256 * chunkSize</code>
+		 * @return this builder
+		 */
+		public Builder chunkSize(int chunkSize) {
+			this.chunkSize = chunkSize;
+			return this;
+		}
+
+		/**
+		 * @param epochs maximum number of epochs
+		 * @return this builder
+		 */
+		public Builder epochs(int epochs) {
+			this.epochs = epochs;
+			return this;
+		}
+
+		/**
+		 * @param batchSize number of samples in a mini-batch, split into 16
+		 * blocks that run in parallel
+		 * @return this builder
+		 */
+		public Builder batchSize(int batchSize) {
+			this.batchSize = batchSize;
+			return this;
+		}
+
+		/**
+		 * @param learningRate learning rate of the gradient descent, zero to
+		 * only fit the consequents
+		 * @return this builder
+		 */
+		public Builder learningRate(double learningRate) {
+			this.learningRate = learningRate;
+			return this;
+		}
+
+		/**
+		 * @param patience number of epochs without improvement before
+		 * stopping
+		 * @return this builder
+		 */
+		public Builder patience(int patience) {
+			this.patience = patience;
+			return this;
+		}
+
+		/**
+		 * @param ridge weight that pulls the least squares coefficients
+		 * towards their previous values, so that terms of rules that never
+		 * fire keep them
+		 * @return this builder
+		 */
+		public Builder ridge(double ridge) {
+			this.ridge = ridge;
+			return this;
+		}
+
+		/**
+		 * @param seed seed of the shuffling of the mini-batches
+		 * @return this builder
+		 */
+		public Builder seed(long seed) {
+			this.seed = seed;
+			return this;
+		}
+
+		/**
+		 * @return a new trainer
+		 * @throws IllegalArgumentException if the pool is missing, or an
+		 * option is out of range
+		 */
+		public AnfisTrainer build() {
+			if (pool == null) {
+				throw new IllegalArgumentException("Missing pool for ANFIS training");
+			}
+			if (chunkSize < 1 || epochs < 1 || batchSize < 1 || patience < 1 || !(learningRate >= 0.0)
+					|| !(ridge > 0.0)) {
+				throw new IllegalArgumentException("Invalid options for ANFIS training");
+			}
+			return new AnfisTrainer(this);
+		}
+
+	}
+
+}
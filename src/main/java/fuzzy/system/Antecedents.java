@@ -0,0 +1,350 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package fuzzy.system;
+
+import java.util.Arrays;
+import java.util.List;
+
+import fuzzy.mf.DoubleMembershipFunction;
+
+/**
+ * Input variables and rule antecedents of a fuzzy system, compiled into flat
+ * arrays: the shapes, parameters and membership functions of the input
+ * terms, numbered across all inputs, and the term indices of the antecedents
+ * of each rule. Shared by the fuzzy systems, which differ in how the
+ * consequents are combined.
+ *
+ * <p>
+ * This class is immutable and thread safe.
+ * </p>
+ *
+ * @since 0.5
+ */
+final class Antecedents {
+
+	// null when read from a compiled file
+	final LinguisticVariable[] inputs;
+
+	// input terms, numbered across all inputs
+	final int[] inputTermOffsets;
+	final Shape[] termShapes;
+	final int[] termParameterOffsets;
+	final double[] termParameters;
+	final DoubleMembershipFunction[] termFunctions;
+
+	// rules
+	final int[] antecedentOffsets;
+	final int[] antecedentTerms;
+	final boolean[] antecedentNegated;
+	final boolean[] disjunctive;
+	final double[] weights;
+
+	final TNorm conjunction;
+	final SNorm disjunction;
+
+	// null unless the rules are indexed
+	final RuleIndex index;
+
+	/**
+	 * Compiles input variables and rule antecedents.
+	 *
+	 * @param inputs input variables
+	 * @param rules rules
+	 * @param conjunction t-norm of <code>AND</code>
+	 * @param disjunction s-norm of <code>OR</code>
+	 * @param indexed whether to index the rules over the supports of their
+	 * antecedents
+	 * @throws IllegalArgumentException if there is no input, two inputs have
+	 * the same name, or an antecedent refers to an unknown variable or term
+	 */
+	Antecedents(List<LinguisticVariable> inputs, List<Rule> rules, TNorm conjunction, SNorm disjunction,
+			boolean indexed) {
+		final int n = inputs.size();
+		if (n == 0) {
+			throw new IllegalArgumentException("A fuzzy system needs at least one input");
+		}
+		this.inputs = inputs.toArray(new LinguisticVariable[n]);
+		this.conjunction = conjunction;
+		this.disjunction = disjunction;
+
+		this.inputTermOffsets = new int[n + 1];
+		for (int v = 0; v < n; v++) {
+			inputTermOffsets[v + 1] = inputTermOffsets[v] + this.inputs[v].getTerms().size();
+		}
+		final int termCount = inputTermOffsets[n];
+		this.termShapes = new Shape[termCount];
+		this.termParameterOffsets = new int[termCount + 1];
+		this.termFunctions = new DoubleMembershipFunction[termCount];
+		for (int v = 0; v < n; v++) {
+			for (int t = inputTermOffsets[v]; t < inputTermOffsets[v + 1]; t++) {
+				final Term term = this.inputs[v].getTerms().get(t - inputTermOffsets[v]);
+				termShapes[t] = term.getShape();
+				termFunctions[t] = term.getMembershipFunction();
+				termParameterOffsets[t + 1] = termParameterOffsets[t] + term.getParameters().length;
+			}
+		}
+		this.termParameters = new double[termParameterOffsets[termCount]];
+		for (int v = 0; v < n; v++) {
+			for (int t = inputTermOffsets[v]; t < inputTermOffsets[v + 1]; t++) {
+				final double[] parameters = this.inputs[v].getTerms().get(t - inputTermOffsets[v]).getParameters();
+				System.arraycopy(parameters, 0, termParameters, termParameterOffsets[t], parameters.length);
+			}
+		}
+
+		final int r = rules.size();
+		this.antecedentOffsets = new int[r + 1];
+		this.disjunctive = new boolean[r];
+		this.weights = new double[r];
+		for (int k = 0; k < r; k++) {
+			final Rule rule = rules.get(k);
+			antecedentOffsets[k + 1] = antecedentOffsets[k] + rule.getAntecedents().size();
+			disjunctive[k] = rule.isDisjunctive();
+			weights[k] = rule.getWeight();
+		}
+		this.antecedentTerms = new int[antecedentOffsets[r]];
+		this.antecedentNegated = new boolean[antecedentOffsets[r]];
+		for (int k = 0; k < r; k++) {
+			final List<Rule.Proposition> antecedents = rules.get(k).getAntecedents();
+			for (int a = 0; a < antecedents.size(); a++) {
+				antecedentTerms[antecedentOffsets[k] + a] = inputTerm(antecedents.get(a));
+				antecedentNegated[antecedentOffsets[k] + a] = antecedents.get(a).isNegated();
+			}
+		}
+		this.index = indexed ? new RuleIndex(this) : null;
+	}
+
+	/**
+	 * Compiled input terms and rule antecedents, read from a compiled file
+	 * without the input variables.
+	 *
+	 * @param inputTermOffsets first term of each input, and the number of
+	 * terms
+	 * @param termShapes shape of each input term
+	 * @param termParameterOffsets first parameter of each input term, and
+	 * the number of parameters
+	 * @param termParameters parameters of the input terms
+	 * @param antecedentOffsets first antecedent of each rule, and the number
+	 * of antecedents
+	 * @param antecedentTerms input term of each antecedent
+	 * @param antecedentNegated whether each antecedent is negated
+	 * @param disjunctive whether each rule is disjunctive
+	 * @param weights weight of each rule
+	 * @param conjunction t-norm of <code>AND</code>
+	 * @param disjunction s-norm of <code>OR</code>
+	 * @param indexed whether to index the rules over the supports of their
+	 * antecedents
+	 * @throws IllegalArgumentException if the parameters of a term are
+	 * invalid for its shape
+	 */
+	Antecedents(int[] inputTermOffsets, Shape[] termShapes, int[] termParameterOffsets, double[] termParameters,
+			int[] antecedentOffsets, int[] antecedentTerms, boolean[] antecedentNegated, boolean[] disjunctive,
+			double[] weights, TNorm conjunction, SNorm disjunction, boolean indexed) {
+		this.inputs = null;
+		this.inputTermOffsets = inputTermOffsets;
+		this.termShapes = termShapes;
+		this.termParameterOffsets = termParameterOffsets;
+		this.termParameters = termParameters;
+		this.termFunctions = new DoubleMembershipFunction[termShapes.length];
+		for (int t = 0; t < termShapes.length; t++) {
+			termFunctions[t] = termShapes[t].create(
+					Arrays.copyOfRange(termParameters, termParameterOffsets[t], termParameterOffsets[t + 1]));
+		}
+		this.antecedentOffsets = antecedentOffsets;
+		this.antecedentTerms = antecedentTerms;
+		this.antecedentNegated = antecedentNegated;
+		this.disjunctive = disjunctive;
+		this.weights = weights;
+		this.conjunction = conjunction;
+		this.disjunction = disjunction;
+		this.index = indexed ? new RuleIndex(this) : null;
+	}
+
+	/**
+	 * @return index of the input term of an antecedent, across all inputs
+	 */
+	private int inputTerm(Rule.Proposition antecedent) {
+		for (int v = 0; v < inputs.length; v++) {
+			if (inputs[v].getName().equals(antecedent.getVariable())) {
+				final int t = inputs[v].indexOf(antecedent.getTerm());
+				if (t < 0) {
+					throw new IllegalArgumentException("Unknown term in " + antecedent);
+				}
+				return inputTermOffsets[v] + t;
+			}
+		}
+		throw new IllegalArgumentException("Unknown input variable in " + antecedent);
+	}
+
+	/**
+	 * @return number of inputs
+	 */
+	int getInputCount() {
+		return inputTermOffsets.length - 1;
+	}
+
+	/**
+	 * @return number of input terms, across all inputs
+	 */
+	int getTermCount() {
+		return termFunctions.length;
+	}
+
+	/**
+	 * @return number of rules
+	 */
+	int getRuleCount() {
+		return weights.length;
+	}
+
+	/**
+	 * Fuzzifies each input with the terms of its variable.
+	 *
+	 * @param inputs crisp inputs
+	 * @param memberships where the membership value of each input term is
+	 * stored
+	 */
+	void fuzzify(double[] inputs, double[] memberships) {
+		for (int v = 0; v < getInputCount(); v++) {
+			final double x = inputs[v];
+			for (int t = inputTermOffsets[v]; t < inputTermOffsets[v + 1]; t++) {
+				memberships[t] = termFunctions[t].applyAsDouble(x);
+			}
+		}
+	}
+
+	/**
+	 * Computes the firing strength of each rule.
+	 *
+	 * @param memberships membership value of each input term
+	 * @param strengths where the firing strength of each rule is stored
+	 * @return number of rules with a firing strength above zero
+	 */
+	int fire(double[] memberships, double[] strengths) {
+		int fired = 0;
+		for (int k = 0; k < weights.length; k++) {
+			strengths[k] = fire(k, memberships);
+			if (strengths[k] > 0.0) {
+				fired++;
+			}
+		}
+		return fired;
+	}
+
+	/**
+	 * Fuzzifies the inputs and computes the firing strength of each rule,
+	 * visiting only the rules that may fire when the rules are indexed. The
+	 * firing strengths of the other rules are zero.
+	 *
+	 * @param inputs crisp inputs
+	 * @param memberships where the membership value of each input term is
+	 * stored
+	 * @param strengths where the firing strength of each rule is stored; must
+	 * only be written by this method, as only the rules visited by the last
+	 * call are reset
+	 * @param activation rules visited and fired by the last call
+	 */
+	void evaluate(double[] inputs, double[] memberships, double[] strengths, RuleActivation activation) {
+		if (index == null) {
+			fuzzify(inputs, memberships);
+			activation.visitedCount = weights.length;
+			activation.firedCount = fire(memberships, strengths);
+			return;
+		}
+		final int[] visited = activation.visited;
+		for (int i = 0; i < activation.visitedCount; i++) {
+			strengths[visited[i]] = 0.0;
+		}
+		final int[] counts = activation.counts;
+		final int[] touched = activation.touched;
+		int touchedCount = 0;
+		for (int v = 0; v < getInputCount(); v++) {
+			final double x = inputs[v];
+			for (int t = inputTermOffsets[v]; t < inputTermOffsets[v + 1]; t++) {
+				memberships[t] = 0.0;
+			}
+			final int[] terms = index.terms(v);
+			final int to = index.to(v, x);
+			for (int i = index.from(v, x); i < to; i++) {
+				final int t = terms[i];
+				final double membership = termFunctions[t].applyAsDouble(x);
+				memberships[t] = membership;
+				if (membership > 0.0) {
+					for (int p = index.postingsFrom(t); p < index.postingsTo(t); p++) {
+						final int k = index.postingRule(p);
+						if (counts[k]++ == 0) {
+							touched[touchedCount++] = k;
+						}
+					}
+				}
+			}
+		}
+		int visitedCount = 0;
+		int fired = 0;
+		for (int k : index.alwaysVisited) {
+			strengths[k] = fire(k, memberships);
+			visited[visitedCount++] = k;
+			if (strengths[k] > 0.0) {
+				fired++;
+			}
+		}
+		for (int i = 0; i < touchedCount; i++) {
+			final int k = touched[i];
+			if (counts[k] == index.required[k]) {
+				strengths[k] = fire(k, memberships);
+				visited[visitedCount++] = k;
+				if (strengths[k] > 0.0) {
+					fired++;
+				}
+			}
+			counts[k] = 0;
+		}
+		activation.visitedCount = visitedCount;
+		activation.firedCount = fired;
+	}
+
+	/**
+	 * @param k index of a rule
+	 * @param memberships membership value of each input term
+	 * @return firing strength of the rule, weight included
+	 */
+	double fire(int k, double[] memberships) {
+		return fire(k, memberships, memberships);
+	}
+
+	/**
+	 * Computes one end of the firing interval of a rule, from the interval of
+	 * membership values of each input term: the lower end from the lower
+	 * membership values and the complements of the upper ones, the upper end
+	 * the opposite.
+	 *
+	 * @param k index of a rule
+	 * @param memberships membership value of each input term, used by the
+	 * antecedents that are not negated
+	 * @param complemented membership value of each input term, used by the
+	 * negated antecedents
+	 * @return firing strength of the rule, weight included
+	 */
+	double fire(int k, double[] memberships, double[] complemented) {
+		final boolean or = disjunctive[k];
+		double strength = or ? 0.0 : 1.0;
+		for (int a = antecedentOffsets[k]; a < antecedentOffsets[k + 1]; a++) {
+			final double membership = antecedentNegated[a] ? 1.0 - complemented[antecedentTerms[a]]
+					: memberships[antecedentTerms[a]];
+			strength = or ? disjunction.applyAsDouble(strength, membership)
+					: conjunction.applyAsDouble(strength, membership);
+		}
+		return strength * weights[k];
+	}
+
+}
@@ -0,0 +1,382 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package fuzzy.system;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A fuzzy system that caches the outputs of another one, for inputs
+ * quantized to a step per input variable, such as the resolution of a
+ * sensor. Inputs that round to the same multiples of the steps share the
+ * same outputs, which are those of the wrapped system for these multiples,
+ * whatever the inputs that filled the cache.
+ *
+ * <p>
+ * The key of a cache entry is an array of primitive longs, one per input:
+ * the multiple of the step for a quantized input, or the bits of the crisp
+ * value for an input with a step of zero, so that keys are equal only if the
+ * quantized inputs are. Inputs that are not finite, or too large to be
+ * quantized exactly, are not cached. Each thread quantizes its inputs into a
+ * key of its own, reused from one evaluation to the next, so that a hit
+ * allocates nothing; the key is copied only when the outputs are cached.
+ * </p>
+ *
+ * <p>
+ * The cache is split into segments, each with its own lock and its own
+ * least recently used eviction, so that threads rarely wait for each other.
+ * The number of hits, misses and evictions are counted.
+ * </p>
+ *
+ * <p>
+ * This class is <strong>thread safe</strong>, if the wrapped system is.
+ * </p>
+ *
+ * @since 0.5
+ */
+public final class CachedFuzzySystem implements FuzzySystem {
+
+	/**
+	 * Number of segments of the cache, when not given.
+	 */
+	public static final int DEFAULT_SEGMENTS = 16;
+
+	/**
+	 * Largest multiple of a step that is quantized; above it, crisp values
+	 * are not all representable.
+	 */
+	private static final double MAXIMUM_MULTIPLE = 9007199254740992.0;
+
+	private final FuzzySystem system;
+	private final double[] steps;
+	private final int capacity;
+	private final Segment[] segments;
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong evictions = new AtomicLong();
+	private final ThreadLocal<Probe> probes = new ThreadLocal<Probe>() {
+		@Override
+		protected Probe initialValue() {
+			return new Probe(steps.length);
+		}
+	};
+
+	/**
+	 * Creates a cache with {@link #DEFAULT_SEGMENTS} segments.
+	 *
+	 * @param system fuzzy system
+	 * @param steps quantization step of each input variable, zero to use
+	 * the exact crisp value
+	 * @param capacity maximum number of cached outputs
+	 * @throws IllegalArgumentException if the number of steps is not the
+	 * number of inputs, a step is negative or not finite, or the capacity is
+	 * not positive
+	 */
+	public CachedFuzzySystem(FuzzySystem system, double[] steps, int capacity) {
+		this(system, steps, capacity, DEFAULT_SEGMENTS);
+	}
+
+	/**
+	 * Creates a cache.
+	 *
+	 * @param system fuzzy system
+	 * @param steps quantization step of each input variable, zero to use
+	 * the exact crisp value
+	 * @param capacity maximum number of cached outputs
+	 * @param segments number of segments, each with its own lock
+	 * @throws IllegalArgumentException if the number of steps is not the
+	 * number of inputs, a step is negative or not finite, or the capacity or
+	 * the number of segments is not positive
+	 */
+	public CachedFuzzySystem(FuzzySystem system, double[] steps, int capacity, int segments) {
+		if (steps.length != system.getInputCount()) {
+			throw new IllegalArgumentException("Expected " + system.getInputCount() + " quantization steps");
+		}
+		for (double step : steps) {
+			if (!(step >= 0.0) || Double.isInfinite(step)) {
+				throw new IllegalArgumentException("Invalid quantization step " + step);
+			}
+		}
+		if (capacity <= 0 || segments <= 0) {
+			throw new IllegalArgumentException("Invalid capacity " + capacity + " or number of segments " + segments);
+		}
+		this.system = system;
+		this.steps = steps.clone();
+		this.capacity = capacity;
+		this.segments = new Segment[Math.min(segments, capacity)];
+		for (int i = 0; i < this.segments.length; i++) {
+			// spread the capacity over the segments
+			this.segments[i] = new Segment(capacity / this.segments.length + (i < capacity % this.segments.length ? 1 : 0));
+		}
+	}
+
+	/**
+	 * Key of a cache entry: the quantized inputs. The key of a probe changes
+	 * from one evaluation to the next, and is never put in the cache.
+	 */
+	private static final class Key {
+
+		private final long[] words;
+		private int hash;
+
+		Key(long[] words) {
+			this.words = words;
+			rehash();
+		}
+
+		/**
+		 * Updates the hash code after the words changed.
+		 */
+		void rehash() {
+			long h = 0x9E3779B97F4A7C15L;
+			for (long word : words) {
+				h = (h ^ word) * 0xBF58476D1CE4E5B9L;
+				h ^= h >>> 31;
+			}
+			this.hash = (int) (h ^ (h >>> 32));
+		}
+
+		/**
+		 * @return key with a copy of the words, to put in the cache
+		 */
+		Key copy() {
+			return new Key(words.clone());
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (obj == null) {
+				return false;
+			}
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			final Key that = (Key) obj;
+			return this.hash == that.hash && Arrays.equals(this.words, that.words);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+	}
+
+	/**
+	 * The quantized inputs of the evaluation in progress on a thread.
+	 */
+	private static final class Probe {
+
+		final Key key;
+		final double[] quantized;
+
+		Probe(int n) {
+			this.key = new Key(new long[n]);
+			this.quantized = new double[n];
+		}
+
+	}
+
+	/**
+	 * A part of the cache, in access order, guarded by its own lock.
+	 */
+	private final class Segment extends LinkedHashMap<Key, double[]> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int capacity;
+
+		Segment(int capacity) {
+			super(16, 0.75f, true);
+			this.capacity = capacity;
+		}
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Key, double[]> eldest) {
+			if (size() > capacity) {
+				evictions.incrementAndGet();
+				return true;
+			}
+			return false;
+		}
+
+	}
+
+	/* (non-Javadoc)
+	 * @see fuzzy.system.FuzzySystem#evaluate(double[], double[])
+	 */
+	@Override
+	public void evaluate(double[] inputs, double[] outputs) {
+		final int n = steps.length;
+		final int m = system.getOutputCount();
+		if (inputs.length < n || outputs.length < m) {
+			throw new IllegalArgumentException("Expected " + n + " inputs and " + m + " outputs");
+		}
+		final Probe probe = probes.get();
+		final long[] words = probe.key.words;
+		final double[] quantized = probe.quantized;
+		for (int v = 0; v < n; v++) {
+			final double x = inputs[v];
+			if (Double.isNaN(x) || Double.isInfinite(x)) {
+				system.evaluate(inputs, outputs);
+				return;
+			}
+			if (steps[v] == 0.0) {
+				// +0.0 and -0.0 are the same input
+				quantized[v] = x == 0.0 ? 0.0 : x;
+				words[v] = Double.doubleToLongBits(quantized[v]);
+			} else {
+				final double multiple = Math.rint(x / steps[v]);
+				if (Math.abs(multiple) > MAXIMUM_MULTIPLE) {
+					system.evaluate(inputs, outputs);
+					return;
+				}
+				words[v] = (long) multiple;
+				quantized[v] = words[v] * steps[v];
+			}
+		}
+		final Key key = probe.key;
+		key.rehash();
+		final Segment segment = segments[((key.hash ^ (key.hash >>> 16)) & 0x7FFFFFFF) % segments.length];
+		double[] cached;
+		synchronized (segment) {
+			cached = segment.get(key);
+		}
+		if (cached != null) {
+			hits.incrementAndGet();
+			System.arraycopy(cached, 0, outputs, 0, m);
+			return;
+		}
+		misses.incrementAndGet();
+		cached = new double[m];
+		system.evaluate(quantized, cached);
+		synchronized (segment) {
+			segment.put(key.copy(), cached);
+		}
+		System.arraycopy(cached, 0, outputs, 0, m);
+	}
+
+	/**
+	 * Removes all cached outputs. The counters are kept.
+	 */
+	public void clear() {
+		for (Segment segment : segments) {
+			synchronized (segment) {
+				segment.clear();
+			}
+		}
+	}
+
+	/**
+	 * @return number of cached outputs
+	 */
+	public int size() {
+		int size = 0;
+		for (Segment segment : segments) {
+			synchronized (segment) {
+				size += segment.size();
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * @return number of evaluations answered from the cache
+	 */
+	public long getHitCount() {
+		return hits.get();
+	}
+
+	/**
+	 * @return number of evaluations of the wrapped system whose outputs were
+	 * cached
+	 */
+	public long getMissCount() {
+		return misses.get();
+	}
+
+	/**
+	 * @return number of cached outputs removed to make room for others
+	 */
+	public long getEvictionCount() {
+		return evictions.get();
+	}
+
+	/**
+	 * @return wrapped fuzzy system
+	 */
+	public FuzzySystem getSystem() {
+		return system;
+	}
+
+	/**
+	 * @return quantization step of each input variable, in a new array
+	 */
+	public double[] getSteps() {
+		return steps.clone();
+	}
+
+	/**
+	 * @return maximum number of cached outputs
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/* (non-Javadoc)
+	 * @see fuzzy.system.FuzzySystem#getInputCount()
+	 */
+	@Override
+	public int getInputCount() {
+		return system.getInputCount();
+	}
+
+	/* (non-Javadoc)
+	 * @see fuzzy.system.FuzzySystem#getInput(int)
+	 */
+	@Override
+	public LinguisticVariable getInput(int i) {
+		return system.getInput(i);
+	}
+
+	/* (non-Javadoc)
+	 * @see fuzzy.system.FuzzySystem#getOutputCount()
+	 */
+	@Override
+	public int getOutputCount() {
+		return system.getOutputCount();
+	}
+
+	/* (non-Javadoc)
+	 * @see fuzzy.system.FuzzySystem#getOutputName(int)
+	 */
+	@Override
+	public String getOutputName(int i) {
+		return system.getOutputName(i);
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "Cached Fuzzy System ["+system+" "+Arrays.toString(steps)+" "+capacity+" "+segments.length+"]";
+	}
+
+}
@@ -0,0 +1,197 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package fuzzy.system;
+
+import java.util.Arrays;
+import java.util.List;
+
+import fuzzy.set.DiscreteFuzzySet;
+
+/**
+ * Rule consequents of a fuzzy system, grouped by output: for each output,
+ * the rules that conclude on it and the index of the concluded term,
+ * numbered across all outputs.
+ *
+ * <p>
+ * This class is immutable and thread safe.
+ * </p>
+ *
+ * @since 0.5
+ */
+final class Consequents {
+
+	// null when read from a compiled file
+	final String[] outputs;
+	final int[] outputTermOffsets;
+	final String[] termNames;
+	final int[] consequentOffsets;
+	final int[] consequentRules;
+	final int[] consequentTerms;
+
+	/**
+	 * Groups the consequents of the rules by output.
+	 *
+	 * @param outputs names of the output variables
+	 * @param terms names of the terms of each output
+	 * @param rules rules
+	 * @throws IllegalArgumentException if there is no output, a rule has no
+	 * consequent, or a consequent refers to an unknown variable or term
+	 */
+	Consequents(List<String> outputs, List<List<String>> terms, List<Rule> rules) {
+		final int m = outputs.size();
+		if (m == 0) {
+			throw new IllegalArgumentException("A fuzzy system needs at least one output");
+		}
+		this.outputs = outputs.toArray(new String[m]);
+		this.outputTermOffsets = new int[m + 1];
+		for (int o = 0; o < m; o++) {
+			outputTermOffsets[o + 1] = outputTermOffsets[o] + terms.get(o).size();
+		}
+		this.termNames = new String[outputTermOffsets[m]];
+		for (int o = 0; o < m; o++) {
+			for (int t = 0; t < terms.get(o).size(); t++) {
+				termNames[outputTermOffsets[o] + t] = terms.get(o).get(t);
+			}
+		}
+		this.consequentOffsets = new int[m + 1];
+		for (Rule rule : rules) {
+			if (rule.getConsequents().isEmpty()) {
+				throw new IllegalArgumentException("Rule without consequents: " + rule);
+			}
+			for (Rule.Proposition consequent : rule.getConsequents()) {
+				consequentOffsets[output(consequent) + 1]++;
+			}
+		}
+		for (int o = 0; o < m; o++) {
+			consequentOffsets[o + 1] += consequentOffsets[o];
+		}
+		this.consequentRules = new int[consequentOffsets[m]];
+		this.consequentTerms = new int[consequentOffsets[m]];
+		final int[] filled = Arrays.copyOf(consequentOffsets, m);
+		for (int k = 0; k < rules.size(); k++) {
+			final Rule rule = rules.get(k);
+			for (Rule.Proposition consequent : rule.getConsequents()) {
+				final int o = output(consequent);
+				final int t = terms.get(o).indexOf(consequent.getTerm());
+				if (t < 0) {
+					throw new IllegalArgumentException("Unknown term " + consequent + " in rule " + rule);
+				}
+				consequentRules[filled[o]] = k;
+				consequentTerms[filled[o]] = outputTermOffsets[o] + t;
+				filled[o]++;
+			}
+		}
+	}
+
+	/**
+	 * Grouped consequents, read from a compiled file without the names of
+	 * the outputs and their terms.
+	 *
+	 * @param outputTermOffsets first term of each output, and the number of
+	 * terms
+	 * @param consequentOffsets first consequent of each output, and the
+	 * number of consequents
+	 * @param consequentRules rule of each consequent
+	 * @param consequentTerms output term of each consequent
+	 */
+	Consequents(int[] outputTermOffsets, int[] consequentOffsets, int[] consequentRules, int[] consequentTerms) {
+		this.outputs = null;
+		this.termNames = null;
+		this.outputTermOffsets = outputTermOffsets;
+		this.consequentOffsets = consequentOffsets;
+		this.consequentRules = consequentRules;
+		this.consequentTerms = consequentTerms;
+	}
+
+	/**
+	 * Aggregates the implied consequents of an output into its set, for the
+	 * Mamdani systems.
+	 *
+	 * @param o index of the output
+	 * @param strengths firing strength of each rule
+	 * @param termSamples each output term sampled over the universe of its
+	 * output
+	 * @param implication t-norm of the implication
+	 * @param aggregation s-norm of the aggregation
+	 * @param aggregate set of the output, cleared then filled
+	 * @return the aggregated set
+	 */
+	DiscreteFuzzySet aggregate(int o, double[] strengths, double[][] termSamples, TNorm implication,
+			SNorm aggregation, DiscreteFuzzySet aggregate) {
+		final double[] m = aggregate.clear().getMemberships();
+		for (int c = consequentOffsets[o]; c < consequentOffsets[o + 1]; c++) {
+			final double strength = strengths[consequentRules[c]];
+			// every t-norm gives zero, and adding zero leaves every s-norm unchanged
+			if (!(strength > 0.0)) {
+				continue;
+			}
+			final double[] samples = termSamples[consequentTerms[c]];
+			if (aggregation == SNorm.MAXIMUM && implication == TNorm.MINIMUM) {
+				for (int i = 0; i < m.length; i++) {
+					m[i] = Math.max(m[i], Math.min(strength, samples[i]));
+				}
+			} else if (aggregation == SNorm.MAXIMUM && implication == TNorm.PRODUCT) {
+				for (int i = 0; i < m.length; i++) {
+					m[i] = Math.max(m[i], strength * samples[i]);
+				}
+			} else {
+				for (int i = 0; i < m.length; i++) {
+					m[i] = aggregation.applyAsDouble(m[i], implication.applyAsDouble(strength, samples[i]));
+				}
+			}
+		}
+		return aggregate;
+	}
+
+	/**
+	 * @return index of the output variable of a consequent
+	 */
+	private int output(Rule.Proposition consequent) {
+		for (int o = 0; o < outputs.length; o++) {
+			if (outputs[o].equals(consequent.getVariable())) {
+				return o;
+			}
+		}
+		throw new IllegalArgumentException("Unknown output variable in " + consequent);
+	}
+
+	/**
+	 * Checks that no output has the name of an input.
+	 *
+	 * @param antecedents inputs
+	 * @throws IllegalArgumentException if two variables have the same name
+	 */
+	void checkNames(Antecedents antecedents) {
+		for (int i = 0; i < outputs.length; i++) {
+			for (int j = 0; j < i; j++) {
+				if (outputs[i].equals(outputs[j])) {
+					throw new IllegalArgumentException("Duplicate variable " + outputs[i]);
+				}
+			}
+			for (LinguisticVariable input : antecedents.inputs) {
+				if (outputs[i].equals(input.getName())) {
+					throw new IllegalArgumentException("Duplicate variable " + outputs[i]);
+				}
+			}
+		}
+		for (int i = 0; i < antecedents.inputs.length; i++) {
+			for (int j = 0; j < i; j++) {
+				if (antecedents.inputs[i].getName().equals(antecedents.inputs[j].getName())) {
+					throw new IllegalArgumentException("Duplicate variable " + antecedents.inputs[i].getName());
+				}
+			}
+		}
+	}
+
+}
@@ -0,0 +1,460 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package fuzzy.system;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.util.Arrays;
+
+/**
+ * Control surface of a fuzzy system with few inputs: the outputs of the
+ * system sampled once over a regular grid of its inputs, and interpolated
+ * between the nodes of the grid. Evaluating the surface costs a few
+ * multiplications per node around the inputs, whatever the number of rules
+ * and the defuzzification of the system.
+ *
+ * <p>
+ * The {@link Builder} evaluates the system at every node of the grid, and
+ * stores the outputs in a single table, the outputs of a node next to each
+ * other and the nodes in row-major order, the last input varying fastest.
+ * The table is a primitive array, or an off-heap buffer for large grids. The
+ * builder then evaluates the system and the surface at the center of every
+ * cell of the grid, where interpolation errors are usually the largest, and
+ * keeps the largest difference for each output.
+ * </p>
+ *
+ * <p>
+ * Inputs outside the grid are clamped to it. An output that is NaN at a node
+ * of the grid, for instance when no rule fires there, makes NaN the outputs
+ * interpolated around the node.
+ * </p>
+ *
+ * <p>
+ * This class is immutable and <strong>thread safe</strong>.
+ * </p>
+ *
+ * @since 0.5
+ */
+public final class ControlSurface implements FuzzySystem {
+
+	/**
+	 * Interpolation between the nodes of the grid.
+	 */
+	public enum Interpolation {
+		/**
+		 * Multilinear interpolation, from the <code>2^n</code> nodes of the
+		 * cell around the inputs.
+		 */
+		LINEAR,
+		/**
+		 * Tensor product of Catmull-Rom cubic splines, from the
+		 * <code>4^n</code> nodes around the inputs. The nodes past the
+		 * bounds of the grid are extrapolated linearly.
+		 */
+		CUBIC
+	}
+
+	/**
+	 * Number of nodes of the grid along an input, when not given.
+	 */
+	public static final int DEFAULT_POINTS = 65;
+
+	/**
+	 * Number of values in the table above which it is stored off-heap, when
+	 * not given.
+	 */
+	public static final int DEFAULT_OFF_HEAP_THRESHOLD = 1 << 20;
+
+	/**
+	 * Maximum number of values in an off-heap table: a direct buffer holds at
+	 * most {@link Integer#MAX_VALUE} bytes.
+	 */
+	public static final int MAX_OFF_HEAP_SIZE = Integer.MAX_VALUE / 8;
+
+	private final FuzzySystem system;
+	private final Interpolation interpolation;
+	private final double[] lower;
+	private final double[] upper;
+	private final int[] points;
+	private final double[] steps;
+	private final int[] strides;
+	private final int outputCount;
+	private final DoubleBuffer table;
+	private final double[] maximumErrors;
+
+	private final ThreadLocal<double[][]> weights = new ThreadLocal<double[][]>() {
+		@Override
+		protected double[][] initialValue() {
+			return new double[lower.length][4];
+		}
+	};
+
+	private final ThreadLocal<int[][]> indices = new ThreadLocal<int[][]>() {
+		@Override
+		protected int[][] initialValue() {
+			return new int[lower.length + 1][4];
+		}
+	};
+
+	private ControlSurface(Builder builder) {
+		this.system = builder.system;
+		this.interpolation = builder.interpolation;
+		final int n = system.getInputCount();
+		this.lower = builder.lower.clone();
+		this.upper = builder.upper.clone();
+		this.points = builder.points.clone();
+		this.steps = new double[n];
+		this.strides = new int[n];
+		this.outputCount = system.getOutputCount();
+		long nodes = 1;
+		for (int v = n - 1; v >= 0; v--) {
+			if (!(lower[v] < upper[v]) || Double.isInfinite(lower[v]) || Double.isInfinite(upper[v])) {
+				throw new IllegalArgumentException("Invalid grid bounds " + lower[v] + " and " + upper[v]
+						+ " for input " + system.getInput(v).getName());
+			}
+			if (points[v] < 2) {
+				throw new IllegalArgumentException("Invalid number of points " + points[v] + " for input "
+						+ system.getInput(v).getName());
+			}
+			steps[v] = (upper[v] - lower[v]) / (points[v] - 1);
+			strides[v] = (int) nodes;
+			nodes *= points[v];
+			if (nodes * outputCount > Integer.MAX_VALUE) {
+				throw new IllegalArgumentException("Grid too large: more than " + Integer.MAX_VALUE + " values");
+			}
+		}
+		final int size = (int) nodes * outputCount;
+		if (size > builder.offHeapThreshold) {
+			if (size > MAX_OFF_HEAP_SIZE) {
+				throw new IllegalArgumentException("Grid too large for an off-heap table: " + size
+						+ " values, more than " + MAX_OFF_HEAP_SIZE);
+			}
+			this.table = ByteBuffer.allocateDirect(size * 8).order(ByteOrder.nativeOrder()).asDoubleBuffer();
+		} else {
+			this.table = DoubleBuffer.wrap(new double[size]);
+		}
+
+		// sample the system at every node
+		final double[] inputs = new double[n];
+		final double[] outputs = new double[outputCount];
+		for (int node = 0; node < nodes; node++) {
+			for (int v = 0; v < n; v++) {
+				inputs[v] = node(v, (node / strides[v]) % points[v]);
+			}
+			system.evaluate(inputs, outputs);
+			for (int o = 0; o < outputCount; o++) {
+				table.put(node * outputCount + o, outputs[o]);
+			}
+		}
+
+		// compare with the system at the center of every cell
+		this.maximumErrors = new double[outputCount];
+		long cells = 1;
+		for (int v = 0; v < n; v++) {
+			cells *= points[v] - 1;
+		}
+		final double[] interpolated = new double[outputCount];
+		for (long cell = 0; cell < cells; cell++) {
+			long rest = cell;
+			for (int v = n - 1; v >= 0; v--) {
+				inputs[v] = node(v, (int) (rest % (points[v] - 1))) + steps[v] / 2;
+				rest /= points[v] - 1;
+			}
+			system.evaluate(inputs, outputs);
+			evaluate(inputs, interpolated);
+			for (int o = 0; o < outputCount; o++) {
+				maximumErrors[o] = Math.max(maximumErrors[o], error(outputs[o], interpolated[o]));
+			}
+		}
+	}
+
+	/**
+	 * @return crisp value of the i-th node along an input
+	 */
+	private double node(int v, int i) {
+		return i == points[v] - 1 ? upper[v] : lower[v] + i * steps[v];
+	}
+
+	/**
+	 * @return absolute difference, zero if both values are NaN, and infinite
+	 * if only one is
+	 */
+	private static double error(double expected, double actual) {
+		if (Double.isNaN(expected) || Double.isNaN(actual)) {
+			return Double.isNaN(expected) && Double.isNaN(actual) ? 0.0 : Double.POSITIVE_INFINITY;
+		}
+		return Math.abs(expected - actual);
+	}
+
+	/**
+	 * @param system fuzzy system
+	 * @return a new builder, with a grid of {@link #DEFAULT_POINTS} nodes
+	 * over the range of each input variable, and multilinear interpolation
+	 */
+	public static Builder builder(FuzzySystem system) {
+		return new Builder(system);
+	}
+
+	/* (non-Javadoc)
+	 * @see fuzzy.system.FuzzySystem#evaluate(double[], double[])
+	 */
+	@Override
+	public void evaluate(double[] inputs, double[] outputs) {
+		final int n = lower.length;
+		if (inputs.length < n || outputs.length < outputCount) {
+			throw new IllegalArgumentException("Expected " + n + " inputs and " + outputCount + " outputs");
+		}
+		final double[][] w = weights.get();
+		final int[][] index = indices.get();
+		final int[] counts = index[n];
+		for (int v = 0; v < n; v++) {
+			final double x = Math.min(upper[v], Math.max(lower[v], inputs[v]));
+			final int i = Math.min(points[v] - 2, (int) ((x - lower[v]) / steps[v]));
+			final double t = (x - node(v, i)) / steps[v];
+			if (interpolation == Interpolation.LINEAR) {
+				counts[v] = 2;
+				index[v][0] = i;
+				index[v][1] = i + 1;
+				w[v][0] = 1.0 - t;
+				w[v][1] = t;
+			} else {
+				counts[v] = 4;
+				final double t2 = t * t;
+				final double t3 = t2 * t;
+				index[v][0] = i - 1;
+				index[v][1] = i;
+				index[v][2] = i + 1;
+				index[v][3] = i + 2;
+				w[v][0] = (-t3 + 2.0 * t2 - t) / 2.0;
+				w[v][1] = (3.0 * t3 - 5.0 * t2 + 2.0) / 2.0;
+				w[v][2] = (-3.0 * t3 + 4.0 * t2 + t) / 2.0;
+				w[v][3] = (t3 - t2) / 2.0;
+				// linear extrapolation of the nodes past the bounds
+				if (index[v][0] < 0) {
+					w[v][1] += 2.0 * w[v][0];
+					w[v][2] -= w[v][0];
+					w[v][0] = 0.0;
+					index[v][0] = 0;
+				}
+				if (index[v][3] > points[v] - 1) {
+					w[v][2] += 2.0 * w[v][3];
+					w[v][1] -= w[v][3];
+					w[v][3] = 0.0;
+					index[v][3] = points[v] - 1;
+				}
+			}
+		}
+		for (int o = 0; o < outputCount; o++) {
+			outputs[o] = 0.0;
+		}
+		sum(0, 0, 1.0, w, index, counts, outputs);
+	}
+
+	/**
+	 * Adds the weighted outputs of the nodes around the inputs, one input at
+	 * a time.
+	 */
+	private void sum(int v, int offset, double weight, double[][] w, int[][] index, int[] counts,
+			double[] outputs) {
+		if (v == lower.length) {
+			final int base = offset * outputCount;
+			for (int o = 0; o < outputCount; o++) {
+				outputs[o] += weight * table.get(base + o);
+			}
+			return;
+		}
+		for (int j = 0; j < counts[v]; j++) {
+			if (w[v][j] != 0.0) {
+				sum(v + 1, offset + index[v][j] * strides[v], weight * w[v][j], w, index, counts, outputs);
+			}
+		}
+	}
+
+	/**
+	 * @param output index of an output variable
+	 * @return largest difference between the system and this surface at the
+	 * centers of the cells of the grid; infinite if one of them is NaN where
+	 * the other is not
+	 */
+	public double getMaximumError(int output) {
+		return maximumErrors[output];
+	}
+
+	/**
+	 * @return interpolation between the nodes of the grid
+	 */
+	public Interpolation getInterpolation() {
+		return interpolation;
+	}
+
+	/**
+	 * @param input index of an input variable
+	 * @return number of nodes of the grid along the input
+	 */
+	public int getPoints(int input) {
+		return points[input];
+	}
+
+	/**
+	 * @param input index of an input variable
+	 * @return lower bound of the grid along the input
+	 */
+	public double getLower(int input) {
+		return lower[input];
+	}
+
+	/**
+	 * @param input index of an input variable
+	 * @return upper bound of the grid along the input
+	 */
+	public double getUpper(int input) {
+		return upper[input];
+	}
+
+	/**
+	 * @return whether the table is stored off-heap
+	 */
+	public boolean isOffHeap() {
+		return table.isDirect();
+	}
+
+	/**
+	 * @return sampled fuzzy system
+	 */
+	public FuzzySystem getSystem() {
+		return system;
+	}
+
+	/* (non-Javadoc)
+	 * @see fuzzy.system.FuzzySystem#getInputCount()
+	 */
+	@Override
+	public int getInputCount() {
+		return lower.length;
+	}
+
+	/* (non-Javadoc)
+	 * @see fuzzy.system.FuzzySystem#getInput(int)
+	 */
+	@Override
+	public LinguisticVariable getInput(int i) {
+		return system.getInput(i);
+	}
+
+	/* (non-Javadoc)
+	 * @see fuzzy.system.FuzzySystem#getOutputCount()
+	 */
+	@Override
+	public int getOutputCount() {
+		return outputCount;
+	}
+
+	/* (non-Javadoc)
+	 * @see fuzzy.system.FuzzySystem#getOutputName(int)
+	 */
+	@Override
+	public String getOutputName(int i) {
+		return system.getOutputName(i);
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "Control Surface ["+system+" "+interpolation+" "+Arrays.toString(points)+"]";
+	}
+
+	/**
+	 * Sets the grid and interpolation of a {@link ControlSurface}, and
+	 * samples the fuzzy system.
+	 *
+	 * <p>
+	 * This class is <strong>not thread safe</strong>.
+	 * </p>
+	 */
+	public static final class Builder {
+
+		private final FuzzySystem system;
+		private final double[] lower;
+		private final double[] upper;
+		private final int[] points;
+		private Interpolation interpolation = Interpolation.LINEAR;
+		private int offHeapThreshold = DEFAULT_OFF_HEAP_THRESHOLD;
+
+		private Builder(FuzzySystem system) {
+			this.system = system;
+			final int n = system.getInputCount();
+			this.lower = new double[n];
+			this.upper = new double[n];
+			this.points = new int[n];
+			for (int v = 0; v < n; v++) {
+				lower[v] = system.getInput(v).getLower();
+				upper[v] = system.getInput(v).getUpper();
+				points[v] = DEFAULT_POINTS;
+			}
+		}
+
+		/**
+		 * @param input index of an input variable
+		 * @param lower lower bound of the grid along the input
+		 * @param upper upper bound of the grid along the input
+		 * @param points number of nodes of the grid along the input, at
+		 * least two
+		 * @return this builder
+		 */
+		public Builder grid(int input, double lower, double upper, int points) {
+			this.lower[input] = lower;
+			this.upper[input] = upper;
+			this.points[input] = points;
+			return this;
+		}
+
+		/**
+		 * @param interpolation interpolation between the nodes of the grid
+		 * @return this builder
+		 */
+		public Builder interpolation(Interpolation interpolation) {
+			this.interpolation = interpolation;
+			return this;
+		}
+
+		/**
+		 * @param offHeapThreshold number of values in the table above which
+		 * it is stored off-heap, in a single buffer of at most
+		 * {@link ControlSurface#MAX_OFF_HEAP_SIZE} values
+		 * @return this builder
+		 */
+		public Builder offHeapThreshold(int offHeapThreshold) {
+			this.offHeapThreshold = offHeapThreshold;
+			return this;
+		}
+
+		/**
+		 * Samples the fuzzy system over the grid, and measures the
+		 * interpolation error.
+		 *
+		 * @return a new control surface
+		 * @throws IllegalArgumentException if the bounds of the grid are not
+		 * finite and increasing, there are fewer than two nodes along an
+		 * input, or the table would be too large for an array
+		 */
+		public ControlSurface build() {
+			return new ControlSurface(this);
+		}
+
+	}
+
+}
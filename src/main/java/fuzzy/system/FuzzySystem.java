@@ -0,0 +1,72 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package fuzzy.system;
+
+/**
+ * A fuzzy inference system, that maps crisp inputs to crisp outputs.
+ *
+ * <p>
+ * Implementations are immutable and <strong>thread safe</strong>.
+ * </p>
+ *
+ * @since 0.5
+ */
+public interface FuzzySystem {
+
+	/**
+	 * @return number of input variables
+	 */
+	int getInputCount();
+
+	/**
+	 * @param i index of an input variable
+	 * @return input variable
+	 */
+	LinguisticVariable getInput(int i);
+
+	/**
+	 * @return number of output variables
+	 */
+	int getOutputCount();
+
+	/**
+	 * @param i index of an output variable
+	 * @return name of the output variable
+	 */
+	String getOutputName(int i);
+
+	/**
+	 * Evaluates the system.
+	 *
+	 * @param inputs crisp inputs, indexed like the input variables
+	 * @param outputs where the crisp outputs are stored, indexed like the
+	 * output variables
+	 * @throws IllegalArgumentException if an array is too small
+	 */
+	void evaluate(double[] inputs, double[] outputs);
+
+	/**
+	 * Evaluates the system, returning the outputs in a new array.
+	 *
+	 * @param inputs crisp inputs, indexed like the input variables
+	 * @return crisp outputs, indexed like the output variables
+	 * @throws IllegalArgumentException if there are too few inputs
+	 */
+	default double[] evaluate(double... inputs) {
+		final double[] outputs = new double[getOutputCount()];
+		evaluate(inputs, outputs);
+		return outputs;
+	}
+
+}
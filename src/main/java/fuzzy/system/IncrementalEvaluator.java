@@ -0,0 +1,418 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package fuzzy.system;
+
+import java.util.Arrays;
+
+/**
+ * Evaluates a fuzzy system again when only some of its inputs change. The
+ * evaluator keeps the crisp inputs, the membership values of the input terms,
+ * the firing strengths of the rules and the state of each output; when an
+ * input changes, only the terms of the input and the rules that refer to it
+ * are computed again, and only the outputs of the rules whose strength
+ * changed are updated.
+ *
+ * <p>
+ * How an output is updated depends on the system:
+ * </p>
+ *
+ * <ul>
+ * <li>{@link TskFuzzySystem} and {@link SamFuzzySystem}: the weighted sums of
+ * an output are patched, subtracting the old contribution of a rule and
+ * adding the new one. For a first-order TSK system, the sums are kept per
+ * input coefficient, so that a change of input does not change them unless
+ * a firing strength changes. As patching accumulates rounding errors, the
+ * sums of an output are computed again from scratch after a given number of
+ * patches, and whenever no rule of the output fires.</li>
+ * <li>{@link MamdaniFuzzySystem}: an s-norm cannot be undone, so the set of
+ * an output is aggregated again, but only if one of its rules changed, and
+ * defuzzified only when the output is read.</li>
+ * </ul>
+ *
+ * <p>
+ * The outputs are the same as a full evaluation, up to rounding errors for
+ * the patched sums.
+ * </p>
+ *
+ * <p>
+ * This class is <strong>not thread safe</strong>.
+ * </p>
+ *
+ * @since 0.5
+ */
+public final class IncrementalEvaluator {
+
+	/**
+	 * Number of patches of the sums of an output after which they are
+	 * computed again from scratch, when not given.
+	 */
+	public static final int DEFAULT_RESYNC_INTERVAL = 1024;
+
+	private static final int MAMDANI = 0;
+	private static final int TSK = 1;
+	private static final int SAM = 2;
+
+	private final FuzzySystem system;
+	private final int kind;
+	private final Antecedents antecedents;
+	private final Consequents consequents;
+	private final int resyncInterval;
+
+	// rules that refer to each input, and consequents of each rule
+	private final int[] inputRuleOffsets;
+	private final int[] inputRules;
+	private final int[] ruleConsequentOffsets;
+	private final int[] ruleConsequents;
+	private final int[] consequentOutputs;
+
+	private final double[] inputs;
+	private final double[] memberships;
+	private final double[] strengths;
+
+	// per output: the sums, the number of firing rules and of patches
+	private final int width;
+	private final double[] sums;
+	private final int[] firing;
+	private final int[] patches;
+	private final double[] outputs;
+	private final boolean[] dirty;
+	private final MamdaniFuzzySystem.Workspace workspace;
+	private int recomputed;
+
+	/**
+	 * Creates an evaluator, and evaluates the system fully.
+	 *
+	 * @param system Mamdani, TSK or SAM fuzzy system
+	 * @param inputs initial crisp inputs, indexed like the input variables
+	 * @throws IllegalArgumentException if the system is of another kind, or
+	 * there are too few inputs
+	 */
+	public IncrementalEvaluator(FuzzySystem system, double[] inputs) {
+		this(system, inputs, DEFAULT_RESYNC_INTERVAL);
+	}
+
+	/**
+	 * Creates an evaluator, and evaluates the system fully.
+	 *
+	 * @param system Mamdani, TSK or SAM fuzzy system
+	 * @param inputs initial crisp inputs, indexed like the input variables
+	 * @param resyncInterval number of patches of the sums of an output after
+	 * which they are computed again from scratch
+	 * @throws IllegalArgumentException if the system is of another kind,
+	 * there are too few inputs, or the interval is not positive
+	 */
+	public IncrementalEvaluator(FuzzySystem system, double[] inputs, int resyncInterval) {
+		if (system instanceof MamdaniFuzzySystem) {
+			this.kind = MAMDANI;
+			this.antecedents = ((MamdaniFuzzySystem) system).antecedents;
+			this.consequents = ((MamdaniFuzzySystem) system).consequents;
+			this.workspace = ((MamdaniFuzzySystem) system).newWorkspace();
+		} else if (system instanceof TskFuzzySystem) {
+			this.kind = TSK;
+			this.antecedents = ((TskFuzzySystem) system).antecedents;
+			this.consequents = ((TskFuzzySystem) system).consequents;
+			this.workspace = null;
+		} else if (system instanceof SamFuzzySystem) {
+			this.kind = SAM;
+			this.antecedents = ((SamFuzzySystem) system).antecedents;
+			this.consequents = ((SamFuzzySystem) system).consequents;
+			this.workspace = null;
+		} else {
+			throw new IllegalArgumentException("Incremental evaluation is not supported for " + system);
+		}
+		if (resyncInterval <= 0) {
+			throw new IllegalArgumentException("Invalid resync interval " + resyncInterval);
+		}
+		this.system = system;
+		this.resyncInterval = resyncInterval;
+		final int n = antecedents.inputs.length;
+		final int r = antecedents.getRuleCount();
+		final int m = consequents.outputs.length;
+		if (inputs.length < n) {
+			throw new IllegalArgumentException("Expected " + n + " inputs");
+		}
+
+		// rules of each input, once each
+		final int[] inputOfTerm = new int[antecedents.getTermCount()];
+		for (int v = 0; v < n; v++) {
+			for (int t = antecedents.inputTermOffsets[v]; t < antecedents.inputTermOffsets[v + 1]; t++) {
+				inputOfTerm[t] = v;
+			}
+		}
+		final boolean[] refers = new boolean[n * r];
+		this.inputRuleOffsets = new int[n + 1];
+		for (int k = 0; k < r; k++) {
+			for (int a = antecedents.antecedentOffsets[k]; a < antecedents.antecedentOffsets[k + 1]; a++) {
+				final int v = inputOfTerm[antecedents.antecedentTerms[a]];
+				if (!refers[v * r + k]) {
+					refers[v * r + k] = true;
+					inputRuleOffsets[v + 1]++;
+				}
+			}
+		}
+		for (int v = 0; v < n; v++) {
+			inputRuleOffsets[v + 1] += inputRuleOffsets[v];
+		}
+		this.inputRules = new int[inputRuleOffsets[n]];
+		for (int v = 0, i = 0; v < n; v++) {
+			for (int k = 0; k < r; k++) {
+				if (refers[v * r + k]) {
+					inputRules[i++] = k;
+				}
+			}
+		}
+
+		// consequents of each rule
+		final int[] offsets = consequents.consequentOffsets;
+		this.consequentOutputs = new int[offsets[m]];
+		this.ruleConsequentOffsets = new int[r + 1];
+		for (int o = 0; o < m; o++) {
+			for (int c = offsets[o]; c < offsets[o + 1]; c++) {
+				consequentOutputs[c] = o;
+				ruleConsequentOffsets[consequents.consequentRules[c] + 1]++;
+			}
+		}
+		for (int k = 0; k < r; k++) {
+			ruleConsequentOffsets[k + 1] += ruleConsequentOffsets[k];
+		}
+		this.ruleConsequents = new int[offsets[m]];
+		final int[] filled = Arrays.copyOf(ruleConsequentOffsets, r);
+		for (int c = 0; c < offsets[m]; c++) {
+			ruleConsequents[filled[consequents.consequentRules[c]]++] = c;
+		}
+
+		this.inputs = Arrays.copyOf(inputs, n);
+		this.memberships = new double[antecedents.getTermCount()];
+		this.strengths = new double[r];
+		this.width = kind == TSK ? n + 2 : 2;
+		this.sums = new double[m * width];
+		this.firing = new int[m];
+		this.patches = new int[m];
+		this.outputs = new double[m];
+		this.dirty = new boolean[m];
+		reset(inputs);
+	}
+
+	/**
+	 * Evaluates the system fully, with new inputs.
+	 *
+	 * @param inputs crisp inputs, indexed like the input variables
+	 * @throws IllegalArgumentException if there are too few inputs
+	 */
+	public void reset(double[] inputs) {
+		if (inputs.length < this.inputs.length) {
+			throw new IllegalArgumentException("Expected " + this.inputs.length + " inputs");
+		}
+		System.arraycopy(inputs, 0, this.inputs, 0, this.inputs.length);
+		antecedents.fuzzify(this.inputs, memberships);
+		antecedents.fire(memberships, strengths);
+		for (int o = 0; o < outputs.length; o++) {
+			if (kind != MAMDANI) {
+				resum(o);
+			}
+			dirty[o] = true;
+		}
+		recomputed = strengths.length;
+	}
+
+	/**
+	 * Changes one input, and updates the rules that refer to it.
+	 *
+	 * @param input index of an input variable
+	 * @param value new crisp value of the input
+	 */
+	public void update(int input, double value) {
+		inputs[input] = value;
+		for (int t = antecedents.inputTermOffsets[input]; t < antecedents.inputTermOffsets[input + 1]; t++) {
+			memberships[t] = antecedents.termFunctions[t].applyAsDouble(value);
+		}
+		recomputed = 0;
+		for (int i = inputRuleOffsets[input]; i < inputRuleOffsets[input + 1]; i++) {
+			final int k = inputRules[i];
+			final double strength = antecedents.fire(k, memberships);
+			recomputed++;
+			final double old = strengths[k];
+			if (Double.doubleToLongBits(strength) == Double.doubleToLongBits(old)) {
+				continue;
+			}
+			strengths[k] = strength;
+			for (int j = ruleConsequentOffsets[k]; j < ruleConsequentOffsets[k + 1]; j++) {
+				patch(ruleConsequents[j], old, strength);
+			}
+		}
+		if (kind == TSK && ((TskFuzzySystem) system).order > 0) {
+			// the consequent functions depend on the input
+			Arrays.fill(dirty, true);
+		}
+	}
+
+	/**
+	 * Replaces the contribution of a consequent to the sums of its output.
+	 */
+	private void patch(int c, double oldStrength, double newStrength) {
+		final int o = consequentOutputs[c];
+		dirty[o] = true;
+		if (kind == MAMDANI) {
+			return;
+		}
+		// the evaluation skips the rules that do not fire
+		final double oldWeight = oldStrength > 0.0 ? oldStrength : 0.0;
+		final double newWeight = newStrength > 0.0 ? newStrength : 0.0;
+		if (oldWeight > 0.0) {
+			firing[o]--;
+		}
+		if (newWeight > 0.0) {
+			firing[o]++;
+		}
+		if (firing[o] == 0 || ++patches[o] >= resyncInterval) {
+			resum(o);
+			return;
+		}
+		final double delta = newWeight - oldWeight;
+		final int s = o * width;
+		final int j = consequents.consequentTerms[c];
+		if (kind == TSK) {
+			final TskFuzzySystem tsk = (TskFuzzySystem) system;
+			final int row = j * tsk.stride;
+			sums[s] += delta;
+			for (int i = 0; i < tsk.stride; i++) {
+				sums[s + 1 + i] += delta * tsk.coefficients[row + i];
+			}
+		} else {
+			final SamFuzzySystem sam = (SamFuzzySystem) system;
+			final double volume = delta * sam.volumes[j];
+			sums[s] += volume;
+			sums[s + 1] += volume * sam.centroids[j];
+		}
+	}
+
+	/**
+	 * Computes the sums of an output from scratch.
+	 */
+	private void resum(int o) {
+		final int s = o * width;
+		Arrays.fill(sums, s, s + width, 0.0);
+		firing[o] = 0;
+		patches[o] = 0;
+		for (int c = consequents.consequentOffsets[o]; c < consequents.consequentOffsets[o + 1]; c++) {
+			final double strength = strengths[consequents.consequentRules[c]];
+			if (!(strength > 0.0)) {
+				continue;
+			}
+			firing[o]++;
+			final int j = consequents.consequentTerms[c];
+			if (kind == TSK) {
+				final TskFuzzySystem tsk = (TskFuzzySystem) system;
+				final int row = j * tsk.stride;
+				sums[s] += strength;
+				for (int i = 0; i < tsk.stride; i++) {
+					sums[s + 1 + i] += strength * tsk.coefficients[row + i];
+				}
+			} else {
+				final SamFuzzySystem sam = (SamFuzzySystem) system;
+				final double volume = strength * sam.volumes[j];
+				sums[s] += volume;
+				sums[s + 1] += volume * sam.centroids[j];
+			}
+		}
+	}
+
+	/**
+	 * @param o index of an output variable
+	 * @return crisp output for the current inputs
+	 */
+	public double getOutput(int o) {
+		if (dirty[o]) {
+			outputs[o] = compute(o);
+			dirty[o] = false;
+		}
+		return outputs[o];
+	}
+
+	/**
+	 * @param outputs where the crisp outputs for the current inputs are
+	 * stored, indexed like the output variables
+	 * @throws IllegalArgumentException if the array is too small
+	 */
+	public void getOutputs(double[] outputs) {
+		if (outputs.length < this.outputs.length) {
+			throw new IllegalArgumentException("Expected " + this.outputs.length + " outputs");
+		}
+		for (int o = 0; o < this.outputs.length; o++) {
+			outputs[o] = getOutput(o);
+		}
+	}
+
+	private double compute(int o) {
+		if (kind == MAMDANI) {
+			final MamdaniFuzzySystem mamdani = (MamdaniFuzzySystem) system;
+			return mamdani.defuzzify(o, mamdani.aggregate(o, strengths, workspace.getAggregate(o)),
+					workspace.interpolations[o]);
+		}
+		final int s = o * width;
+		if (kind == TSK) {
+			final TskFuzzySystem tsk = (TskFuzzySystem) system;
+			if (firing[o] == 0) {
+				return tsk.getDefaultValue();
+			}
+			double numerator = sums[s + 1];
+			for (int v = 0; v < inputs.length; v++) {
+				numerator += inputs[v] * sums[s + 2 + v];
+			}
+			return numerator / sums[s];
+		}
+		return firing[o] == 0 ? ((SamFuzzySystem) system).getDefaultValue() : sums[s + 1] / sums[s];
+	}
+
+	/**
+	 * @param rule index of a rule
+	 * @return firing strength of the rule for the current inputs, weight
+	 * included
+	 */
+	public double getFiringStrength(int rule) {
+		return strengths[rule];
+	}
+
+	/**
+	 * @return number of rules computed again by the last update, or all the
+	 * rules after a reset
+	 */
+	public int getRecomputedRuleCount() {
+		return recomputed;
+	}
+
+	/**
+	 * @param input index of an input variable
+	 * @return current crisp value of the input
+	 */
+	public double getInput(int input) {
+		return inputs[input];
+	}
+
+	/**
+	 * @return fuzzy system
+	 */
+	public FuzzySystem getSystem() {
+		return system;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "Incremental Evaluator ["+system+" "+resyncInterval+"]";
+	}
+
+}
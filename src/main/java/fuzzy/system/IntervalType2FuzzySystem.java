@@ -0,0 +1,621 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package fuzzy.system;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.functor.generator.range.BoundType;
+import org.apache.commons.functor.generator.range.DoubleRange;
+
+import fuzzy.df.TypeReduction;
+import fuzzy.internal.functions.Doubles;
+import fuzzy.set.IntervalType2FuzzySet;
+
+/**
+ * Interval type-2 Mamdani fuzzy inference system. Each variable is given
+ * twice, with the lower and upper membership functions of its terms, built
+ * from the shapes of <code>fuzzy.mf</code>; the area between them is the
+ * footprint of uncertainty of the term. An input is fuzzified into an
+ * interval of membership values for each term, and each rule fires with an
+ * interval of strengths: the lower end combines the lower membership values,
+ * the upper end the upper ones, the complements being swapped for negated
+ * antecedents. The consequents are implied with each end of the firing
+ * interval, aggregated into an interval type-2 set over the universe of each
+ * output, and type-reduced into a crisp value, the midpoint of the centroid
+ * interval.
+ *
+ * <p>
+ * The lower and upper variables are compiled as those of
+ * {@link MamdaniFuzzySystem}, and evaluation works in a {@link Workspace}, so
+ * that it does not allocate memory. The type reduction is selected with
+ * {@link Builder#typeReduction(TypeReduction)}: the exact Enhanced
+ * Karnik-Mendel algorithm by default, or the faster Wu-Mendel and Nie-Tan
+ * approximations.
+ * </p>
+ *
+ * <p>
+ * An output for which the aggregated set is empty, when no rule fires, gets
+ * the default value of the system, NaN unless configured.
+ * </p>
+ *
+ * <p>
+ * This class is immutable and <strong>thread safe</strong>.
+ * </p>
+ *
+ * @since 0.5
+ */
+public final class IntervalType2FuzzySystem implements FuzzySystem {
+
+	private final Antecedents lowerAntecedents;
+	private final Antecedents upperAntecedents;
+	private final Consequents consequents;
+	private final LinguisticVariable[] lowerOutputs;
+	private final LinguisticVariable[] upperOutputs;
+	private final List<Rule> rules;
+
+	// output universes, and the terms of all outputs sampled over them
+	private final DoubleRange[] universeRanges;
+	private final double[][] universes;
+	private final double[][] lowerTermSamples;
+	private final double[][] upperTermSamples;
+
+	private final TNorm implication;
+	private final SNorm aggregation;
+	private final TypeReduction typeReduction;
+	private final double defaultValue;
+
+	private final ThreadLocal<Workspace> workspaces = new ThreadLocal<Workspace>() {
+		@Override
+		protected Workspace initialValue() {
+			return newWorkspace();
+		}
+	};
+
+	private IntervalType2FuzzySystem(Builder builder) {
+		this.rules = Collections.unmodifiableList(new ArrayList<Rule>(builder.rules));
+		for (int v = 0; v < builder.lowerInputs.size(); v++) {
+			checkPair(builder.lowerInputs.get(v), builder.upperInputs.get(v));
+		}
+		this.lowerAntecedents = new Antecedents(builder.lowerInputs, rules, builder.conjunction,
+				builder.disjunction, false);
+		this.upperAntecedents = new Antecedents(builder.upperInputs, rules, builder.conjunction,
+				builder.disjunction, false);
+		final int m = builder.upperOutputs.size();
+		this.lowerOutputs = builder.lowerOutputs.toArray(new LinguisticVariable[m]);
+		this.upperOutputs = builder.upperOutputs.toArray(new LinguisticVariable[m]);
+		final List<String> names = new ArrayList<String>();
+		final List<List<String>> terms = new ArrayList<List<String>>();
+		for (int o = 0; o < m; o++) {
+			checkPair(lowerOutputs[o], upperOutputs[o]);
+			names.add(upperOutputs[o].getName());
+			final List<String> termNames = new ArrayList<String>();
+			for (Term term : upperOutputs[o].getTerms()) {
+				termNames.add(term.getName());
+			}
+			terms.add(termNames);
+		}
+		this.consequents = new Consequents(names, terms, rules);
+		consequents.checkNames(upperAntecedents);
+
+		this.universeRanges = new DoubleRange[m];
+		this.universes = new double[m][];
+		for (int o = 0; o < m; o++) {
+			universeRanges[o] = builder.universes.get(o);
+			if (!(universeRanges[o].getStep() > 0.0)) {
+				throw new IllegalArgumentException("Invalid universe " + universeRanges[o] + " for output " + upperOutputs[o].getName());
+			}
+			universes[o] = Doubles.toArray(universeRanges[o]);
+			if (universes[o].length == 0) {
+				throw new IllegalArgumentException("Empty universe for output " + upperOutputs[o].getName());
+			}
+		}
+		this.lowerTermSamples = new double[consequents.outputTermOffsets[m]][];
+		this.upperTermSamples = new double[consequents.outputTermOffsets[m]][];
+		for (int o = 0; o < m; o++) {
+			final int length = universes[o].length;
+			for (int t = 0; t < upperOutputs[o].getTerms().size(); t++) {
+				final double[] lower = new double[length];
+				final double[] upper = new double[length];
+				lowerOutputs[o].getTerms().get(t).getMembershipFunction().applyAll(universes[o], 0, length, lower);
+				upperOutputs[o].getTerms().get(t).getMembershipFunction().applyAll(universes[o], 0, length, upper);
+				for (int i = 0; i < length; i++) {
+					lower[i] = Math.min(lower[i], upper[i]);
+				}
+				lowerTermSamples[consequents.outputTermOffsets[o] + t] = lower;
+				upperTermSamples[consequents.outputTermOffsets[o] + t] = upper;
+			}
+		}
+
+		this.implication = builder.implication;
+		this.aggregation = builder.aggregation;
+		this.typeReduction = builder.typeReduction;
+		this.defaultValue = builder.defaultValue;
+	}
+
+	/**
+	 * @throws IllegalArgumentException if the lower and upper variables have
+	 * different names or terms
+	 */
+	private static void checkPair(LinguisticVariable lower, LinguisticVariable upper) {
+		boolean same = lower.getName().equals(upper.getName()) && lower.getTerms().size() == upper.getTerms().size();
+		for (int t = 0; same && t < lower.getTerms().size(); t++) {
+			same = lower.getTerms().get(t).getName().equals(upper.getTerms().get(t).getName());
+		}
+		if (!same) {
+			throw new IllegalArgumentException("Invalid lower variable " + lower + " for upper variable " + upper);
+		}
+	}
+
+	/**
+	 * @return a new builder, with minimum <code>AND</code> and implication,
+	 * maximum <code>OR</code> and aggregation, and Enhanced Karnik-Mendel type
+	 * reduction
+	 */
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	/**
+	 * Memory used by an evaluation: the fuzzified inputs, the firing
+	 * intervals of the rules, the aggregated output sets and their centroid
+	 * intervals. Created by {@link IntervalType2FuzzySystem#newWorkspace()}.
+	 *
+	 * <p>
+	 * This class is <strong>not thread safe</strong>. Use one instance per
+	 * thread.
+	 * </p>
+	 */
+	public static final class Workspace {
+
+		private final IntervalType2FuzzySystem system;
+		final double[] lowerMemberships;
+		final double[] upperMemberships;
+		final double[] lowerStrengths;
+		final double[] upperStrengths;
+		final IntervalType2FuzzySet[] aggregates;
+		final double[][] intervals;
+
+		private Workspace(IntervalType2FuzzySystem system) {
+			this.system = system;
+			this.lowerMemberships = new double[system.upperAntecedents.getTermCount()];
+			this.upperMemberships = new double[lowerMemberships.length];
+			this.lowerStrengths = new double[system.upperAntecedents.getRuleCount()];
+			this.upperStrengths = new double[lowerStrengths.length];
+			this.aggregates = new IntervalType2FuzzySet[system.upperOutputs.length];
+			this.intervals = new double[aggregates.length][2];
+			for (int o = 0; o < aggregates.length; o++) {
+				aggregates[o] = new IntervalType2FuzzySet(system.universes[o]);
+			}
+		}
+
+		/**
+		 * @param rule index of a rule
+		 * @return lower end of the firing interval of the rule in the last
+		 * evaluation, weight included
+		 */
+		public double getLowerFiringStrength(int rule) {
+			return lowerStrengths[rule];
+		}
+
+		/**
+		 * @param rule index of a rule
+		 * @return upper end of the firing interval of the rule in the last
+		 * evaluation, weight included
+		 */
+		public double getUpperFiringStrength(int rule) {
+			return upperStrengths[rule];
+		}
+
+		/**
+		 * @param output index of an output variable
+		 * @return aggregated set of the output in the last evaluation; it is
+		 * reused by the next evaluation
+		 */
+		public IntervalType2FuzzySet getAggregate(int output) {
+			return aggregates[output];
+		}
+
+		/**
+		 * @param output index of an output variable
+		 * @return left end of the centroid interval of the output in the last
+		 * evaluation, NaN if no rule fired
+		 */
+		public double getLeftCentroid(int output) {
+			return intervals[output][0];
+		}
+
+		/**
+		 * @param output index of an output variable
+		 * @return right end of the centroid interval of the output in the last
+		 * evaluation, NaN if no rule fired
+		 */
+		public double getRightCentroid(int output) {
+			return intervals[output][1];
+		}
+
+	}
+
+	/**
+	 * @return a new workspace, to evaluate this system without allocating
+	 * memory
+	 */
+	public Workspace newWorkspace() {
+		return new Workspace(this);
+	}
+
+	/* (non-Javadoc)
+	 * @see fuzzy.system.FuzzySystem#evaluate(double[], double[])
+	 */
+	@Override
+	public void evaluate(double[] inputs, double[] outputs) {
+		evaluate(inputs, outputs, workspaces.get());
+	}
+
+	/**
+	 * Evaluates the system in a workspace.
+	 *
+	 * @param inputs crisp inputs, indexed like the input variables
+	 * @param outputs where the crisp outputs are stored, indexed like the
+	 * output variables
+	 * @param workspace workspace created by this system
+	 * @throws IllegalArgumentException if an array is too small, or the
+	 * workspace belongs to another system
+	 */
+	public void evaluate(double[] inputs, double[] outputs, Workspace workspace) {
+		if (inputs.length < upperAntecedents.inputs.length || outputs.length < upperOutputs.length) {
+			throw new IllegalArgumentException("Expected " + upperAntecedents.inputs.length + " inputs and "
+					+ upperOutputs.length + " outputs");
+		}
+		if (workspace.system != this) {
+			throw new IllegalArgumentException("Workspace of another fuzzy system");
+		}
+		final double[] lower = workspace.lowerMemberships;
+		final double[] upper = workspace.upperMemberships;
+		lowerAntecedents.fuzzify(inputs, lower);
+		upperAntecedents.fuzzify(inputs, upper);
+		for (int t = 0; t < lower.length; t++) {
+			lower[t] = Math.min(lower[t], upper[t]);
+		}
+		for (int k = 0; k < workspace.lowerStrengths.length; k++) {
+			workspace.lowerStrengths[k] = upperAntecedents.fire(k, lower, upper);
+			workspace.upperStrengths[k] = upperAntecedents.fire(k, upper, lower);
+		}
+		for (int o = 0; o < upperOutputs.length; o++) {
+			final IntervalType2FuzzySet aggregate = aggregate(o, workspace.lowerStrengths, workspace.upperStrengths,
+					workspace.aggregates[o]);
+			final double y = aggregate.centroid(typeReduction, workspace.intervals[o]);
+			outputs[o] = Double.isNaN(y) ? defaultValue : y;
+		}
+	}
+
+	/**
+	 * Aggregates the implied consequents of an output into its set.
+	 *
+	 * @return the aggregated set
+	 */
+	private IntervalType2FuzzySet aggregate(int o, double[] lowerStrengths, double[] upperStrengths,
+			IntervalType2FuzzySet aggregate) {
+		aggregate.clear();
+		final double[] lower = aggregate.getLowerMemberships();
+		final double[] upper = aggregate.getUpperMemberships();
+		final int[] offsets = consequents.consequentOffsets;
+		for (int c = offsets[o]; c < offsets[o + 1]; c++) {
+			final int k = consequents.consequentRules[c];
+			final double upperStrength = upperStrengths[k];
+			// every t-norm gives zero, and adding zero leaves every s-norm unchanged
+			if (!(upperStrength > 0.0)) {
+				continue;
+			}
+			final double lowerStrength = lowerStrengths[k];
+			final double[] lowerSamples = lowerTermSamples[consequents.consequentTerms[c]];
+			final double[] upperSamples = upperTermSamples[consequents.consequentTerms[c]];
+			for (int i = 0; i < lower.length; i++) {
+				lower[i] = aggregation.applyAsDouble(lower[i], implication.applyAsDouble(lowerStrength, lowerSamples[i]));
+				upper[i] = aggregation.applyAsDouble(upper[i], implication.applyAsDouble(upperStrength, upperSamples[i]));
+			}
+		}
+		return aggregate;
+	}
+
+	/* (non-Javadoc)
+	 * @see fuzzy.system.FuzzySystem#getInputCount()
+	 */
+	@Override
+	public int getInputCount() {
+		return upperAntecedents.inputs.length;
+	}
+
+	/**
+	 * Returns an input variable with the upper membership functions of its
+	 * terms.
+	 *
+	 * @see fuzzy.system.FuzzySystem#getInput(int)
+	 */
+	@Override
+	public LinguisticVariable getInput(int i) {
+		return upperAntecedents.inputs[i];
+	}
+
+	/**
+	 * @param i index of an input variable
+	 * @return input variable with the lower membership functions of its terms
+	 */
+	public LinguisticVariable getLowerInput(int i) {
+		return lowerAntecedents.inputs[i];
+	}
+
+	/* (non-Javadoc)
+	 * @see fuzzy.system.FuzzySystem#getOutputCount()
+	 */
+	@Override
+	public int getOutputCount() {
+		return upperOutputs.length;
+	}
+
+	/* (non-Javadoc)
+	 * @see fuzzy.system.FuzzySystem#getOutputName(int)
+	 */
+	@Override
+	public String getOutputName(int i) {
+		return upperOutputs[i].getName();
+	}
+
+	/**
+	 * @param i index of an output variable
+	 * @return output variable with the upper membership functions of its
+	 * terms
+	 */
+	public LinguisticVariable getOutput(int i) {
+		return upperOutputs[i];
+	}
+
+	/**
+	 * @param i index of an output variable
+	 * @return output variable with the lower membership functions of its
+	 * terms
+	 */
+	public LinguisticVariable getLowerOutput(int i) {
+		return lowerOutputs[i];
+	}
+
+	/**
+	 * @param i index of an output variable
+	 * @return universe of the output variable
+	 */
+	public DoubleRange getUniverse(int i) {
+		return universeRanges[i];
+	}
+
+	/**
+	 * @return rules, unmodifiable
+	 */
+	public List<Rule> getRules() {
+		return rules;
+	}
+
+	/**
+	 * @return t-norm of <code>AND</code>
+	 */
+	public TNorm getConjunction() {
+		return upperAntecedents.conjunction;
+	}
+
+	/**
+	 * @return s-norm of <code>OR</code>
+	 */
+	public SNorm getDisjunction() {
+		return upperAntecedents.disjunction;
+	}
+
+	/**
+	 * @return t-norm of implication
+	 */
+	public TNorm getImplication() {
+		return implication;
+	}
+
+	/**
+	 * @return s-norm of aggregation
+	 */
+	public SNorm getAggregation() {
+		return aggregation;
+	}
+
+	/**
+	 * @return type reduction
+	 */
+	public TypeReduction getTypeReduction() {
+		return typeReduction;
+	}
+
+	/**
+	 * @return output when no rule fires
+	 */
+	public double getDefaultValue() {
+		return defaultValue;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "Interval Type-2 Fuzzy System ["+upperAntecedents.inputs.length+" "+upperOutputs.length+" "+rules.size()+" "
+				+upperAntecedents.conjunction+" "+upperAntecedents.disjunction+" "+implication+" "+aggregation+" "+typeReduction+"]";
+	}
+
+	/**
+	 * Collects the variables, rules and operators of an
+	 * {@link IntervalType2FuzzySystem}, and compiles them.
+	 *
+	 * <p>
+	 * This class is <strong>not thread safe</strong>.
+	 * </p>
+	 */
+	public static final class Builder {
+
+		private final List<LinguisticVariable> lowerInputs = new ArrayList<LinguisticVariable>();
+		private final List<LinguisticVariable> upperInputs = new ArrayList<LinguisticVariable>();
+		private final List<LinguisticVariable> lowerOutputs = new ArrayList<LinguisticVariable>();
+		private final List<LinguisticVariable> upperOutputs = new ArrayList<LinguisticVariable>();
+		private final List<DoubleRange> universes = new ArrayList<DoubleRange>();
+		private final List<Rule> rules = new ArrayList<Rule>();
+		private TNorm conjunction = TNorm.MINIMUM;
+		private SNorm disjunction = SNorm.MAXIMUM;
+		private TNorm implication = TNorm.MINIMUM;
+		private SNorm aggregation = SNorm.MAXIMUM;
+		private TypeReduction typeReduction = TypeReduction.ENHANCED_KARNIK_MENDEL;
+		private double defaultValue = Double.NaN;
+
+		private Builder() {
+		}
+
+		/**
+		 * @param lower input variable, with the lower membership functions of
+		 * its terms
+		 * @param upper the same input variable, with the upper membership
+		 * functions of its terms
+		 * @return this builder
+		 */
+		public Builder input(LinguisticVariable lower, LinguisticVariable upper) {
+			lowerInputs.add(lower);
+			upperInputs.add(upper);
+			return this;
+		}
+
+		/**
+		 * Adds an output variable, whose universe has
+		 * {@link MamdaniFuzzySystem#DEFAULT_RESOLUTION} evenly spaced crisp
+		 * values over the range of the upper variable.
+		 *
+		 * @param lower output variable, with the lower membership functions of
+		 * its terms
+		 * @param upper the same output variable, with the upper membership
+		 * functions of its terms
+		 * @return this builder
+		 */
+		public Builder output(LinguisticVariable lower, LinguisticVariable upper) {
+			final double step = (upper.getUpper() - upper.getLower()) / (MamdaniFuzzySystem.DEFAULT_RESOLUTION - 1);
+			// half a step past the upper end, so that rounding errors do not drop it
+			return output(lower, upper, new DoubleRange(upper.getLower(), BoundType.CLOSED,
+					upper.getUpper() + step / 2, BoundType.OPEN, step));
+		}
+
+		/**
+		 * @param lower output variable, with the lower membership functions of
+		 * its terms
+		 * @param upper the same output variable, with the upper membership
+		 * functions of its terms
+		 * @param universe crisp values where the output sets are sampled, in
+		 * increasing order
+		 * @return this builder
+		 */
+		public Builder output(LinguisticVariable lower, LinguisticVariable upper, DoubleRange universe) {
+			lowerOutputs.add(lower);
+			upperOutputs.add(upper);
+			universes.add(universe);
+			return this;
+		}
+
+		/**
+		 * @param rule rule
+		 * @return this builder
+		 */
+		public Builder rule(Rule rule) {
+			rules.add(rule);
+			return this;
+		}
+
+		/**
+		 * @param rules rules
+		 * @return this builder
+		 */
+		public Builder rules(Collection<Rule> rules) {
+			this.rules.addAll(rules);
+			return this;
+		}
+
+		/**
+		 * @param conjunction t-norm of <code>AND</code>
+		 * @return this builder
+		 */
+		public Builder conjunction(TNorm conjunction) {
+			this.conjunction = conjunction;
+			return this;
+		}
+
+		/**
+		 * @param disjunction s-norm of <code>OR</code>
+		 * @return this builder
+		 */
+		public Builder disjunction(SNorm disjunction) {
+			this.disjunction = disjunction;
+			return this;
+		}
+
+		/**
+		 * @param implication t-norm of implication
+		 * @return this builder
+		 */
+		public Builder implication(TNorm implication) {
+			this.implication = implication;
+			return this;
+		}
+
+		/**
+		 * @param aggregation s-norm of aggregation
+		 * @return this builder
+		 */
+		public Builder aggregation(SNorm aggregation) {
+			this.aggregation = aggregation;
+			return this;
+		}
+
+		/**
+		 * @param typeReduction type reduction of the aggregated sets
+		 * @return this builder
+		 */
+		public Builder typeReduction(TypeReduction typeReduction) {
+			this.typeReduction = typeReduction;
+			return this;
+		}
+
+		/**
+		 * @param defaultValue output when no rule fires
+		 * @return this builder
+		 */
+		public Builder defaultValue(double defaultValue) {
+			this.defaultValue = defaultValue;
+			return this;
+		}
+
+		/**
+		 * Compiles the fuzzy system.
+		 *
+		 * @return a new fuzzy system
+		 * @throws IllegalArgumentException if there is no input or output,
+		 * two variables have the same name, the lower and upper variables of a
+		 * pair differ in name or terms, a universe is invalid, or a rule
+		 * refers to an unknown variable or term
+		 */
+		public IntervalType2FuzzySystem build() {
+			return new IntervalType2FuzzySystem(this);
+		}
+
+	}
+
+}
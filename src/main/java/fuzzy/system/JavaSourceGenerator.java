@@ -0,0 +1,790 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package fuzzy.system;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.CodeSource;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.lang.model.SourceVersion;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import org.apache.commons.math3.util.FastMath;
+
+import fuzzy.internal.functions.Doubles;
+
+/**
+ * Generates the Java source of a class specialized for a
+ * {@link MamdaniFuzzySystem} or a {@link TskFuzzySystem}, that evaluates it
+ * without going through the rule tables of the interpreter.
+ *
+ * <p>
+ * In the generated class, the parameters of the terms are constants, and
+ * triangular, trapezoidal and Gaussian membership functions are written
+ * inline; the other shapes are called through constant fields of their own
+ * type. The rules are unrolled, with the t-norm, s-norm, implication,
+ * aggregation and centroid or bisector written inline. Evaluations give the
+ * same results as the system they were generated from.
+ * </p>
+ *
+ * <p>
+ * Unrolled rules are split into methods of at most {@link #CHUNK_SIZE}
+ * rules, terms or consequents, so that each method stays small enough for
+ * the just-in-time compiler.
+ * </p>
+ *
+ * <p>
+ * The source can be written for an ahead-of-time build, or compiled and
+ * loaded at runtime with the system Java compiler. As the library targets
+ * Java 8, which has neither hidden classes nor
+ * <code>MethodHandles.Lookup.defineClass</code>, the class is defined by a
+ * class loader of its own.
+ * </p>
+ *
+ * <p>
+ * This class is immutable and <strong>thread safe</strong>. The generated
+ * classes are too.
+ * </p>
+ *
+ * @since 0.5
+ */
+public final class JavaSourceGenerator {
+
+	/**
+	 * Maximum number of rules, terms or consequents unrolled in one method.
+	 */
+	public static final int CHUNK_SIZE = 32;
+
+	private JavaSourceGenerator() {
+	}
+
+	/**
+	 * Generates the source of a class that evaluates a fuzzy system.
+	 *
+	 * @param system a {@link MamdaniFuzzySystem} or a {@link TskFuzzySystem}
+	 * @param className fully qualified name of the class
+	 * @return Java source of the class, that implements {@link FuzzySystem}
+	 * and has a public constructor without arguments
+	 * @throws IllegalArgumentException if the class name is not valid, the
+	 * system is of another type, or it uses a defuzzification function other
+	 * than those of <code>fuzzy.df</code> that it applies directly
+	 */
+	public static String generate(FuzzySystem system, String className) {
+		if (!SourceVersion.isName(className)) {
+			throw new IllegalArgumentException("Invalid class name " + className);
+		}
+		if (system instanceof MamdaniFuzzySystem) {
+			return new Source((MamdaniFuzzySystem) system, className).toString();
+		} else if (system instanceof TskFuzzySystem) {
+			return new Source((TskFuzzySystem) system, className).toString();
+		}
+		throw new IllegalArgumentException("Cannot generate the source of " + system);
+	}
+
+	/**
+	 * Writes the source of a class that evaluates a fuzzy system, under a
+	 * source directory.
+	 *
+	 * @param system a {@link MamdaniFuzzySystem} or a {@link TskFuzzySystem}
+	 * @param className fully qualified name of the class
+	 * @param directory source directory, where the directories of the
+	 * package are created
+	 * @return the written file
+	 * @throws IOException if the file cannot be written
+	 * @throws IllegalArgumentException as {@link #generate(FuzzySystem,
+	 * String)}
+	 */
+	public static Path write(FuzzySystem system, String className, Path directory) throws IOException {
+		final String source = generate(system, className);
+		final Path file = directory.resolve(className.replace('.', File.separatorChar) + ".java");
+		if (file.getParent() != null) {
+			Files.createDirectories(file.getParent());
+		}
+		try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+			writer.write(source);
+		}
+		return file;
+	}
+
+	/**
+	 * Generates, compiles and loads a class that evaluates a fuzzy system.
+	 * Each call defines a new class, in a new class loader.
+	 *
+	 * @param system a {@link MamdaniFuzzySystem} or a {@link TskFuzzySystem}
+	 * @param className fully qualified name of the class
+	 * @return a new instance of the class
+	 * @throws IllegalArgumentException as {@link #generate(FuzzySystem,
+	 * String)}
+	 * @throws IllegalStateException if the runtime has no Java compiler, as
+	 * a JRE, or if the class cannot be compiled or loaded
+	 */
+	public static FuzzySystem compile(FuzzySystem system, String className) {
+		final String source = generate(system, className);
+		final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		if (compiler == null) {
+			throw new IllegalStateException("No Java compiler in this runtime: write the source and compile it ahead of time");
+		}
+		final Map<String, ByteArrayOutputStream> classes = new HashMap<String, ByteArrayOutputStream>();
+		final DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<JavaFileObject>();
+		final StandardJavaFileManager standard = compiler.getStandardFileManager(diagnostics, null, StandardCharsets.UTF_8);
+		final ForwardingJavaFileManager<StandardJavaFileManager> files = new ForwardingJavaFileManager<StandardJavaFileManager>(standard) {
+			@Override
+			public JavaFileObject getJavaFileForOutput(Location location, final String name, JavaFileObject.Kind kind,
+					FileObject sibling) {
+				return new SimpleJavaFileObject(URI.create("bytes:///" + name.replace('.', '/') + kind.extension), kind) {
+					@Override
+					public OutputStream openOutputStream() {
+						final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+						classes.put(name, bytes);
+						return bytes;
+					}
+				};
+			}
+		};
+		final JavaFileObject file = new SimpleJavaFileObject(
+				URI.create("string:///" + className.replace('.', '/') + JavaFileObject.Kind.SOURCE.extension),
+				JavaFileObject.Kind.SOURCE) {
+			@Override
+			public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+				return source;
+			}
+		};
+		final List<String> options = Arrays.asList("-classpath", classPath(), "-g:none", "-nowarn");
+		if (!compiler.getTask(null, files, diagnostics, options, null, Arrays.asList(file)).call()) {
+			throw new IllegalStateException("Cannot compile " + className + ": " + diagnostics.getDiagnostics());
+		}
+		final ClassLoader loader = new ClassLoader(JavaSourceGenerator.class.getClassLoader()) {
+			@Override
+			protected Class<?> findClass(String name) throws ClassNotFoundException {
+				final ByteArrayOutputStream bytes = classes.get(name);
+				if (bytes == null) {
+					throw new ClassNotFoundException(name);
+				}
+				return defineClass(name, bytes.toByteArray(), 0, bytes.size());
+			}
+		};
+		try {
+			return loader.loadClass(className).asSubclass(FuzzySystem.class).getConstructor().newInstance();
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException("Cannot load " + className, e);
+		}
+	}
+
+	/**
+	 * @return class path of the application, with the locations of this
+	 * library and of Commons Math
+	 */
+	private static String classPath() {
+		final StringBuilder path = new StringBuilder(System.getProperty("java.class.path", ""));
+		for (Class<?> type : new Class<?>[] { FuzzySystem.class, FastMath.class }) {
+			final CodeSource source = type.getProtectionDomain().getCodeSource();
+			if (source != null && source.getLocation() != null) {
+				try {
+					path.append(File.pathSeparatorChar).append(new File(source.getLocation().toURI()).getPath());
+				} catch (URISyntaxException | IllegalArgumentException e) {
+					// not a file, left to the class path
+				}
+			}
+		}
+		return path.toString();
+	}
+
+	/**
+	 * Source of a generated class.
+	 */
+	private static final class Source {
+
+		private final StringBuilder out = new StringBuilder();
+		private final String packageName;
+		private final String simpleName;
+		private final Antecedents antecedents;
+		private final Consequents consequents;
+		private final String description;
+		private final double defaultValue;
+		private int fuzzifyMethods;
+		private int fireMethods;
+
+		private Source(FuzzySystem system, String className, Antecedents antecedents, Consequents consequents,
+				double defaultValue) {
+			final int dot = className.lastIndexOf('.');
+			this.packageName = dot < 0 ? null : className.substring(0, dot);
+			this.simpleName = className.substring(dot + 1);
+			this.antecedents = antecedents;
+			this.consequents = consequents;
+			this.description = system.toString();
+			this.defaultValue = defaultValue;
+		}
+
+		Source(MamdaniFuzzySystem system, String className) {
+			this(system, className, system.antecedents, system.consequents, system.getDefaultValue());
+			if (system.defuzzificationKind == MamdaniFuzzySystem.OTHER) {
+				throw new IllegalArgumentException("Cannot generate defuzzification " + system.getDefuzzification());
+			}
+			header(true);
+			line(1, "// output universes, and the output terms sampled over them");
+			final int m = consequents.outputs.length;
+			for (int o = 0; o < m; o++) {
+				final double[] universe = system.universes[o];
+				line(1, "private static final double[] U" + o + " = universe("
+						+ literal(Doubles.first(system.universeRanges[o])) + ", "
+						+ literal(system.universeRanges[o].getStep()) + ", " + universe.length + ");");
+			}
+			for (int o = 0; o < m; o++) {
+				final List<Term> terms = system.getOutput(o).getTerms();
+				for (int t = 0; t < terms.size(); t++) {
+					line(1, "private static final double[] S" + (consequents.outputTermOffsets[o] + t)
+							+ " = samples(" + create(terms.get(t).getShape(), terms.get(t).getParameters())
+							+ ", U" + o + ");");
+				}
+			}
+			line(0, "");
+			workspace("final DiscreteFuzzySet[] sets = {", m);
+			body();
+			line(1, "@Override");
+			line(1, "public void evaluate(double[] inputs, double[] outputs) {");
+			evaluateStart();
+			for (int o = 0; o < m; o++) {
+				line(2, "outputs[" + o + "] = output" + o + "(w.r, w.sets[" + o + "]);");
+			}
+			line(1, "}");
+			line(0, "");
+			for (int o = 0; o < m; o++) {
+				mamdaniOutput(system, o);
+			}
+			line(1, "private static double[] universe(double first, double step, int size) {");
+			line(2, "final double[] universe = new double[size];");
+			line(2, "double value = first;");
+			line(2, "for (int i = 0; i < size; i++) {");
+			line(3, "universe[i] = value;");
+			line(3, "value += step;");
+			line(2, "}");
+			line(2, "return universe;");
+			line(1, "}");
+			line(0, "");
+			line(1, "private static double[] samples(DoubleMembershipFunction mf, double[] universe) {");
+			line(2, "final double[] samples = new double[universe.length];");
+			line(2, "mf.applyAll(universe, 0, samples.length, samples);");
+			line(2, "return samples;");
+			line(1, "}");
+			line(0, "");
+			footer();
+		}
+
+		Source(TskFuzzySystem system, String className) {
+			this(system, className, system.antecedents, system.consequents, system.getDefaultValue());
+			header(false);
+			workspace("final double[] sums = new double[2];", -1);
+			body();
+			line(1, "@Override");
+			line(1, "public void evaluate(double[] inputs, double[] outputs) {");
+			evaluateStart();
+			final int m = consequents.outputs.length;
+			final int[] offsets = consequents.consequentOffsets;
+			for (int o = 0; o < m; o++) {
+				line(2, "w.sums[0] = 0.0;");
+				line(2, "w.sums[1] = 0.0;");
+				for (int from = offsets[o], chunk = 0; from < offsets[o + 1]; from += CHUNK_SIZE, chunk++) {
+					line(2, "sum" + o + "_" + chunk + "(inputs, w.r, w.sums);");
+				}
+				line(2, "outputs[" + o + "] = w.sums[1] > 0.0 ? w.sums[0] / w.sums[1] : " + literal(defaultValue) + ";");
+			}
+			line(1, "}");
+			line(0, "");
+			final int n = antecedents.inputs.length;
+			for (int o = 0; o < m; o++) {
+				for (int from = offsets[o], chunk = 0; from < offsets[o + 1]; from += CHUNK_SIZE, chunk++) {
+					line(1, "private static void sum" + o + "_" + chunk + "(double[] inputs, double[] r, double[] sums) {");
+					line(2, "double numerator = sums[0];");
+					line(2, "double denominator = sums[1];");
+					line(2, "double s;");
+					for (int c = from; c < Math.min(offsets[o + 1], from + CHUNK_SIZE); c++) {
+						final int row = consequents.consequentTerms[c] * system.stride;
+						final StringBuilder value = new StringBuilder(literal(system.coefficients[row]));
+						if (system.order > 0) {
+							for (int v = 0; v < n; v++) {
+								value.append(" + ").append(literal(system.coefficients[row + v + 1])).append(" * inputs[")
+										.append(v).append(']');
+							}
+						}
+						line(2, "s = r[" + consequents.consequentRules[c] + "];");
+						line(2, "if (s > 0.0) {");
+						line(3, "numerator += s * " + (system.order > 0 ? "(" + value + ")" : value) + ";");
+						line(3, "denominator += s;");
+						line(2, "}");
+					}
+					line(2, "sums[0] = numerator;");
+					line(2, "sums[1] = denominator;");
+					line(1, "}");
+					line(0, "");
+				}
+			}
+			footer();
+		}
+
+		private void header(boolean mamdani) {
+			line(0, "// Generated by " + JavaSourceGenerator.class.getName() + " from");
+			line(0, "// " + description.replace('\n', ' '));
+			if (packageName != null) {
+				line(0, "package " + packageName + ";");
+				line(0, "");
+			}
+			line(0, "import org.apache.commons.math3.util.FastMath;");
+			line(0, "");
+			line(0, "import fuzzy.mf.DoubleMembershipFunction;");
+			if (mamdani) {
+				line(0, "import fuzzy.set.DiscreteFuzzySet;");
+			}
+			line(0, "import fuzzy.system.FuzzySystem;");
+			line(0, "import fuzzy.system.LinguisticVariable;");
+			line(0, "import fuzzy.system.Shape;");
+			line(0, "import fuzzy.system.Term;");
+			line(0, "");
+			line(0, "public final class " + simpleName + " implements FuzzySystem {");
+			line(0, "");
+			line(1, "private static final LinguisticVariable[] INPUTS = {");
+			for (LinguisticVariable input : antecedents.inputs) {
+				final StringBuilder terms = new StringBuilder();
+				for (Term term : input.getTerms()) {
+					terms.append(",\n\t\t\t\tnew Term(").append(string(term.getName())).append(", Shape.")
+							.append(term.getShape().name());
+					for (double p : term.getParameters()) {
+						terms.append(", ").append(literal(p));
+					}
+					terms.append(')');
+				}
+				line(2, "new LinguisticVariable(" + string(input.getName()) + ", " + literal(input.getLower()) + ", "
+						+ literal(input.getUpper()) + terms + "),");
+			}
+			line(1, "};");
+			final StringBuilder outputs = new StringBuilder();
+			for (String output : consequents.outputs) {
+				outputs.append(outputs.length() == 0 ? " " : ", ").append(string(output));
+			}
+			line(1, "private static final String[] OUTPUTS = {" + outputs + " };");
+			line(0, "");
+			boolean called = false;
+			for (int t = 0; t < antecedents.getTermCount(); t++) {
+				if (isUsed(t) && inline(antecedents.termShapes[t], parameters(t), "x") == null) {
+					if (!called) {
+						line(1, "// membership functions that are not written inline");
+						called = true;
+					}
+					line(1, "private static final DoubleMembershipFunction F" + t + " = "
+							+ create(antecedents.termShapes[t], parameters(t)) + ";");
+				}
+			}
+			if (called) {
+				line(0, "");
+			}
+		}
+
+		/**
+		 * Declares the workspace class, with the memberships, the strengths and
+		 * one more field.
+		 *
+		 * @param field declaration of the field
+		 * @param sets number of output sets to list in the field, or -1
+		 */
+		private void workspace(String field, int sets) {
+			line(1, "private static final class Workspace {");
+			line(2, "final double[] m = new double[" + antecedents.getTermCount() + "];");
+			line(2, "final double[] r = new double[" + antecedents.getRuleCount() + "];");
+			if (sets < 0) {
+				line(2, field);
+			} else {
+				line(2, field);
+				for (int o = 0; o < sets; o++) {
+					line(4, "new DiscreteFuzzySet(U" + o + ")" + (o + 1 < sets ? "," : ""));
+				}
+				line(2, "};");
+			}
+			line(1, "}");
+			line(0, "");
+			line(1, "private final ThreadLocal<Workspace> workspaces = new ThreadLocal<Workspace>() {");
+			line(2, "@Override");
+			line(2, "protected Workspace initialValue() {");
+			line(3, "return new Workspace();");
+			line(2, "}");
+			line(1, "};");
+			line(0, "");
+		}
+
+		/**
+		 * Writes the accessors, then the methods that fuzzify the inputs and
+		 * fire the rules.
+		 */
+		private void body() {
+			line(1, "@Override");
+			line(1, "public int getInputCount() {");
+			line(2, "return INPUTS.length;");
+			line(1, "}");
+			line(0, "");
+			line(1, "@Override");
+			line(1, "public LinguisticVariable getInput(int i) {");
+			line(2, "return INPUTS[i];");
+			line(1, "}");
+			line(0, "");
+			line(1, "@Override");
+			line(1, "public int getOutputCount() {");
+			line(2, "return OUTPUTS.length;");
+			line(1, "}");
+			line(0, "");
+			line(1, "@Override");
+			line(1, "public String getOutputName(int i) {");
+			line(2, "return OUTPUTS[i];");
+			line(1, "}");
+			line(0, "");
+			line(1, "@Override");
+			line(1, "public String toString() {");
+			line(2, "return " + string(description) + ";");
+			line(1, "}");
+			line(0, "");
+			fuzzify();
+			fire();
+		}
+
+		private void evaluateStart() {
+			line(2, "if (inputs.length < " + antecedents.inputs.length + " || outputs.length < "
+					+ consequents.outputs.length + ") {");
+			line(3, "throw new IllegalArgumentException(\"Expected " + antecedents.inputs.length + " inputs and "
+					+ consequents.outputs.length + " outputs\");");
+			line(2, "}");
+			line(2, "final Workspace w = workspaces.get();");
+			for (int i = 0; i < fuzzifyMethods; i++) {
+				line(2, "fuzzify" + i + "(inputs, w.m);");
+			}
+			for (int i = 0; i < fireMethods; i++) {
+				line(2, "fire" + i + "(w.m, w.r);");
+			}
+		}
+
+		private void footer() {
+			// the last blank line is not needed
+			out.setLength(out.length() - 1);
+			line(0, "}");
+		}
+
+		/**
+		 * @return whether an input term is in the antecedent of a rule
+		 */
+		private boolean isUsed(int t) {
+			for (int term : antecedents.antecedentTerms) {
+				if (term == t) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		private double[] parameters(int t) {
+			return Arrays.copyOfRange(antecedents.termParameters, antecedents.termParameterOffsets[t],
+					antecedents.termParameterOffsets[t + 1]);
+		}
+
+		private void fuzzify() {
+			final int n = antecedents.inputs.length;
+			int count = CHUNK_SIZE;
+			int lastInput = -1;
+			for (int v = 0; v < n; v++) {
+				for (int t = antecedents.inputTermOffsets[v]; t < antecedents.inputTermOffsets[v + 1]; t++) {
+					if (!isUsed(t)) {
+						continue;
+					}
+					if (count == CHUNK_SIZE) {
+						if (fuzzifyMethods > 0) {
+							line(1, "}");
+							line(0, "");
+						}
+						line(1, "private static void fuzzify" + fuzzifyMethods++ + "(double[] inputs, double[] m) {");
+						count = 0;
+						lastInput = -1;
+					}
+					if (lastInput != v) {
+						line(2, "final double x" + v + " = inputs[" + v + "];");
+						lastInput = v;
+					}
+					final String x = "x" + v;
+					final String inline = inline(antecedents.termShapes[t], parameters(t), x);
+					line(2, "m[" + t + "] = " + (inline == null ? "F" + t + ".applyAsDouble(" + x + ")" : inline) + ";");
+					count++;
+				}
+			}
+			if (fuzzifyMethods > 0) {
+				line(1, "}");
+				line(0, "");
+			}
+		}
+
+		private void fire() {
+			final int r = antecedents.getRuleCount();
+			for (int from = 0; from < r; from += CHUNK_SIZE) {
+				line(1, "private static void fire" + fireMethods++ + "(double[] m, double[] r) {");
+				line(2, "double s;");
+				for (int k = from; k < Math.min(r, from + CHUNK_SIZE); k++) {
+					final boolean or = antecedents.disjunctive[k];
+					line(2, "s = " + (or ? "0.0" : "1.0") + ";");
+					for (int a = antecedents.antecedentOffsets[k]; a < antecedents.antecedentOffsets[k + 1]; a++) {
+						final String membership = antecedents.antecedentNegated[a]
+								? "(1.0 - m[" + antecedents.antecedentTerms[a] + "])"
+								: "m[" + antecedents.antecedentTerms[a] + "]";
+						line(2, "s = " + (or ? sNorm(antecedents.disjunction, "s", membership)
+								: tNorm(antecedents.conjunction, "s", membership)) + ";");
+					}
+					final double weight = antecedents.weights[k];
+					line(2, "r[" + k + "] = s" + (weight == 1.0 ? "" : " * " + literal(weight)) + ";");
+				}
+				line(1, "}");
+				line(0, "");
+			}
+		}
+
+		private void mamdaniOutput(MamdaniFuzzySystem system, int o) {
+			final int[] offsets = consequents.consequentOffsets;
+			final String u = "U" + o;
+			line(1, "private static double output" + o + "(double[] r, DiscreteFuzzySet set) {");
+			line(2, "final double[] a = set.clear().getMemberships();");
+			for (int from = offsets[o], chunk = 0; from < offsets[o + 1]; from += CHUNK_SIZE, chunk++) {
+				line(2, "aggregate" + o + "_" + chunk + "(r, a);");
+			}
+			final boolean centroid = system.defuzzificationKind == MamdaniFuzzySystem.CENTROID;
+			final boolean bisector = system.defuzzificationKind == MamdaniFuzzySystem.BISECTOR;
+			// height, area and moment in one pass, each summed in the order of the universe
+			line(2, "double height = 0.0;");
+			if (centroid || bisector) {
+				line(2, "double area = 0.0;");
+			}
+			if (centroid) {
+				line(2, "double moment = 0.0;");
+			}
+			line(2, "for (int i = 0; i < a.length; i++) {");
+			line(3, "final double v = a[i];");
+			line(3, "if (v > height) {");
+			line(4, "height = v;");
+			line(3, "}");
+			if (centroid || bisector) {
+				line(3, "area += v;");
+			}
+			if (centroid) {
+				line(3, "moment += " + u + "[i] * v;");
+			}
+			line(2, "}");
+			line(2, "if (!(height > 0.0)) {");
+			line(3, "return " + literal(defaultValue) + ";");
+			line(2, "}");
+			switch (system.defuzzificationKind) {
+			case MamdaniFuzzySystem.CENTROID:
+				line(2, "return moment / area;");
+				break;
+			case MamdaniFuzzySystem.BISECTOR:
+				line(2, "double running = 0.0;");
+				line(2, "for (int i = 0; i < a.length; i++) {");
+				line(3, "running += a[i];");
+				line(3, "if (running >= area / 2) {");
+				line(4, "return " + u + "[i];");
+				line(3, "}");
+				line(2, "}");
+				line(2, "return " + u + "[a.length - 1];");
+				break;
+			case MamdaniFuzzySystem.SMALLEST_OF_MAXIMA:
+				line(2, "return set.smallestOfMaxima();");
+				break;
+			case MamdaniFuzzySystem.LARGEST_OF_MAXIMA:
+				line(2, "return set.largestOfMaxima();");
+				break;
+			case MamdaniFuzzySystem.LEFTMOST_MAXIMUM:
+				line(2, "return set.leftmostMaximum();");
+				break;
+			case MamdaniFuzzySystem.RIGHTMOST_MAXIMUM:
+				line(2, "return set.rightmostMaximum();");
+				break;
+			default:
+				line(2, "return set.meanOfMaxima();");
+				break;
+			}
+			line(1, "}");
+			line(0, "");
+			for (int from = offsets[o], chunk = 0; from < offsets[o + 1]; from += CHUNK_SIZE, chunk++) {
+				line(1, "private static void aggregate" + o + "_" + chunk + "(double[] r, double[] a) {");
+				line(2, "double s;");
+				for (int c = from; c < Math.min(offsets[o + 1], from + CHUNK_SIZE); c++) {
+					final String samples = "S" + consequents.consequentTerms[c];
+					// implying zero gives zero, which leaves the aggregate unchanged
+					final double[] values = system.outputTermSamples[consequents.consequentTerms[c]];
+					int first = 0;
+					int last = values.length;
+					while (first < last && values[first] == 0.0) {
+						first++;
+					}
+					while (last > first && values[last - 1] == 0.0) {
+						last--;
+					}
+					if (first == last) {
+						continue;
+					}
+					line(2, "s = r[" + consequents.consequentRules[c] + "];");
+					line(2, "if (s > 0.0) {");
+					line(3, "for (int i = " + first + "; i < " + last + "; i++) {");
+					line(4, "final double t = " + tNorm(system.implication, "s", samples + "[i]") + ";");
+					line(4, "a[i] = " + sNorm(system.aggregation, "a[i]", "t") + ";");
+					line(3, "}");
+					line(2, "}");
+				}
+				line(1, "}");
+				line(0, "");
+			}
+		}
+
+		private void line(int indent, String text) {
+			for (int i = 0; i < indent; i++) {
+				out.append('\t');
+			}
+			out.append(text).append('\n');
+		}
+
+		/* (non-Javadoc)
+		 * @see java.lang.Object#toString()
+		 */
+		@Override
+		public String toString() {
+			return out.toString();
+		}
+
+	}
+
+	/**
+	 * @return expression of a membership function written inline, with the
+	 * same operations as its class, or <code>null</code> if it is called
+	 */
+	static String inline(Shape shape, double[] p, String x) {
+		switch (shape) {
+		case TRIANGULAR:
+			return "Math.max(Math.min((" + x + " - " + literal(p[0]) + ") / " + literal(p[1] - p[0]) + ", ("
+					+ literal(p[2]) + " - " + x + ") / " + literal(p[2] - p[1]) + "), 0.0)";
+		case TRAPEZOIDAL:
+			// NaN falls through to one, as in the class
+			return x + " <= " + literal(p[0]) + " ? 0.0 : " + x + " <= " + literal(p[1]) + " ? (" + x + " - "
+					+ literal(p[0]) + ") / " + literal(p[1] - p[0]) + " : " + literal(p[2]) + " <= " + x + " && " + x
+					+ " <= " + literal(p[3]) + " ? (" + literal(p[3]) + " - " + x + ") / " + literal(p[3] - p[2])
+					+ " : " + literal(p[3]) + " <= " + x + " ? 0.0 : 1.0";
+		case GAUSSIAN:
+			return "FastMath.exp(-((" + x + " - " + literal(p[1]) + ") * (" + x + " - " + literal(p[1]) + ")) / "
+					+ literal(2 * (p[0] * p[0])) + ")";
+		default:
+			return null;
+		}
+	}
+
+	/**
+	 * @return expression creating a membership function
+	 */
+	private static String create(Shape shape, double[] p) {
+		final StringBuilder create = new StringBuilder("Shape.").append(shape.name()).append(".create(");
+		for (int i = 0; i < p.length; i++) {
+			create.append(i == 0 ? "" : ", ").append(literal(p[i]));
+		}
+		return create.append(')').toString();
+	}
+
+	/**
+	 * @return expression of a t-norm, with the same operations as the enum;
+	 * the operands are evaluated more than once
+	 */
+	static String tNorm(TNorm norm, String a, String b) {
+		switch (norm) {
+		case MINIMUM:
+			return "Math.min(" + a + ", " + b + ")";
+		case PRODUCT:
+			return a + " * " + b;
+		case BOUNDED_DIFFERENCE:
+			return "Math.max(0.0, " + a + " + " + b + " - 1.0)";
+		case DRASTIC_PRODUCT:
+			return "(" + a + " == 1.0 ? " + b + " : " + b + " == 1.0 ? " + a + " : 0.0)";
+		case EINSTEIN_PRODUCT:
+			return a + " * " + b + " / (2.0 - (" + a + " + " + b + " - " + a + " * " + b + "))";
+		default:
+			return "(" + a + " + " + b + " - " + a + " * " + b + " == 0.0 ? 0.0 : " + a + " * " + b + " / (" + a
+					+ " + " + b + " - " + a + " * " + b + "))";
+		}
+	}
+
+	/**
+	 * @return expression of an s-norm, with the same operations as the enum;
+	 * the operands are evaluated more than once
+	 */
+	static String sNorm(SNorm norm, String a, String b) {
+		switch (norm) {
+		case MAXIMUM:
+			return "Math.max(" + a + ", " + b + ")";
+		case PROBABILISTIC_SUM:
+			return a + " + " + b + " - " + a + " * " + b;
+		case BOUNDED_SUM:
+			return "Math.min(1.0, " + a + " + " + b + ")";
+		case DRASTIC_SUM:
+			return "(" + a + " == 0.0 ? " + b + " : " + b + " == 0.0 ? " + a + " : 1.0)";
+		default:
+			return "(" + a + " + " + b + ") / (1.0 + " + a + " * " + b + ")";
+		}
+	}
+
+	/**
+	 * @return Java literal of a double, exactly
+	 */
+	static String literal(double value) {
+		if (Double.isNaN(value)) {
+			return "Double.NaN";
+		} else if (Double.isInfinite(value)) {
+			return value > 0 ? "Double.POSITIVE_INFINITY" : "Double.NEGATIVE_INFINITY";
+		}
+		final String literal = Double.toString(value);
+		return value < 0 || literal.startsWith("-") ? "(" + literal + ")" : literal;
+	}
+
+	/**
+	 * @return Java literal of a string
+	 */
+	private static String string(String value) {
+		final StringBuilder literal = new StringBuilder("\"");
+		for (int i = 0; i < value.length(); i++) {
+			final char c = value.charAt(i);
+			if (c == '"' || c == '\\') {
+				literal.append('\\').append(c);
+			} else if (c < ' ' || c > '~') {
+				literal.append(String.format("\\u%04x", (int) c));
+			} else {
+				literal.append(c);
+			}
+		}
+		return literal.append('"').toString();
+	}
+
+}
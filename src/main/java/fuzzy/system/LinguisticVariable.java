@@ -0,0 +1,163 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package fuzzy.system;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A linguistic variable, such as a temperature: a name, the range of its
+ * crisp values, and its terms, such as <em>cold</em> or <em>hot</em>.
+ *
+ * <p>This class is immutable.</p>
+ *
+ * @since 0.5
+ */
+public final class LinguisticVariable {
+
+	private final String name;
+	private final double lower;
+	private final double upper;
+	private final List<Term> terms;
+
+	/**
+	 * Creates a linguistic variable.
+	 *
+	 * @param name name of the variable
+	 * @param lower lowest crisp value
+	 * @param upper highest crisp value
+	 * @param terms terms of the variable
+	 * @throws IllegalArgumentException if the name is empty, the range is
+	 * invalid, or two terms have the same name
+	 */
+	public LinguisticVariable(String name, double lower, double upper, Term... terms) {
+		this(name, lower, upper, Arrays.asList(terms));
+	}
+
+	/**
+	 * Creates a linguistic variable.
+	 *
+	 * @param name name of the variable
+	 * @param lower lowest crisp value
+	 * @param upper highest crisp value
+	 * @param terms terms of the variable, copied
+	 * @throws IllegalArgumentException if the name is empty, the range is
+	 * invalid, or two terms have the same name
+	 */
+	public LinguisticVariable(String name, double lower, double upper, List<Term> terms) {
+		if (name == null || name.isEmpty()) {
+			throw new IllegalArgumentException("Missing variable name");
+		}
+		if (!(lower < upper) || Double.isInfinite(lower) || Double.isInfinite(upper)) {
+			throw new IllegalArgumentException("Invalid range [" + lower + " " + upper + "] for variable " + name);
+		}
+		this.name = name;
+		this.lower = lower;
+		this.upper = upper;
+		this.terms = Collections.unmodifiableList(new ArrayList<Term>(terms));
+		for (int i = 0; i < this.terms.size(); i++) {
+			if (indexOf(this.terms.get(i).getName()) != i) {
+				throw new IllegalArgumentException("Duplicate term " + this.terms.get(i).getName() + " in variable " + name);
+			}
+		}
+	}
+
+	/**
+	 * @return name of the variable
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return lowest crisp value
+	 */
+	public double getLower() {
+		return lower;
+	}
+
+	/**
+	 * @return highest crisp value
+	 */
+	public double getUpper() {
+		return upper;
+	}
+
+	/**
+	 * @return terms, unmodifiable
+	 */
+	public List<Term> getTerms() {
+		return terms;
+	}
+
+	/**
+	 * @param term name of a term
+	 * @return index of the term, or -1 if the variable has no such term
+	 */
+	public int indexOf(String term) {
+		for (int i = 0; i < terms.size(); i++) {
+			if (terms.get(i).getName().equals(term)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#equals(java.lang.Object)
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if(obj == null) {
+			return false;
+		}
+		if(obj == this) {
+			return true;
+		}
+		if(!(obj instanceof LinguisticVariable)) {
+			return false;
+		}
+		final LinguisticVariable that = (LinguisticVariable)obj;
+		return this.name.equals(that.name) && this.lower == that.lower && this.upper == that.upper
+				&& this.terms.equals(that.terms);
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#hashCode()
+	 */
+	@Override
+	public int hashCode() {
+		int hash = "LinguisticVariable".hashCode();
+		hash <<= 2;
+		hash ^= name.hashCode();
+		hash <<= 2;
+		hash ^= Double.valueOf(lower).hashCode();
+		hash <<= 2;
+		hash ^= Double.valueOf(upper).hashCode();
+		hash <<= 2;
+		hash ^= terms.hashCode();
+		return hash;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "Linguistic Variable ["+name+" "+lower+" "+upper+" "+terms+"]";
+	}
+
+}
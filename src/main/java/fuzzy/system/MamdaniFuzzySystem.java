@@ -0,0 +1,628 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package fuzzy.system;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.functor.generator.range.BoundType;
+import org.apache.commons.functor.generator.range.DoubleRange;
+
+import fuzzy.df.BisectorDefuzzificationFunction;
+import fuzzy.df.CentroidDefuzzificationFunction;
+import fuzzy.df.DefuzzificationFunction;
+import fuzzy.df.LargestOfMaximaDefuzzificationFunction;
+import fuzzy.df.LeftmostMaximumDefuzzificationFunction;
+import fuzzy.df.MeanOfMaximaDefuzzificationFunction;
+import fuzzy.df.RightmostMaximumDefuzzificationFunction;
+import fuzzy.df.SmallestOfMaximaDefuzzificationFunction;
+import fuzzy.internal.functions.Doubles;
+import fuzzy.mf.DoubleMembershipFunction;
+import fuzzy.set.DiscreteFuzzySet;
+
+/**
+ * Mamdani fuzzy inference system. Each input is fuzzified with the terms of
+ * its variable; the firing strength of each rule combines its antecedents
+ * with a t-norm (<code>AND</code>) or an s-norm (<code>OR</code>), and is
+ * multiplied by its weight; the consequents are implied with a t-norm
+ * (minimum clips, product scales), aggregated with an s-norm over the
+ * universe of each output, and defuzzified.
+ *
+ * <p>
+ * A {@link Builder} compiles the variables and rules into flat arrays: the
+ * shapes and parameters of the input terms, the term indices of the
+ * antecedents of each rule, and the consequents of each output with the
+ * values of their terms sampled in advance over the universe of the output.
+ * Evaluation only reads these arrays, and works in a {@link Workspace}, so
+ * that it does not allocate memory. The defuzzification functions of
+ * <code>fuzzy.df</code> are applied to the aggregated set directly, with the
+ * same results; other defuzzification functions are given the universe and
+ * the aggregated set as a membership function, interpolated linearly between
+ * the crisp values of the universe and zero outside.
+ * </p>
+ *
+ * <p>
+ * An output for which the aggregated set is empty, when no rule fires, gets
+ * the default value of the system, NaN unless configured.
+ * </p>
+ *
+ * <p>
+ * This class is immutable and <strong>thread safe</strong>.
+ * </p>
+ *
+ * @since 0.5
+ */
+public final class MamdaniFuzzySystem implements FuzzySystem {
+
+	/**
+	 * Number of crisp values in the universe of an output, when not given.
+	 */
+	public static final int DEFAULT_RESOLUTION = 101;
+
+	static final int CENTROID = 0;
+	static final int BISECTOR = 1;
+	static final int SMALLEST_OF_MAXIMA = 2;
+	static final int LARGEST_OF_MAXIMA = 3;
+	static final int MEAN_OF_MAXIMA = 4;
+	static final int LEFTMOST_MAXIMUM = 5;
+	static final int RIGHTMOST_MAXIMUM = 6;
+	static final int OTHER = 7;
+
+	final Antecedents antecedents;
+	final Consequents consequents;
+	private final LinguisticVariable[] outputs;
+	private final List<Rule> rules;
+
+	// output universes, and the terms of all outputs sampled over them
+	final DoubleRange[] universeRanges;
+	final double[][] universes;
+	final double[][] outputTermSamples;
+
+	final TNorm implication;
+	final SNorm aggregation;
+	private final DefuzzificationFunction<Double> defuzzification;
+	final int defuzzificationKind;
+	private final double defaultValue;
+
+	private final ThreadLocal<Workspace> workspaces = new ThreadLocal<Workspace>() {
+		@Override
+		protected Workspace initialValue() {
+			return newWorkspace();
+		}
+	};
+
+	private MamdaniFuzzySystem(Builder builder) {
+		this.rules = Collections.unmodifiableList(new ArrayList<Rule>(builder.rules));
+		this.antecedents = new Antecedents(builder.inputs, rules, builder.conjunction, builder.disjunction,
+				builder.indexed);
+		final int m = builder.outputs.size();
+		this.outputs = builder.outputs.toArray(new LinguisticVariable[m]);
+		final List<String> names = new ArrayList<String>();
+		final List<List<String>> terms = new ArrayList<List<String>>();
+		for (LinguisticVariable output : outputs) {
+			names.add(output.getName());
+			final List<String> termNames = new ArrayList<String>();
+			for (Term term : output.getTerms()) {
+				termNames.add(term.getName());
+			}
+			terms.add(termNames);
+		}
+		this.consequents = new Consequents(names, terms, rules);
+		consequents.checkNames(antecedents);
+
+		this.universeRanges = new DoubleRange[m];
+		this.universes = new double[m][];
+		for (int o = 0; o < m; o++) {
+			universeRanges[o] = builder.universes.get(o);
+			if (!(universeRanges[o].getStep() > 0.0)) {
+				throw new IllegalArgumentException("Invalid universe " + universeRanges[o] + " for output " + outputs[o].getName());
+			}
+			universes[o] = Doubles.toArray(universeRanges[o]);
+			if (universes[o].length == 0) {
+				throw new IllegalArgumentException("Empty universe for output " + outputs[o].getName());
+			}
+		}
+		this.outputTermSamples = new double[consequents.outputTermOffsets[m]][];
+		for (int o = 0; o < m; o++) {
+			final List<Term> outputTerms = outputs[o].getTerms();
+			for (int t = 0; t < outputTerms.size(); t++) {
+				final double[] samples = new double[universes[o].length];
+				outputTerms.get(t).getMembershipFunction().applyAll(universes[o], 0, samples.length, samples);
+				outputTermSamples[consequents.outputTermOffsets[o] + t] = samples;
+			}
+		}
+
+		this.implication = builder.implication;
+		this.aggregation = builder.aggregation;
+		this.defuzzification = builder.defuzzification;
+		this.defuzzificationKind = kind(defuzzification);
+		this.defaultValue = builder.defaultValue;
+	}
+
+	private static int kind(DefuzzificationFunction<Double> df) {
+		final Class<?> type = df.getClass();
+		if (type == CentroidDefuzzificationFunction.class) {
+			return CENTROID;
+		} else if (type == BisectorDefuzzificationFunction.class) {
+			return BISECTOR;
+		} else if (type == SmallestOfMaximaDefuzzificationFunction.class) {
+			return SMALLEST_OF_MAXIMA;
+		} else if (type == LargestOfMaximaDefuzzificationFunction.class) {
+			return LARGEST_OF_MAXIMA;
+		} else if (type == MeanOfMaximaDefuzzificationFunction.class) {
+			return MEAN_OF_MAXIMA;
+		} else if (type == LeftmostMaximumDefuzzificationFunction.class) {
+			return LEFTMOST_MAXIMUM;
+		} else if (type == RightmostMaximumDefuzzificationFunction.class) {
+			return RIGHTMOST_MAXIMUM;
+		}
+		return OTHER;
+	}
+
+	/**
+	 * @return a new builder, with minimum <code>AND</code> and implication,
+	 * maximum <code>OR</code> and aggregation, and centroid defuzzification
+	 */
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	/**
+	 * Memory used by an evaluation: the fuzzified inputs, the firing
+	 * strengths of the rules and the aggregated output sets. Created by
+	 * {@link MamdaniFuzzySystem#newWorkspace()}.
+	 *
+	 * <p>
+	 * This class is <strong>not thread safe</strong>. Use one instance per
+	 * thread.
+	 * </p>
+	 */
+	public static final class Workspace {
+
+		private final MamdaniFuzzySystem system;
+		final double[] memberships;
+		final double[] strengths;
+		final RuleActivation activation;
+		final DiscreteFuzzySet[] aggregates;
+		/**
+		 * Aggregated sets read as membership functions, for the other
+		 * defuzzification functions.
+		 */
+		final DoubleMembershipFunction[] interpolations;
+
+		private Workspace(MamdaniFuzzySystem system) {
+			this.system = system;
+			this.memberships = new double[system.antecedents.getTermCount()];
+			this.strengths = new double[system.antecedents.getRuleCount()];
+			this.activation = new RuleActivation(strengths.length);
+			this.aggregates = new DiscreteFuzzySet[system.outputs.length];
+			for (int o = 0; o < aggregates.length; o++) {
+				aggregates[o] = new DiscreteFuzzySet(system.universes[o]);
+			}
+			this.interpolations = new DoubleMembershipFunction[aggregates.length];
+			for (int o = 0; o < aggregates.length; o++) {
+				interpolations[o] = aggregates[o]::interpolate;
+			}
+		}
+
+		/**
+		 * @param rule index of a rule
+		 * @return firing strength of the rule in the last evaluation, weight
+		 * included
+		 */
+		public double getFiringStrength(int rule) {
+			return strengths[rule];
+		}
+
+		/**
+		 * @return number of rules visited by the last evaluation: all the
+		 * rules, unless they are indexed
+		 */
+		public int getVisitedRuleCount() {
+			return activation.visitedCount;
+		}
+
+		/**
+		 * @return number of rules that fired with a strength above zero in the
+		 * last evaluation
+		 */
+		public int getFiredRuleCount() {
+			return activation.firedCount;
+		}
+
+		/**
+		 * @param output index of an output variable
+		 * @return aggregated set of the output in the last evaluation; it is
+		 * reused by the next evaluation
+		 */
+		public DiscreteFuzzySet getAggregate(int output) {
+			return aggregates[output];
+		}
+
+	}
+
+	/**
+	 * @return a new workspace, to evaluate this system without allocating
+	 * memory
+	 */
+	public Workspace newWorkspace() {
+		return new Workspace(this);
+	}
+
+	/* (non-Javadoc)
+	 * @see fuzzy.system.FuzzySystem#evaluate(double[], double[])
+	 */
+	@Override
+	public void evaluate(double[] inputs, double[] outputs) {
+		evaluate(inputs, outputs, workspaces.get());
+	}
+
+	/**
+	 * Evaluates the system in a workspace.
+	 *
+	 * @param inputs crisp inputs, indexed like the input variables
+	 * @param outputs where the crisp outputs are stored, indexed like the
+	 * output variables
+	 * @param workspace workspace created by this system
+	 * @throws IllegalArgumentException if an array is too small, or the
+	 * workspace belongs to another system
+	 */
+	public void evaluate(double[] inputs, double[] outputs, Workspace workspace) {
+		if (inputs.length < antecedents.inputs.length || outputs.length < this.outputs.length) {
+			throw new IllegalArgumentException("Expected " + antecedents.inputs.length + " inputs and "
+					+ this.outputs.length + " outputs");
+		}
+		if (workspace.system != this) {
+			throw new IllegalArgumentException("Workspace of another fuzzy system");
+		}
+		antecedents.evaluate(inputs, workspace.memberships, workspace.strengths, workspace.activation);
+		for (int o = 0; o < this.outputs.length; o++) {
+			outputs[o] = defuzzify(o, aggregate(o, workspace.strengths, workspace.aggregates[o]),
+					workspace.interpolations[o]);
+		}
+	}
+
+	/**
+	 * Aggregates the implied consequents of an output into its set.
+	 *
+	 * @return the aggregated set
+	 */
+	DiscreteFuzzySet aggregate(int o, double[] strengths, DiscreteFuzzySet aggregate) {
+		return consequents.aggregate(o, strengths, outputTermSamples, implication, aggregation, aggregate);
+	}
+
+	/**
+	 * Defuzzifies the aggregated set of an output.
+	 *
+	 * @param interpolation the aggregated set read as a membership function
+	 */
+	double defuzzify(int o, DiscreteFuzzySet aggregate, DoubleMembershipFunction interpolation) {
+		if (!(aggregate.height() > 0.0)) {
+			return defaultValue;
+		}
+		if (defuzzificationKind == OTHER) {
+			return defuzzification.apply(universeRanges[o], interpolation);
+		}
+		return defuzzify(aggregate, defuzzificationKind);
+	}
+
+	/**
+	 * Applies a defuzzification function of <code>fuzzy.df</code> to an
+	 * aggregated set directly, for the Mamdani systems.
+	 *
+	 * @param aggregate aggregated set
+	 * @param kind kind of the defuzzification function, other than
+	 * {@link #OTHER}
+	 * @return crisp output
+	 * @throws IllegalArgumentException if the kind is unknown
+	 */
+	static double defuzzify(DiscreteFuzzySet aggregate, int kind) {
+		switch (kind) {
+		case CENTROID:
+			return aggregate.centroid();
+		case BISECTOR:
+			return aggregate.bisector();
+		case SMALLEST_OF_MAXIMA:
+			return aggregate.smallestOfMaxima();
+		case LARGEST_OF_MAXIMA:
+			return aggregate.largestOfMaxima();
+		case MEAN_OF_MAXIMA:
+			return aggregate.meanOfMaxima();
+		case LEFTMOST_MAXIMUM:
+			return aggregate.leftmostMaximum();
+		case RIGHTMOST_MAXIMUM:
+			return aggregate.rightmostMaximum();
+		default:
+			throw new IllegalArgumentException("Invalid defuzzification kind " + kind);
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see fuzzy.system.FuzzySystem#getInputCount()
+	 */
+	@Override
+	public int getInputCount() {
+		return antecedents.inputs.length;
+	}
+
+	/* (non-Javadoc)
+	 * @see fuzzy.system.FuzzySystem#getInput(int)
+	 */
+	@Override
+	public LinguisticVariable getInput(int i) {
+		return antecedents.inputs[i];
+	}
+
+	/* (non-Javadoc)
+	 * @see fuzzy.system.FuzzySystem#getOutputCount()
+	 */
+	@Override
+	public int getOutputCount() {
+		return outputs.length;
+	}
+
+	/* (non-Javadoc)
+	 * @see fuzzy.system.FuzzySystem#getOutputName(int)
+	 */
+	@Override
+	public String getOutputName(int i) {
+		return outputs[i].getName();
+	}
+
+	/**
+	 * @param i index of an output variable
+	 * @return output variable
+	 */
+	public LinguisticVariable getOutput(int i) {
+		return outputs[i];
+	}
+
+	/**
+	 * @param i index of an output variable
+	 * @return universe of the output variable
+	 */
+	public DoubleRange getUniverse(int i) {
+		return universeRanges[i];
+	}
+
+	/**
+	 * @return rules, unmodifiable
+	 */
+	public List<Rule> getRules() {
+		return rules;
+	}
+
+	/**
+	 * @return t-norm of <code>AND</code>
+	 */
+	public TNorm getConjunction() {
+		return antecedents.conjunction;
+	}
+
+	/**
+	 * @return s-norm of <code>OR</code>
+	 */
+	public SNorm getDisjunction() {
+		return antecedents.disjunction;
+	}
+
+	/**
+	 * @return t-norm of implication
+	 */
+	public TNorm getImplication() {
+		return implication;
+	}
+
+	/**
+	 * @return s-norm of aggregation
+	 */
+	public SNorm getAggregation() {
+		return aggregation;
+	}
+
+	/**
+	 * @return defuzzification function
+	 */
+	public DefuzzificationFunction<Double> getDefuzzification() {
+		return defuzzification;
+	}
+
+	/**
+	 * @return output when no rule fires
+	 */
+	public double getDefaultValue() {
+		return defaultValue;
+	}
+
+	/**
+	 * @return whether the rules are indexed over the supports of their
+	 * antecedents
+	 */
+	public boolean isRuleIndexed() {
+		return antecedents.index != null;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "Mamdani Fuzzy System ["+antecedents.inputs.length+" "+outputs.length+" "+rules.size()+" "
+				+antecedents.conjunction+" "+antecedents.disjunction+" "+implication+" "+aggregation+" "+defuzzification+"]";
+	}
+
+	/**
+	 * Collects the variables, rules and operators of a
+	 * {@link MamdaniFuzzySystem}, and compiles them.
+	 *
+	 * <p>
+	 * This class is <strong>not thread safe</strong>.
+	 * </p>
+	 */
+	public static final class Builder {
+
+		private final List<LinguisticVariable> inputs = new ArrayList<LinguisticVariable>();
+		private final List<LinguisticVariable> outputs = new ArrayList<LinguisticVariable>();
+		private final List<DoubleRange> universes = new ArrayList<DoubleRange>();
+		private final List<Rule> rules = new ArrayList<Rule>();
+		private TNorm conjunction = TNorm.MINIMUM;
+		private SNorm disjunction = SNorm.MAXIMUM;
+		private TNorm implication = TNorm.MINIMUM;
+		private SNorm aggregation = SNorm.MAXIMUM;
+		private DefuzzificationFunction<Double> defuzzification = new CentroidDefuzzificationFunction<Double>();
+		private double defaultValue = Double.NaN;
+		private boolean indexed;
+
+		private Builder() {
+		}
+
+		/**
+		 * @param variable input variable
+		 * @return this builder
+		 */
+		public Builder input(LinguisticVariable variable) {
+			inputs.add(variable);
+			return this;
+		}
+
+		/**
+		 * Adds an output variable, whose universe has
+		 * {@link MamdaniFuzzySystem#DEFAULT_RESOLUTION} evenly spaced crisp
+		 * values over its range.
+		 *
+		 * @param variable output variable
+		 * @return this builder
+		 */
+		public Builder output(LinguisticVariable variable) {
+			final double step = (variable.getUpper() - variable.getLower()) / (DEFAULT_RESOLUTION - 1);
+			// half a step past the upper end, so that rounding errors do not drop it
+			return output(variable, new DoubleRange(variable.getLower(), BoundType.CLOSED,
+					variable.getUpper() + step / 2, BoundType.OPEN, step));
+		}
+
+		/**
+		 * @param variable output variable
+		 * @param universe crisp values where the output sets are sampled, in
+		 * increasing order
+		 * @return this builder
+		 */
+		public Builder output(LinguisticVariable variable, DoubleRange universe) {
+			outputs.add(variable);
+			universes.add(universe);
+			return this;
+		}
+
+		/**
+		 * @param rule rule
+		 * @return this builder
+		 */
+		public Builder rule(Rule rule) {
+			rules.add(rule);
+			return this;
+		}
+
+		/**
+		 * @param rules rules
+		 * @return this builder
+		 */
+		public Builder rules(Collection<Rule> rules) {
+			this.rules.addAll(rules);
+			return this;
+		}
+
+		/**
+		 * @param conjunction t-norm of <code>AND</code>
+		 * @return this builder
+		 */
+		public Builder conjunction(TNorm conjunction) {
+			this.conjunction = conjunction;
+			return this;
+		}
+
+		/**
+		 * @param disjunction s-norm of <code>OR</code>
+		 * @return this builder
+		 */
+		public Builder disjunction(SNorm disjunction) {
+			this.disjunction = disjunction;
+			return this;
+		}
+
+		/**
+		 * @param implication t-norm of implication
+		 * @return this builder
+		 */
+		public Builder implication(TNorm implication) {
+			this.implication = implication;
+			return this;
+		}
+
+		/**
+		 * @param aggregation s-norm of aggregation
+		 * @return this builder
+		 */
+		public Builder aggregation(SNorm aggregation) {
+			this.aggregation = aggregation;
+			return this;
+		}
+
+		/**
+		 * @param defuzzification defuzzification function
+		 * @return this builder
+		 */
+		public Builder defuzzification(DefuzzificationFunction<Double> defuzzification) {
+			this.defuzzification = defuzzification;
+			return this;
+		}
+
+		/**
+		 * @param defaultValue output when no rule fires
+		 * @return this builder
+		 */
+		public Builder defaultValue(double defaultValue) {
+			this.defaultValue = defaultValue;
+			return this;
+		}
+
+		/**
+		 * Indexes the rules over the supports of their antecedents, so that
+		 * an evaluation only visits the rules that may fire. Worth it with
+		 * many rules, of which few fire at a time.
+		 *
+		 * @param indexed whether to index the rules, <code>false</code> by
+		 * default
+		 * @return this builder
+		 */
+		public Builder indexRules(boolean indexed) {
+			this.indexed = indexed;
+			return this;
+		}
+
+		/**
+		 * Compiles the fuzzy system.
+		 *
+		 * @return a new fuzzy system
+		 * @throws IllegalArgumentException if there is no input or output,
+		 * two variables have the same name, a universe is invalid, or a rule
+		 * refers to an unknown variable or term
+		 */
+		public MamdaniFuzzySystem build() {
+			return new MamdaniFuzzySystem(this);
+		}
+
+	}
+
+}
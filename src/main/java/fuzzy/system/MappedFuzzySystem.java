@@ -0,0 +1,788 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package fuzzy.system;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import fuzzy.set.DiscreteFuzzySet;
+
+/**
+ * A compiled {@link MamdaniFuzzySystem}, stored in a binary file and read
+ * from the file mapped in memory, so that a large rule base loads with bulk
+ * reads of flat arrays, without building its variables, terms and rules
+ * object by object.
+ *
+ * <p>
+ * The file is little-endian. A header of {@link #HEADER_SIZE} bytes holds the
+ * magic number {@link #MAGIC}, the {@link #VERSION} of the format, the kind
+ * of system, the sizes of the sections, the operators (ordinals of
+ * {@link TNorm} and {@link SNorm}), the defuzzification, the flags (bit 0:
+ * rules indexed) and the default value. The sections follow, in this order:
+ * </p>
+ *
+ * <ol>
+ * <li>int sections: the term offsets of each input, the shape ordinal and
+ * parameter offsets of each input term, the antecedent offsets of each rule,
+ * the term and flags (bit 0: negated) of each antecedent, the flags of each
+ * rule (bit 0: disjunctive), the consequent offsets of each output, the rule
+ * and term of each consequent, the term offsets of each output, the universe
+ * offsets of each output, the shape ordinal and parameter offsets of each
+ * output term, and the sample offsets of each output term;</li>
+ * <li>padding to a multiple of eight bytes;</li>
+ * <li>double sections: the parameters of the input terms, the weights of the
+ * rules, the universes of the outputs, the output terms sampled over their
+ * universe, the parameters of the output terms, and the range of each input
+ * then each output variable;</li>
+ * <li>the names of the inputs, of the terms of each input, of the outputs
+ * and of the terms of each output, each as an int length and UTF-8
+ * bytes.</li>
+ * </ol>
+ *
+ * <p>
+ * Loading copies the arrays of the file into the compiled form of
+ * {@link MamdaniFuzzySystem}, creates the membership functions of the input
+ * terms and, if the written system indexed its rules, indexes them again
+ * over the supports of their antecedents. Evaluation shares the code of
+ * {@link MamdaniFuzzySystem}, works in a {@link Workspace}, and gives the
+ * same results as the system that was written. The variables, with their
+ * names, are only read when asked for.
+ * </p>
+ *
+ * <p>
+ * This class is <strong>thread safe</strong>.
+ * </p>
+ *
+ * @since 0.5
+ */
+public final class MappedFuzzySystem implements FuzzySystem {
+
+	/**
+	 * First four bytes of a file, "NFZS" in ASCII.
+	 */
+	public static final int MAGIC = 0x535A464E;
+
+	/**
+	 * Version of the format written by this class.
+	 */
+	public static final int VERSION = 1;
+
+	/**
+	 * Size of the header, in bytes.
+	 */
+	public static final int HEADER_SIZE = 96;
+
+	private static final int KIND_MAMDANI = 0;
+
+	private static final int FLAG_INDEXED = 1;
+
+	// sizes of the sections, in the order of the header
+	private static final int INPUTS = 0;
+	private static final int OUTPUTS = 1;
+	private static final int RULES = 2;
+	private static final int TERMS = 3;
+	private static final int PARAMETERS = 4;
+	private static final int ANTECEDENTS = 5;
+	private static final int CONSEQUENTS = 6;
+	private static final int OUTPUT_TERMS = 7;
+	private static final int UNIVERSE = 8;
+	private static final int SAMPLES = 9;
+	private static final int OUTPUT_PARAMETERS = 10;
+	private static final int SIZES = 11;
+
+	private final int[] sizes;
+	private final TNorm conjunction;
+	private final SNorm disjunction;
+	private final TNorm implication;
+	private final SNorm aggregation;
+	private final int defuzzificationKind;
+	private final boolean indexed;
+	private final double defaultValue;
+
+	private final Antecedents antecedents;
+	private final Consequents consequents;
+	private final double[][] universes;
+	private final double[][] outputTermSamples;
+
+	// only read to create the variables
+	private final int[] outputTermShapes;
+	private final int[] outputTermParameterOffsets;
+	private final double[] outputTermParameters;
+	private final double[] bounds;
+	private final ByteBuffer names;
+
+	// created when first asked for; racing threads create equal objects
+	private volatile LinguisticVariable[] variables;
+
+	private final ThreadLocal<Workspace> workspaces = new ThreadLocal<Workspace>() {
+		@Override
+		protected Workspace initialValue() {
+			return newWorkspace();
+		}
+	};
+
+	private MappedFuzzySystem(ByteBuffer buffer) {
+		final ByteBuffer b = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+		if (b.capacity() < HEADER_SIZE || b.getInt(0) != MAGIC) {
+			throw new IllegalArgumentException("Not a compiled fuzzy system");
+		}
+		if (b.getInt(4) != VERSION) {
+			throw new IllegalArgumentException("Unsupported version " + b.getInt(4) + " of compiled fuzzy system");
+		}
+		if (b.getInt(8) != KIND_MAMDANI) {
+			throw new IllegalArgumentException("Unsupported kind " + b.getInt(8) + " of compiled fuzzy system");
+		}
+		this.sizes = new int[SIZES];
+		for (int i = 0; i < SIZES; i++) {
+			sizes[i] = b.getInt(12 + 4 * i);
+			if (sizes[i] < 0) {
+				throw new IllegalArgumentException("Corrupt compiled fuzzy system");
+			}
+		}
+		try {
+			this.conjunction = TNorm.values()[b.getInt(56)];
+			this.disjunction = SNorm.values()[b.getInt(60)];
+			this.implication = TNorm.values()[b.getInt(64)];
+			this.aggregation = SNorm.values()[b.getInt(68)];
+		} catch (ArrayIndexOutOfBoundsException e) {
+			throw new IllegalArgumentException("Corrupt compiled fuzzy system", e);
+		}
+		this.defuzzificationKind = b.getInt(72);
+		if (defuzzificationKind < MamdaniFuzzySystem.CENTROID || defuzzificationKind >= MamdaniFuzzySystem.OTHER) {
+			throw new IllegalArgumentException("Corrupt compiled fuzzy system");
+		}
+		this.indexed = (b.getInt(76) & FLAG_INDEXED) != 0;
+		this.defaultValue = b.getDouble(80);
+
+		final long doublesStart = align(HEADER_SIZE + 4L * intCount(sizes));
+		final long namesStart = doublesStart + 8L * doubleCount(sizes);
+		if (namesStart > b.capacity()) {
+			throw new IllegalArgumentException("Truncated compiled fuzzy system");
+		}
+		final int n = sizes[INPUTS];
+		final int m = sizes[OUTPUTS];
+		final Sections s = new Sections(b, HEADER_SIZE);
+		final int[] inputTermOffsets = s.ints(n + 1);
+		final int[] termShapes = s.ints(sizes[TERMS]);
+		final int[] termParameterOffsets = s.ints(sizes[TERMS] + 1);
+		final int[] antecedentOffsets = s.ints(sizes[RULES] + 1);
+		final int[] antecedentTerms = s.ints(sizes[ANTECEDENTS]);
+		final int[] antecedentFlags = s.ints(sizes[ANTECEDENTS]);
+		final int[] ruleFlags = s.ints(sizes[RULES]);
+		final int[] consequentOffsets = s.ints(m + 1);
+		final int[] consequentRules = s.ints(sizes[CONSEQUENTS]);
+		final int[] consequentTerms = s.ints(sizes[CONSEQUENTS]);
+		final int[] outputTermOffsets = s.ints(m + 1);
+		final int[] universeOffsets = s.ints(m + 1);
+		this.outputTermShapes = s.ints(sizes[OUTPUT_TERMS]);
+		this.outputTermParameterOffsets = s.ints(sizes[OUTPUT_TERMS] + 1);
+		final int[] sampleOffsets = s.ints(sizes[OUTPUT_TERMS] + 1);
+		s.position = (int) doublesStart;
+		final double[] termParameters = s.doubles(sizes[PARAMETERS]);
+		final double[] weights = s.doubles(sizes[RULES]);
+		final double[] universeValues = s.doubles(sizes[UNIVERSE]);
+		final double[] samples = s.doubles(sizes[SAMPLES]);
+		this.outputTermParameters = s.doubles(sizes[OUTPUT_PARAMETERS]);
+		this.bounds = s.doubles(2 * (n + m));
+		final ByteBuffer rest = b.duplicate();
+		rest.position((int) namesStart);
+		this.names = rest.slice().order(ByteOrder.LITTLE_ENDIAN);
+		if (n == 0 || m == 0 || !isOffsets(inputTermOffsets, sizes[TERMS])
+				|| !isOffsets(termParameterOffsets, sizes[PARAMETERS])
+				|| !isOffsets(antecedentOffsets, sizes[ANTECEDENTS])
+				|| !isOffsets(consequentOffsets, sizes[CONSEQUENTS])
+				|| !isOffsets(outputTermOffsets, sizes[OUTPUT_TERMS])
+				|| !isOffsets(universeOffsets, sizes[UNIVERSE])
+				|| !isOffsets(outputTermParameterOffsets, sizes[OUTPUT_PARAMETERS])
+				|| !isOffsets(sampleOffsets, sizes[SAMPLES])
+				|| !isIndices(antecedentTerms, sizes[TERMS]) || !isIndices(consequentRules, sizes[RULES])) {
+			throw new IllegalArgumentException("Corrupt compiled fuzzy system");
+		}
+
+		final Shape[] shapes = new Shape[sizes[TERMS]];
+		for (int t = 0; t < shapes.length; t++) {
+			shapes[t] = shape(termShapes[t]);
+		}
+		final boolean[] negated = new boolean[sizes[ANTECEDENTS]];
+		for (int a = 0; a < negated.length; a++) {
+			negated[a] = (antecedentFlags[a] & 1) != 0;
+		}
+		final boolean[] disjunctive = new boolean[sizes[RULES]];
+		for (int k = 0; k < disjunctive.length; k++) {
+			disjunctive[k] = (ruleFlags[k] & 1) != 0;
+		}
+		this.antecedents = new Antecedents(inputTermOffsets, shapes, termParameterOffsets, termParameters,
+				antecedentOffsets, antecedentTerms, negated, disjunctive, weights, conjunction, disjunction, indexed);
+		this.consequents = new Consequents(outputTermOffsets, consequentOffsets, consequentRules, consequentTerms);
+
+		this.universes = new double[m][];
+		this.outputTermSamples = new double[sizes[OUTPUT_TERMS]][];
+		for (int o = 0; o < m; o++) {
+			universes[o] = Arrays.copyOfRange(universeValues, universeOffsets[o], universeOffsets[o + 1]);
+			if (universes[o].length == 0) {
+				throw new IllegalArgumentException("Corrupt compiled fuzzy system");
+			}
+			for (int j = outputTermOffsets[o]; j < outputTermOffsets[o + 1]; j++) {
+				if (sampleOffsets[j + 1] - sampleOffsets[j] != universes[o].length) {
+					throw new IllegalArgumentException("Corrupt compiled fuzzy system");
+				}
+				outputTermSamples[j] = Arrays.copyOfRange(samples, sampleOffsets[j], sampleOffsets[j + 1]);
+			}
+			for (int c = consequentOffsets[o]; c < consequentOffsets[o + 1]; c++) {
+				if (consequentTerms[c] < outputTermOffsets[o] || consequentTerms[c] >= outputTermOffsets[o + 1]) {
+					throw new IllegalArgumentException("Corrupt compiled fuzzy system");
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return whether offsets start at zero, never decrease, and end at the
+	 * size of the section they index
+	 */
+	private static boolean isOffsets(int[] offsets, int size) {
+		if (offsets[0] != 0 || offsets[offsets.length - 1] != size) {
+			return false;
+		}
+		for (int i = 1; i < offsets.length; i++) {
+			if (offsets[i] < offsets[i - 1]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return whether indices are between zero, included, and a size,
+	 * excluded
+	 */
+	private static boolean isIndices(int[] indices, int size) {
+		for (int index : indices) {
+			if (index < 0 || index >= size) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Cursor over the sections of a buffer, that reads them in bulk.
+	 */
+	private static final class Sections {
+
+		private final ByteBuffer buffer;
+		int position;
+
+		Sections(ByteBuffer buffer, int position) {
+			this.buffer = buffer;
+			this.position = position;
+		}
+
+		int[] ints(int count) {
+			final ByteBuffer view = buffer.duplicate();
+			view.position(position);
+			view.limit(position + 4 * count);
+			position += 4 * count;
+			final int[] values = new int[count];
+			view.slice().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().get(values);
+			return values;
+		}
+
+		double[] doubles(int count) {
+			final ByteBuffer view = buffer.duplicate();
+			view.position(position);
+			view.limit(position + 8 * count);
+			position += 8 * count;
+			final double[] values = new double[count];
+			view.slice().order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer().get(values);
+			return values;
+		}
+
+	}
+
+	private static long align(long position) {
+		return (position + 7) & ~7L;
+	}
+
+	/**
+	 * @return number of ints in the int sections
+	 */
+	private static long intCount(int[] sizes) {
+		final long n = sizes[INPUTS];
+		final long m = sizes[OUTPUTS];
+		final long r = sizes[RULES];
+		final long t = sizes[TERMS];
+		final long a = sizes[ANTECEDENTS];
+		final long c = sizes[CONSEQUENTS];
+		final long ot = sizes[OUTPUT_TERMS];
+		return (n + 1) + t + (t + 1) + (r + 1) + 2 * a + r + (m + 1) + 2 * c + 2 * (m + 1) + ot + 2 * (ot + 1);
+	}
+
+	/**
+	 * @return number of doubles in the double sections
+	 */
+	private static long doubleCount(int[] sizes) {
+		return (long) sizes[PARAMETERS] + sizes[RULES] + sizes[UNIVERSE] + sizes[SAMPLES]
+				+ sizes[OUTPUT_PARAMETERS] + 2L * (sizes[INPUTS] + sizes[OUTPUTS]);
+	}
+
+	/**
+	 * Maps a compiled fuzzy system in memory.
+	 *
+	 * @param file file written by {@link #write(MamdaniFuzzySystem, Path)}
+	 * @return the fuzzy system, evaluated from the mapped file
+	 * @throws IOException if the file cannot be read
+	 * @throws IllegalArgumentException if the file is not a compiled fuzzy
+	 * system of a supported version
+	 */
+	public static MappedFuzzySystem load(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new IllegalArgumentException("Compiled fuzzy system too large: " + channel.size() + " bytes");
+			}
+			// the mapping stays valid once the channel is closed
+			return new MappedFuzzySystem(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		}
+	}
+
+	/**
+	 * Reads a compiled fuzzy system from a buffer, for instance one read
+	 * from a resource.
+	 *
+	 * @param buffer content of a file written by
+	 * {@link #write(MamdaniFuzzySystem, Path)}, from index zero
+	 * @return the fuzzy system, evaluated from the buffer
+	 * @throws IllegalArgumentException if the buffer is not a compiled fuzzy
+	 * system of a supported version
+	 */
+	public static MappedFuzzySystem wrap(ByteBuffer buffer) {
+		return new MappedFuzzySystem(buffer);
+	}
+
+	/**
+	 * Writes a compiled fuzzy system.
+	 *
+	 * @param system fuzzy system
+	 * @param file file to write, replaced if it exists
+	 * @throws IOException if the file cannot be written
+	 * @throws IllegalArgumentException if the system uses a defuzzification
+	 * function other than those of <code>fuzzy.df</code> that it applies
+	 * directly
+	 */
+	public static void write(MamdaniFuzzySystem system, Path file) throws IOException {
+		final ByteBuffer buffer = toBuffer(system);
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+		}
+	}
+
+	/**
+	 * Compiles a fuzzy system into a buffer, in the format of the files.
+	 *
+	 * @param system fuzzy system
+	 * @return a new heap buffer, from position zero to its limit
+	 * @throws IllegalArgumentException if the system uses a defuzzification
+	 * function other than those of <code>fuzzy.df</code> that it applies
+	 * directly
+	 */
+	public static ByteBuffer toBuffer(MamdaniFuzzySystem system) {
+		if (system.defuzzificationKind == MamdaniFuzzySystem.OTHER) {
+			throw new IllegalArgumentException("Cannot compile defuzzification " + system.getDefuzzification());
+		}
+		final Antecedents a = system.antecedents;
+		final Consequents c = system.consequents;
+		final int n = a.inputs.length;
+		final int m = c.outputs.length;
+		final int r = a.getRuleCount();
+		final int[] sizes = new int[SIZES];
+		sizes[INPUTS] = n;
+		sizes[OUTPUTS] = m;
+		sizes[RULES] = r;
+		sizes[TERMS] = a.getTermCount();
+		sizes[PARAMETERS] = a.termParameters.length;
+		sizes[ANTECEDENTS] = a.antecedentTerms.length;
+		sizes[CONSEQUENTS] = c.consequentRules.length;
+		sizes[OUTPUT_TERMS] = c.outputTermOffsets[m];
+		final int[] universeOffsets = new int[m + 1];
+		final int[] sampleOffsets = new int[sizes[OUTPUT_TERMS] + 1];
+		final int[] outputParameterOffsets = new int[sizes[OUTPUT_TERMS] + 1];
+		final List<Term> outputTerms = new ArrayList<Term>();
+		for (int o = 0; o < m; o++) {
+			universeOffsets[o + 1] = universeOffsets[o] + system.universes[o].length;
+			outputTerms.addAll(system.getOutput(o).getTerms());
+		}
+		for (int j = 0; j < sizes[OUTPUT_TERMS]; j++) {
+			sampleOffsets[j + 1] = sampleOffsets[j] + system.outputTermSamples[j].length;
+			outputParameterOffsets[j + 1] = outputParameterOffsets[j] + outputTerms.get(j).getParameters().length;
+		}
+		sizes[UNIVERSE] = universeOffsets[m];
+		sizes[SAMPLES] = sampleOffsets[sizes[OUTPUT_TERMS]];
+		sizes[OUTPUT_PARAMETERS] = outputParameterOffsets[sizes[OUTPUT_TERMS]];
+
+		final List<byte[]> strings = new ArrayList<byte[]>();
+		for (LinguisticVariable input : a.inputs) {
+			strings.add(input.getName().getBytes(StandardCharsets.UTF_8));
+		}
+		for (LinguisticVariable input : a.inputs) {
+			for (Term term : input.getTerms()) {
+				strings.add(term.getName().getBytes(StandardCharsets.UTF_8));
+			}
+		}
+		for (int o = 0; o < m; o++) {
+			strings.add(c.outputs[o].getBytes(StandardCharsets.UTF_8));
+		}
+		for (int j = 0; j < sizes[OUTPUT_TERMS]; j++) {
+			strings.add(c.termNames[j].getBytes(StandardCharsets.UTF_8));
+		}
+		long namesSize = 0;
+		for (byte[] string : strings) {
+			namesSize += 4 + string.length;
+		}
+		final long doublesStart = align(HEADER_SIZE + 4L * intCount(sizes));
+		final long total = doublesStart + 8L * doubleCount(sizes) + namesSize;
+		if (total > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Fuzzy system too large to compile: " + total + " bytes");
+		}
+
+		final ByteBuffer b = ByteBuffer.allocate((int) total).order(ByteOrder.LITTLE_ENDIAN);
+		b.putInt(MAGIC).putInt(VERSION).putInt(KIND_MAMDANI);
+		for (int size : sizes) {
+			b.putInt(size);
+		}
+		b.putInt(a.conjunction.ordinal()).putInt(a.disjunction.ordinal());
+		b.putInt(system.implication.ordinal()).putInt(system.aggregation.ordinal());
+		b.putInt(system.defuzzificationKind).putInt(system.isRuleIndexed() ? FLAG_INDEXED : 0);
+		b.putDouble(80, system.getDefaultValue());
+		b.position(HEADER_SIZE);
+		putInts(b, a.inputTermOffsets);
+		for (Shape shape : a.termShapes) {
+			b.putInt(shape.ordinal());
+		}
+		putInts(b, a.termParameterOffsets);
+		putInts(b, a.antecedentOffsets);
+		putInts(b, a.antecedentTerms);
+		for (boolean negated : a.antecedentNegated) {
+			b.putInt(negated ? 1 : 0);
+		}
+		for (boolean disjunctive : a.disjunctive) {
+			b.putInt(disjunctive ? 1 : 0);
+		}
+		putInts(b, c.consequentOffsets);
+		putInts(b, c.consequentRules);
+		putInts(b, c.consequentTerms);
+		putInts(b, c.outputTermOffsets);
+		putInts(b, universeOffsets);
+		for (Term term : outputTerms) {
+			b.putInt(term.getShape().ordinal());
+		}
+		putInts(b, outputParameterOffsets);
+		putInts(b, sampleOffsets);
+		b.position((int) doublesStart);
+		putDoubles(b, a.termParameters);
+		putDoubles(b, a.weights);
+		for (double[] universe : system.universes) {
+			putDoubles(b, universe);
+		}
+		for (double[] termSamples : system.outputTermSamples) {
+			putDoubles(b, termSamples);
+		}
+		for (Term term : outputTerms) {
+			putDoubles(b, term.getParameters());
+		}
+		for (LinguisticVariable input : a.inputs) {
+			b.putDouble(input.getLower()).putDouble(input.getUpper());
+		}
+		for (int o = 0; o < m; o++) {
+			b.putDouble(system.getOutput(o).getLower()).putDouble(system.getOutput(o).getUpper());
+		}
+		for (byte[] string : strings) {
+			b.putInt(string.length).put(string);
+		}
+		b.flip();
+		return b;
+	}
+
+	private static void putInts(ByteBuffer b, int[] values) {
+		for (int value : values) {
+			b.putInt(value);
+		}
+	}
+
+	private static void putDoubles(ByteBuffer b, double[] values) {
+		for (double value : values) {
+			b.putDouble(value);
+		}
+	}
+
+	/**
+	 * Memory used by an evaluation: the fuzzified inputs, the firing
+	 * strengths of the rules and the aggregated output sets. Created by
+	 * {@link MappedFuzzySystem#newWorkspace()}.
+	 *
+	 * <p>
+	 * This class is <strong>not thread safe</strong>. Use one instance per
+	 * thread.
+	 * </p>
+	 */
+	public static final class Workspace {
+
+		private final MappedFuzzySystem system;
+		final double[] memberships;
+		final double[] strengths;
+		final RuleActivation activation;
+		final DiscreteFuzzySet[] aggregates;
+
+		private Workspace(MappedFuzzySystem system) {
+			this.system = system;
+			this.memberships = new double[system.antecedents.getTermCount()];
+			this.strengths = new double[system.antecedents.getRuleCount()];
+			this.activation = new RuleActivation(strengths.length);
+			this.aggregates = new DiscreteFuzzySet[system.universes.length];
+			for (int o = 0; o < aggregates.length; o++) {
+				aggregates[o] = new DiscreteFuzzySet(system.universes[o]);
+			}
+		}
+
+		/**
+		 * @param rule index of a rule
+		 * @return firing strength of the rule in the last evaluation, weight
+		 * included
+		 */
+		public double getFiringStrength(int rule) {
+			return strengths[rule];
+		}
+
+		/**
+		 * @return number of rules visited by the last evaluation: all the
+		 * rules, unless they are indexed
+		 */
+		public int getVisitedRuleCount() {
+			return activation.visitedCount;
+		}
+
+		/**
+		 * @return number of rules that fired with a strength above zero in the
+		 * last evaluation
+		 */
+		public int getFiredRuleCount() {
+			return activation.firedCount;
+		}
+
+		/**
+		 * @param output index of an output variable
+		 * @return aggregated set of the output in the last evaluation; it is
+		 * reused by the next evaluation
+		 */
+		public DiscreteFuzzySet getAggregate(int output) {
+			return aggregates[output];
+		}
+
+	}
+
+	/**
+	 * @return a new workspace, to evaluate this system without allocating
+	 * memory
+	 */
+	public Workspace newWorkspace() {
+		return new Workspace(this);
+	}
+
+	/* (non-Javadoc)
+	 * @see fuzzy.system.FuzzySystem#evaluate(double[], double[])
+	 */
+	@Override
+	public void evaluate(double[] inputs, double[] outputs) {
+		evaluate(inputs, outputs, workspaces.get());
+	}
+
+	/**
+	 * Evaluates the system in a workspace.
+	 *
+	 * @param inputs crisp inputs, indexed like the input variables
+	 * @param outputs where the crisp outputs are stored, indexed like the
+	 * output variables
+	 * @param workspace workspace created by this system
+	 * @throws IllegalArgumentException if an array is too small, or the
+	 * workspace belongs to another system
+	 */
+	public void evaluate(double[] inputs, double[] outputs, Workspace workspace) {
+		final int n = sizes[INPUTS];
+		final int m = sizes[OUTPUTS];
+		if (inputs.length < n || outputs.length < m) {
+			throw new IllegalArgumentException("Expected " + n + " inputs and " + m + " outputs");
+		}
+		if (workspace.system != this) {
+			throw new IllegalArgumentException("Workspace of another fuzzy system");
+		}
+		antecedents.evaluate(inputs, workspace.memberships, workspace.strengths, workspace.activation);
+		for (int o = 0; o < m; o++) {
+			final DiscreteFuzzySet aggregate = consequents.aggregate(o, workspace.strengths, outputTermSamples,
+					implication, aggregation, workspace.aggregates[o]);
+			outputs[o] = aggregate.height() > 0.0 ? MamdaniFuzzySystem.defuzzify(aggregate, defuzzificationKind)
+					: defaultValue;
+		}
+	}
+
+	private static Shape shape(int ordinal) {
+		if (ordinal < 0 || ordinal >= Shape.values().length) {
+			throw new IllegalArgumentException("Corrupt compiled fuzzy system: shape " + ordinal);
+		}
+		return Shape.values()[ordinal];
+	}
+
+	private static double[] parameters(double[] parameters, int[] offsets, int t) {
+		return Arrays.copyOfRange(parameters, offsets[t], offsets[t + 1]);
+	}
+
+	/**
+	 * @return input then output variables, read from the file the first
+	 * time
+	 */
+	private LinguisticVariable[] variables() {
+		LinguisticVariable[] values = variables;
+		if (values == null) {
+			final int n = sizes[INPUTS];
+			final int m = sizes[OUTPUTS];
+			final ByteBuffer b = names.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+			final String[] variableNames = new String[n + m];
+			final String[] termNames = new String[sizes[TERMS] + sizes[OUTPUT_TERMS]];
+			for (int v = 0; v < n; v++) {
+				variableNames[v] = string(b);
+			}
+			for (int t = 0; t < sizes[TERMS]; t++) {
+				termNames[t] = string(b);
+			}
+			for (int o = 0; o < m; o++) {
+				variableNames[n + o] = string(b);
+			}
+			for (int j = 0; j < sizes[OUTPUT_TERMS]; j++) {
+				termNames[sizes[TERMS] + j] = string(b);
+			}
+			values = new LinguisticVariable[n + m];
+			for (int v = 0; v < n + m; v++) {
+				final List<Term> terms = new ArrayList<Term>();
+				if (v < n) {
+					for (int t = antecedents.inputTermOffsets[v]; t < antecedents.inputTermOffsets[v + 1]; t++) {
+						terms.add(new Term(termNames[t], antecedents.termShapes[t],
+								parameters(antecedents.termParameters, antecedents.termParameterOffsets, t)));
+					}
+				} else {
+					final int[] offsets = consequents.outputTermOffsets;
+					for (int j = offsets[v - n]; j < offsets[v - n + 1]; j++) {
+						terms.add(new Term(termNames[sizes[TERMS] + j], shape(outputTermShapes[j]),
+								parameters(outputTermParameters, outputTermParameterOffsets, j)));
+					}
+				}
+				values[v] = new LinguisticVariable(variableNames[v], bounds[2 * v], bounds[2 * v + 1], terms);
+			}
+			variables = values;
+		}
+		return values;
+	}
+
+	private static String string(ByteBuffer b) {
+		final byte[] bytes = new byte[b.getInt()];
+		b.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/* (non-Javadoc)
+	 * @see fuzzy.system.FuzzySystem#getInputCount()
+	 */
+	@Override
+	public int getInputCount() {
+		return sizes[INPUTS];
+	}
+
+	/* (non-Javadoc)
+	 * @see fuzzy.system.FuzzySystem#getInput(int)
+	 */
+	@Override
+	public LinguisticVariable getInput(int i) {
+		if (i < 0 || i >= sizes[INPUTS]) {
+			throw new IndexOutOfBoundsException("Input " + i);
+		}
+		return variables()[i];
+	}
+
+	/* (non-Javadoc)
+	 * @see fuzzy.system.FuzzySystem#getOutputCount()
+	 */
+	@Override
+	public int getOutputCount() {
+		return sizes[OUTPUTS];
+	}
+
+	/* (non-Javadoc)
+	 * @see fuzzy.system.FuzzySystem#getOutputName(int)
+	 */
+	@Override
+	public String getOutputName(int i) {
+		return getOutput(i).getName();
+	}
+
+	/**
+	 * @param i index of an output variable
+	 * @return output variable
+	 */
+	public LinguisticVariable getOutput(int i) {
+		if (i < 0 || i >= sizes[OUTPUTS]) {
+			throw new IndexOutOfBoundsException("Output " + i);
+		}
+		return variables()[sizes[INPUTS] + i];
+	}
+
+	/**
+	 * @return number of rules
+	 */
+	public int getRuleCount() {
+		return sizes[RULES];
+	}
+
+	/**
+	 * @return whether the rules are indexed over the supports of their
+	 * antecedents, as in the system that was written
+	 */
+	public boolean isRuleIndexed() {
+		return indexed;
+	}
+
+	/**
+	 * @return output when no rule fires
+	 */
+	public double getDefaultValue() {
+		return defaultValue;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "Mapped Fuzzy System ["+sizes[INPUTS]+" "+sizes[OUTPUTS]+" "+sizes[RULES]+" "+conjunction+" "
+				+disjunction+" "+implication+" "+aggregation+"]";
+	}
+
+}
@@ -0,0 +1,361 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package fuzzy.system;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A fuzzy rule, such as <code>IF service IS poor OR food IS rancid THEN tip
+ * IS cheap</code>. The antecedents are joined either all by
+ * <code>AND</code>, or all by <code>OR</code>.
+ *
+ * <p>
+ * Rules are built by chaining, starting with {@link #when(String, String)}:
+ * each method returns a new rule.
+ * </p>
+ *
+ * <pre>
+ * Rule rule = Rule.when("service", "poor").or("food", "rancid").then("tip", "cheap");
+ * </pre>
+ *
+ * <p>This class is immutable.</p>
+ *
+ * @since 0.5
+ */
+public final class Rule {
+
+	/**
+	 * A proposition of a rule, <code>variable IS term</code> or
+	 * <code>variable IS NOT term</code>.
+	 *
+	 * <p>This class is immutable.</p>
+	 */
+	public static final class Proposition {
+
+		private final String variable;
+		private final String term;
+		private final boolean negated;
+
+		/**
+		 * Creates a proposition.
+		 *
+		 * @param variable name of the variable
+		 * @param term name of the term
+		 * @param negated <code>true</code> for <code>IS NOT</code>
+		 */
+		public Proposition(String variable, String term, boolean negated) {
+			if (variable == null || term == null) {
+				throw new IllegalArgumentException("Missing variable or term in proposition");
+			}
+			this.variable = variable;
+			this.term = term;
+			this.negated = negated;
+		}
+
+		/**
+		 * @return name of the variable
+		 */
+		public String getVariable() {
+			return variable;
+		}
+
+		/**
+		 * @return name of the term
+		 */
+		public String getTerm() {
+			return term;
+		}
+
+		/**
+		 * @return <code>true</code> for <code>IS NOT</code>
+		 */
+		public boolean isNegated() {
+			return negated;
+		}
+
+		/* (non-Javadoc)
+		 * @see java.lang.Object#equals(java.lang.Object)
+		 */
+		@Override
+		public boolean equals(Object obj) {
+			if(obj == null) {
+				return false;
+			}
+			if(obj == this) {
+				return true;
+			}
+			if(!(obj instanceof Proposition)) {
+				return false;
+			}
+			final Proposition that = (Proposition)obj;
+			return this.variable.equals(that.variable) && this.term.equals(that.term) && this.negated == that.negated;
+		}
+
+		/* (non-Javadoc)
+		 * @see java.lang.Object#hashCode()
+		 */
+		@Override
+		public int hashCode() {
+			int hash = "Proposition".hashCode();
+			hash <<= 2;
+			hash ^= variable.hashCode();
+			hash <<= 2;
+			hash ^= term.hashCode();
+			hash <<= 2;
+			hash ^= negated ? 1 : 0;
+			return hash;
+		}
+
+		/* (non-Javadoc)
+		 * @see java.lang.Object#toString()
+		 */
+		@Override
+		public String toString() {
+			return variable + (negated ? " IS NOT " : " IS ") + term;
+		}
+
+	}
+
+	private final List<Proposition> antecedents;
+	private final boolean disjunctive;
+	private final List<Proposition> consequents;
+	private final double weight;
+
+	private Rule(List<Proposition> antecedents, boolean disjunctive, List<Proposition> consequents, double weight) {
+		this.antecedents = Collections.unmodifiableList(antecedents);
+		this.disjunctive = disjunctive;
+		this.consequents = Collections.unmodifiableList(consequents);
+		this.weight = weight;
+	}
+
+	/**
+	 * Starts a rule with its first antecedent, <code>variable IS term</code>.
+	 *
+	 * @param variable name of an input variable
+	 * @param term name of a term of the variable
+	 * @return a new rule, without consequents
+	 */
+	public static Rule when(String variable, String term) {
+		return new Rule(Collections.<Proposition>emptyList(), false, Collections.<Proposition>emptyList(), 1.0)
+				.antecedent(new Proposition(variable, term, false), false);
+	}
+
+	/**
+	 * Starts a rule with its first antecedent, <code>variable IS NOT
+	 * term</code>.
+	 *
+	 * @param variable name of an input variable
+	 * @param term name of a term of the variable
+	 * @return a new rule, without consequents
+	 */
+	public static Rule whenNot(String variable, String term) {
+		return new Rule(Collections.<Proposition>emptyList(), false, Collections.<Proposition>emptyList(), 1.0)
+				.antecedent(new Proposition(variable, term, true), false);
+	}
+
+	/**
+	 * Creates a rule from all its propositions at once, as a parser does,
+	 * rather than by chaining.
+	 *
+	 * @param antecedents antecedents, at least one
+	 * @param disjunctive <code>true</code> if the antecedents are joined by
+	 * <code>OR</code>, <code>false</code> for <code>AND</code>
+	 * @param consequents consequents
+	 * @param weight weight of the rule, between 0 and 1
+	 * @return a new rule
+	 * @throws IllegalArgumentException if there is no antecedent, or the
+	 * weight is not between 0 and 1
+	 */
+	public static Rule of(List<Proposition> antecedents, boolean disjunctive, List<Proposition> consequents,
+			double weight) {
+		if (antecedents.isEmpty()) {
+			throw new IllegalArgumentException("Rule without antecedents");
+		}
+		if (!(weight >= 0.0 && weight <= 1.0)) {
+			throw new IllegalArgumentException("Invalid rule weight " + weight);
+		}
+		return new Rule(new ArrayList<Proposition>(antecedents), antecedents.size() > 1 && disjunctive,
+				new ArrayList<Proposition>(consequents), weight);
+	}
+
+	/**
+	 * @param variable name of an input variable
+	 * @param term name of a term of the variable
+	 * @return a new rule, with <code>AND variable IS term</code>
+	 * @throws IllegalArgumentException if the antecedents are joined by
+	 * <code>OR</code>
+	 */
+	public Rule and(String variable, String term) {
+		return antecedent(new Proposition(variable, term, false), false);
+	}
+
+	/**
+	 * @param variable name of an input variable
+	 * @param term name of a term of the variable
+	 * @return a new rule, with <code>AND variable IS NOT term</code>
+	 * @throws IllegalArgumentException if the antecedents are joined by
+	 * <code>OR</code>
+	 */
+	public Rule andNot(String variable, String term) {
+		return antecedent(new Proposition(variable, term, true), false);
+	}
+
+	/**
+	 * @param variable name of an input variable
+	 * @param term name of a term of the variable
+	 * @return a new rule, with <code>OR variable IS term</code>
+	 * @throws IllegalArgumentException if the antecedents are joined by
+	 * <code>AND</code>
+	 */
+	public Rule or(String variable, String term) {
+		return antecedent(new Proposition(variable, term, false), true);
+	}
+
+	/**
+	 * @param variable name of an input variable
+	 * @param term name of a term of the variable
+	 * @return a new rule, with <code>OR variable IS NOT term</code>
+	 * @throws IllegalArgumentException if the antecedents are joined by
+	 * <code>AND</code>
+	 */
+	public Rule orNot(String variable, String term) {
+		return antecedent(new Proposition(variable, term, true), true);
+	}
+
+	private Rule antecedent(Proposition proposition, boolean or) {
+		if (antecedents.size() > 1 && or != disjunctive) {
+			throw new IllegalArgumentException("Rules mixing AND and OR are not supported: " + this);
+		}
+		final List<Proposition> list = new ArrayList<Proposition>(antecedents);
+		list.add(proposition);
+		return new Rule(list, antecedents.isEmpty() ? false : or, new ArrayList<Proposition>(consequents), weight);
+	}
+
+	/**
+	 * @param variable name of an output variable
+	 * @param term name of a term of the variable
+	 * @return a new rule, with the consequent <code>variable IS term</code>
+	 */
+	public Rule then(String variable, String term) {
+		final List<Proposition> list = new ArrayList<Proposition>(consequents);
+		list.add(new Proposition(variable, term, false));
+		return new Rule(new ArrayList<Proposition>(antecedents), disjunctive, list, weight);
+	}
+
+	/**
+	 * @param weight weight of the rule, between 0 and 1, multiplied with its
+	 * firing strength
+	 * @return a new rule, with the weight
+	 * @throws IllegalArgumentException if the weight is not between 0 and 1
+	 */
+	public Rule withWeight(double weight) {
+		if (!(weight >= 0.0 && weight <= 1.0)) {
+			throw new IllegalArgumentException("Invalid rule weight " + weight);
+		}
+		return new Rule(new ArrayList<Proposition>(antecedents), disjunctive, new ArrayList<Proposition>(consequents), weight);
+	}
+
+	/**
+	 * @return antecedents, unmodifiable
+	 */
+	public List<Proposition> getAntecedents() {
+		return antecedents;
+	}
+
+	/**
+	 * @return <code>true</code> if the antecedents are joined by
+	 * <code>OR</code>, <code>false</code> for <code>AND</code>
+	 */
+	public boolean isDisjunctive() {
+		return disjunctive;
+	}
+
+	/**
+	 * @return consequents, unmodifiable
+	 */
+	public List<Proposition> getConsequents() {
+		return consequents;
+	}
+
+	/**
+	 * @return weight of the rule
+	 */
+	public double getWeight() {
+		return weight;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#equals(java.lang.Object)
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if(obj == null) {
+			return false;
+		}
+		if(obj == this) {
+			return true;
+		}
+		if(!(obj instanceof Rule)) {
+			return false;
+		}
+		final Rule that = (Rule)obj;
+		return this.antecedents.equals(that.antecedents) && this.disjunctive == that.disjunctive
+				&& this.consequents.equals(that.consequents) && this.weight == that.weight;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#hashCode()
+	 */
+	@Override
+	public int hashCode() {
+		int hash = "Rule".hashCode();
+		hash <<= 2;
+		hash ^= antecedents.hashCode();
+		hash <<= 2;
+		hash ^= disjunctive ? 1 : 0;
+		hash <<= 2;
+		hash ^= consequents.hashCode();
+		hash <<= 2;
+		hash ^= Double.valueOf(weight).hashCode();
+		return hash;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		final StringBuilder sb = new StringBuilder("IF ");
+		for (int i = 0; i < antecedents.size(); i++) {
+			if (i > 0) {
+				sb.append(disjunctive ? " OR " : " AND ");
+			}
+			sb.append(antecedents.get(i));
+		}
+		sb.append(" THEN ");
+		for (int i = 0; i < consequents.size(); i++) {
+			if (i > 0) {
+				sb.append(", ");
+			}
+			sb.append(consequents.get(i));
+		}
+		if (weight != 1.0) {
+			sb.append(" WITH ").append(weight);
+		}
+		return sb.toString();
+	}
+
+}
@@ -0,0 +1,44 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package fuzzy.system;
+
+/**
+ * Rules visited and fired by the last evaluation in a workspace, with the
+ * counters used by the {@link RuleIndex}.
+ *
+ * <p>
+ * This class is <strong>not thread safe</strong>.
+ * </p>
+ *
+ * @since 0.5
+ */
+final class RuleActivation {
+
+	// per rule, the number of positive antecedents with a non-zero membership
+	final int[] counts;
+	final int[] touched;
+	final int[] visited;
+	int visitedCount;
+	int firedCount;
+
+	/**
+	 * @param rules number of rules
+	 */
+	RuleActivation(int rules) {
+		this.counts = new int[rules];
+		this.touched = new int[rules];
+		this.visited = new int[rules];
+	}
+
+}
@@ -0,0 +1,248 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package fuzzy.system;
+
+import java.util.Arrays;
+
+import fuzzy.mf.Interval;
+
+/**
+ * Index of the rules of a fuzzy system over the supports of their
+ * antecedents, so that an evaluation only visits the rules that may fire.
+ *
+ * <p>
+ * For each input, the finite bounds of the supports of its terms are sorted
+ * into a table of endpoints, which splits the line into slots: the open
+ * intervals between endpoints, and the endpoints themselves. Each slot lists
+ * the terms whose support meets it, so that a binary search finds the terms
+ * that may have a membership value other than zero. The terms of a
+ * gaussian, or of any membership function whose support is not bounded, are
+ * listed in every slot.
+ * </p>
+ *
+ * <p>
+ * A conjunctive rule with at least one antecedent that is not negated fires
+ * with zero strength, whatever the t-norm, as soon as one of these
+ * antecedents has zero membership. Such a rule is visited only when every
+ * one of these antecedents has a membership value above zero, which is found
+ * by counting, for each term with a non-zero membership, the rules that
+ * refer to it. The other rules, disjunctive or with negated antecedents
+ * only, are always visited. The firing strengths are the same as without
+ * the index.
+ * </p>
+ *
+ * <p>
+ * This class is immutable and thread safe.
+ * </p>
+ *
+ * @since 0.5
+ */
+final class RuleIndex {
+
+	// per input, sorted distinct finite endpoints, and the terms of each slot
+	private final double[][] endpoints;
+	private final int[][] slotOffsets;
+	private final int[][] slotTerms;
+
+	// per term, the indexed rules with a positive antecedent on the term
+	private final int[] postingOffsets;
+	private final int[] postingRules;
+
+	// per rule, the number of positive antecedents, or zero if not indexed
+	final int[] required;
+	final int[] alwaysVisited;
+
+	/**
+	 * Indexes the rules of compiled antecedents.
+	 *
+	 * @param antecedents inputs and rule antecedents
+	 */
+	RuleIndex(Antecedents antecedents) {
+		final int n = antecedents.getInputCount();
+		final int[] termOffsets = antecedents.inputTermOffsets;
+		final Interval[] supports = new Interval[antecedents.getTermCount()];
+		for (int t = 0; t < supports.length; t++) {
+			supports[t] = antecedents.termFunctions[t].support();
+		}
+
+		this.endpoints = new double[n][];
+		this.slotOffsets = new int[n][];
+		this.slotTerms = new int[n][];
+		for (int v = 0; v < n; v++) {
+			double[] e = new double[2 * (termOffsets[v + 1] - termOffsets[v])];
+			int size = 0;
+			for (int t = termOffsets[v]; t < termOffsets[v + 1]; t++) {
+				if (!supports[t].isEmpty()) {
+					e[size++] = supports[t].getLower();
+					e[size++] = supports[t].getUpper();
+				}
+			}
+			e = distinctFinite(e, size);
+			endpoints[v] = e;
+			final int slots = 2 * e.length + 1;
+			final int[] offsets = new int[slots + 1];
+			final int[] first = new int[termOffsets[v + 1] - termOffsets[v]];
+			final int[] last = new int[first.length];
+			for (int t = termOffsets[v]; t < termOffsets[v + 1]; t++) {
+				final int i = t - termOffsets[v];
+				if (supports[t].isEmpty()) {
+					first[i] = 0;
+					last[i] = -1;
+				} else {
+					first[i] = slot(e, supports[t].getLower());
+					last[i] = slot(e, supports[t].getUpper());
+				}
+				for (int s = first[i]; s <= last[i]; s++) {
+					offsets[s + 1]++;
+				}
+			}
+			for (int s = 0; s < slots; s++) {
+				offsets[s + 1] += offsets[s];
+			}
+			final int[] terms = new int[offsets[slots]];
+			final int[] filled = Arrays.copyOf(offsets, slots);
+			for (int i = 0; i < first.length; i++) {
+				for (int s = first[i]; s <= last[i]; s++) {
+					terms[filled[s]++] = termOffsets[v] + i;
+				}
+			}
+			slotOffsets[v] = offsets;
+			slotTerms[v] = terms;
+		}
+
+		final int r = antecedents.getRuleCount();
+		this.required = new int[r];
+		this.postingOffsets = new int[supports.length + 1];
+		int always = 0;
+		for (int k = 0; k < r; k++) {
+			if (!antecedents.disjunctive[k]) {
+				for (int a = antecedents.antecedentOffsets[k]; a < antecedents.antecedentOffsets[k + 1]; a++) {
+					if (!antecedents.antecedentNegated[a]) {
+						required[k]++;
+						postingOffsets[antecedents.antecedentTerms[a] + 1]++;
+					}
+				}
+			}
+			if (required[k] == 0) {
+				always++;
+			}
+		}
+		for (int t = 0; t < supports.length; t++) {
+			postingOffsets[t + 1] += postingOffsets[t];
+		}
+		this.postingRules = new int[postingOffsets[supports.length]];
+		this.alwaysVisited = new int[always];
+		final int[] filled = Arrays.copyOf(postingOffsets, supports.length);
+		always = 0;
+		for (int k = 0; k < r; k++) {
+			if (required[k] == 0) {
+				alwaysVisited[always++] = k;
+				continue;
+			}
+			for (int a = antecedents.antecedentOffsets[k]; a < antecedents.antecedentOffsets[k + 1]; a++) {
+				if (!antecedents.antecedentNegated[a]) {
+					postingRules[filled[antecedents.antecedentTerms[a]]++] = k;
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return the distinct finite values among the first values of an array,
+	 * sorted
+	 */
+	private static double[] distinctFinite(double[] values, int size) {
+		final double[] sorted = Arrays.copyOf(values, size);
+		Arrays.sort(sorted);
+		int distinct = 0;
+		for (double value : sorted) {
+			if (!Double.isInfinite(value) && (distinct == 0 || value != sorted[distinct - 1])) {
+				sorted[distinct++] = value;
+			}
+		}
+		return Arrays.copyOf(sorted, distinct);
+	}
+
+	/**
+	 * @param endpoints sorted distinct endpoints
+	 * @param x crisp value
+	 * @return slot of the crisp value: <code>2 * i + 1</code> for the i-th
+	 * endpoint, <code>2 * i</code> for the interval before it
+	 */
+	private static int slot(double[] endpoints, double x) {
+		if (x == Double.NEGATIVE_INFINITY) {
+			return 0;
+		} else if (x == Double.POSITIVE_INFINITY) {
+			return 2 * endpoints.length;
+		}
+		final int i = Arrays.binarySearch(endpoints, x);
+		return i >= 0 ? 2 * i + 1 : 2 * (-i - 1);
+	}
+
+	/**
+	 * @param v index of an input
+	 * @param x crisp value of the input
+	 * @return first index, in {@link #terms(int)}, of the terms that may have
+	 * a non-zero membership value; the last, exclusive, is given by
+	 * {@link #to(int, double)}
+	 */
+	int from(int v, double x) {
+		return slotOffsets[v][slot(endpoints[v], x)];
+	}
+
+	/**
+	 * @param v index of an input
+	 * @param x crisp value of the input
+	 * @return last index, exclusive, in {@link #terms(int)}, of the terms
+	 * that may have a non-zero membership value
+	 */
+	int to(int v, double x) {
+		return slotOffsets[v][slot(endpoints[v], x) + 1];
+	}
+
+	/**
+	 * @param v index of an input
+	 * @return terms of the slots of the input
+	 */
+	int[] terms(int v) {
+		return slotTerms[v];
+	}
+
+	/**
+	 * @param t index of an input term
+	 * @return first index, in {@link #postingRules}, of the indexed rules
+	 * with a positive antecedent on the term
+	 */
+	int postingsFrom(int t) {
+		return postingOffsets[t];
+	}
+
+	/**
+	 * @param t index of an input term
+	 * @return last index, exclusive, in {@link #postingRules}, of the indexed
+	 * rules with a positive antecedent on the term
+	 */
+	int postingsTo(int t) {
+		return postingOffsets[t + 1];
+	}
+
+	/**
+	 * @param p index of a posting
+	 * @return the rule of the posting
+	 */
+	int postingRule(int p) {
+		return postingRules[p];
+	}
+
+}
@@ -0,0 +1,73 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package fuzzy.system;
+
+import java.util.function.DoubleBinaryOperator;
+
+/**
+ * Triangular conorms, used as fuzzy <code>OR</code> between antecedents, and
+ * to aggregate the consequents of the rules.
+ *
+ * @since 0.5
+ */
+public enum SNorm implements DoubleBinaryOperator {
+
+	/**
+	 * Maximum, <code>max(a, b)</code>.
+	 */
+	MAXIMUM {
+		@Override
+		public double applyAsDouble(double a, double b) {
+			return Math.max(a, b);
+		}
+	},
+	/**
+	 * Probabilistic sum, <code>a + b - a * b</code>.
+	 */
+	PROBABILISTIC_SUM {
+		@Override
+		public double applyAsDouble(double a, double b) {
+			return a + b - a * b;
+		}
+	},
+	/**
+	 * Bounded sum (Lukasiewicz), <code>min(1, a + b)</code>.
+	 */
+	BOUNDED_SUM {
+		@Override
+		public double applyAsDouble(double a, double b) {
+			return Math.min(1.0, a + b);
+		}
+	},
+	/**
+	 * Drastic sum: <code>b</code> if <code>a</code> is zero, <code>a</code> if
+	 * <code>b</code> is zero, one otherwise.
+	 */
+	DRASTIC_SUM {
+		@Override
+		public double applyAsDouble(double a, double b) {
+			return a == 0.0 ? b : b == 0.0 ? a : 1.0;
+		}
+	},
+	/**
+	 * Einstein sum, <code>(a + b) / (1 + a * b)</code>.
+	 */
+	EINSTEIN_SUM {
+		@Override
+		public double applyAsDouble(double a, double b) {
+			return (a + b) / (1.0 + a * b);
+		}
+	};
+
+}
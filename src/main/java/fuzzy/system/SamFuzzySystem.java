@@ -0,0 +1,479 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package fuzzy.system;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import fuzzy.df.AdaptiveQuadrature;
+import fuzzy.mf.AnalyticallyDefuzzifiable;
+import fuzzy.mf.DoubleMembershipFunction;
+import fuzzy.mf.PiecewiseLinearMembershipFunction;
+
+/**
+ * Standard additive model (SAM) fuzzy inference system, after Kosko. The
+ * antecedents are fuzzified and fired as in a {@link MamdaniFuzzySystem}; the
+ * consequent set of each rule is scaled by its firing strength and the sets
+ * are added, so that the centroid of the sum only depends on the volume
+ * <code>V</code> and the centroid <code>c</code> of each consequent set:
+ *
+ * <pre>
+ * y = sum(w a V c) / sum(w a V)
+ * </pre>
+ *
+ * where <code>w</code> is the weight of a rule and <code>a</code> its firing
+ * strength.
+ *
+ * <p>
+ * The volume and centroid of each output term, over the range of its
+ * variable, are computed once by the {@link Builder}: in closed form for the
+ * membership functions that have one (triangular, trapezoidal, gaussian and
+ * piecewise linear), and by adaptive quadrature for the others. Evaluation
+ * then takes one multiplication and two additions per consequent, without
+ * sampling the universe of the outputs, and works in a {@link Workspace}, so
+ * that it does not allocate memory.
+ * </p>
+ *
+ * <p>
+ * An output for which no rule fires gets the default value of the system,
+ * NaN unless configured.
+ * </p>
+ *
+ * <p>
+ * This class is immutable and <strong>thread safe</strong>.
+ * </p>
+ *
+ * @since 0.5
+ */
+public final class SamFuzzySystem implements FuzzySystem {
+
+	/**
+	 * Relative tolerance of the quadrature, for the output terms without
+	 * closed form.
+	 */
+	static final double QUADRATURE_TOLERANCE = 1e-10;
+
+	final Antecedents antecedents;
+	final Consequents consequents;
+	private final LinguisticVariable[] outputs;
+	private final List<Rule> rules;
+
+	// volume and centroid of the output terms, numbered across all outputs
+	final double[] volumes;
+	final double[] centroids;
+
+	private final double defaultValue;
+
+	private final ThreadLocal<Workspace> workspaces = new ThreadLocal<Workspace>() {
+		@Override
+		protected Workspace initialValue() {
+			return newWorkspace();
+		}
+	};
+
+	private SamFuzzySystem(Builder builder) {
+		this.rules = Collections.unmodifiableList(new ArrayList<Rule>(builder.rules));
+		this.antecedents = new Antecedents(builder.inputs, rules, builder.conjunction, builder.disjunction,
+				builder.indexed);
+		final int m = builder.outputs.size();
+		this.outputs = builder.outputs.toArray(new LinguisticVariable[m]);
+		final List<String> names = new ArrayList<String>();
+		final List<List<String>> terms = new ArrayList<List<String>>();
+		for (LinguisticVariable output : outputs) {
+			names.add(output.getName());
+			final List<String> termNames = new ArrayList<String>();
+			for (Term term : output.getTerms()) {
+				termNames.add(term.getName());
+			}
+			terms.add(termNames);
+		}
+		this.consequents = new Consequents(names, terms, rules);
+		consequents.checkNames(antecedents);
+
+		this.volumes = new double[consequents.outputTermOffsets[m]];
+		this.centroids = new double[volumes.length];
+		final AdaptiveQuadrature quadrature = new AdaptiveQuadrature(AdaptiveQuadrature.Rule.GAUSS_KRONROD,
+				QUADRATURE_TOLERANCE);
+		for (int o = 0; o < m; o++) {
+			final List<Term> outputTerms = outputs[o].getTerms();
+			for (int t = 0; t < outputTerms.size(); t++) {
+				final int j = consequents.outputTermOffsets[o] + t;
+				final DoubleMembershipFunction mf = outputTerms.get(t).getMembershipFunction();
+				final double lower = outputs[o].getLower();
+				final double upper = outputs[o].getUpper();
+				final double volume;
+				final double moment;
+				if (mf instanceof AnalyticallyDefuzzifiable && ((AnalyticallyDefuzzifiable) mf).hasClosedForm()) {
+					volume = ((AnalyticallyDefuzzifiable) mf).area(lower, upper, 1.0);
+					moment = ((AnalyticallyDefuzzifiable) mf).firstMoment(lower, upper, 1.0);
+				} else if (mf instanceof PiecewiseLinearMembershipFunction) {
+					volume = ((PiecewiseLinearMembershipFunction) mf).area(lower, upper);
+					moment = ((PiecewiseLinearMembershipFunction) mf).firstMoment(lower, upper);
+				} else {
+					final AdaptiveQuadrature.Estimate estimate;
+					try {
+						estimate = quadrature.centroid(mf, lower, upper);
+					} catch (IllegalArgumentException e) {
+						throw new IllegalArgumentException("Term " + outputTerms.get(t).getName() + " of output "
+								+ outputs[o].getName() + " has zero volume", e);
+					}
+					volume = estimate.getArea();
+					moment = estimate.getValue() * volume;
+				}
+				if (!(volume > 0.0)) {
+					throw new IllegalArgumentException("Term " + outputTerms.get(t).getName() + " of output "
+							+ outputs[o].getName() + " has zero volume");
+				}
+				volumes[j] = volume;
+				centroids[j] = moment / volume;
+			}
+		}
+		this.defaultValue = builder.defaultValue;
+	}
+
+	/**
+	 * @return a new builder, with minimum <code>AND</code> and maximum
+	 * <code>OR</code>
+	 */
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	/**
+	 * Memory used by an evaluation: the fuzzified inputs and the firing
+	 * strengths of the rules. Created by {@link SamFuzzySystem#newWorkspace()}.
+	 *
+	 * <p>
+	 * This class is <strong>not thread safe</strong>. Use one instance per
+	 * thread.
+	 * </p>
+	 */
+	public static final class Workspace {
+
+		private final SamFuzzySystem system;
+		final double[] memberships;
+		final double[] strengths;
+		final RuleActivation activation;
+
+		private Workspace(SamFuzzySystem system) {
+			this.system = system;
+			this.memberships = new double[system.antecedents.getTermCount()];
+			this.strengths = new double[system.antecedents.getRuleCount()];
+			this.activation = new RuleActivation(strengths.length);
+		}
+
+		/**
+		 * @param rule index of a rule
+		 * @return firing strength of the rule in the last evaluation, weight
+		 * included
+		 */
+		public double getFiringStrength(int rule) {
+			return strengths[rule];
+		}
+
+		/**
+		 * @return number of rules visited by the last evaluation: all the
+		 * rules, unless they are indexed
+		 */
+		public int getVisitedRuleCount() {
+			return activation.visitedCount;
+		}
+
+		/**
+		 * @return number of rules that fired with a strength above zero in the
+		 * last evaluation
+		 */
+		public int getFiredRuleCount() {
+			return activation.firedCount;
+		}
+
+	}
+
+	/**
+	 * @return a new workspace, to evaluate this system without allocating
+	 * memory
+	 */
+	public Workspace newWorkspace() {
+		return new Workspace(this);
+	}
+
+	/* (non-Javadoc)
+	 * @see fuzzy.system.FuzzySystem#evaluate(double[], double[])
+	 */
+	@Override
+	public void evaluate(double[] inputs, double[] outputs) {
+		evaluate(inputs, outputs, workspaces.get());
+	}
+
+	/**
+	 * Evaluates the system in a workspace.
+	 *
+	 * @param inputs crisp inputs, indexed like the input variables
+	 * @param outputs where the crisp outputs are stored, indexed like the
+	 * output variables
+	 * @param workspace workspace created by this system
+	 * @throws IllegalArgumentException if an array is too small, or the
+	 * workspace belongs to another system
+	 */
+	public void evaluate(double[] inputs, double[] outputs, Workspace workspace) {
+		if (inputs.length < antecedents.inputs.length || outputs.length < this.outputs.length) {
+			throw new IllegalArgumentException("Expected " + antecedents.inputs.length + " inputs and "
+					+ this.outputs.length + " outputs");
+		}
+		if (workspace.system != this) {
+			throw new IllegalArgumentException("Workspace of another fuzzy system");
+		}
+		antecedents.evaluate(inputs, workspace.memberships, workspace.strengths, workspace.activation);
+		final double[] strengths = workspace.strengths;
+		final int[] offsets = consequents.consequentOffsets;
+		final int[] consequentRules = consequents.consequentRules;
+		final int[] consequentTerms = consequents.consequentTerms;
+		for (int o = 0; o < this.outputs.length; o++) {
+			double numerator = 0.0;
+			double denominator = 0.0;
+			for (int c = offsets[o]; c < offsets[o + 1]; c++) {
+				final double strength = strengths[consequentRules[c]];
+				if (!(strength > 0.0)) {
+					continue;
+				}
+				final int j = consequentTerms[c];
+				final double volume = strength * volumes[j];
+				numerator += volume * centroids[j];
+				denominator += volume;
+			}
+			outputs[o] = denominator > 0.0 ? numerator / denominator : defaultValue;
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see fuzzy.system.FuzzySystem#getInputCount()
+	 */
+	@Override
+	public int getInputCount() {
+		return antecedents.inputs.length;
+	}
+
+	/* (non-Javadoc)
+	 * @see fuzzy.system.FuzzySystem#getInput(int)
+	 */
+	@Override
+	public LinguisticVariable getInput(int i) {
+		return antecedents.inputs[i];
+	}
+
+	/* (non-Javadoc)
+	 * @see fuzzy.system.FuzzySystem#getOutputCount()
+	 */
+	@Override
+	public int getOutputCount() {
+		return outputs.length;
+	}
+
+	/* (non-Javadoc)
+	 * @see fuzzy.system.FuzzySystem#getOutputName(int)
+	 */
+	@Override
+	public String getOutputName(int i) {
+		return outputs[i].getName();
+	}
+
+	/**
+	 * @param i index of an output variable
+	 * @return output variable
+	 */
+	public LinguisticVariable getOutput(int i) {
+		return outputs[i];
+	}
+
+	/**
+	 * @param output index of an output variable
+	 * @param term index of a term of the output
+	 * @return volume of the term over the range of the output
+	 */
+	public double getVolume(int output, int term) {
+		return volumes[consequents.outputTermOffsets[output] + term];
+	}
+
+	/**
+	 * @param output index of an output variable
+	 * @param term index of a term of the output
+	 * @return centroid of the term over the range of the output
+	 */
+	public double getCentroid(int output, int term) {
+		return centroids[consequents.outputTermOffsets[output] + term];
+	}
+
+	/**
+	 * @return rules, unmodifiable
+	 */
+	public List<Rule> getRules() {
+		return rules;
+	}
+
+	/**
+	 * @return t-norm of <code>AND</code>
+	 */
+	public TNorm getConjunction() {
+		return antecedents.conjunction;
+	}
+
+	/**
+	 * @return s-norm of <code>OR</code>
+	 */
+	public SNorm getDisjunction() {
+		return antecedents.disjunction;
+	}
+
+	/**
+	 * @return output when no rule fires
+	 */
+	public double getDefaultValue() {
+		return defaultValue;
+	}
+
+	/**
+	 * @return whether the rules are indexed over the supports of their
+	 * antecedents
+	 */
+	public boolean isRuleIndexed() {
+		return antecedents.index != null;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "SAM Fuzzy System ["+antecedents.inputs.length+" "+outputs.length+" "+rules.size()+" "
+				+antecedents.conjunction+" "+antecedents.disjunction+"]";
+	}
+
+	/**
+	 * Collects the variables, rules and operators of a
+	 * {@link SamFuzzySystem}, and compiles them.
+	 *
+	 * <p>
+	 * This class is <strong>not thread safe</strong>.
+	 * </p>
+	 */
+	public static final class Builder {
+
+		private final List<LinguisticVariable> inputs = new ArrayList<LinguisticVariable>();
+		private final List<LinguisticVariable> outputs = new ArrayList<LinguisticVariable>();
+		private final List<Rule> rules = new ArrayList<Rule>();
+		private TNorm conjunction = TNorm.MINIMUM;
+		private SNorm disjunction = SNorm.MAXIMUM;
+		private double defaultValue = Double.NaN;
+		private boolean indexed;
+
+		private Builder() {
+		}
+
+		/**
+		 * @param variable input variable
+		 * @return this builder
+		 */
+		public Builder input(LinguisticVariable variable) {
+			inputs.add(variable);
+			return this;
+		}
+
+		/**
+		 * @param variable output variable, whose terms are integrated over
+		 * its range
+		 * @return this builder
+		 */
+		public Builder output(LinguisticVariable variable) {
+			outputs.add(variable);
+			return this;
+		}
+
+		/**
+		 * @param rule rule
+		 * @return this builder
+		 */
+		public Builder rule(Rule rule) {
+			rules.add(rule);
+			return this;
+		}
+
+		/**
+		 * @param rules rules
+		 * @return this builder
+		 */
+		public Builder rules(Collection<Rule> rules) {
+			this.rules.addAll(rules);
+			return this;
+		}
+
+		/**
+		 * @param conjunction t-norm of <code>AND</code>
+		 * @return this builder
+		 */
+		public Builder conjunction(TNorm conjunction) {
+			this.conjunction = conjunction;
+			return this;
+		}
+
+		/**
+		 * @param disjunction s-norm of <code>OR</code>
+		 * @return this builder
+		 */
+		public Builder disjunction(SNorm disjunction) {
+			this.disjunction = disjunction;
+			return this;
+		}
+
+		/**
+		 * @param defaultValue output when no rule fires
+		 * @return this builder
+		 */
+		public Builder defaultValue(double defaultValue) {
+			this.defaultValue = defaultValue;
+			return this;
+		}
+
+		/**
+		 * Indexes the rules over the supports of their antecedents, so that
+		 * an evaluation only visits the rules that may fire. Worth it with
+		 * many rules, of which few fire at a time.
+		 *
+		 * @param indexed whether to index the rules, <code>false</code> by
+		 * default
+		 * @return this builder
+		 */
+		public Builder indexRules(boolean indexed) {
+			this.indexed = indexed;
+			return this;
+		}
+
+		/**
+		 * Compiles the fuzzy system, computing the volume and centroid of
+		 * every output term.
+		 *
+		 * @return a new fuzzy system
+		 * @throws IllegalArgumentException if there is no input or output,
+		 * two variables have the same name, an output term has zero volume
+		 * over the range of its variable, or a rule refers to an unknown
+		 * variable or term
+		 */
+		public SamFuzzySystem build() {
+			return new SamFuzzySystem(this);
+		}
+
+	}
+
+}
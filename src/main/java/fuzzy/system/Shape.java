@@ -0,0 +1,197 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package fuzzy.system;
+
+import fuzzy.mf.DifferentialSigmoidalMembershipFunction;
+import fuzzy.mf.DoubleMembershipFunction;
+import fuzzy.mf.GaussianMembershipFunction;
+import fuzzy.mf.GeneralizedBellShapedMembershipFunction;
+import fuzzy.mf.PiShapedMembershipFunction;
+import fuzzy.mf.PiecewiseLinearMembershipFunction;
+import fuzzy.mf.ProductSigmoidalMembershipFunction;
+import fuzzy.mf.SShapedMembershipFunction;
+import fuzzy.mf.SigmoidalMembershipFunction;
+import fuzzy.mf.TrapezoidalMembershipFunction;
+import fuzzy.mf.TriangularMembershipFunction;
+import fuzzy.mf.ZShapedMembershipFunction;
+
+/**
+ * Shapes of the membership functions of the terms of a fuzzy system. A term
+ * is stored as its shape and an array of parameters, given in the order of
+ * the constructor of the membership function.
+ *
+ * @since 0.5
+ */
+public enum Shape {
+
+	/**
+	 * {@link TriangularMembershipFunction}: a, b, c.
+	 */
+	TRIANGULAR(3) {
+		@Override
+		DoubleMembershipFunction create(double[] p, int offset, int count) {
+			return new TriangularMembershipFunction(p[offset], p[offset + 1], p[offset + 2]);
+		}
+	},
+	/**
+	 * {@link TrapezoidalMembershipFunction}: a, b, c, d.
+	 */
+	TRAPEZOIDAL(4) {
+		@Override
+		DoubleMembershipFunction create(double[] p, int offset, int count) {
+			return new TrapezoidalMembershipFunction(p[offset], p[offset + 1], p[offset + 2], p[offset + 3]);
+		}
+	},
+	/**
+	 * {@link GaussianMembershipFunction}: sigma, c.
+	 */
+	GAUSSIAN(2) {
+		@Override
+		DoubleMembershipFunction create(double[] p, int offset, int count) {
+			return new GaussianMembershipFunction(p[offset], p[offset + 1]);
+		}
+	},
+	/**
+	 * {@link GeneralizedBellShapedMembershipFunction}: a, b, c.
+	 */
+	GENERALIZED_BELL(3) {
+		@Override
+		DoubleMembershipFunction create(double[] p, int offset, int count) {
+			return new GeneralizedBellShapedMembershipFunction(p[offset], p[offset + 1], p[offset + 2]);
+		}
+	},
+	/**
+	 * {@link SigmoidalMembershipFunction}: a, c.
+	 */
+	SIGMOIDAL(2) {
+		@Override
+		DoubleMembershipFunction create(double[] p, int offset, int count) {
+			return new SigmoidalMembershipFunction(p[offset], p[offset + 1]);
+		}
+	},
+	/**
+	 * {@link DifferentialSigmoidalMembershipFunction}: a1, c1, a2, c2.
+	 */
+	DIFFERENTIAL_SIGMOIDAL(4) {
+		@Override
+		DoubleMembershipFunction create(double[] p, int offset, int count) {
+			return new DifferentialSigmoidalMembershipFunction(p[offset], p[offset + 1], p[offset + 2], p[offset + 3]);
+		}
+	},
+	/**
+	 * {@link ProductSigmoidalMembershipFunction}: a1, c1, a2, c2.
+	 */
+	PRODUCT_SIGMOIDAL(4) {
+		@Override
+		DoubleMembershipFunction create(double[] p, int offset, int count) {
+			return new ProductSigmoidalMembershipFunction(p[offset], p[offset + 1], p[offset + 2], p[offset + 3]);
+		}
+	},
+	/**
+	 * {@link SShapedMembershipFunction}: a, b.
+	 */
+	S_SHAPED(2) {
+		@Override
+		DoubleMembershipFunction create(double[] p, int offset, int count) {
+			return new SShapedMembershipFunction(p[offset], p[offset + 1]);
+		}
+	},
+	/**
+	 * {@link ZShapedMembershipFunction}: a, b.
+	 */
+	Z_SHAPED(2) {
+		@Override
+		DoubleMembershipFunction create(double[] p, int offset, int count) {
+			return new ZShapedMembershipFunction(p[offset], p[offset + 1]);
+		}
+	},
+	/**
+	 * {@link PiShapedMembershipFunction}: a, b, c, d.
+	 */
+	PI_SHAPED(4) {
+		@Override
+		DoubleMembershipFunction create(double[] p, int offset, int count) {
+			return new PiShapedMembershipFunction(p[offset], p[offset + 1], p[offset + 2], p[offset + 3]);
+		}
+	},
+	/**
+	 * {@link PiecewiseLinearMembershipFunction}: pairs of crisp and fuzzy
+	 * values of two or more breakpoints, x0, y0, x1, y1, ...
+	 */
+	PIECEWISE_LINEAR(-1) {
+		@Override
+		DoubleMembershipFunction create(double[] p, int offset, int count) {
+			final double[] x = new double[count / 2];
+			final double[] y = new double[count / 2];
+			for (int i = 0; i < x.length; i++) {
+				x[i] = p[offset + 2 * i];
+				y[i] = p[offset + 2 * i + 1];
+			}
+			return new PiecewiseLinearMembershipFunction(x, y);
+		}
+
+		@Override
+		public boolean accepts(int count) {
+			return count >= 4 && count % 2 == 0;
+		}
+	};
+
+	private final int parameterCount;
+
+	private Shape(int parameterCount) {
+		this.parameterCount = parameterCount;
+	}
+
+	/**
+	 * @return number of parameters, or -1 if it varies
+	 */
+	public int getParameterCount() {
+		return parameterCount;
+	}
+
+	/**
+	 * @param count number of parameters
+	 * @return <code>true</code> if this shape is described by that many
+	 * parameters
+	 */
+	public boolean accepts(int count) {
+		return count == parameterCount;
+	}
+
+	/**
+	 * Creates the membership function of this shape.
+	 *
+	 * @param parameters parameters
+	 * @return membership function
+	 * @throws IllegalArgumentException if the number of parameters is wrong
+	 */
+	public DoubleMembershipFunction create(double... parameters) {
+		if (!accepts(parameters.length)) {
+			throw new IllegalArgumentException("Invalid number of parameters " + parameters.length + " for " + this);
+		}
+		return create(parameters, 0, parameters.length);
+	}
+
+	/**
+	 * Creates the membership function of this shape, from parameters stored
+	 * in a larger array.
+	 *
+	 * @param parameters array of parameters
+	 * @param offset index of the first parameter
+	 * @param count number of parameters, already checked
+	 * @return membership function
+	 */
+	abstract DoubleMembershipFunction create(double[] parameters, int offset, int count);
+
+}
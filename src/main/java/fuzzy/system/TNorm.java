@@ -0,0 +1,85 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package fuzzy.system;
+
+import java.util.function.DoubleBinaryOperator;
+
+/**
+ * Triangular norms, used as fuzzy <code>AND</code> between antecedents, and
+ * as implication between the firing strength of a rule and its consequent.
+ *
+ * @since 0.5
+ */
+public enum TNorm implements DoubleBinaryOperator {
+
+	/**
+	 * Minimum, <code>min(a, b)</code>. As implication, clips the consequent.
+	 */
+	MINIMUM {
+		@Override
+		public double applyAsDouble(double a, double b) {
+			return Math.min(a, b);
+		}
+	},
+	/**
+	 * Algebraic product, <code>a * b</code>. As implication, scales the
+	 * consequent.
+	 */
+	PRODUCT {
+		@Override
+		public double applyAsDouble(double a, double b) {
+			return a * b;
+		}
+	},
+	/**
+	 * Bounded difference (Lukasiewicz), <code>max(0, a + b - 1)</code>.
+	 */
+	BOUNDED_DIFFERENCE {
+		@Override
+		public double applyAsDouble(double a, double b) {
+			return Math.max(0.0, a + b - 1.0);
+		}
+	},
+	/**
+	 * Drastic product: <code>b</code> if <code>a</code> is one,
+	 * <code>a</code> if <code>b</code> is one, zero otherwise.
+	 */
+	DRASTIC_PRODUCT {
+		@Override
+		public double applyAsDouble(double a, double b) {
+			return a == 1.0 ? b : b == 1.0 ? a : 0.0;
+		}
+	},
+	/**
+	 * Einstein product, <code>a * b / (2 - (a + b - a * b))</code>.
+	 */
+	EINSTEIN_PRODUCT {
+		@Override
+		public double applyAsDouble(double a, double b) {
+			return a * b / (2.0 - (a + b - a * b));
+		}
+	},
+	/**
+	 * Hamacher product, <code>a * b / (a + b - a * b)</code>, zero if both are
+	 * zero.
+	 */
+	HAMACHER_PRODUCT {
+		@Override
+		public double applyAsDouble(double a, double b) {
+			final double denominator = a + b - a * b;
+			return denominator == 0.0 ? 0.0 : a * b / denominator;
+		}
+	};
+
+}
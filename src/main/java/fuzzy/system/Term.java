@@ -0,0 +1,125 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package fuzzy.system;
+
+import java.util.Arrays;
+
+import fuzzy.mf.DoubleMembershipFunction;
+
+/**
+ * A term of a linguistic variable, such as <em>cold</em> for a temperature:
+ * a name, and the shape and parameters of its membership function.
+ *
+ * <p>This class is immutable.</p>
+ *
+ * @since 0.5
+ */
+public final class Term {
+
+	private final String name;
+	private final Shape shape;
+	private final double[] parameters;
+	private final DoubleMembershipFunction membershipFunction;
+
+	/**
+	 * Creates a term. The parameters are copied.
+	 *
+	 * @param name name of the term
+	 * @param shape shape of the membership function
+	 * @param parameters parameters of the membership function, in the order
+	 * of its constructor
+	 * @throws IllegalArgumentException if the name is empty, or the
+	 * parameters are invalid for the shape
+	 */
+	public Term(String name, Shape shape, double... parameters) {
+		if (name == null || name.isEmpty()) {
+			throw new IllegalArgumentException("Missing term name");
+		}
+		this.name = name;
+		this.shape = shape;
+		this.parameters = parameters.clone();
+		this.membershipFunction = shape.create(this.parameters);
+	}
+
+	/**
+	 * @return name of the term
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return shape of the membership function
+	 */
+	public Shape getShape() {
+		return shape;
+	}
+
+	/**
+	 * @return copy of the parameters of the membership function
+	 */
+	public double[] getParameters() {
+		return parameters.clone();
+	}
+
+	/**
+	 * @return membership function
+	 */
+	public DoubleMembershipFunction getMembershipFunction() {
+		return membershipFunction;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#equals(java.lang.Object)
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if(obj == null) {
+			return false;
+		}
+		if(obj == this) {
+			return true;
+		}
+		if(!(obj instanceof Term)) {
+			return false;
+		}
+		final Term that = (Term)obj;
+		return this.name.equals(that.name) && this.shape == that.shape
+				&& Arrays.equals(this.parameters, that.parameters);
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#hashCode()
+	 */
+	@Override
+	public int hashCode() {
+		int hash = "Term".hashCode();
+		hash <<= 2;
+		hash ^= name.hashCode();
+		hash <<= 2;
+		hash ^= shape.ordinal();
+		hash <<= 2;
+		hash ^= Arrays.hashCode(parameters);
+		return hash;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "Term ["+name+" "+shape+" "+Arrays.toString(parameters)+"]";
+	}
+
+}
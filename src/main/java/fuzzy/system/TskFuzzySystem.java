@@ -0,0 +1,668 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package fuzzy.system;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Takagi-Sugeno-Kang fuzzy inference system, of order zero or one. The
+ * antecedents are fuzzified and fired as in a {@link MamdaniFuzzySystem};
+ * each consequent term is a function of the crisp inputs, a constant
+ * <code>c0</code> (zero order) or a linear function
+ * <code>c0 + c1 x1 + ... + cn xn</code> (first order), and each output is
+ * the average of the consequent functions of its rules, weighted by their
+ * firing strengths. There is no universe to sample and nothing to
+ * defuzzify.
+ *
+ * <p>
+ * A {@link Builder} compiles the variables and rules into flat arrays, and
+ * the coefficients of all consequent terms into one primitive matrix, with
+ * one row of <code>n + 1</code> coefficients per term. Evaluation only reads
+ * these arrays, and works in a {@link Workspace}, so that it does not
+ * allocate memory. Many samples may be evaluated at once with
+ * {@link #evaluateAll(double[][], double[][], double[][], int, Workspace)},
+ * one input variable at a time over arrays of samples, with the same results
+ * as one evaluation per sample for the membership functions of
+ * <code>fuzzy.mf</code>.
+ * </p>
+ *
+ * <p>
+ * An output for which no rule fires gets the default value of the system,
+ * NaN unless configured.
+ * </p>
+ *
+ * <p>
+ * This class is immutable and <strong>thread safe</strong>.
+ * </p>
+ *
+ * @since 0.5
+ */
+public final class TskFuzzySystem implements FuzzySystem {
+
+	/**
+	 * Number of samples evaluated together by
+	 * {@link #evaluateAll(double[][], double[][], double[][], int, Workspace)}.
+	 */
+	static final int CHUNK_SIZE = 256;
+
+	final Antecedents antecedents;
+	final Consequents consequents;
+	private final List<Rule> rules;
+
+	// coefficients of the consequent terms, numbered across all outputs
+	final int stride;
+	final double[] coefficients;
+	final int order;
+
+	private final double defaultValue;
+
+	private final ThreadLocal<Workspace> workspaces = new ThreadLocal<Workspace>() {
+		@Override
+		protected Workspace initialValue() {
+			return newWorkspace();
+		}
+	};
+
+	private TskFuzzySystem(Builder builder) {
+		this.rules = Collections.unmodifiableList(new ArrayList<Rule>(builder.rules));
+		this.antecedents = new Antecedents(builder.inputs, rules, builder.conjunction, builder.disjunction,
+				builder.indexed);
+		this.consequents = new Consequents(builder.outputs, builder.terms, rules);
+		consequents.checkNames(antecedents);
+		final int n = antecedents.inputs.length;
+		this.stride = n + 1;
+		this.coefficients = new double[consequents.outputTermOffsets[builder.outputs.size()] * stride];
+		int order = 0;
+		for (int o = 0; o < builder.outputs.size(); o++) {
+			final List<double[]> outputCoefficients = builder.coefficients.get(o);
+			for (int t = 0; t < outputCoefficients.size(); t++) {
+				final double[] c = outputCoefficients.get(t);
+				if (c.length != 1 && c.length != stride) {
+					throw new IllegalArgumentException("Expected 1 or " + stride + " coefficients for term "
+							+ builder.terms.get(o).get(t) + " of output " + builder.outputs.get(o));
+				}
+				System.arraycopy(c, 0, coefficients, (consequents.outputTermOffsets[o] + t) * stride, c.length);
+				if (c.length > 1) {
+					order = 1;
+				}
+			}
+		}
+		this.order = order;
+		this.defaultValue = builder.defaultValue;
+	}
+
+	/**
+	 * @return a new builder, with minimum <code>AND</code> and maximum
+	 * <code>OR</code>
+	 */
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	/**
+	 * Memory used by an evaluation: the fuzzified inputs and the firing
+	 * strengths of the rules, for one sample or a chunk of samples. Created by
+	 * {@link TskFuzzySystem#newWorkspace()}.
+	 *
+	 * <p>
+	 * This class is <strong>not thread safe</strong>. Use one instance per
+	 * thread.
+	 * </p>
+	 */
+	public static final class Workspace {
+
+		private final TskFuzzySystem system;
+		final double[] memberships;
+		final double[] strengths;
+		final RuleActivation activation;
+		// chunks of samples, allocated by the first batched evaluation
+		double[][] chunkInputs;
+		double[][] chunkMemberships;
+		double[][] chunkStrengths;
+		double[] numerators;
+		double[] denominators;
+
+		private Workspace(TskFuzzySystem system) {
+			this.system = system;
+			this.memberships = new double[system.antecedents.getTermCount()];
+			this.strengths = new double[system.antecedents.getRuleCount()];
+			this.activation = new RuleActivation(strengths.length);
+		}
+
+		/**
+		 * @param rule index of a rule
+		 * @return firing strength of the rule in the last evaluation of a
+		 * single sample, weight included
+		 */
+		public double getFiringStrength(int rule) {
+			return strengths[rule];
+		}
+
+		/**
+		 * @return number of rules visited by the last evaluation of a single
+		 * sample: all the rules, unless they are indexed
+		 */
+		public int getVisitedRuleCount() {
+			return activation.visitedCount;
+		}
+
+		/**
+		 * @return number of rules that fired with a strength above zero in the
+		 * last evaluation of a single sample
+		 */
+		public int getFiredRuleCount() {
+			return activation.firedCount;
+		}
+
+		private void allocateChunks() {
+			if (chunkInputs == null) {
+				chunkInputs = new double[system.antecedents.inputs.length][CHUNK_SIZE];
+				chunkMemberships = new double[memberships.length][CHUNK_SIZE];
+				chunkStrengths = new double[strengths.length][CHUNK_SIZE];
+				numerators = new double[CHUNK_SIZE];
+				denominators = new double[CHUNK_SIZE];
+			}
+		}
+
+	}
+
+	/**
+	 * @return a new workspace, to evaluate this system without allocating
+	 * memory
+	 */
+	public Workspace newWorkspace() {
+		return new Workspace(this);
+	}
+
+	/* (non-Javadoc)
+	 * @see fuzzy.system.FuzzySystem#evaluate(double[], double[])
+	 */
+	@Override
+	public void evaluate(double[] inputs, double[] outputs) {
+		evaluate(inputs, outputs, workspaces.get());
+	}
+
+	/**
+	 * Evaluates the system in a workspace.
+	 *
+	 * @param inputs crisp inputs, indexed like the input variables
+	 * @param outputs where the crisp outputs are stored, indexed like the
+	 * output variables
+	 * @param workspace workspace created by this system
+	 * @throws IllegalArgumentException if an array is too small, or the
+	 * workspace belongs to another system
+	 */
+	public void evaluate(double[] inputs, double[] outputs, Workspace workspace) {
+		final int n = antecedents.inputs.length;
+		final int m = consequents.outputs.length;
+		if (inputs.length < n || outputs.length < m) {
+			throw new IllegalArgumentException("Expected " + n + " inputs and " + m + " outputs");
+		}
+		checkWorkspace(workspace);
+		antecedents.evaluate(inputs, workspace.memberships, workspace.strengths, workspace.activation);
+		final double[] strengths = workspace.strengths;
+		final int[] offsets = consequents.consequentOffsets;
+		final int[] consequentRules = consequents.consequentRules;
+		final int[] consequentTerms = consequents.consequentTerms;
+		for (int o = 0; o < m; o++) {
+			double numerator = 0.0;
+			double denominator = 0.0;
+			for (int c = offsets[o]; c < offsets[o + 1]; c++) {
+				final double strength = strengths[consequentRules[c]];
+				if (!(strength > 0.0)) {
+					continue;
+				}
+				final int row = consequentTerms[c] * stride;
+				double value = coefficients[row];
+				if (order > 0) {
+					for (int v = 0; v < n; v++) {
+						value += coefficients[row + v + 1] * inputs[v];
+					}
+				}
+				numerator += strength * value;
+				denominator += strength;
+			}
+			outputs[o] = denominator > 0.0 ? numerator / denominator : defaultValue;
+		}
+	}
+
+	/**
+	 * Evaluates the system for many samples, stored as one array per
+	 * variable. The samples are processed in chunks: each input term fuzzifies
+	 * a whole chunk of an input at once, each rule is fired over the chunk,
+	 * and each consequent is accumulated over the chunk. The results are the
+	 * same as evaluating each sample on its own, as long as the bulk
+	 * evaluation of each membership function gives the same values as its
+	 * evaluation one crisp value at a time, as it does for the membership
+	 * functions of <code>fuzzy.mf</code>.
+	 *
+	 * @param inputs crisp inputs, <code>inputs[i][s]</code> being the value of
+	 * the i-th input variable in the s-th sample
+	 * @param outputs where the crisp outputs are stored,
+	 * <code>outputs[o][s]</code> being the o-th output of the s-th sample
+	 * @param strengths where the firing strengths are stored,
+	 * <code>strengths[k][s]</code> being the firing strength of the k-th rule
+	 * in the s-th sample, or <code>null</code>
+	 * @param count number of samples, the first ones of each array
+	 * @param workspace workspace created by this system
+	 * @throws IllegalArgumentException if the count is negative, an array is
+	 * too small, or the workspace belongs to another system
+	 */
+	public void evaluateAll(double[][] inputs, double[][] outputs, double[][] strengths, int count,
+			Workspace workspace) {
+		final int n = antecedents.inputs.length;
+		final int m = consequents.outputs.length;
+		final int r = antecedents.getRuleCount();
+		if (inputs.length < n || outputs.length < m || (strengths != null && strengths.length < r)) {
+			throw new IllegalArgumentException("Expected " + n + " inputs, " + m + " outputs and " + r + " rules");
+		}
+		if (count < 0) {
+			throw new IllegalArgumentException("Invalid number of samples " + count);
+		}
+		checkLength(inputs, n, count, "inputs");
+		checkLength(outputs, m, count, "outputs");
+		if (strengths != null) {
+			checkLength(strengths, r, count, "firing strengths");
+		}
+		checkWorkspace(workspace);
+		workspace.allocateChunks();
+		for (int from = 0; from < count; from += CHUNK_SIZE) {
+			final int length = Math.min(CHUNK_SIZE, count - from);
+			fuzzifyChunk(inputs, from, length, workspace);
+			fireChunk(length, workspace);
+			for (int o = 0; o < m; o++) {
+				accumulateChunk(o, length, workspace);
+				final double[] numerators = workspace.numerators;
+				final double[] denominators = workspace.denominators;
+				final double[] output = outputs[o];
+				for (int s = 0; s < length; s++) {
+					output[from + s] = denominators[s] > 0.0 ? numerators[s] / denominators[s] : defaultValue;
+				}
+			}
+			if (strengths != null) {
+				for (int k = 0; k < r; k++) {
+					System.arraycopy(workspace.chunkStrengths[k], 0, strengths[k], from, length);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Copies a chunk of each input, and fuzzifies it with the terms of the
+	 * input.
+	 */
+	private void fuzzifyChunk(double[][] inputs, int from, int length, Workspace workspace) {
+		final int[] offsets = antecedents.inputTermOffsets;
+		for (int v = 0; v < antecedents.inputs.length; v++) {
+			final double[] x = workspace.chunkInputs[v];
+			System.arraycopy(inputs[v], from, x, 0, length);
+			for (int t = offsets[v]; t < offsets[v + 1]; t++) {
+				antecedents.termFunctions[t].applyAll(x, 0, length, workspace.chunkMemberships[t]);
+			}
+		}
+	}
+
+	/**
+	 * Fires each rule over a chunk, combining its antecedents in the same
+	 * order as {@link Antecedents#fire(int, double[])}.
+	 */
+	private void fireChunk(int length, Workspace workspace) {
+		final Antecedents a = antecedents;
+		for (int k = 0; k < a.getRuleCount(); k++) {
+			final double[] strength = workspace.chunkStrengths[k];
+			final boolean or = a.disjunctive[k];
+			Arrays.fill(strength, 0, length, or ? 0.0 : 1.0);
+			for (int p = a.antecedentOffsets[k]; p < a.antecedentOffsets[k + 1]; p++) {
+				final double[] memberships = workspace.chunkMemberships[a.antecedentTerms[p]];
+				final boolean negated = a.antecedentNegated[p];
+				if (!or && !negated && a.conjunction == TNorm.MINIMUM) {
+					for (int s = 0; s < length; s++) {
+						strength[s] = Math.min(strength[s], memberships[s]);
+					}
+				} else if (!or && !negated && a.conjunction == TNorm.PRODUCT) {
+					for (int s = 0; s < length; s++) {
+						strength[s] = strength[s] * memberships[s];
+					}
+				} else {
+					for (int s = 0; s < length; s++) {
+						final double membership = negated ? 1.0 - memberships[s] : memberships[s];
+						strength[s] = or ? a.disjunction.applyAsDouble(strength[s], membership)
+								: a.conjunction.applyAsDouble(strength[s], membership);
+					}
+				}
+			}
+			final double weight = a.weights[k];
+			for (int s = 0; s < length; s++) {
+				strength[s] = strength[s] * weight;
+			}
+		}
+	}
+
+	/**
+	 * Sums the weighted consequent functions of an output, and the firing
+	 * strengths of its rules, over a chunk.
+	 */
+	private void accumulateChunk(int o, int length, Workspace workspace) {
+		final int n = antecedents.inputs.length;
+		final double[] numerators = workspace.numerators;
+		final double[] denominators = workspace.denominators;
+		Arrays.fill(numerators, 0, length, 0.0);
+		Arrays.fill(denominators, 0, length, 0.0);
+		final int[] offsets = consequents.consequentOffsets;
+		for (int c = offsets[o]; c < offsets[o + 1]; c++) {
+			final double[] strength = workspace.chunkStrengths[consequents.consequentRules[c]];
+			final int row = consequents.consequentTerms[c] * stride;
+			final double constant = coefficients[row];
+			for (int s = 0; s < length; s++) {
+				final double w = strength[s];
+				if (!(w > 0.0)) {
+					continue;
+				}
+				double value = constant;
+				if (order > 0) {
+					for (int v = 0; v < n; v++) {
+						value += coefficients[row + v + 1] * workspace.chunkInputs[v][s];
+					}
+				}
+				numerators[s] += w * value;
+				denominators[s] += w;
+			}
+		}
+	}
+
+	/**
+	 * @throws IllegalArgumentException if one of the first arrays has fewer
+	 * than <code>count</code> values
+	 */
+	private static void checkLength(double[][] arrays, int size, int count, String name) {
+		for (int i = 0; i < size; i++) {
+			if (arrays[i].length < count) {
+				throw new IllegalArgumentException("Expected " + count + " samples in " + name + " " + i + ", got "
+						+ arrays[i].length);
+			}
+		}
+	}
+
+	private void checkWorkspace(Workspace workspace) {
+		if (workspace.system != this) {
+			throw new IllegalArgumentException("Workspace of another fuzzy system");
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see fuzzy.system.FuzzySystem#getInputCount()
+	 */
+	@Override
+	public int getInputCount() {
+		return antecedents.inputs.length;
+	}
+
+	/* (non-Javadoc)
+	 * @see fuzzy.system.FuzzySystem#getInput(int)
+	 */
+	@Override
+	public LinguisticVariable getInput(int i) {
+		return antecedents.inputs[i];
+	}
+
+	/* (non-Javadoc)
+	 * @see fuzzy.system.FuzzySystem#getOutputCount()
+	 */
+	@Override
+	public int getOutputCount() {
+		return consequents.outputs.length;
+	}
+
+	/* (non-Javadoc)
+	 * @see fuzzy.system.FuzzySystem#getOutputName(int)
+	 */
+	@Override
+	public String getOutputName(int i) {
+		return consequents.outputs[i];
+	}
+
+	/**
+	 * @param output index of an output variable
+	 * @param term name of a term of the output
+	 * @return coefficients <code>c0, c1, ..., cn</code> of the term, in a new
+	 * array; all but <code>c0</code> are zero for a constant term
+	 * @throws IllegalArgumentException if the output has no such term
+	 */
+	public double[] getCoefficients(int output, String term) {
+		for (int t = consequents.outputTermOffsets[output]; t < consequents.outputTermOffsets[output + 1]; t++) {
+			if (consequents.termNames[t].equals(term)) {
+				final double[] c = new double[stride];
+				System.arraycopy(coefficients, t * stride, c, 0, stride);
+				return c;
+			}
+		}
+		throw new IllegalArgumentException("Unknown term " + term + " of output " + consequents.outputs[output]);
+	}
+
+	/**
+	 * @return 0 if every consequent term is a constant, 1 otherwise
+	 */
+	public int getOrder() {
+		return order;
+	}
+
+	/**
+	 * @return rules, unmodifiable
+	 */
+	public List<Rule> getRules() {
+		return rules;
+	}
+
+	/**
+	 * @return t-norm of <code>AND</code>
+	 */
+	public TNorm getConjunction() {
+		return antecedents.conjunction;
+	}
+
+	/**
+	 * @return s-norm of <code>OR</code>
+	 */
+	public SNorm getDisjunction() {
+		return antecedents.disjunction;
+	}
+
+	/**
+	 * @return output when no rule fires
+	 */
+	public double getDefaultValue() {
+		return defaultValue;
+	}
+
+	/**
+	 * @return whether the rules are indexed over the supports of their
+	 * antecedents
+	 */
+	public boolean isRuleIndexed() {
+		return antecedents.index != null;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "TSK Fuzzy System ["+antecedents.inputs.length+" "+consequents.outputs.length+" "+rules.size()+" "
+				+order+" "+antecedents.conjunction+" "+antecedents.disjunction+"]";
+	}
+
+	/**
+	 * Collects the variables, consequent functions, rules and operators of a
+	 * {@link TskFuzzySystem}, and compiles them.
+	 *
+	 * <p>
+	 * This class is <strong>not thread safe</strong>.
+	 * </p>
+	 */
+	public static final class Builder {
+
+		private final List<LinguisticVariable> inputs = new ArrayList<LinguisticVariable>();
+		private final List<String> outputs = new ArrayList<String>();
+		private final List<List<String>> terms = new ArrayList<List<String>>();
+		private final List<List<double[]>> coefficients = new ArrayList<List<double[]>>();
+		private final List<Rule> rules = new ArrayList<Rule>();
+		private TNorm conjunction = TNorm.MINIMUM;
+		private SNorm disjunction = SNorm.MAXIMUM;
+		private double defaultValue = Double.NaN;
+		private boolean indexed;
+
+		private Builder() {
+		}
+
+		/**
+		 * @param variable input variable
+		 * @return this builder
+		 */
+		public Builder input(LinguisticVariable variable) {
+			inputs.add(variable);
+			return this;
+		}
+
+		/**
+		 * @param name name of an output variable
+		 * @return this builder
+		 */
+		public Builder output(String name) {
+			outputs.add(name);
+			terms.add(new ArrayList<String>());
+			coefficients.add(new ArrayList<double[]>());
+			return this;
+		}
+
+		/**
+		 * Adds a constant term, of a zero-order system.
+		 *
+		 * @param output name of an output variable
+		 * @param term name of the term
+		 * @param value value of the term
+		 * @return this builder
+		 * @throws IllegalArgumentException if the output is unknown, or
+		 * already has the term
+		 */
+		public Builder constant(String output, String term, double value) {
+			return term(output, term, new double[] { value });
+		}
+
+		/**
+		 * Adds a linear term, of a first-order system.
+		 *
+		 * @param output name of an output variable
+		 * @param term name of the term
+		 * @param coefficients the constant <code>c0</code>, then the
+		 * coefficient of each input variable, in order
+		 * @return this builder
+		 * @throws IllegalArgumentException if the output is unknown, or
+		 * already has the term
+		 */
+		public Builder linear(String output, String term, double... coefficients) {
+			return term(output, term, coefficients.clone());
+		}
+
+		private Builder term(String output, String term, double[] c) {
+			final int o = outputs.indexOf(output);
+			if (o < 0) {
+				throw new IllegalArgumentException("Unknown output variable " + output);
+			}
+			if (terms.get(o).contains(term)) {
+				throw new IllegalArgumentException("Duplicate term " + term + " of output " + output);
+			}
+			terms.get(o).add(term);
+			coefficients.get(o).add(c);
+			return this;
+		}
+
+		/**
+		 * @param rule rule
+		 * @return this builder
+		 */
+		public Builder rule(Rule rule) {
+			rules.add(rule);
+			return this;
+		}
+
+		/**
+		 * @param rules rules
+		 * @return this builder
+		 */
+		public Builder rules(Collection<Rule> rules) {
+			this.rules.addAll(rules);
+			return this;
+		}
+
+		/**
+		 * @param conjunction t-norm of <code>AND</code>
+		 * @return this builder
+		 */
+		public Builder conjunction(TNorm conjunction) {
+			this.conjunction = conjunction;
+			return this;
+		}
+
+		/**
+		 * @param disjunction s-norm of <code>OR</code>
+		 * @return this builder
+		 */
+		public Builder disjunction(SNorm disjunction) {
+			this.disjunction = disjunction;
+			return this;
+		}
+
+		/**
+		 * @param defaultValue output when no rule fires
+		 * @return this builder
+		 */
+		public Builder defaultValue(double defaultValue) {
+			this.defaultValue = defaultValue;
+			return this;
+		}
+
+		/**
+		 * Indexes the rules over the supports of their antecedents, so that
+		 * an evaluation only visits the rules that may fire. Worth it with
+		 * many rules, of which few fire at a time.
+		 *
+		 * @param indexed whether to index the rules, <code>false</code> by
+		 * default
+		 * @return this builder
+		 */
+		public Builder indexRules(boolean indexed) {
+			this.indexed = indexed;
+			return this;
+		}
+
+		/**
+		 * Compiles the fuzzy system.
+		 *
+		 * @return a new fuzzy system
+		 * @throws IllegalArgumentException if there is no input or output,
+		 * two variables have the same name, a linear term does not have one
+		 * coefficient per input plus the constant, or a rule refers to an
+		 * unknown variable or term
+		 */
+		public TskFuzzySystem build() {
+			return new TskFuzzySystem(this);
+		}
+
+	}
+
+}
@@ -13,20 +13,20 @@
  */
 package fuzzy.util;
 
-import java.math.BigDecimal;
-import java.math.MathContext;
 import java.math.RoundingMode;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.function.BiFunction;
 
+import fuzzy.mf.DoubleMembershipFunction;
 import fuzzy.mf.MembershipFunction;
 
 /**
  * Gets the maximum values of a membership function applied over a collection.
  * Returns a map which the key is the the crisp value and the value its
- * fuzzy value.
+ * fuzzy value. Fuzzy values are rounded with a {@link PlateauScanner}, which
+ * also finds the maxima of arrays of fuzzy values without creating a map.
  *
  * @param <T> numeric type
  * @since 0.2
@@ -36,17 +36,14 @@ public class MaxMF<T extends Number & Comparable<T>> implements BiFunction<Colle
     public static final int DEFAULT_PRECISION = 4; // same as Matlab
     public static final RoundingMode DEFAULT_ROUNDING_MODE = RoundingMode.HALF_UP;
 
-    private final int precision;
-    private final RoundingMode roundingMode;
+    private final PlateauScanner scanner;
 
     public MaxMF() {
-        precision = DEFAULT_PRECISION;
-        roundingMode = DEFAULT_ROUNDING_MODE;
+        this(DEFAULT_PRECISION, DEFAULT_ROUNDING_MODE);
     }
 
     public MaxMF(int precision, RoundingMode roundingMode) {
-        this.precision = precision;
-        this.roundingMode = roundingMode;
+        this.scanner = new PlateauScanner(precision, roundingMode);
     }
 
 	/*
@@ -56,17 +53,19 @@ public class MaxMF<T extends Number & Comparable<T>> implements BiFunction<Colle
 	public Map<Double, Double> apply(Collection<T> x,
             MembershipFunction<T> mf) {
         Map<Double, Double> max = new HashMap<Double, Double>();
-        BigDecimal maxValue = BigDecimal.valueOf(0.0);
+        double maxValue = 0.0;
         boolean first = true;
+        final DoubleMembershipFunction primitive = mf instanceof DoubleMembershipFunction ? (DoubleMembershipFunction) mf : null;
         for(T value : x) {
-            BigDecimal temp = new BigDecimal(mf.apply(value), new MathContext(precision, roundingMode));
-            if (first || temp.compareTo(maxValue) > 0) {
+            final double fuzzyValue = primitive != null ? primitive.applyAsDouble(value.doubleValue()) : mf.apply(value);
+            final double temp = scanner.round(fuzzyValue);
+            if (first || temp > maxValue) {
                 first = false;
                 maxValue = temp;
                 max.clear();
-                max.put(value.doubleValue(), temp.doubleValue());
-            } else if (temp.compareTo(maxValue) == 0) {
-                max.put(value.doubleValue(), temp.doubleValue());
+                max.put(value.doubleValue(), temp);
+            } else if (temp == maxValue) {
+                max.put(value.doubleValue(), temp);
             } // else ignore since it's less than the maximum value
         }
         return max;
@@ -0,0 +1,493 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package fuzzy.util;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.Arrays;
+
+/**
+ * Finds the maxima of an array of fuzzy values, as runs of consecutive
+ * indices (plateaus), without creating objects.
+ *
+ * <p>
+ * Fuzzy values are compared after rounding them to a number of significant
+ * digits, four by default like Matlab, so that values that only differ in
+ * their last digits belong to the same plateau. The rounding gives the same
+ * results as rounding with {@link BigDecimal} and a {@link MathContext}, as
+ * {@link MaxMF} used to do, but uses primitive arithmetic. Only values
+ * within about a billionth of a digit of a rounding boundary are rounded
+ * with {@link BigDecimal}, to get the boundary right.
+ * </p>
+ *
+ * <p>
+ * This class is immutable and <strong>thread safe</strong>. The
+ * {@link Plateaus} it fills are not.
+ * </p>
+ *
+ * @since 0.5
+ */
+public final class PlateauScanner {
+
+	/**
+	 * Minimum distance to a rounding boundary, in units of the last
+	 * significant digit, under which a value is rounded with
+	 * {@link BigDecimal}.
+	 */
+	private static final double BOUNDARY_MARGIN = 1e-9;
+
+	/**
+	 * Powers of ten that are exact doubles.
+	 */
+	private static final double[] POWERS_OF_TEN = new double[23];
+	static {
+		POWERS_OF_TEN[0] = 1.0;
+		for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+			POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10.0;
+		}
+	}
+
+	private final int precision;
+	private final RoundingMode roundingMode;
+	private final MathContext mathContext;
+
+	/**
+	 * Creates a scanner that rounds to {@link MaxMF#DEFAULT_PRECISION}
+	 * significant digits with {@link MaxMF#DEFAULT_ROUNDING_MODE}, like
+	 * Matlab.
+	 */
+	public PlateauScanner() {
+		this(MaxMF.DEFAULT_PRECISION, MaxMF.DEFAULT_ROUNDING_MODE);
+	}
+
+	/**
+	 * Creates a scanner.
+	 *
+	 * @param precision number of significant digits, or zero to compare the
+	 * fuzzy values exactly
+	 * @param roundingMode rounding mode
+	 * @throws IllegalArgumentException if the precision is negative
+	 */
+	public PlateauScanner(int precision, RoundingMode roundingMode) {
+		this.mathContext = new MathContext(precision, roundingMode);
+		this.precision = precision;
+		this.roundingMode = roundingMode;
+	}
+
+	/**
+	 * @return number of significant digits, zero if the fuzzy values are
+	 * compared exactly
+	 */
+	public int getPrecision() {
+		return precision;
+	}
+
+	/**
+	 * @return rounding mode
+	 */
+	public RoundingMode getRoundingMode() {
+		return roundingMode;
+	}
+
+	/**
+	 * Rounds a fuzzy value to the precision of this scanner. Gives the same
+	 * result as <code>new BigDecimal(value, mathContext).doubleValue()</code>.
+	 *
+	 * @param value fuzzy value
+	 * @return rounded value
+	 * @throws NumberFormatException if the value is NaN or infinite
+	 */
+	public double round(double value) {
+		final double magnitude = Math.abs(value);
+		if (Double.isNaN(magnitude) || Double.isInfinite(magnitude)) {
+			return exact(value);
+		}
+		if (precision == 0 || value == 0.0) {
+			return value;
+		}
+		if (precision >= POWERS_OF_TEN.length) {
+			return exact(value);
+		}
+		// scale the magnitude so that its integer part has precision digits
+		int scale = precision - 1 - (int) Math.floor(Math.log10(magnitude));
+		double scaled = scale(magnitude, scale);
+		if (scaled >= POWERS_OF_TEN[precision]) {
+			scale--;
+			scaled = scale(magnitude, scale);
+		} else if (scaled < POWERS_OF_TEN[precision - 1]) {
+			scale++;
+			scaled = scale(magnitude, scale);
+		}
+		if (Math.abs(scale) >= POWERS_OF_TEN.length) {
+			return exact(value);
+		}
+		// the scaled magnitude is off by an ulp at most
+		final double margin = Math.max(BOUNDARY_MARGIN, scaled * 0x1.0p-50);
+		final double floor = Math.floor(scaled);
+		final double fraction = scaled - floor;
+		final double rounded;
+		switch (roundingMode) {
+		case HALF_UP:
+		case HALF_DOWN:
+		case HALF_EVEN:
+			if (Math.abs(fraction - 0.5) < margin) {
+				return exact(value);
+			}
+			rounded = fraction > 0.5 ? floor + 1 : floor;
+			break;
+		case DOWN:
+		case UP:
+		case FLOOR:
+		case CEILING:
+			if (fraction < margin || fraction > 1 - margin) {
+				return exact(value);
+			}
+			final boolean awayFromZero = roundingMode == RoundingMode.UP
+					|| (roundingMode == RoundingMode.CEILING && value > 0)
+					|| (roundingMode == RoundingMode.FLOOR && value < 0);
+			rounded = awayFromZero ? floor + 1 : floor;
+			break;
+		default:
+			return exact(value);
+		}
+		final double result = scale > 0 ? rounded / POWERS_OF_TEN[scale] : rounded * POWERS_OF_TEN[-scale];
+		return value < 0 ? -result : result;
+	}
+
+	/**
+	 * @param magnitude positive value
+	 * @param scale power of ten
+	 * @return magnitude times ten to the scale
+	 */
+	private static double scale(double magnitude, int scale) {
+		if (scale >= 0) {
+			return scale < POWERS_OF_TEN.length ? magnitude * POWERS_OF_TEN[scale] : magnitude * Math.pow(10, scale);
+		}
+		return -scale < POWERS_OF_TEN.length ? magnitude / POWERS_OF_TEN[-scale] : magnitude / Math.pow(10, -scale);
+	}
+
+	/**
+	 * Rounds with {@link BigDecimal}.
+	 */
+	private double exact(double value) {
+		return new BigDecimal(value, mathContext).doubleValue();
+	}
+
+	/**
+	 * Finds the maxima of <code>fuzzyValues[from]</code> to
+	 * <code>fuzzyValues[to - 1]</code>.
+	 *
+	 * @param fuzzyValues fuzzy values
+	 * @param from first index, inclusive
+	 * @param to last index, exclusive
+	 * @param plateaus where the maxima are stored, cleared first
+	 * @return <code>plateaus</code>
+	 * @throws NumberFormatException if a fuzzy value is NaN or infinite
+	 */
+	public Plateaus scan(double[] fuzzyValues, int from, int to, Plateaus plateaus) {
+		plateaus.clear();
+		double height = Double.NEGATIVE_INFINITY;
+		// values under the threshold are below the height once rounded
+		double threshold = Double.NEGATIVE_INFINITY;
+		for (int i = from; i < to; i++) {
+			final double value = fuzzyValues[i];
+			if (value < threshold) {
+				continue;
+			}
+			final double rounded = round(value);
+			if (rounded > height) {
+				height = rounded;
+				threshold = threshold(rounded);
+				plateaus.restart(rounded, i);
+			} else if (rounded == height) {
+				plateaus.extend(i);
+			}
+		}
+		return plateaus;
+	}
+
+	/**
+	 * Finds the maxima of an array of fuzzy values.
+	 *
+	 * @param fuzzyValues fuzzy values
+	 * @return maxima, in new plateaus
+	 * @throws NumberFormatException if a fuzzy value is NaN or infinite
+	 */
+	public Plateaus scan(double[] fuzzyValues) {
+		return scan(fuzzyValues, 0, fuzzyValues.length, new Plateaus());
+	}
+
+	/**
+	 * Returns a value under which every fuzzy value rounds to less than a
+	 * positive rounded height: the height minus a little more than a unit of
+	 * its last significant digit.
+	 *
+	 * @param height rounded height
+	 * @return threshold, negative infinity if none is known
+	 */
+	private double threshold(double height) {
+		if (precision == 0) {
+			return height;
+		}
+		if (!(height > 0.0) || Double.isInfinite(height)) {
+			return Double.NEGATIVE_INFINITY;
+		}
+		final double unit = Math.pow(10, Math.floor(Math.log10(height)) + 1 - precision);
+		return height - 1.01 * unit;
+	}
+
+	/**
+	 * Maxima found by a {@link PlateauScanner}: the rounded maximum fuzzy
+	 * value, and the runs of consecutive indices where it is reached. The
+	 * arrays grow as needed, and are reused when scanning again.
+	 *
+	 * <p>
+	 * This class is <strong>not thread safe</strong>.
+	 * </p>
+	 */
+	public static final class Plateaus {
+
+		private int[] starts = new int[4];
+		private int[] ends = new int[4];
+		private int size;
+		private int count;
+		private double height = Double.NaN;
+
+		/**
+		 * Removes all plateaus.
+		 */
+		void clear() {
+			size = 0;
+			count = 0;
+			height = Double.NaN;
+		}
+
+		/**
+		 * Starts over with a single plateau, at a new height.
+		 */
+		void restart(double height, int index) {
+			this.height = height;
+			starts[0] = index;
+			ends[0] = index + 1;
+			size = 1;
+			count = 1;
+		}
+
+		/**
+		 * Adds an index at the current height, extending the last plateau if
+		 * the index follows it.
+		 */
+		void extend(int index) {
+			count++;
+			if (ends[size - 1] == index) {
+				ends[size - 1] = index + 1;
+				return;
+			}
+			if (size == starts.length) {
+				starts = Arrays.copyOf(starts, size * 2);
+				ends = Arrays.copyOf(ends, size * 2);
+			}
+			starts[size] = index;
+			ends[size] = index + 1;
+			size++;
+		}
+
+		/**
+		 * @return <code>true</code> if no fuzzy value was scanned
+		 */
+		public boolean isEmpty() {
+			return size == 0;
+		}
+
+		/**
+		 * @return rounded maximum fuzzy value, NaN if empty
+		 */
+		public double getHeight() {
+			return height;
+		}
+
+		/**
+		 * @return number of plateaus
+		 */
+		public int size() {
+			return size;
+		}
+
+		/**
+		 * @return number of indices in all plateaus
+		 */
+		public int getCount() {
+			return count;
+		}
+
+		/**
+		 * @param i plateau
+		 * @return first index of the plateau, inclusive
+		 */
+		public int getStart(int i) {
+			return starts[i];
+		}
+
+		/**
+		 * @param i plateau
+		 * @return last index of the plateau, exclusive
+		 */
+		public int getEnd(int i) {
+			return ends[i];
+		}
+
+		/**
+		 * Returns the crisp value with the smallest absolute value among the
+		 * maxima, as the Matlab <code>som</code> defuzzification function.
+		 *
+		 * @param crispValues crisp values, indexed like the fuzzy values
+		 * @return smallest of maxima, zero if empty
+		 */
+		public double smallest(double[] crispValues) {
+			double out = 0.0;
+			double min = Double.POSITIVE_INFINITY;
+			for (int p = 0; p < size; p++) {
+				for (int i = starts[p]; i < ends[p]; i++) {
+					if (Math.abs(crispValues[i]) < min) {
+						min = Math.abs(crispValues[i]);
+						out = crispValues[i];
+					}
+				}
+			}
+			return out;
+		}
+
+		/**
+		 * Returns the crisp value with the largest absolute value among the
+		 * maxima, as the Matlab <code>lom</code> defuzzification function.
+		 *
+		 * @param crispValues crisp values, indexed like the fuzzy values
+		 * @return largest of maxima, zero if empty
+		 */
+		public double largest(double[] crispValues) {
+			double out = 0.0;
+			double max = Double.NEGATIVE_INFINITY;
+			for (int p = 0; p < size; p++) {
+				for (int i = starts[p]; i < ends[p]; i++) {
+					if (Math.abs(crispValues[i]) > max) {
+						max = Math.abs(crispValues[i]);
+						out = crispValues[i];
+					}
+				}
+			}
+			return out;
+		}
+
+		/**
+		 * Returns the crisp value of the first maximum, the left-most maximum
+		 * of IEC 61131-7 for crisp values in increasing order.
+		 *
+		 * @param crispValues crisp values, indexed like the fuzzy values
+		 * @return first of maxima, NaN if empty
+		 */
+		public double first(double[] crispValues) {
+			return size == 0 ? Double.NaN : crispValues[starts[0]];
+		}
+
+		/**
+		 * Returns the crisp value of the last maximum, the right-most maximum
+		 * of IEC 61131-7 for crisp values in increasing order.
+		 *
+		 * @param crispValues crisp values, indexed like the fuzzy values
+		 * @return last of maxima, NaN if empty
+		 */
+		public double last(double[] crispValues) {
+			return size == 0 ? Double.NaN : crispValues[ends[size - 1] - 1];
+		}
+
+		/**
+		 * Returns the mean of the crisp values of the maxima, as the Matlab
+		 * <code>mom</code> defuzzification function.
+		 *
+		 * @param crispValues crisp values, indexed like the fuzzy values
+		 * @return mean of maxima, NaN if empty
+		 */
+		public double mean(double[] crispValues) {
+			double sum = 0.0;
+			for (int p = 0; p < size; p++) {
+				for (int i = starts[p]; i < ends[p]; i++) {
+					sum += crispValues[i];
+				}
+			}
+			final double mean = sum / count;
+			// second pass, to correct the rounding errors of the sum
+			double correction = 0.0;
+			for (int p = 0; p < size; p++) {
+				for (int i = starts[p]; i < ends[p]; i++) {
+					correction += crispValues[i] - mean;
+				}
+			}
+			return mean + correction / count;
+		}
+
+		/* (non-Javadoc)
+		 * @see java.lang.Object#toString()
+		 */
+		@Override
+		public String toString() {
+			final StringBuilder sb = new StringBuilder("Plateaus [").append(height);
+			for (int p = 0; p < size; p++) {
+				sb.append(' ').append(starts[p]).append('-').append(ends[p]);
+			}
+			return sb.append(']').toString();
+		}
+
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#equals(java.lang.Object)
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if(obj == null) {
+			return false;
+		}
+		if(obj == this) {
+			return true;
+		}
+		if(!(obj instanceof PlateauScanner)) {
+			return false;
+		}
+		final PlateauScanner that = (PlateauScanner)obj;
+		return this.precision == that.precision && this.roundingMode == that.roundingMode;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#hashCode()
+	 */
+	@Override
+	public int hashCode() {
+		int hash = "PlateauScanner".hashCode();
+		hash <<= 2;
+		hash ^= precision;
+		hash <<= 2;
+		hash ^= roundingMode.ordinal();
+		return hash;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "Plateau Scanner ["+precision+" "+roundingMode+"]";
+	}
+
+}
@@ -0,0 +1,252 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package fuzzy.cluster;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import fuzzy.mf.GaussianMembershipFunction;
+import fuzzy.system.LinguisticVariable;
+
+/**
+ * Tests for Fuzzy C-Means.
+ *
+ * @since 0.5
+ * @see FuzzyCMeans
+ */
+public class TestFuzzyCMeans {
+
+	private static final double[][] CENTERS = { { 0.0, 0.0 }, { 10.0, 0.0 }, { 0.0, 10.0 } };
+
+	/**
+	 * @return rows of two features drawn around the three centers in turn,
+	 * with a standard deviation of one
+	 */
+	static double[] blobs(int rows, long seed) {
+		final Random random = new Random(seed);
+		final double[] data = new double[rows * 2];
+		for (int r = 0; r < rows; r++) {
+			data[r * 2] = CENTERS[r % 3][0] + random.nextGaussian();
+			data[r * 2 + 1] = CENTERS[r % 3][1] + random.nextGaussian();
+		}
+		return data;
+	}
+
+	/**
+	 * @return index of the cluster nearest to a point
+	 */
+	private static int nearest(FuzzyCMeans.Result result, double[] point) {
+		int best = -1;
+		double distance = Double.POSITIVE_INFINITY;
+		for (int k = 0; k < result.getClusters(); k++) {
+			final double dx = result.getCenter(k, 0) - point[0];
+			final double dy = result.getCenter(k, 1) - point[1];
+			if (dx * dx + dy * dy < distance) {
+				distance = dx * dx + dy * dy;
+				best = k;
+			}
+		}
+		return best;
+	}
+
+	private static void assertBlobs(FuzzyCMeans.Result result, double delta) {
+		final boolean[] found = new boolean[3];
+		for (double[] center : CENTERS) {
+			final int k = nearest(result, center);
+			found[k] = true;
+			assertEquals(center[0], result.getCenter(k, 0), delta);
+			assertEquals(center[1], result.getCenter(k, 1), delta);
+		}
+		assertTrue(found[0] && found[1] && found[2]);
+	}
+
+	@Test
+	public void testCluster() {
+		final double[] data = blobs(3000, 1);
+		final FuzzyCMeans.Result result = FuzzyCMeans.builder(3).build().cluster(data, 2);
+		assertTrue(result.isConverged());
+		assertTrue(result.getIterations() > 1);
+		assertBlobs(result, 0.2);
+		for (int k = 0; k < 3; k++) {
+			// the memberships of the other blobs widen the spreads
+			assertEquals(1.0, result.getSpread(k, 0), 0.3);
+			assertEquals(1.0, result.getSpread(k, 1), 0.3);
+		}
+		assertTrue(result.getObjective() > 0.0);
+	}
+
+	@Test
+	public void testFuzziness() {
+		final double[] data = blobs(3000, 2);
+		final FuzzyCMeans.Result result = FuzzyCMeans.builder(3).fuzziness(1.5).build().cluster(data, 2);
+		assertTrue(result.isConverged());
+		assertBlobs(result, 0.1);
+	}
+
+	@Test
+	public void testMemberships() {
+		final double[] data = blobs(300, 3);
+		final FuzzyCMeans.Result result = FuzzyCMeans.builder(3).build().cluster(data, 2);
+		final double[] memberships = new double[100 * 3];
+		result.memberships(data, 200, 300, memberships);
+		for (int r = 0; r < 100; r++) {
+			final double[] row = { data[(200 + r) * 2], data[(200 + r) * 2 + 1] };
+			assertEquals(1.0, memberships[r * 3] + memberships[r * 3 + 1] + memberships[r * 3 + 2], 1e-12);
+			final int k = nearest(result, row);
+			for (int j = 0; j < 3; j++) {
+				assertTrue(memberships[r * 3 + k] >= memberships[r * 3 + j]);
+			}
+		}
+		// a row on a center belongs to it only
+		final double[] center = { result.getCenter(1, 0), result.getCenter(1, 1) };
+		final double[] u = new double[3];
+		result.memberships(center, 0, 1, u);
+		assertArrayEquals(new double[] { 0.0, 1.0, 0.0 }, u, 0.0);
+	}
+
+	@Test
+	public void testNearlyCoincidentRows() {
+		// a squared distance of 1e-32 to the power -1 / (m - 1) = -10
+		// overflows, unless relative to the nearest center
+		final FuzzyCMeans.Result result = FuzzyCMeans.builder(3).fuzziness(1.1).build().cluster(blobs(300, 8), 2);
+		final int k = nearest(result, CENTERS[0]);
+		final double[] rows = { result.getCenter(k, 0) + 1e-16, result.getCenter(k, 1),
+				result.getCenter(k, 0) + 1e-16, result.getCenter(k, 1) + 1e-16, 5.0, 5.0 };
+		final double[] u = new double[9];
+		result.memberships(rows, 0, 3, u);
+		for (int r = 0; r < 3; r++) {
+			assertEquals(1.0, u[r * 3] + u[r * 3 + 1] + u[r * 3 + 2], 1e-12);
+		}
+		assertEquals(1.0, u[k], 1e-12);
+		assertEquals(1.0, u[3 + k], 1e-12);
+		// and the centers stay finite with such rows in the data
+		final double[] data = blobs(300, 9);
+		for (int r = 0; r < 300; r += 3) {
+			data[r * 2 + 2] = data[r * 2] + 1e-16;
+			data[r * 2 + 3] = data[r * 2 + 1];
+		}
+		final FuzzyCMeans.Result close = FuzzyCMeans.builder(3).fuzziness(1.1).build().cluster(data, 2);
+		for (int c = 0; c < 3; c++) {
+			assertTrue(!Double.isNaN(close.getCenter(c, 0)) && !Double.isNaN(close.getCenter(c, 1)));
+		}
+		assertTrue(!Double.isNaN(close.getObjective()));
+	}
+
+	@Test
+	public void testDeterministic() {
+		final double[] data = blobs(5000, 4);
+		final ForkJoinPool single = new ForkJoinPool(1);
+		final ForkJoinPool many = new ForkJoinPool(4);
+		try {
+			final FuzzyCMeans.Result a = FuzzyCMeans.builder(3).pool(single).chunkSize(64).build().cluster(data, 2);
+			final FuzzyCMeans.Result b = FuzzyCMeans.builder(3).pool(many).chunkSize(64).build().cluster(data, 2);
+			assertArrayEquals(a.getCenters(), b.getCenters(), 0.0);
+			assertEquals(a.getObjective(), b.getObjective(), 0.0);
+			assertEquals(a.getIterations(), b.getIterations());
+			// the blocks change with the chunk size, not the result
+			final FuzzyCMeans.Result c = FuzzyCMeans.builder(3).build().cluster(data, 2);
+			assertArrayEquals(a.getCenters(), c.getCenters(), 1e-6);
+		} finally {
+			single.shutdown();
+			many.shutdown();
+		}
+	}
+
+	@Test
+	public void testInitialCenters() {
+		final double[] data = blobs(3000, 5);
+		final FuzzyCMeans.Result result = FuzzyCMeans.builder(3).build().cluster(data, 2,
+				new double[] { 1.0, 1.0, 9.0, 1.0, 1.0, 9.0 });
+		assertEquals(0.0, result.getCenter(0, 0), 0.2);
+		assertEquals(10.0, result.getCenter(1, 0), 0.2);
+		assertEquals(10.0, result.getCenter(2, 1), 0.2);
+	}
+
+	@Test
+	public void testStream() {
+		final FuzzyCMeans cmeans = FuzzyCMeans.builder(3).chunkSize(64).build();
+		final double[] data = blobs(30000, 6);
+		final FuzzyCMeans.Stream stream = cmeans.stream(2);
+		for (int from = 0; from < 30000; from += 1000) {
+			stream.update(data, from, from + 1000);
+		}
+		assertEquals(30, stream.getBatchCount());
+		final FuzzyCMeans.Result streamed = stream.getResult();
+		assertEquals(30, streamed.getIterations());
+		assertBlobs(streamed, 0.2);
+		final FuzzyCMeans.Result batch = cmeans.cluster(data, 2);
+		for (double[] center : CENTERS) {
+			final int s = nearest(streamed, center);
+			final int b = nearest(batch, center);
+			assertEquals(batch.getSpread(b, 0), streamed.getSpread(s, 0), 0.05);
+			assertEquals(batch.getSpread(b, 1), streamed.getSpread(s, 1), 0.05);
+		}
+	}
+
+	@Test
+	public void testMembershipFunctions() {
+		final FuzzyCMeans.Result result = FuzzyCMeans.builder(3).build().cluster(blobs(3000, 7), 2);
+		final GaussianMembershipFunction[] functions = result.membershipFunctions(0, 0.01);
+		assertEquals(3, functions.length);
+		for (int k = 0; k < 3; k++) {
+			final double c = result.getCenter(k, 0);
+			final double sigma = result.getSpread(k, 0);
+			assertEquals(1.0, functions[k].applyAsDouble(c), 1e-12);
+			assertEquals(Math.exp(-0.5), functions[k].applyAsDouble(c + sigma), 1e-9);
+		}
+		final LinguisticVariable variable = result.variable(0, "x", -5.0, 15.0, 0.01);
+		assertEquals("x", variable.getName());
+		assertEquals(3, variable.getTerms().size());
+		// terms in the order of their centers
+		assertEquals(1.0, variable.getTerms().get(2).getMembershipFunction().applyAsDouble(
+				Math.max(result.getCenter(0, 0), Math.max(result.getCenter(1, 0), result.getCenter(2, 0)))), 1e-12);
+		// the spread of a constant feature is the minimum
+		final double[] constant = { 1.0, 2.0, 1.0, 2.0, 1.0, 8.0, 1.0, 8.0 };
+		final FuzzyCMeans.Result flat = FuzzyCMeans.builder(2).build().cluster(constant, 2);
+		assertEquals(0.0, flat.getSpread(0, 0), 0.0);
+		assertEquals(Math.exp(-0.5), flat.membershipFunctions(0, 0.5)[0].applyAsDouble(1.5), 1e-9);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testPartialRow() {
+		FuzzyCMeans.builder(2).build().cluster(new double[] { 1.0, 2.0, 3.0 }, 2);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testTooFewRows() {
+		FuzzyCMeans.builder(3).build().cluster(new double[] { 1.0, 2.0, 3.0, 4.0 }, 2);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidFuzziness() {
+		FuzzyCMeans.builder(3).fuzziness(1.0).build();
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidInitialCenters() {
+		FuzzyCMeans.builder(2).build().cluster(new double[] { 1.0, 2.0, 3.0, 4.0 }, 2, new double[] { 1.0, 2.0 });
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testEmptyStream() {
+		FuzzyCMeans.builder(2).build().stream(2).getResult();
+	}
+
+}
@@ -0,0 +1,110 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package fuzzy.df;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.apache.commons.functor.generator.range.DoubleRange;
+import org.apache.commons.functor.generator.range.IntegerRange;
+import org.junit.Test;
+
+import fuzzy.mf.AnalyticallyDefuzzifiable;
+import fuzzy.mf.DoubleMembershipFunction;
+import fuzzy.mf.GaussianMembershipFunction;
+import fuzzy.mf.GeneralizedBellShapedMembershipFunction;
+import fuzzy.mf.MembershipFunction;
+import fuzzy.mf.SigmoidalMembershipFunction;
+import fuzzy.mf.TrapezoidalMembershipFunction;
+import fuzzy.mf.TriangularMembershipFunction;
+
+/**
+ * Tests for Adaptive Bisector Defuzzification Function.
+ *
+ * @since 0.5
+ * @see AdaptiveBisectorDefuzzificationFunction
+ */
+public class TestAdaptiveBisectorDefuzzificationFunction extends BaseDefuzzificationFunctionTest<AdaptiveBisectorDefuzzificationFunction<Double>>{
+
+	@Override
+	protected AdaptiveBisectorDefuzzificationFunction<Double> makeDefuzzificationFunction() {
+		final AdaptiveBisectorDefuzzificationFunction<Double> df = new AdaptiveBisectorDefuzzificationFunction<Double>();
+		return df;
+	}
+
+	@Test
+	public void testAgainstClosedForm() {
+		AnalyticallyDefuzzifiable[] mfs = new AnalyticallyDefuzzifiable[] {
+			new TriangularMembershipFunction(-4.0, 3.0, 5.0),
+			new TrapezoidalMembershipFunction(-12.0, -8.0, -4.0, 7.0),
+			new GaussianMembershipFunction(3.0, 2.0),
+			new GaussianMembershipFunction(0.5, -9.0)
+		};
+		BisectorDefuzzificationFunction<Double> exact = new BisectorDefuzzificationFunction<Double>();
+		for (AdaptiveQuadrature.Rule rule : AdaptiveQuadrature.Rule.values()) {
+			AdaptiveBisectorDefuzzificationFunction<Double> df = new AdaptiveBisectorDefuzzificationFunction<Double>(
+					new AdaptiveQuadrature(rule, 1e-8));
+			for (AnalyticallyDefuzzifiable mf : mfs) {
+				double expected = exact.apply(new DoubleRange(-10.0, 10.0, 1.0), 1.0, mf);
+				AdaptiveQuadrature.Estimate estimate = df.estimate(-10.0, 10.0, mf);
+				assertEquals(rule + " " + mf, expected, estimate.getValue(), 1e-6);
+				assertEquals(expected, df.apply(new DoubleRange(-10.0, 10.0, 0.1), mf), 1e-6);
+			}
+		}
+	}
+
+	@Test
+	public void testSmoothShapesNeedFewEvaluations() {
+		DoubleMembershipFunction[] mfs = new DoubleMembershipFunction[] {
+			new GaussianMembershipFunction(2.0, 1.0),
+			new GeneralizedBellShapedMembershipFunction(2.0, 4.0, 1.0)
+		};
+		AdaptiveBisectorDefuzzificationFunction<Double> df = new AdaptiveBisectorDefuzzificationFunction<Double>(
+				new AdaptiveQuadrature(AdaptiveQuadrature.Rule.GAUSS_KRONROD, 1e-6));
+		DoubleRange range = new DoubleRange(-10.0, 10.0, 0.0001);
+		BisectorDefuzzificationFunction<Double> sampled = new BisectorDefuzzificationFunction<Double>();
+		for (DoubleMembershipFunction mf : mfs) {
+			AdaptiveQuadrature.Estimate estimate = df.estimate(-10.0, 10.0, mf);
+			assertEquals(mf.toString(), sampled.apply(range, mf), estimate.getValue(), 1e-4);
+			assertTrue(mf + " " + estimate, estimate.getEvaluations() < 1000);
+		}
+	}
+
+	@Test
+	public void testMaximumEvaluations() {
+		AdaptiveBisectorDefuzzificationFunction<Double> df = new AdaptiveBisectorDefuzzificationFunction<Double>(
+				new AdaptiveQuadrature(AdaptiveQuadrature.Rule.SIMPSON, 1e-15, 100));
+		AdaptiveQuadrature.Estimate estimate = df.estimate(-10.0, 10.0, new SigmoidalMembershipFunction(-10.0, 10.0));
+		assertTrue(estimate.toString(), estimate.getEvaluations() < 200);
+		assertEquals(0.0, Math.round(estimate.getValue()), 0.0);
+	}
+
+	@Test
+	public void testIntegerRange() {
+		// sampled at the integers, where the membership function is defined
+		AdaptiveBisectorDefuzzificationFunction<Integer> df = new AdaptiveBisectorDefuzzificationFunction<Integer>();
+		MembershipFunction<Integer> mf = x -> x >= 2 && x <= 5 ? 1.0 : x == 6 ? 0.5 : 0.0;
+		IntegerRange range = new IntegerRange(0, 10);
+		assertEquals(new BisectorDefuzzificationFunction<Integer>().apply(range, mf), df.apply(range, mf), 0.0);
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testDefuzzificationEmptySet() {
+		AdaptiveBisectorDefuzzificationFunction<Double> df = makeDefuzzificationFunction();
+		df.apply(new DoubleRange(6.0, 10.0, 0.1), new TriangularMembershipFunction(-4.0, 3.0, 5.0));
+		fail("Not supposed to get here");
+	}
+
+}
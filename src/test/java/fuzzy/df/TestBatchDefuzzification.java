@@ -0,0 +1,124 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package fuzzy.df;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.apache.commons.functor.generator.range.DoubleRange;
+import org.junit.Test;
+
+import fuzzy.mf.DoubleMembershipFunction;
+import fuzzy.mf.GaussianMembershipFunction;
+import fuzzy.mf.MembershipFunction;
+import fuzzy.mf.TrapezoidalMembershipFunction;
+import fuzzy.mf.TriangularMembershipFunction;
+
+/**
+ * Tests for Batch Defuzzification.
+ *
+ * @since 0.5
+ * @see BatchDefuzzification
+ */
+public class TestBatchDefuzzification {
+
+	private static final DoubleRange RANGE = new DoubleRange(-10.0, 10.0, 0.01);
+
+	private static List<DoubleMembershipFunction> mfs(int n) {
+		List<DoubleMembershipFunction> mfs = new ArrayList<DoubleMembershipFunction>();
+		for (int i = 0; i < n; i++) {
+			final double shift = (i % 17) * 0.5 - 4.0;
+			switch (i % 3) {
+			case 0:
+				mfs.add(new TriangularMembershipFunction(shift - 3.0, shift, shift + 2.0));
+				break;
+			case 1:
+				mfs.add(new TrapezoidalMembershipFunction(shift - 2.0, shift - 1.0, shift + 1.0, shift + 4.0));
+				break;
+			default:
+				mfs.add(new GaussianMembershipFunction(0.5 + i % 5, shift));
+				break;
+			}
+		}
+		return mfs;
+	}
+
+	private static double expected(BatchDefuzzification.Method method, DoubleMembershipFunction mf) {
+		switch (method) {
+		case CENTROID:
+			return new CentroidDefuzzificationFunction<Double>().apply(RANGE, (MembershipFunction<Double>) mf);
+		case BISECTOR:
+			return new BisectorDefuzzificationFunction<Double>().apply(RANGE, (MembershipFunction<Double>) mf);
+		case SMALLEST_OF_MAXIMA:
+			return new SmallestOfMaximaDefuzzificationFunction<Double>().apply(RANGE, (MembershipFunction<Double>) mf);
+		case LARGEST_OF_MAXIMA:
+			return new LargestOfMaximaDefuzzificationFunction<Double>().apply(RANGE, (MembershipFunction<Double>) mf);
+		default:
+			return new MeanOfMaximaDefuzzificationFunction<Double>().apply(RANGE, (MembershipFunction<Double>) mf);
+		}
+	}
+
+	@Test
+	public void testSameAsDefuzzificationFunctions() {
+		List<DoubleMembershipFunction> mfs = mfs(150);
+		BatchDefuzzification batch = new BatchDefuzzification(RANGE);
+		assertEquals(2001, batch.getUniverseSize());
+		for (BatchDefuzzification.Method method : BatchDefuzzification.Method.values()) {
+			double[] results = batch.apply(method, mfs);
+			assertEquals(mfs.size(), results.length);
+			for (int i = 0; i < mfs.size(); i++) {
+				assertEquals(method + " " + mfs.get(i), expected(method, mfs.get(i)), results[i], 0.0);
+			}
+		}
+	}
+
+	@Test
+	public void testParallel() {
+		List<DoubleMembershipFunction> mfs = mfs(500);
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			BatchDefuzzification sequential = new BatchDefuzzification(RANGE);
+			BatchDefuzzification parallel = new BatchDefuzzification(RANGE, pool, 16);
+			for (BatchDefuzzification.Method method : BatchDefuzzification.Method.values()) {
+				assertArrayEquals(sequential.apply(method, mfs), parallel.apply(method, mfs), 0.0);
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void testEmptySetIsNaN() {
+		List<DoubleMembershipFunction> mfs = new ArrayList<DoubleMembershipFunction>();
+		mfs.add(new TriangularMembershipFunction(-4.0, 3.0, 5.0));
+		mfs.add(new TriangularMembershipFunction(20.0, 30.0, 40.0));
+		BatchDefuzzification batch = new BatchDefuzzification(RANGE);
+		double[] centroids = batch.apply(BatchDefuzzification.Method.CENTROID, mfs);
+		double[] bisectors = batch.apply(BatchDefuzzification.Method.BISECTOR, mfs);
+		assertTrue(Double.isNaN(centroids[1]));
+		assertTrue(Double.isNaN(bisectors[1]));
+		assertEquals(expected(BatchDefuzzification.Method.BISECTOR, mfs.get(0)), bisectors[0], 0.0);
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testInvalidBlockSize() {
+		new BatchDefuzzification(RANGE, null, 0);
+	}
+
+}
@@ -21,8 +21,13 @@ import java.text.DecimalFormat;
 import org.apache.commons.functor.generator.range.DoubleRange;
 import org.junit.Test;
 
+import fuzzy.internal.functions.Doubles;
+import fuzzy.mf.DoubleMembershipFunction;
+import fuzzy.mf.GaussianMembershipFunction;
 import fuzzy.mf.MembershipFunction;
 import fuzzy.mf.SigmoidalMembershipFunction;
+import fuzzy.mf.TrapezoidalMembershipFunction;
+import fuzzy.mf.TriangularMembershipFunction;
 
 
 /**
@@ -48,6 +53,42 @@ public class TestCentroidDefuzzificationFunction extends BaseDefuzzificationFunc
 		assertEquals(Integer.valueOf(0).toString(), new DecimalFormat("#.#").format(Math.abs(d)));
 	}
 
+	@Test
+	public void testDefuzzificationPrimitive() {
+		CentroidDefuzzificationFunction<Double> df = makeDefuzzificationFunction();
+		DoubleRange range = new DoubleRange(-10.0, 10.0, 0.1);
+		MembershipFunction<Double> mf = new TrapezoidalMembershipFunction(-10.0, -8.0, -4.0, 7.0);
+		MembershipFunction<Double> boxed = x -> mf.apply(x);
+		assertEquals(df.apply(range, boxed), df.apply(range, mf));
+		assertEquals(df.apply(range, mf), Double.valueOf(df.apply(Doubles.toArray(range), (DoubleMembershipFunction) mf)));
+	}
+
+	@Test
+	public void testDefuzzificationAnalytic() {
+		CentroidDefuzzificationFunction<Double> df = makeDefuzzificationFunction();
+		DoubleRange range = new DoubleRange(-10.0, 10.0, 0.0005);
+		DoubleMembershipFunction[] mfs = new DoubleMembershipFunction[] {
+			new TriangularMembershipFunction(-4.0, 3.0, 5.0),
+			new TriangularMembershipFunction(-4.0, -4.0, 5.0),
+			new TrapezoidalMembershipFunction(-12.0, -8.0, -4.0, 7.0),
+			new TrapezoidalMembershipFunction(1.0, 1.0, 2.0, 9.0),
+			new GaussianMembershipFunction(3.0, 2.0),
+			new GaussianMembershipFunction(-1.5, 8.0)
+		};
+		for (DoubleMembershipFunction mf : mfs) {
+			DoubleMembershipFunction sampled = x -> mf.applyAsDouble(x);
+			for (double alpha : new double[] { 1.0, 0.6, 0.2 }) {
+				assertEquals(mf + " " + alpha, df.apply(range, alpha, sampled), df.apply(range, alpha, mf), 1e-3);
+			}
+		}
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testDefuzzificationAnalyticEmptySet() {
+		CentroidDefuzzificationFunction<Double> df = makeDefuzzificationFunction();
+		df.apply(new DoubleRange(6.0, 10.0, 0.1), 1.0, new TriangularMembershipFunction(-4.0, 3.0, 5.0));
+	}
+
 	@Test(expected=IllegalArgumentException.class)
 	public void testDefuzzificationEmptySet() {
 		CentroidDefuzzificationFunction<Double> df = makeDefuzzificationFunction();
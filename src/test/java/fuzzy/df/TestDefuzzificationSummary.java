@@ -0,0 +1,87 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package fuzzy.df;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import org.apache.commons.functor.generator.range.DoubleRange;
+import org.junit.Test;
+
+import fuzzy.mf.DoubleMembershipFunction;
+import fuzzy.mf.GaussianMembershipFunction;
+import fuzzy.mf.SigmoidalMembershipFunction;
+import fuzzy.mf.TrapezoidalMembershipFunction;
+
+/**
+ * Tests for the defuzzification summary.
+ *
+ * @since 0.5
+ * @see DefuzzificationSummary
+ */
+public class TestDefuzzificationSummary {
+
+	@Test
+	public void testSameAsDefuzzificationFunctions() {
+		DoubleRange range = new DoubleRange(-10.0, 10.0, 0.1);
+		DoubleMembershipFunction[] mfs = new DoubleMembershipFunction[] {
+			new SigmoidalMembershipFunction(-10.0, 10.0),
+			new GaussianMembershipFunction(2.0, 3.0),
+			new TrapezoidalMembershipFunction(-10.0, -8.0, -4.0, 7.0)
+		};
+		DefuzzificationSummary summary = new DefuzzificationSummary();
+		for (DoubleMembershipFunction mf : mfs) {
+			summary.clear();
+			summary.addAll(range, mf);
+			assertEquals(201, summary.getCount());
+			assertEquals(new CentroidDefuzzificationFunction<Double>().apply(range, mf), summary.getCentroid(), 0.0);
+			assertEquals(new BisectorDefuzzificationFunction<Double>().apply(range, mf), summary.getBisector(), 0.0);
+		}
+	}
+
+	@Test
+	public void testMaxima() {
+		DoubleRange range = new DoubleRange(-10.0, 10.0, 0.5);
+		DoubleMembershipFunction mf = new TrapezoidalMembershipFunction(-10.0, -8.0, -4.0, 7.0);
+		DefuzzificationSummary summary = DefuzzificationSummary.of(range, mf);
+		assertEquals(1.0, summary.getHeight(), 0.0);
+		assertEquals(new SmallestOfMaximaDefuzzificationFunction<Double>().apply(range, mf), summary.getSmallestOfMaxima(), 0.0);
+		assertEquals(new LargestOfMaximaDefuzzificationFunction<Double>().apply(range, mf), summary.getLargestOfMaxima(), 0.0);
+		assertEquals(new MeanOfMaximaDefuzzificationFunction<Double>().apply(range, mf), summary.getMeanOfMaxima(), 1e-12);
+	}
+
+	@Test
+	public void testAdd() {
+		DefuzzificationSummary summary = new DefuzzificationSummary();
+		for (int i = 0; i < 1000; i++) {
+			summary.add(i, i == 300 ? 2.0 : 1.0);
+		}
+		assertEquals(1001.0, summary.getArea(), 0.0);
+		assertEquals(499500.0 + 300.0, summary.getMoment(), 0.0);
+		assertEquals(499.0, summary.getBisector(), 0.0);
+		assertEquals(300.0, summary.getMeanOfMaxima(), 0.0);
+	}
+
+	@Test
+	public void testEmpty() {
+		DefuzzificationSummary summary = new DefuzzificationSummary();
+		assertEquals(Double.NaN, summary.getMeanOfMaxima(), 0.0);
+		try {
+			summary.getCentroid();
+			fail("Not supposed to get here");
+		} catch (IllegalArgumentException expected) {
+		}
+	}
+
+}
@@ -16,14 +16,19 @@ package fuzzy.df;
 import static org.junit.Assert.assertEquals;
 
 import java.text.DecimalFormat;
+import java.util.Collection;
 
 import org.apache.commons.functor.generator.range.DoubleRange;
 import org.junit.Test;
 
+import fuzzy.internal.functions.Max;
+import fuzzy.mf.DoubleMembershipFunction;
+import fuzzy.mf.GaussianMembershipFunction;
 import fuzzy.mf.MembershipFunction;
 import fuzzy.mf.SigmoidalMembershipFunction;
 import fuzzy.mf.TrapezoidalMembershipFunction;
-
+import fuzzy.mf.TriangularMembershipFunction;
+import fuzzy.util.MaxMF;
 
 /**
  * Tests for Smallest Of Maxima Defuzzification Function.
@@ -48,6 +53,34 @@ public class TestLargestOfMaximaDefuzzificationFunction extends BaseDefuzzificat
 		assertEquals(Integer.valueOf(-8).toString(), new DecimalFormat("#.#").format(d));
 	}
 
+	@Test
+	public void testDefuzzificationSameAsMaxMF() {
+		LargestOfMaximaDefuzzificationFunction<Double> df = makeDefuzzificationFunction();
+		DoubleRange range = new DoubleRange(-10.0, 10.0, 0.05);
+		DoubleMembershipFunction[] mfs = new DoubleMembershipFunction[] {
+			new TrapezoidalMembershipFunction(-10.0, -8.0, -4.0, 7.0),
+			new GaussianMembershipFunction(2.0, 3.0),
+			new TriangularMembershipFunction(-3.0, 0.0, 3.0),
+			new TriangularMembershipFunction(12.0, 13.0, 14.0),
+			new SigmoidalMembershipFunction(2.0, 4.0)
+		};
+		for (DoubleMembershipFunction mf : mfs) {
+			Collection<Double> maxima = MaxMF.of(range.toCollection(), mf).keySet();
+			assertEquals(mf.toString(), Max.of(maxima, true), df.apply(range, mf), 1e-12);
+		}
+	}
+
+	@Test
+	public void testDefuzzificationAnalytic() {
+		LargestOfMaximaDefuzzificationFunction<Double> df = makeDefuzzificationFunction();
+		DoubleRange range = new DoubleRange(-10.0, 10.0, 0.5);
+		assertEquals(4.0, df.apply(range, 0.5, new TriangularMembershipFunction(-4.0, 3.0, 5.0)), 1e-12);
+		DoubleMembershipFunction gaussian = new GaussianMembershipFunction(2.0, -4.0);
+		assertEquals(-4.0, df.apply(range, 1.0, gaussian), 1e-12);
+		DoubleMembershipFunction sampled = x -> gaussian.applyAsDouble(x);
+		assertEquals(-4.0, df.apply(range, 1.0, sampled), 1e-12);
+	}
+
 	@Test()
 	public void testDefuzzificationEmptySet() {
 	    LargestOfMaximaDefuzzificationFunction<Double> df = makeDefuzzificationFunction();
@@ -0,0 +1,66 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package fuzzy.df;
+
+import static org.junit.Assert.assertEquals;
+
+import org.apache.commons.functor.generator.range.DoubleRange;
+import org.apache.commons.functor.generator.range.IntegerRange;
+import org.junit.Test;
+
+import fuzzy.mf.MembershipFunction;
+import fuzzy.mf.SigmoidalMembershipFunction;
+import fuzzy.mf.TrapezoidalMembershipFunction;
+
+/**
+ * Tests for Leftmost Maximum Defuzzification Function.
+ *
+ * @since 0.5
+ * @see LeftmostMaximumDefuzzificationFunction
+ */
+public class TestLeftmostMaximumDefuzzificationFunction extends BaseDefuzzificationFunctionTest<LeftmostMaximumDefuzzificationFunction<Double>>{
+
+	@Override
+	protected LeftmostMaximumDefuzzificationFunction<Double> makeDefuzzificationFunction() {
+		return new LeftmostMaximumDefuzzificationFunction<Double>();
+	}
+
+	@Test
+	public void testDefuzzification() {
+		LeftmostMaximumDefuzzificationFunction<Double> df = makeDefuzzificationFunction();
+		DoubleRange range = new DoubleRange(-10.0, 10.0, 0.5);
+		MembershipFunction<Double> mf = new TrapezoidalMembershipFunction(-8.0, -6.0, -2.0, 0.0);
+		assertEquals(-6.0, df.apply(range, mf), 1e-12);
+		// the smallest of maxima compares absolute values
+		assertEquals(-2.0, new SmallestOfMaximaDefuzzificationFunction<Double>().apply(range, mf), 1e-12);
+		mf = new TrapezoidalMembershipFunction(0.0, 2.0, 6.0, 8.0);
+		assertEquals(2.0, df.apply(range, mf), 1e-12);
+	}
+
+	@Test
+	public void testDefuzzificationIntegers() {
+		LeftmostMaximumDefuzzificationFunction<Integer> df = new LeftmostMaximumDefuzzificationFunction<Integer>();
+		MembershipFunction<Integer> mf = x -> x >= -6 && x <= -2 ? 1.0 : 0.0;
+		assertEquals(-6.0, df.apply(new IntegerRange(-10, 10), mf), 0.0);
+	}
+
+	@Test
+	public void testDefuzzificationEmptySet() {
+		LeftmostMaximumDefuzzificationFunction<Double> df = makeDefuzzificationFunction();
+		DoubleRange range = new DoubleRange(0.0, 0.0);
+		MembershipFunction<Double> mf = new SigmoidalMembershipFunction(-10.0, 10.0);
+		assertEquals(Double.valueOf(Double.NaN), df.apply(range, mf));
+	}
+
+}
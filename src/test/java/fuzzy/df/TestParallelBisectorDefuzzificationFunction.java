@@ -0,0 +1,103 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package fuzzy.df;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.apache.commons.functor.generator.range.DoubleRange;
+import org.apache.commons.functor.generator.range.IntegerRange;
+import org.junit.Test;
+
+import fuzzy.internal.functions.Doubles;
+import fuzzy.mf.DoubleMembershipFunction;
+import fuzzy.mf.GaussianMembershipFunction;
+import fuzzy.mf.MembershipFunction;
+import fuzzy.mf.TrapezoidalMembershipFunction;
+import fuzzy.mf.TriangularMembershipFunction;
+
+/**
+ * Tests for Parallel Bisector Defuzzification Function.
+ *
+ * @since 0.5
+ * @see ParallelBisectorDefuzzificationFunction
+ */
+public class TestParallelBisectorDefuzzificationFunction extends BaseDefuzzificationFunctionTest<ParallelBisectorDefuzzificationFunction<Double>>{
+
+	@Override
+	protected ParallelBisectorDefuzzificationFunction<Double> makeDefuzzificationFunction() {
+		final ParallelBisectorDefuzzificationFunction<Double> df = new ParallelBisectorDefuzzificationFunction<Double>();
+		return df;
+	}
+
+	@Test
+	public void testSameAsSequential() {
+		BisectorDefuzzificationFunction<Double> sequential = new BisectorDefuzzificationFunction<Double>();
+		ParallelBisectorDefuzzificationFunction<Double> df = new ParallelBisectorDefuzzificationFunction<Double>(
+				ForkJoinPool.commonPool(), 1000);
+		DoubleRange range = new DoubleRange(-10.0, 10.0, 0.001);
+		DoubleMembershipFunction[] mfs = new DoubleMembershipFunction[] {
+			new TriangularMembershipFunction(-4.0, 3.0, 5.0),
+			new TrapezoidalMembershipFunction(-12.0, -8.0, -4.0, 7.0),
+			new GaussianMembershipFunction(3.0, 2.0)
+		};
+		for (DoubleMembershipFunction mf : mfs) {
+			assertEquals(mf.toString(), sequential.apply(range, mf), df.apply(range, mf), 0.0);
+		}
+	}
+
+	@Test
+	public void testDeterministicForAnyParallelism() {
+		double[] values = Doubles.toArray(new DoubleRange(-10.0, 10.0, 0.0001));
+		DoubleMembershipFunction mf = new GaussianMembershipFunction(1.7, 2.3);
+		Double expected = null;
+		for (int parallelism : new int[] { 1, 2, 3, 4, 8 }) {
+			ForkJoinPool pool = new ForkJoinPool(parallelism);
+			try {
+				double result = new ParallelBisectorDefuzzificationFunction<Double>(pool, 4096).apply(values, mf);
+				if (expected == null) {
+					expected = result;
+				} else {
+					assertEquals(Double.doubleToLongBits(expected), Double.doubleToLongBits(result));
+				}
+			} finally {
+				pool.shutdown();
+			}
+		}
+	}
+
+	@Test
+	public void testIntegerRange() {
+		MembershipFunction<Integer> mf = x -> x >= 2 && x <= 6 ? 1.0 : 0.0;
+		ParallelBisectorDefuzzificationFunction<Integer> df = new ParallelBisectorDefuzzificationFunction<Integer>(
+				ForkJoinPool.commonPool(), 3);
+		assertEquals(new BisectorDefuzzificationFunction<Integer>().apply(new IntegerRange(0, 10), mf),
+				df.apply(new IntegerRange(0, 10), mf), 0.0);
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testInvalidChunkSize() {
+		new ParallelBisectorDefuzzificationFunction<Double>(ForkJoinPool.commonPool(), 0);
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testDefuzzificationEmptySet() {
+		ParallelBisectorDefuzzificationFunction<Double> df = makeDefuzzificationFunction();
+		df.apply(new DoubleRange(6.0, 10.0, 0.1), new TriangularMembershipFunction(-4.0, 3.0, 5.0));
+		fail("Not supposed to get here");
+	}
+
+}
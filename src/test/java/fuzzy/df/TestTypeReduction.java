@@ -0,0 +1,181 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package fuzzy.df;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests for Type Reduction.
+ *
+ * @since 0.5
+ * @see TypeReduction
+ */
+public class TestTypeReduction {
+
+	/**
+	 * @return random lower and upper membership values over
+	 * <code>0 .. n - 1</code>, some of them zero
+	 */
+	static double[][] randomSet(Random random, int n) {
+		final double[][] set = new double[3][n];
+		for (int i = 0; i < n; i++) {
+			set[0][i] = i;
+			final double upper = random.nextInt(4) == 0 ? 0.0 : random.nextDouble();
+			set[2][i] = upper;
+			set[1][i] = random.nextInt(3) == 0 ? 0.0 : upper * random.nextDouble();
+		}
+		return set;
+	}
+
+	/**
+	 * @return centroid interval, trying every switch point
+	 */
+	static double[] exhaustive(double[] x, double[] lower, double[] upper) {
+		double left = Double.POSITIVE_INFINITY;
+		double right = Double.NEGATIVE_INFINITY;
+		for (int k = 0; k <= x.length; k++) {
+			double leftMoment = 0.0, leftSum = 0.0, rightMoment = 0.0, rightSum = 0.0;
+			for (int i = 0; i < x.length; i++) {
+				final double l = i < k ? upper[i] : lower[i];
+				final double r = i < k ? lower[i] : upper[i];
+				leftMoment += x[i] * l;
+				leftSum += l;
+				rightMoment += x[i] * r;
+				rightSum += r;
+			}
+			if (leftSum > 0.0) {
+				left = Math.min(left, leftMoment / leftSum);
+			}
+			if (rightSum > 0.0) {
+				right = Math.max(right, rightMoment / rightSum);
+			}
+		}
+		return new double[] { left, right };
+	}
+
+	@Test
+	public void testEnhancedKarnikMendelSameAsExhaustive() {
+		Random random = new Random(42);
+		double[] interval = new double[2];
+		for (int n : new int[] { 2, 3, 5, 10, 101, 1000 }) {
+			for (int run = 0; run < 20; run++) {
+				double[][] set = randomSet(random, n);
+				double[] expected = exhaustive(set[0], set[1], set[2]);
+				if (Double.isInfinite(expected[0])) {
+					continue;
+				}
+				double y = TypeReduction.ENHANCED_KARNIK_MENDEL.apply(set[0], set[1], set[2], 0, n, interval);
+				assertEquals(expected[0], interval[0], 1e-9);
+				assertEquals(expected[1], interval[1], 1e-9);
+				assertEquals((expected[0] + expected[1]) / 2, y, 1e-9);
+			}
+		}
+	}
+
+	@Test
+	public void testApproximations() {
+		Random random = new Random(7);
+		double[] exact = new double[2];
+		double[] approximate = new double[2];
+		for (int run = 0; run < 50; run++) {
+			double[][] set = randomSet(random, 101);
+			double y = TypeReduction.ENHANCED_KARNIK_MENDEL.apply(set[0], set[1], set[2], 0, 101, exact);
+			double wuMendel = TypeReduction.WU_MENDEL.apply(set[0], set[1], set[2], 0, 101, approximate);
+			assertTrue(approximate[0] <= approximate[1]);
+			assertEquals(y, wuMendel, 5.0);
+			assertEquals(y, TypeReduction.NIE_TAN.apply(set[0], set[1], set[2], 0, 101, null), 5.0);
+		}
+	}
+
+	@Test
+	public void testType1() {
+		double[] x = { 0.0, 1.0, 2.0, 3.0, 4.0 };
+		double[] m = { 0.0, 0.5, 1.0, 0.25, 0.0 };
+		double centroid = (0.5 + 2.0 + 0.75) / 1.75;
+		double[] interval = new double[2];
+		for (TypeReduction reduction : TypeReduction.values()) {
+			assertEquals(centroid, reduction.apply(x, m, m, 0, x.length, interval), 1e-12);
+			assertEquals(centroid, interval[0], 1e-12);
+			assertEquals(centroid, interval[1], 1e-12);
+		}
+	}
+
+	@Test
+	public void testSymmetric() {
+		double[] x = new double[21];
+		double[] lower = new double[21];
+		double[] upper = new double[21];
+		for (int i = 0; i < x.length; i++) {
+			x[i] = i;
+			upper[i] = Math.max(0.0, 1.0 - Math.abs(i - 10) / 8.0);
+			lower[i] = 0.5 * Math.max(0.0, 1.0 - Math.abs(i - 10) / 5.0);
+		}
+		double[] interval = new double[2];
+		for (TypeReduction reduction : TypeReduction.values()) {
+			assertEquals(10.0, reduction.apply(x, lower, upper, 0, x.length, interval), 1e-12);
+			assertEquals(20.0, interval[0] + interval[1], 1e-12);
+		}
+		TypeReduction.ENHANCED_KARNIK_MENDEL.apply(x, lower, upper, 0, x.length, interval);
+		double[] expected = exhaustive(x, lower, upper);
+		assertEquals(expected[0], interval[0], 1e-12);
+		assertEquals(expected[1], interval[1], 1e-12);
+		assertTrue(interval[0] < 10.0);
+	}
+
+	@Test
+	public void testRange() {
+		double[] x = { 0.0, 1.0, 2.0, 3.0, 4.0 };
+		double[] lower = { 1.0, 0.0, 0.5, 0.0, 1.0 };
+		double[] upper = { 1.0, 0.0, 1.0, 0.5, 1.0 };
+		double[] interval = new double[2];
+		for (TypeReduction reduction : TypeReduction.values()) {
+			assertEquals(2.0, reduction.apply(x, lower, upper, 2, 3, interval), 1e-12);
+			assertEquals(2.0, interval[0], 1e-12);
+			assertEquals(2.0, interval[1], 1e-12);
+		}
+	}
+
+	@Test
+	public void testEmpty() {
+		double[] x = { 0.0, 1.0, 2.0 };
+		double[] zero = { 0.0, 0.0, 0.0 };
+		double[] interval = new double[2];
+		for (TypeReduction reduction : TypeReduction.values()) {
+			assertTrue(Double.isNaN(reduction.apply(x, zero, zero, 0, x.length, interval)));
+			assertTrue(Double.isNaN(interval[0]));
+			assertTrue(Double.isNaN(interval[1]));
+		}
+	}
+
+	@Test
+	public void testWuMendelWithoutLower() {
+		double[] x = { 0.0, 1.0, 2.0, 3.0 };
+		double[] lower = { 0.0, 0.0, 0.0, 0.0 };
+		double[] upper = { 0.5, 1.0, 1.0, 0.5 };
+		double[] exact = new double[2];
+		double[] approximate = new double[2];
+		assertEquals(TypeReduction.ENHANCED_KARNIK_MENDEL.apply(x, lower, upper, 0, 4, exact),
+				TypeReduction.WU_MENDEL.apply(x, lower, upper, 0, 4, approximate), 0.0);
+		assertEquals(0.0, exact[0], 0.0);
+		assertEquals(3.0, exact[1], 0.0);
+		assertEquals(exact[0], approximate[0], 0.0);
+		assertEquals(exact[1], approximate[1], 0.0);
+	}
+
+}
@@ -0,0 +1,112 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package fuzzy.df;
+
+import java.util.Random;
+
+/**
+ * Compares the type reductions: the time of a reduction, and the error of
+ * the approximations against the exact Enhanced Karnik-Mendel centroid, over
+ * interval type-2 sets shaped like aggregated rule outputs (unions of
+ * clipped gaussians, the lower ones narrower and clipped lower). Run with
+ * <code>java fuzzy.df.TypeReductionBenchmark [size...]</code>; the default
+ * sizes are 101, 1001 and 10001 crisp values.
+ *
+ * @since 0.5
+ * @see TypeReduction
+ */
+public class TypeReductionBenchmark {
+
+	private static final int SETS = 64;
+	private static final int WARMUP = 200;
+	private static final int RUNS = 20;
+
+	/**
+	 * @return crisp values, lower and upper membership values of random sets
+	 * over <code>[0, 1]</code>
+	 */
+	static double[][][] sets(Random random, int size) {
+		final double[][][] sets = new double[SETS][3][size];
+		for (double[][] set : sets) {
+			for (int i = 0; i < size; i++) {
+				set[0][i] = i / (size - 1.0);
+			}
+			final int rules = 2 + random.nextInt(4);
+			for (int r = 0; r < rules; r++) {
+				final double center = random.nextDouble();
+				final double sigma = 0.05 + 0.1 * random.nextDouble();
+				final double upperStrength = random.nextDouble();
+				final double lowerStrength = upperStrength * random.nextDouble();
+				for (int i = 0; i < size; i++) {
+					final double d = set[0][i] - center;
+					final double upper = Math.min(upperStrength, Math.exp(-d * d / (2 * sigma * sigma)));
+					final double lower = Math.min(lowerStrength, Math.exp(-d * d / (2 * 0.49 * sigma * sigma)));
+					set[1][i] = Math.max(set[1][i], lower);
+					set[2][i] = Math.max(set[2][i], upper);
+				}
+			}
+		}
+		return sets;
+	}
+
+	/**
+	 * @return nanoseconds per reduction, the best of the runs
+	 */
+	private static double time(TypeReduction reduction, double[][][] sets, double[] interval) {
+		double best = Double.POSITIVE_INFINITY;
+		double sink = 0.0;
+		for (int run = 0; run < WARMUP + RUNS; run++) {
+			final long start = System.nanoTime();
+			for (double[][] set : sets) {
+				sink += reduction.apply(set[0], set[1], set[2], 0, set[0].length, interval);
+			}
+			if (run >= WARMUP) {
+				best = Math.min(best, (System.nanoTime() - start) / (double) sets.length);
+			}
+		}
+		if (sink == 42.0) {
+			System.out.println();
+		}
+		return best;
+	}
+
+	/**
+	 * @param args numbers of crisp values
+	 */
+	public static void main(String[] args) {
+		final int[] sizes = args.length == 0 ? new int[] { 101, 1001, 10001 } : new int[args.length];
+		for (int i = 0; i < args.length; i++) {
+			sizes[i] = Integer.parseInt(args[i]);
+		}
+		final double[] exact = new double[2];
+		final double[] interval = new double[2];
+		for (int size : sizes) {
+			final double[][][] sets = sets(new Random(size), size);
+			for (TypeReduction reduction : TypeReduction.values()) {
+				final double nanos = time(reduction, sets, interval);
+				double meanError = 0.0;
+				double maxError = 0.0;
+				for (double[][] set : sets) {
+					final double y = TypeReduction.ENHANCED_KARNIK_MENDEL.apply(set[0], set[1], set[2], 0, size, exact);
+					final double error = Math.abs(reduction.apply(set[0], set[1], set[2], 0, size, interval) - y);
+					meanError += error / sets.length;
+					maxError = Math.max(maxError, error);
+				}
+				System.out.printf("%d crisp values, %s: %.2f us per reduction, error mean %.2e max %.2e%n", size,
+						reduction, nanos / 1e3, meanError, maxError);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,105 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package fuzzy.fcl;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import fuzzy.system.FuzzySystem;
+
+/**
+ * Measures the time to parse and compile FCL function blocks with many
+ * rules, and reports it per 10,000 rules. Run with
+ * <code>java fuzzy.fcl.FclBenchmark [rules...]</code>; the default sizes
+ * are 10,000 and 100,000 rules.
+ *
+ * @since 0.5
+ * @see FclParser
+ */
+public class FclBenchmark {
+
+	private static final int INPUTS = 5;
+	private static final int TERMS = 10;
+	private static final int WARMUP = 20;
+	private static final int RUNS = 10;
+
+	/**
+	 * @param rules number of rules, at most <code>10^5</code>
+	 * @return a function block with five inputs of ten triangular terms, one
+	 * output, and rules over every input
+	 */
+	static String functionBlock(int rules) {
+		final StringBuilder fcl = new StringBuilder(rules * 96);
+		fcl.append("FUNCTION_BLOCK benchmark\nVAR_INPUT\n");
+		for (int v = 0; v < INPUTS; v++) {
+			fcl.append("  x").append(v).append(" : REAL;\n");
+		}
+		fcl.append("END_VAR\nVAR_OUTPUT\n  y : REAL;\nEND_VAR\n");
+		for (int v = 0; v < INPUTS; v++) {
+			fcl.append("FUZZIFY x").append(v).append('\n');
+			for (int t = 0; t < TERMS; t++) {
+				fcl.append("  TERM t").append(t).append(" := trian ").append(t - 1).append(' ').append(t).append(' ')
+						.append(t + 1).append(";\n");
+			}
+			fcl.append("  RANGE := (0 .. ").append(TERMS - 1).append(");\nEND_FUZZIFY\n");
+		}
+		fcl.append("DEFUZZIFY y\n");
+		for (int t = 0; t < TERMS; t++) {
+			fcl.append("  TERM t").append(t).append(" := (").append(t - 1).append(", 0) (").append(t).append(", 1) (")
+					.append(t + 1).append(", 0);\n");
+		}
+		fcl.append("  RANGE := (0 .. ").append(TERMS - 1).append(");\n  METHOD : COG;\nEND_DEFUZZIFY\n");
+		fcl.append("RULEBLOCK rules\n  AND : MIN;\n");
+		for (int r = 0; r < rules; r++) {
+			fcl.append("  RULE ").append(r).append(" : IF");
+			int digits = r;
+			int sum = 0;
+			for (int v = 0; v < INPUTS; v++) {
+				fcl.append(v == 0 ? " x" : " AND x").append(v).append(" IS t").append(digits % TERMS);
+				sum += digits % TERMS;
+				digits /= TERMS;
+			}
+			fcl.append(" THEN y IS t").append(sum / INPUTS).append(";\n");
+		}
+		fcl.append("END_RULEBLOCK\nEND_FUNCTION_BLOCK\n");
+		return fcl.toString();
+	}
+
+	/**
+	 * @param args numbers of rules
+	 * @throws IOException never, the text is in memory
+	 */
+	public static void main(String[] args) throws IOException {
+		final int[] sizes = args.length == 0 ? new int[] { 10000, 100000 } : new int[args.length];
+		for (int i = 0; i < args.length; i++) {
+			sizes[i] = Integer.parseInt(args[i]);
+		}
+		for (int rules : sizes) {
+			final String fcl = functionBlock(rules);
+			for (int i = 0; i < WARMUP; i++) {
+				FclParser.parse(new StringReader(fcl));
+			}
+			long best = Long.MAX_VALUE;
+			FuzzySystem system = null;
+			for (int i = 0; i < RUNS; i++) {
+				final long start = System.nanoTime();
+				system = FclParser.parse(new StringReader(fcl));
+				best = Math.min(best, System.nanoTime() - start);
+			}
+			System.out.printf("%d rules (%d KiB): parse + compile %.2f ms, %.2f ms per 10k rules, %s%n", rules,
+					fcl.length() / 1024, best / 1e6, best / 1e6 * 10000 / rules, system);
+		}
+	}
+
+}
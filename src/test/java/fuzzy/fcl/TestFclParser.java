@@ -0,0 +1,273 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package fuzzy.fcl;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Locale;
+import java.util.Random;
+
+import org.junit.Test;
+
+import fuzzy.df.MeanOfMaximaDefuzzificationFunction;
+import fuzzy.system.FuzzySystem;
+import fuzzy.system.LinguisticVariable;
+import fuzzy.system.MamdaniFuzzySystem;
+import fuzzy.system.Rule;
+import fuzzy.system.SNorm;
+import fuzzy.system.Shape;
+import fuzzy.system.TNorm;
+import fuzzy.system.Term;
+import fuzzy.system.TskFuzzySystem;
+
+/**
+ * Tests for FCL Parser.
+ *
+ * @since 0.5
+ * @see FclParser
+ */
+public class TestFclParser {
+
+	private static final String TIPPER = "FUNCTION_BLOCK tipper\n"
+			+ "VAR_INPUT\n"
+			+ "  service : REAL;\n"
+			+ "  food : REAL;\n"
+			+ "END_VAR\n"
+			+ "VAR_OUTPUT\n"
+			+ "  tip : REAL;\n"
+			+ "END_VAR\n"
+			+ "(* the classic tipping problem *)\n"
+			+ "FUZZIFY service\n"
+			+ "  TERM poor := (0, 1) (4, 0);\n"
+			+ "  TERM good := (1, 0) (4, 1) (6, 1) (9, 0);\n"
+			+ "  TERM excellent := (6, 0) (9, 1);\n"
+			+ "END_FUZZIFY\n"
+			+ "FUZZIFY food\n"
+			+ "  TERM rancid := (0, 1) (1, 1) (3, 0);\n"
+			+ "  TERM delicious := (7, 0) (9, 1);\n"
+			+ "  RANGE := (0 .. 10);\n"
+			+ "END_FUZZIFY\n"
+			+ "DEFUZZIFY tip\n"
+			+ "  TERM cheap := (0, 0) (5, 1) (10, 0);\n"
+			+ "  TERM average := (10, 0) (15, 1) (20, 0);\n"
+			+ "  TERM generous := (20, 0) (25, 1) (30, 0);\n"
+			+ "  METHOD : COG;\n"
+			+ "  DEFAULT := 0;\n"
+			+ "END_DEFUZZIFY\n"
+			+ "RULEBLOCK No1\n"
+			+ "  AND : MIN;\n"
+			+ "  ACT : MIN;\n"
+			+ "  ACCU : MAX;\n"
+			+ "  RULE 1 : IF service IS poor OR food IS rancid THEN tip IS cheap;\n"
+			+ "  RULE 2 : IF service IS good THEN tip IS average;\n"
+			+ "  RULE 3 : IF service IS excellent AND food IS delicious THEN tip IS generous;\n"
+			+ "END_RULEBLOCK\n"
+			+ "END_FUNCTION_BLOCK\n";
+
+	private static FuzzySystem parse(String fcl) throws IOException {
+		return FclParser.parse(new StringReader(fcl));
+	}
+
+	private static void assertSameOutputs(FuzzySystem expected, FuzzySystem actual) {
+		final Random random = new Random(1L);
+		for (int i = 0; i < 200; i++) {
+			final double[] x = new double[expected.getInputCount()];
+			for (int v = 0; v < x.length; v++) {
+				x[v] = 10.0 * random.nextDouble();
+			}
+			assertArrayEquals(expected.evaluate(x), actual.evaluate(x), 0.0);
+		}
+	}
+
+	@Test
+	public void testTipper() throws IOException {
+		final FuzzySystem parsed = parse(TIPPER);
+		assertTrue(parsed instanceof MamdaniFuzzySystem);
+		final MamdaniFuzzySystem expected = MamdaniFuzzySystem.builder()
+				.input(new LinguisticVariable("service", 0.0, 9.0,
+						new Term("poor", Shape.PIECEWISE_LINEAR, 0, 1, 4, 0),
+						new Term("good", Shape.PIECEWISE_LINEAR, 1, 0, 4, 1, 6, 1, 9, 0),
+						new Term("excellent", Shape.PIECEWISE_LINEAR, 6, 0, 9, 1)))
+				.input(new LinguisticVariable("food", 0.0, 10.0,
+						new Term("rancid", Shape.PIECEWISE_LINEAR, 0, 1, 1, 1, 3, 0),
+						new Term("delicious", Shape.PIECEWISE_LINEAR, 7, 0, 9, 1)))
+				.output(new LinguisticVariable("tip", 0.0, 30.0,
+						new Term("cheap", Shape.PIECEWISE_LINEAR, 0, 0, 5, 1, 10, 0),
+						new Term("average", Shape.PIECEWISE_LINEAR, 10, 0, 15, 1, 20, 0),
+						new Term("generous", Shape.PIECEWISE_LINEAR, 20, 0, 25, 1, 30, 0)))
+				.rule(Rule.when("service", "poor").or("food", "rancid").then("tip", "cheap"))
+				.rule(Rule.when("service", "good").then("tip", "average"))
+				.rule(Rule.when("service", "excellent").and("food", "delicious").then("tip", "generous"))
+				.defaultValue(0.0)
+				.build();
+		assertEquals(expected.getInput(0), parsed.getInput(0));
+		assertEquals(expected.getInput(1), parsed.getInput(1));
+		assertEquals(expected.getRules(), ((MamdaniFuzzySystem) parsed).getRules());
+		assertSameOutputs(expected, parsed);
+	}
+
+	@Test
+	public void testTurkishLocale() throws IOException {
+		// the upper case of "i" is a dotted capital I in Turkish
+		final Locale locale = Locale.getDefault();
+		Locale.setDefault(new Locale("tr", "TR"));
+		try {
+			final String lower = TIPPER.replace("AND : MIN;", "and : min;").replace("ACT : MIN;", "act : min;")
+					.replace("METHOD : COG;", "method : cog;").replace("IF", "if");
+			assertSameOutputs(parse(TIPPER), parse(lower));
+		} finally {
+			Locale.setDefault(locale);
+		}
+	}
+
+	@Test
+	public void testLeftmostAndRightmostMaximum() throws IOException {
+		// the plateau of the output is [-6, -2]: the left-most maximum is the
+		// one with the largest absolute value
+		final String fcl = "FUNCTION_BLOCK\n"
+				+ "VAR_INPUT x : REAL; END_VAR\n"
+				+ "VAR_OUTPUT y : REAL; END_VAR\n"
+				+ "FUZZIFY x\n"
+				+ "  TERM any := trape -1 0 10 11;\n"
+				+ "  RANGE := (0 .. 10);\n"
+				+ "END_FUZZIFY\n"
+				+ "DEFUZZIFY y\n"
+				+ "  TERM negative := trape -8 -6 -2 0;\n"
+				+ "  RANGE := (-10 .. 10);\n"
+				+ "  METHOD : LM;\n"
+				+ "END_DEFUZZIFY\n"
+				+ "RULEBLOCK No1\n"
+				+ "  RULE 1 : IF x IS any THEN y IS negative;\n"
+				+ "END_RULEBLOCK\n"
+				+ "END_FUNCTION_BLOCK\n";
+		assertEquals(-6.0, parse(fcl).evaluate(5.0)[0], 1e-9);
+		assertEquals(-2.0, parse(fcl.replace("METHOD : LM;", "METHOD : RM;")).evaluate(5.0)[0], 1e-9);
+		assertEquals(-4.0, parse(fcl.replace("METHOD : LM;", "METHOD : MM;")).evaluate(5.0)[0], 1e-9);
+	}
+
+	@Test
+	public void testShapesAndOperators() throws IOException {
+		final String fcl = "FUNCTION_BLOCK\n"
+				+ "VAR_INPUT x : REAL; y : REAL; END_VAR\n"
+				+ "VAR_OUTPUT z : REAL; END_VAR\n"
+				+ "FUZZIFY x\n"
+				+ "  TERM low := gauss 0 2.5; // mean first\n"
+				+ "  TERM high := gbell 3 2 10;\n"
+				+ "  RANGE := (0..10);\n"
+				+ "END_FUZZIFY\n"
+				+ "FUZZIFY y\n"
+				+ "  TERM down := trape -1 0 2 5;\n"
+				+ "  TERM up := sigm 2 6;\n"
+				+ "  RANGE := (0 .. 10);\n"
+				+ "END_FUZZIFY\n"
+				+ "DEFUZZIFY z\n"
+				+ "  TERM small := trian 0 0.25 0.5;\n"
+				+ "  TERM large := trian 0.5 0.75 1;\n"
+				+ "  RANGE := (0 .. 1);\n"
+				+ "  METHOD : MM;\n"
+				+ "END_DEFUZZIFY\n"
+				+ "RULEBLOCK first\n"
+				+ "  AND : PROD;\n"
+				+ "  ACT : PROD;\n"
+				+ "  ACCU : BSUM;\n"
+				+ "  RULE a : IF x IS low AND y IS NOT up THEN z IS small;\n"
+				+ "  RULE b : IF NOT x IS low THEN z IS large WITH 0.5;\n"
+				+ "END_RULEBLOCK\n"
+				+ "RULEBLOCK second\n"
+				+ "  RULE c : IF x IS high OR y IS up THEN z IS large WITH 0.25;\n"
+				+ "END_RULEBLOCK\n"
+				+ "END_FUNCTION_BLOCK";
+		final MamdaniFuzzySystem parsed = (MamdaniFuzzySystem) parse(fcl);
+		final MamdaniFuzzySystem expected = MamdaniFuzzySystem.builder()
+				.input(new LinguisticVariable("x", 0.0, 10.0,
+						new Term("low", Shape.GAUSSIAN, 2.5, 0.0),
+						new Term("high", Shape.GENERALIZED_BELL, 3.0, 2.0, 10.0)))
+				.input(new LinguisticVariable("y", 0.0, 10.0,
+						new Term("down", Shape.TRAPEZOIDAL, -1.0, 0.0, 2.0, 5.0),
+						new Term("up", Shape.SIGMOIDAL, 2.0, 6.0)))
+				.output(new LinguisticVariable("z", 0.0, 1.0,
+						new Term("small", Shape.TRIANGULAR, 0.0, 0.25, 0.5),
+						new Term("large", Shape.TRIANGULAR, 0.5, 0.75, 1.0)))
+				.rule(Rule.when("x", "low").andNot("y", "up").then("z", "small"))
+				.rule(Rule.whenNot("x", "low").then("z", "large").withWeight(0.5))
+				.rule(Rule.when("x", "high").or("y", "up").then("z", "large").withWeight(0.25))
+				.conjunction(TNorm.PRODUCT).disjunction(SNorm.PROBABILISTIC_SUM)
+				.implication(TNorm.PRODUCT).aggregation(SNorm.BOUNDED_SUM)
+				.defuzzification(new MeanOfMaximaDefuzzificationFunction<Double>())
+				.build();
+		assertEquals(TNorm.PRODUCT, parsed.getConjunction());
+		assertEquals(SNorm.PROBABILISTIC_SUM, parsed.getDisjunction());
+		assertEquals(expected.getRules(), parsed.getRules());
+		assertSameOutputs(expected, parsed);
+	}
+
+	@Test
+	public void testSingletonsCompileToTsk() throws IOException {
+		final String fcl = TIPPER.replace("TERM cheap := (0, 0) (5, 1) (10, 0);", "TERM cheap := 5;")
+				.replace("TERM average := (10, 0) (15, 1) (20, 0);", "TERM average := singleton 15;")
+				.replace("TERM generous := (20, 0) (25, 1) (30, 0);", "TERM generous := 25;")
+				.replace("METHOD : COG;", "METHOD : COGS;");
+		final FuzzySystem parsed = FclParser.parse(new StringReader(fcl), true);
+		assertTrue(parsed instanceof TskFuzzySystem);
+		assertTrue(((TskFuzzySystem) parsed).isRuleIndexed());
+		final TskFuzzySystem expected = TskFuzzySystem.builder()
+				.input(parsed.getInput(0))
+				.input(parsed.getInput(1))
+				.output("tip")
+				.constant("tip", "cheap", 5.0)
+				.constant("tip", "average", 15.0)
+				.constant("tip", "generous", 25.0)
+				.rule(Rule.when("service", "poor").or("food", "rancid").then("tip", "cheap"))
+				.rule(Rule.when("service", "good").then("tip", "average"))
+				.rule(Rule.when("service", "excellent").and("food", "delicious").then("tip", "generous"))
+				.defaultValue(0.0)
+				.build();
+		assertSameOutputs(expected, parsed);
+	}
+
+	private static void assertInvalid(String fcl, String message) throws IOException {
+		try {
+			parse(fcl);
+			fail("Expected an invalid FCL: " + message);
+		} catch (IllegalArgumentException e) {
+			assertTrue(e.getMessage(), e.getMessage().contains(message));
+		}
+	}
+
+	@Test
+	public void testErrors() throws IOException {
+		assertInvalid(TIPPER.replace("  ACT : MIN;\n", "  ACT MIN;\n"), "line 29: expected ':'");
+		assertInvalid(TIPPER.replace("AND food IS delicious", "OR food IS delicious AND service IS good"),
+				"mixing AND and OR");
+		assertInvalid(TIPPER.replace("(* the", "(* the unclosed").replace("problem *)", "problem"),
+				"line 9: comment not closed");
+		assertInvalid(TIPPER.replace("METHOD : COG;", "METHOD : COGS;"), "METHOD COGS needs singleton terms");
+		assertInvalid(TIPPER.replace("ACCU : MAX;", "ACCU : NSUM;"), "NSUM is not supported");
+		assertInvalid(TIPPER.replace("FUZZIFY food", "FUZZIFY drink"), "undeclared input 'drink'");
+		assertInvalid(TIPPER + "FUNCTION_BLOCK", "expected end of text");
+		assertInvalid(TIPPER.replace("TERM good := (1, 0)", "TERM good := bell (1, 0)"),
+				"unknown membership function bell");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnknownTermInRule() throws IOException {
+		parse(TIPPER.replace("tip IS average", "tip IS fair"));
+	}
+
+}
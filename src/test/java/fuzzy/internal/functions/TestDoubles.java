@@ -18,6 +18,8 @@ import static org.junit.Assert.assertTrue;
 import java.util.Arrays;
 import java.util.Collection;
 
+import org.apache.commons.functor.generator.range.BoundType;
+import org.apache.commons.functor.generator.range.DoubleRange;
 import org.junit.Test;
 
 /**
@@ -40,4 +42,17 @@ public class TestDoubles {
         assertTrue(Arrays.equals(new double[0], Doubles.toArray(list)));
     }
 
+	@Test
+	public void testDoubleRange() {
+		DoubleRange range = new DoubleRange(-10.0, 10.0, 0.1);
+		assertTrue(Arrays.equals(Doubles.toArray(range.toCollection()), Doubles.toArray(range)));
+	}
+
+	@Test
+	public void testDoubleRangeOpenAndDescending() {
+		DoubleRange range = new DoubleRange(5.0, BoundType.OPEN, 0.0, BoundType.OPEN, -0.5);
+		assertTrue(Arrays.equals(Doubles.toArray(range.toCollection()), Doubles.toArray(range)));
+		assertTrue(Arrays.equals(new double[0], Doubles.toArray(new DoubleRange(0.0, BoundType.OPEN, 0.0, BoundType.OPEN, 1.0))));
+	}
+
 }
@@ -0,0 +1,80 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package fuzzy.mf;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Tests for the closed forms of membership functions.
+ *
+ * @since 0.5
+ * @see AnalyticallyDefuzzifiable
+ */
+public class TestAnalyticallyDefuzzifiable {
+
+	private final AnalyticallyDefuzzifiable[] mfs = new AnalyticallyDefuzzifiable[] {
+		new TriangularMembershipFunction(-4, 3, 5),
+		new TrapezoidalMembershipFunction(-3, 0, 2, 7),
+		new TrapezoidalMembershipFunction(-3, -3, 2, 2),
+		new GaussianMembershipFunction(2, 1)
+	};
+
+	@Test
+	public void testAreaAndFirstMoment() {
+		final double step = 1e-4;
+		for (AnalyticallyDefuzzifiable mf : mfs) {
+			for (double alpha : new double[] { 1.0, 0.5, 0.1 }) {
+				// midpoint rule over a universe that truncates the shape
+				double area = 0.0;
+				double moment = 0.0;
+				for (double x = -2 + step / 2; x < 6; x += step) {
+					final double y = Math.min(mf.applyAsDouble(x), alpha);
+					area += y * step;
+					moment += x * y * step;
+				}
+				assertEquals(mf + " " + alpha, area, mf.area(-2, 6, alpha), 1e-6);
+				assertEquals(mf + " " + alpha, moment, mf.firstMoment(-2, 6, alpha), 1e-5);
+				final double bisector = mf.bisector(-2, 6, alpha);
+				assertEquals(mf + " " + alpha, mf.area(-2, bisector, alpha), mf.area(bisector, 6, alpha), 1e-9);
+			}
+		}
+	}
+
+	@Test
+	public void testMaxima() {
+		AnalyticallyDefuzzifiable triangle = new TriangularMembershipFunction(-4, 3, 5);
+		assertEquals(new Interval(3, 3), triangle.maxima(-10, 10, 1.0));
+		assertEquals(new Interval(-0.5, 4), triangle.maxima(-10, 10, 0.5));
+		assertEquals(new Interval(1, 1), triangle.maxima(-10, 1, 1.0));
+		assertEquals(new Interval(6, 10), triangle.maxima(6, 10, 1.0));
+		AnalyticallyDefuzzifiable gaussian = new GaussianMembershipFunction(2, 1);
+		assertEquals(new Interval(1, 1), gaussian.maxima(-10, 10, 1.0));
+		assertEquals(new Interval(4, 4), gaussian.maxima(4, 10, 1.0));
+		Interval clipped = gaussian.maxima(-10, 10, 0.5);
+		assertEquals(0.5, gaussian.applyAsDouble(clipped.getLower()), 1e-12);
+		assertEquals(0.5, gaussian.applyAsDouble(clipped.getUpper()), 1e-12);
+	}
+
+	@Test
+	public void testHasClosedForm() {
+		assertTrue(new TriangularMembershipFunction(1, 1, 2).hasClosedForm());
+		assertFalse(new TriangularMembershipFunction(3, 1, 2).hasClosedForm());
+		assertFalse(new GaussianMembershipFunction(0, 1).hasClosedForm());
+	}
+
+}
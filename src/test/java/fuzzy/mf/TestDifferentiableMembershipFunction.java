@@ -0,0 +1,100 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package fuzzy.mf;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.function.Function;
+
+import org.junit.Test;
+
+/**
+ * Tests for Differentiable Membership Function.
+ *
+ * @since 0.5
+ * @see DifferentiableMembershipFunction
+ */
+public class TestDifferentiableMembershipFunction {
+
+	private static final double H = 1e-6;
+
+	/**
+	 * Compares the analytic partial derivatives to central finite
+	 * differences, at crisp values away from the corners.
+	 */
+	private static void check(Function<double[], DifferentiableMembershipFunction> factory, double[] parameters,
+			double... xs) {
+		final DifferentiableMembershipFunction mf = factory.apply(parameters);
+		final double[] gradient = new double[parameters.length + 1];
+		for (double x : xs) {
+			assertEquals(mf.applyAsDouble(x), mf.gradient(x, gradient, 1), 0.0);
+			for (int j = 0; j < parameters.length; j++) {
+				final double[] plus = parameters.clone();
+				final double[] minus = parameters.clone();
+				plus[j] += H;
+				minus[j] -= H;
+				final double expected = (factory.apply(plus).applyAsDouble(x) - factory.apply(minus).applyAsDouble(x))
+						/ (2 * H);
+				assertEquals(mf + " at " + x + ", parameter " + j, expected, gradient[j + 1], 1e-6);
+			}
+		}
+		assertEquals(parameters.length, mf.getParameterCount());
+	}
+
+	@Test
+	public void testGaussian() {
+		check(p -> new GaussianMembershipFunction(p[0], p[1]), new double[] { 1.5, 5.0 }, 0.0, 3.2, 5.0, 6.1, 9.0);
+	}
+
+	@Test
+	public void testGeneralizedBell() {
+		check(p -> new GeneralizedBellShapedMembershipFunction(p[0], p[1], p[2]), new double[] { 2.0, 3.0, 5.0 },
+				0.0, 3.2, 4.5, 6.1, 9.0);
+		double[] gradient = new double[3];
+		assertEquals(1.0, new GeneralizedBellShapedMembershipFunction(2.0, 3.0, 5.0).gradient(5.0, gradient, 0), 0.0);
+		assertEquals(0.0, gradient[1], 0.0);
+		assertEquals(0.0, gradient[2], 0.0);
+	}
+
+	@Test
+	public void testSigmoidal() {
+		check(p -> new SigmoidalMembershipFunction(p[0], p[1]), new double[] { 2.0, 4.0 }, 0.0, 3.5, 4.0, 6.0);
+		check(p -> new SigmoidalMembershipFunction(-0.5, 2.0, p[0], p[1]), new double[] { -1.0, 4.0 }, 1.0, 4.5);
+	}
+
+	@Test
+	public void testDifferentialSigmoidal() {
+		check(p -> new DifferentialSigmoidalMembershipFunction(p[0], p[1], p[2], p[3]),
+				new double[] { 5.0, 2.0, 5.0, 7.0 }, 0.0, 1.8, 4.5, 7.3, 10.0);
+	}
+
+	@Test
+	public void testProductSigmoidal() {
+		check(p -> new ProductSigmoidalMembershipFunction(p[0], p[1], p[2], p[3]),
+				new double[] { 2.0, 3.0, -5.0, 8.0 }, 0.0, 2.8, 5.5, 8.2, 10.0);
+	}
+
+	@Test
+	public void testTriangular() {
+		check(p -> new TriangularMembershipFunction(p[0], p[1], p[2]), new double[] { 1.0, 4.0, 9.0 },
+				0.0, 2.5, 3.9, 4.2, 8.0, 10.0);
+	}
+
+	@Test
+	public void testTrapezoidal() {
+		check(p -> new TrapezoidalMembershipFunction(p[0], p[1], p[2], p[3]), new double[] { 1.0, 4.0, 6.0, 9.0 },
+				0.5, 2.5, 5.0, 7.5, 9.5);
+	}
+
+}
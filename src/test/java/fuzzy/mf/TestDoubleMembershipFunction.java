@@ -0,0 +1,151 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package fuzzy.mf;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Tests for the primitive membership function contract.
+ *
+ * @since 0.5
+ * @see DoubleMembershipFunction
+ */
+public class TestDoubleMembershipFunction {
+
+	private final DoubleMembershipFunction[] mfs = new DoubleMembershipFunction[] {
+		new DifferentialSigmoidalMembershipFunction(5, 2, 5, 7),
+		new GaussianMembershipFunction(2, 5),
+		new GeneralizedBellShapedMembershipFunction(2, 4, 6),
+		new PiShapedMembershipFunction(1, 4, 5, 10),
+		new ProductSigmoidalMembershipFunction(2, 3, -5, 8),
+		new SigmoidalMembershipFunction(2, 4),
+		new SShapedMembershipFunction(1, 8),
+		new TrapezoidalMembershipFunction(1, 5, 7, 8),
+		new TriangularMembershipFunction(3, 6, 8),
+		new ZShapedMembershipFunction(3, 7)
+	};
+
+	@Test
+	public void testApplyMatchesApplyAsDouble() {
+		for (DoubleMembershipFunction mf : mfs) {
+			for (double x = 0.0; x <= 10.0; x += 0.1) {
+				MembershipFunction<Double> boxed = mf;
+				assertEquals(mf.toString(), Double.valueOf(mf.applyAsDouble(x)), boxed.apply(x));
+			}
+		}
+	}
+
+	@Test
+	public void testApplyAllMatchesApplyAsDouble() {
+		final double[] xs = new double[201];
+		for (int i = 0; i < xs.length; i++) {
+			xs[i] = -5.0 + i * 0.1;
+		}
+		for (DoubleMembershipFunction mf : mfs) {
+			final double[] out = new double[xs.length];
+			mf.applyAll(xs, 10, 190, out);
+			for (int i = 0; i < xs.length; i++) {
+				final double expected = i < 10 || i >= 190 ? 0.0 : mf.applyAsDouble(xs[i]);
+				assertEquals(mf.toString(), Double.doubleToLongBits(expected), Double.doubleToLongBits(out[i]));
+			}
+		}
+	}
+
+	@Test
+	public void testApplyAllMatchesApplyAsDoubleForSpecialValues() {
+		final double[] xs = new double[] { Double.NaN, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, -0.0 };
+		for (DoubleMembershipFunction mf : mfs) {
+			final double[] out = mf.applyAll(xs);
+			for (int i = 0; i < xs.length; i++) {
+				assertEquals(mf + " " + xs[i], Double.doubleToLongBits(mf.applyAsDouble(xs[i])),
+						Double.doubleToLongBits(out[i]));
+			}
+		}
+	}
+
+	@Test
+	public void testApplyAllInPlace() {
+		DoubleMembershipFunction mf = new TrapezoidalMembershipFunction(1, 5, 5, 8);
+		DoubleMembershipFunction degenerate = new TrapezoidalMembershipFunction(1, 1, 7, 8);
+		double[] xs = new double[] { 0.0, 1.0, 2.0, 5.0, 6.5, 8.0, 9.0 };
+		double[] expected = new double[] { 0.0, 0.0, 0.25, 1.0, 0.5, 0.0, 0.0 };
+		double[] degenerateExpected = new double[xs.length];
+		for (int i = 0; i < xs.length; i++) {
+			degenerateExpected[i] = degenerate.applyAsDouble(xs[i]);
+		}
+		assertArrayEquals(degenerateExpected, degenerate.applyAll(xs), 0.0);
+		mf.applyAll(xs, 0, xs.length, xs);
+		assertArrayEquals(expected, xs, 0.0);
+	}
+
+	@Test
+	public void testOf() {
+		DoubleMembershipFunction mf = new GaussianMembershipFunction(2, 5);
+		assertSame(mf, DoubleMembershipFunction.of(mf));
+
+		MembershipFunction<Double> lambda = x -> x / 10.0;
+		DoubleMembershipFunction primitive = DoubleMembershipFunction.of(lambda);
+		assertEquals(0.5, primitive.applyAsDouble(5.0), 0.0);
+		assertEquals(Double.valueOf(0.5), primitive.apply(5.0));
+	}
+
+	@Test
+	public void testSupportContainsNonZeroValues() {
+		for (DoubleMembershipFunction mf : mfs) {
+			for (double epsilon : new double[] { 0.0, 1e-6, 0.01, 0.5 }) {
+				final Interval support = mf.support(epsilon);
+				for (double x = -20.0; x <= 30.0; x += 0.01) {
+					if (!support.contains(x)) {
+						assertTrue(mf + " " + support + " " + x, mf.applyAsDouble(x) <= epsilon);
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testCoreHasValueOne() {
+		for (DoubleMembershipFunction mf : mfs) {
+			final Interval core = mf.core();
+			for (double x = -20.0; x <= 30.0; x += 0.01) {
+				if (core.contains(x)) {
+					assertEquals(mf + " " + core + " " + x, 1.0, mf.applyAsDouble(x), 0.0);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testSupportAndCore() {
+		assertEquals(new Interval(3, 8), new TriangularMembershipFunction(3, 6, 8).support());
+		assertEquals(new Interval(6, 6), new TriangularMembershipFunction(3, 6, 8).core());
+		assertEquals(new Interval(1, 8), new TrapezoidalMembershipFunction(1, 5, 7, 8).support());
+		assertEquals(new Interval(5, 7), new TrapezoidalMembershipFunction(1, 5, 7, 8).core());
+		assertEquals(Interval.ALL, new GaussianMembershipFunction(2, 5).support());
+		assertTrue(new GaussianMembershipFunction(2, 5).support(1e-6).isBounded());
+		assertEquals(Interval.EMPTY, new GaussianMembershipFunction(2, 5).support(1.0));
+		assertEquals(Interval.ALL, new DoubleMembershipFunction() {
+			@Override
+			public double applyAsDouble(double x) {
+				return 1.0;
+			}
+		}.support());
+	}
+
+}
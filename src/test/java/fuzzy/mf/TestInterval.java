@@ -0,0 +1,64 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package fuzzy.mf;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Tests for intervals of crisp values.
+ *
+ * @since 0.5
+ * @see Interval
+ */
+public class TestInterval {
+
+	@Test
+	public void testContains() {
+		Interval interval = new Interval(1, 3);
+		assertTrue(interval.contains(1));
+		assertTrue(interval.contains(3));
+		assertFalse(interval.contains(3.5));
+		assertTrue(interval.isBounded());
+		assertFalse(Interval.ALL.isBounded());
+		assertTrue(Interval.ALL.contains(Double.MAX_VALUE));
+		assertFalse(Interval.EMPTY.contains(0.0));
+		assertTrue(Interval.EMPTY.isEmpty());
+	}
+
+	@Test
+	public void testIntersection() {
+		assertEquals(new Interval(2, 3), new Interval(1, 3).intersection(new Interval(2, 5)));
+		assertEquals(Interval.EMPTY, new Interval(1, 2).intersection(new Interval(3, 5)));
+		assertEquals(new Interval(1, 2), Interval.ALL.intersection(new Interval(1, 2)));
+	}
+
+	@Test
+	public void testEquals() {
+		assertEquals(new Interval(-0.0, 1), new Interval(0.0, 1));
+		assertEquals(new Interval(-0.0, 1).hashCode(), new Interval(0.0, 1).hashCode());
+		assertEquals(Interval.EMPTY, new Interval(5, 4));
+		assertEquals(Interval.EMPTY.hashCode(), new Interval(5, 4).hashCode());
+		assertEquals("[]", Interval.EMPTY.toString());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNaN() {
+		new Interval(Double.NaN, 1);
+	}
+
+}
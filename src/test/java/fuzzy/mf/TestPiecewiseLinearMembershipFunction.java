@@ -0,0 +1,110 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package fuzzy.mf;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.function.Function;
+
+import org.junit.Test;
+
+/**
+ * Tests for Piecewise Linear Membership Function.
+ *
+ * @since 0.5
+ * @see PiecewiseLinearMembershipFunction
+ */
+public class TestPiecewiseLinearMembershipFunction extends BaseMembershipFunctionTest<Function<?, ?>> {
+
+	@Override
+	protected PiecewiseLinearMembershipFunction makeMembershipFunction() {
+		return new PiecewiseLinearMembershipFunction(new double[] { 1, 5, 7, 8 }, new double[] { 0, 1, 1, 0 });
+	}
+
+	@Test
+	public void testEvaluate() {
+		PiecewiseLinearMembershipFunction mf = makeMembershipFunction();
+		TrapezoidalMembershipFunction trapezoid = new TrapezoidalMembershipFunction(1, 5, 7, 8);
+		for (int i = 0; i <= 100; i++) {
+			final double x = i * 0.1;
+			assertEquals(trapezoid.applyAsDouble(x), mf.applyAsDouble(x), 1e-12);
+		}
+	}
+
+	@Test
+	public void testApplyAll() {
+		PiecewiseLinearMembershipFunction mf = new PiecewiseLinearMembershipFunction(
+				new double[] { 0, 1, 2, 3, 4, 5, 6 }, new double[] { 0.2, 0.5, 0.1, 0.9, 0.9, 0.3, 0.0 });
+		double[] xs = new double[] { -1, 0, 0.5, 1, 1.5, 2.5, 6, 7, 3.5, 0.25, 4.75, 5.5 };
+		double[] out = mf.applyAll(xs);
+		for (int i = 0; i < xs.length; i++) {
+			assertEquals(mf.applyAsDouble(xs[i]), out[i], 0.0);
+		}
+	}
+
+	@Test
+	public void testIntegrals() {
+		// triangle with base 4 and height 1
+		PiecewiseLinearMembershipFunction mf = new PiecewiseLinearMembershipFunction(new double[] { 2, 3, 6 }, new double[] { 0, 1, 0 });
+		assertEquals(2.0, mf.area(), 1e-12);
+		assertEquals((2 + 3 + 6) / 3.0, mf.centroid(), 1e-12);
+		assertEquals(mf.centroid() * mf.area(), mf.firstMoment(), 1e-12);
+		// left half has area 0.5, so the bisector is in the right slope
+		final double bisector = mf.bisector();
+		assertEquals(1.0, mf.area(2, bisector), 1e-12);
+		assertEquals(6 - Math.sqrt(6.0), bisector, 1e-12);
+		// truncated to [0, 3]
+		assertEquals(0.5, mf.area(0, 3), 1e-12);
+		assertEquals((2 + 2 * 3) / 3.0, mf.centroid(0, 3), 1e-12);
+	}
+
+	@Test
+	public void testIntegralsOutsideBreakpoints() {
+		PiecewiseLinearMembershipFunction mf = new PiecewiseLinearMembershipFunction(new double[] { 0, 1 }, new double[] { 1, 1 });
+		assertEquals(4.0, mf.area(-2, 2), 1e-12);
+		assertEquals(0.0, mf.centroid(-2, 2), 1e-12);
+		assertEquals(0.0, mf.bisector(-2, 2), 1e-12);
+		assertEquals(-1.0, mf.bisector(-3, 1), 1e-12);
+	}
+
+	@Test
+	public void testBisectorMatchesSampling() {
+		PiecewiseLinearMembershipFunction mf = new PiecewiseLinearMembershipFunction(
+				new double[] { 0, 1, 2, 3, 4, 5, 6 }, new double[] { 0.2, 0.5, 0.1, 0.9, 0.9, 0.3, 0.0 });
+		final double bisector = mf.bisector();
+		assertEquals(mf.area() / 2, mf.area(0, bisector), 1e-12);
+		assertEquals(mf.area(0, 6), mf.area(), 1e-12);
+	}
+
+	@Test
+	public void testAlphaCut() {
+		PiecewiseLinearMembershipFunction mf = new PiecewiseLinearMembershipFunction(
+				new double[] { 0, 2, 4, 6, 8 }, new double[] { 0, 1, 0, 0.5, 0.5 });
+		assertArrayEquals(new double[] { 1, 3, 6, 8 }, mf.alphaCut(0.5), 1e-12);
+		assertArrayEquals(new double[] { 0, 8 }, mf.alphaCut(0.0), 1e-12);
+		assertArrayEquals(new double[0], mf.alphaCut(2.0), 0.0);
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testUnsortedBreakpoints() {
+		new PiecewiseLinearMembershipFunction(new double[] { 0, 2, 1 }, new double[] { 0, 1, 0 });
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testNegativeFuzzyValue() {
+		new PiecewiseLinearMembershipFunction(new double[] { 0, 1 }, new double[] { 0, -1 });
+	}
+
+}
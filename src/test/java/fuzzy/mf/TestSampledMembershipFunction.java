@@ -0,0 +1,103 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package fuzzy.mf;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.function.Function;
+
+import org.apache.commons.functor.generator.range.DoubleRange;
+import org.junit.Test;
+
+import fuzzy.mf.SampledMembershipFunction.Interpolation;
+
+/**
+ * Tests for Sampled Membership Function.
+ *
+ * @since 0.5
+ * @see SampledMembershipFunction
+ */
+public class TestSampledMembershipFunction extends BaseMembershipFunctionTest<Function<?, ?>> {
+
+	private final GaussianMembershipFunction gaussian = new GaussianMembershipFunction(2.0, 5.0);
+
+	@Override
+	protected SampledMembershipFunction makeMembershipFunction() {
+		return new SampledMembershipFunction(gaussian, new DoubleRange(0.0, 10.0, 0.1));
+	}
+
+	@Test
+	public void testLinear() {
+		SampledMembershipFunction mf = makeMembershipFunction();
+		assertEquals(101, mf.getSize());
+		assertTrue(mf.getMaximumError() > 0.0);
+		assertTrue(mf.getMaximumError() < 1e-3);
+		for (int i = 0; i <= 1000; i++) {
+			final double x = i * 0.01;
+			assertEquals(gaussian.applyAsDouble(x), mf.applyAsDouble(x), 1e-3);
+		}
+		// samples are exact
+		assertEquals(1.0, mf.applyAsDouble(5.0), 0.0);
+	}
+
+	@Test
+	public void testCubicIsMoreAccurate() {
+		SampledMembershipFunction linear = makeMembershipFunction();
+		SampledMembershipFunction cubic = new SampledMembershipFunction(gaussian, new DoubleRange(0.0, 10.0, 0.1), Interpolation.CUBIC);
+		assertTrue(cubic.getMaximumError() < linear.getMaximumError());
+		for (int i = 0; i <= 1000; i++) {
+			final double x = i * 0.01;
+			assertEquals(gaussian.applyAsDouble(x), cubic.applyAsDouble(x), 1e-4);
+		}
+	}
+
+	@Test
+	public void testCubicDoesNotOvershoot() {
+		DoubleMembershipFunction triangle = new TriangularMembershipFunction(2.0, 3.0, 4.0);
+		SampledMembershipFunction mf = new SampledMembershipFunction(triangle, new DoubleRange(0.0, 10.0, 0.5), Interpolation.CUBIC);
+		for (int i = 0; i <= 1000; i++) {
+			final double y = mf.applyAsDouble(i * 0.01);
+			assertTrue(y >= 0.0 && y <= 1.0);
+		}
+	}
+
+	@Test
+	public void testOutsideRange() {
+		SampledMembershipFunction mf = new SampledMembershipFunction(new SigmoidalMembershipFunction(2.0, 4.0), new DoubleRange(10.0, 0.0, -0.5));
+		assertEquals(new SigmoidalMembershipFunction(2.0, 4.0).applyAsDouble(0.0), mf.applyAsDouble(-100.0), 0.0);
+		assertEquals(new SigmoidalMembershipFunction(2.0, 4.0).applyAsDouble(10.0), mf.applyAsDouble(100.0), 0.0);
+	}
+
+	@Test
+	public void testApplyAll() {
+		for (Interpolation interpolation : Interpolation.values()) {
+			SampledMembershipFunction mf = new SampledMembershipFunction(gaussian, new DoubleRange(0.0, 10.0, 0.3), interpolation);
+			double[] xs = new double[250];
+			for (int i = 0; i < xs.length; i++) {
+				xs[i] = -1.0 + i * 0.05;
+			}
+			double[] out = mf.applyAll(xs);
+			for (int i = 0; i < xs.length; i++) {
+				assertEquals(mf.applyAsDouble(xs[i]), out[i], 0.0);
+			}
+		}
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testZeroStep() {
+		new SampledMembershipFunction(gaussian, new DoubleRange(0.0, 0.0, 0.0));
+	}
+
+}
@@ -0,0 +1,167 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package fuzzy.set;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import org.apache.commons.functor.generator.range.DoubleRange;
+import org.junit.Test;
+
+import fuzzy.df.BisectorDefuzzificationFunction;
+import fuzzy.df.CentroidDefuzzificationFunction;
+import fuzzy.df.LargestOfMaximaDefuzzificationFunction;
+import fuzzy.df.LeftmostMaximumDefuzzificationFunction;
+import fuzzy.df.MeanOfMaximaDefuzzificationFunction;
+import fuzzy.df.RightmostMaximumDefuzzificationFunction;
+import fuzzy.df.SmallestOfMaximaDefuzzificationFunction;
+import fuzzy.mf.DoubleMembershipFunction;
+import fuzzy.mf.GaussianMembershipFunction;
+import fuzzy.mf.TrapezoidalMembershipFunction;
+import fuzzy.mf.TriangularMembershipFunction;
+
+/**
+ * Tests for Discrete Fuzzy Set.
+ *
+ * @since 0.5
+ * @see DiscreteFuzzySet
+ */
+public class TestDiscreteFuzzySet {
+
+	@Test
+	public void testSameAsDefuzzificationFunctions() {
+		DoubleRange range = new DoubleRange(-10.0, 10.0, 0.01);
+		DoubleMembershipFunction[] mfs = new DoubleMembershipFunction[] {
+			new TriangularMembershipFunction(-4.0, 3.0, 5.0),
+			new TrapezoidalMembershipFunction(-12.0, -8.0, -4.0, 7.0),
+			new GaussianMembershipFunction(3.0, 2.0)
+		};
+		for (DoubleMembershipFunction mf : mfs) {
+			DiscreteFuzzySet set = DiscreteFuzzySet.of(range, mf);
+			assertEquals(new CentroidDefuzzificationFunction<Double>().apply(range, mf), set.centroid(), 0.0);
+			assertEquals(new BisectorDefuzzificationFunction<Double>().apply(range, mf), set.bisector(), 0.0);
+			assertEquals(new SmallestOfMaximaDefuzzificationFunction<Double>().apply(range, mf), set.smallestOfMaxima(), 0.0);
+			assertEquals(new LargestOfMaximaDefuzzificationFunction<Double>().apply(range, mf), set.largestOfMaxima(), 0.0);
+			assertEquals(new MeanOfMaximaDefuzzificationFunction<Double>().apply(range, mf), set.meanOfMaxima(), 0.0);
+			assertEquals(new LeftmostMaximumDefuzzificationFunction<Double>().apply(range, mf), set.leftmostMaximum(), 0.0);
+			assertEquals(new RightmostMaximumDefuzzificationFunction<Double>().apply(range, mf), set.rightmostMaximum(), 0.0);
+		}
+	}
+
+	@Test
+	public void testInterpolate() {
+		DiscreteFuzzySet set = new DiscreteFuzzySet(new double[] { 0.0, 1.0, 3.0 });
+		set.setMembership(1, 1.0);
+		set.setMembership(2, 0.5);
+		assertEquals(0.0, set.interpolate(0.0), 0.0);
+		assertEquals(0.25, set.interpolate(0.25), 0.0);
+		assertEquals(1.0, set.interpolate(1.0), 0.0);
+		assertEquals(0.75, set.interpolate(2.0), 0.0);
+		assertEquals(0.5, set.interpolate(3.0), 0.0);
+		assertEquals(0.0, set.interpolate(3.5), 0.0);
+		assertEquals(0.0, set.interpolate(-0.5), 0.0);
+		DiscreteFuzzySet even = new DiscreteFuzzySet(10.0, -2.0, 3);
+		even.setMembership(0, 1.0);
+		assertEquals(0.25, even.interpolate(8.5), 0.0);
+		assertEquals(0.0, even.interpolate(6.0), 0.0);
+		assertEquals(0.0, even.interpolate(11.0), 0.0);
+	}
+
+	@Test
+	public void testStartAndStep() {
+		DoubleMembershipFunction mf = new TriangularMembershipFunction(2.0, 5.0, 6.0);
+		DiscreteFuzzySet set = new DiscreteFuzzySet(0.0, 0.5, 21).fill(mf);
+		DiscreteFuzzySet same = new DiscreteFuzzySet(new double[] {
+			0.0, 0.5, 1.0, 1.5, 2.0, 2.5, 3.0, 3.5, 4.0, 4.5, 5.0,
+			5.5, 6.0, 6.5, 7.0, 7.5, 8.0, 8.5, 9.0, 9.5, 10.0 }).fill(mf);
+		assertEquals(same, set);
+		assertEquals(same.hashCode(), set.hashCode());
+		assertEquals(21, set.size());
+		assertEquals(3.5, set.getCrispValue(7), 0.0);
+		assertEquals(1.0, set.height(), 0.0);
+		assertEquals(same.centroid(), set.centroid(), 0.0);
+		assertEquals(same.bisector(), set.bisector(), 0.0);
+		assertEquals(5.0, set.smallestOfMaxima(), 0.0);
+		assertEquals(5.0, set.largestOfMaxima(), 0.0);
+		assertEquals(5.0, set.meanOfMaxima(), 0.0);
+	}
+
+	@Test
+	public void testUnionIntersectionClipAndScale() {
+		DiscreteFuzzySet a = new DiscreteFuzzySet(0.0, 1.0, 5);
+		DiscreteFuzzySet b = new DiscreteFuzzySet(0.0, 1.0, 5);
+		double[] x = new double[] { 0.0, 0.2, 0.9, 0.4, 1.0 };
+		double[] y = new double[] { 0.5, 0.1, 0.3, 0.8, 0.0 };
+		System.arraycopy(x, 0, a.getMemberships(), 0, 5);
+		System.arraycopy(y, 0, b.getMemberships(), 0, 5);
+		assertArrayEquals(new double[] { 0.5, 0.2, 0.9, 0.8, 1.0 }, a.copy().union(b).getMemberships(), 0.0);
+		assertArrayEquals(new double[] { 0.0, 0.1, 0.3, 0.4, 0.0 }, a.copy().intersection(b).getMemberships(), 0.0);
+		assertArrayEquals(new double[] { 0.0, 0.2, 0.5, 0.4, 0.5 }, a.copy().clip(0.5).getMemberships(), 0.0);
+		assertArrayEquals(new double[] { 0.0, 0.1, 0.45, 0.2, 0.5 }, a.copy().scale(0.5).getMemberships(), 1e-15);
+		assertArrayEquals(x, a.getMemberships(), 0.0);
+		assertEquals(2.5, a.cardinality(), 1e-15);
+	}
+
+	@Test
+	public void testAggregationInOneBuffer() {
+		DoubleRange range = new DoubleRange(0.0, 10.0, 0.1);
+		DoubleMembershipFunction low = new TriangularMembershipFunction(0.0, 2.0, 5.0);
+		DoubleMembershipFunction high = new TriangularMembershipFunction(4.0, 8.0, 10.0);
+		DiscreteFuzzySet buffer = DiscreteFuzzySet.of(range, x -> 0.0);
+		buffer.unionClipped(low, 0.3).unionClipped(high, 0.7);
+		DoubleMembershipFunction aggregated = x -> Math.max(Math.min(low.applyAsDouble(x), 0.3),
+				Math.min(high.applyAsDouble(x), 0.7));
+		assertEquals(DiscreteFuzzySet.of(range, aggregated), buffer);
+		assertEquals(new CentroidDefuzzificationFunction<Double>().apply(range, aggregated), buffer.centroid(), 0.0);
+
+		buffer.clear().unionScaled(low, 0.3).unionScaled(high, 0.7);
+		DoubleMembershipFunction scaled = x -> Math.max(low.applyAsDouble(x) * 0.3, high.applyAsDouble(x) * 0.7);
+		assertEquals(DiscreteFuzzySet.of(range, scaled), buffer);
+	}
+
+	@Test
+	public void testAlphaCut() {
+		DiscreteFuzzySet set = new DiscreteFuzzySet(new double[] { 1.0, 2.0, 3.0, 4.0, 5.0, 6.0 });
+		System.arraycopy(new double[] { 0.6, 0.2, 0.5, 0.9, 0.1, 0.7 }, 0, set.getMemberships(), 0, 6);
+		assertArrayEquals(new double[] { 1.0, 1.0, 3.0, 4.0, 6.0, 6.0 }, set.alphaCut(0.5), 0.0);
+		assertArrayEquals(new double[] { 1.0, 6.0 }, set.alphaCut(0.0), 0.0);
+		assertArrayEquals(new double[0], set.alphaCut(0.95), 0.0);
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testDifferentUniverses() {
+		new DiscreteFuzzySet(0.0, 1.0, 5).union(new DiscreteFuzzySet(0.0, 0.5, 5));
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testCentroidEmptySet() {
+		new DiscreteFuzzySet(0.0, 1.0, 5).centroid();
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testInvalidStep() {
+		new DiscreteFuzzySet(0.0, 0.0, 5);
+	}
+
+	@Test
+	public void testEqualsObject() {
+		DiscreteFuzzySet set = new DiscreteFuzzySet(0.0, 1.0, 5);
+		assertEquals(set, set.copy());
+		assertFalse(set.equals(null));
+		assertFalse(set.equals(new DiscreteFuzzySet(0.0, 1.0, 6)));
+		assertFalse(set.equals(set.copy().fill(x -> 1.0)));
+	}
+
+}
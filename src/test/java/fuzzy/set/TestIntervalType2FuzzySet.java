@@ -0,0 +1,108 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package fuzzy.set;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.commons.functor.generator.range.DoubleRange;
+import org.junit.Test;
+
+import fuzzy.df.TypeReduction;
+import fuzzy.mf.GaussianMembershipFunction;
+import fuzzy.mf.TriangularMembershipFunction;
+
+/**
+ * Tests for Interval Type-2 Fuzzy Set.
+ *
+ * @since 0.5
+ * @see IntervalType2FuzzySet
+ */
+public class TestIntervalType2FuzzySet {
+
+	@Test
+	public void testFill() {
+		IntervalType2FuzzySet set = new IntervalType2FuzzySet(new double[] { 0.0, 1.0, 2.0, 3.0, 4.0 })
+				.fill(new TriangularMembershipFunction(0.0, 2.0, 4.0), new TriangularMembershipFunction(1.0, 2.0, 3.0));
+		// the lower triangle is wider than the upper one, and is cut to it
+		assertArrayEquals(new double[] { 0.0, 0.0, 1.0, 0.0, 0.0 }, set.getLowerMemberships(), 0.0);
+		assertArrayEquals(new double[] { 0.0, 0.0, 1.0, 0.0, 0.0 }, set.getUpperMemberships(), 0.0);
+		set.fill(new TriangularMembershipFunction(1.0, 2.0, 3.0), new TriangularMembershipFunction(0.0, 2.0, 4.0));
+		assertArrayEquals(new double[] { 0.0, 0.0, 1.0, 0.0, 0.0 }, set.getLowerMemberships(), 0.0);
+		assertArrayEquals(new double[] { 0.0, 0.5, 1.0, 0.5, 0.0 }, set.getUpperMemberships(), 0.0);
+		assertEquals(5, set.size());
+		assertEquals(3.0, set.getCrispValue(3), 0.0);
+		assertEquals(0.5, set.getUpperMembership(1), 0.0);
+		assertEquals(0.0, set.getLowerMembership(1), 0.0);
+		assertEquals(1.0, set.height(), 0.0);
+		assertEquals(1.0, set.uncertainty(), 0.0);
+	}
+
+	@Test
+	public void testOperations() {
+		double[] universe = { 0.0, 1.0, 2.0 };
+		IntervalType2FuzzySet a = new IntervalType2FuzzySet(universe);
+		a.getLowerMemberships()[0] = 0.2;
+		a.getUpperMemberships()[0] = 0.8;
+		IntervalType2FuzzySet b = new IntervalType2FuzzySet(universe);
+		b.getLowerMemberships()[0] = 0.4;
+		b.getUpperMemberships()[0] = 0.6;
+		b.getLowerMemberships()[1] = 0.5;
+		b.getUpperMemberships()[1] = 1.0;
+		IntervalType2FuzzySet union = a.copy().union(b);
+		assertArrayEquals(new double[] { 0.4, 0.5, 0.0 }, union.getLowerMemberships(), 0.0);
+		assertArrayEquals(new double[] { 0.8, 1.0, 0.0 }, union.getUpperMemberships(), 0.0);
+		IntervalType2FuzzySet intersection = a.copy().intersection(b);
+		assertArrayEquals(new double[] { 0.2, 0.0, 0.0 }, intersection.getLowerMemberships(), 0.0);
+		assertArrayEquals(new double[] { 0.6, 0.0, 0.0 }, intersection.getUpperMemberships(), 0.0);
+		IntervalType2FuzzySet clipped = b.copy().clip(0.45, 0.7);
+		assertArrayEquals(new double[] { 0.4, 0.45, 0.0 }, clipped.getLowerMemberships(), 0.0);
+		assertArrayEquals(new double[] { 0.6, 0.7, 0.0 }, clipped.getUpperMemberships(), 0.0);
+		IntervalType2FuzzySet scaled = b.copy().scale(0.5, 1.0);
+		assertArrayEquals(new double[] { 0.2, 0.25, 0.0 }, scaled.getLowerMemberships(), 0.0);
+		assertArrayEquals(new double[] { 0.6, 1.0, 0.0 }, scaled.getUpperMemberships(), 0.0);
+		assertEquals(b, scaled.scale(2.0, 1.0));
+		assertEquals(b.hashCode(), scaled.hashCode());
+		assertFalse(a.equals(b));
+		assertTrue(a.clear().equals(new IntervalType2FuzzySet(universe)));
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testDifferentUniverses() {
+		new IntervalType2FuzzySet(new double[] { 0.0, 1.0 }).union(new IntervalType2FuzzySet(new double[] { 0.0, 2.0 }));
+	}
+
+	@Test
+	public void testCentroid() {
+		DoubleRange range = new DoubleRange(0.0, 10.0, 0.1);
+		IntervalType2FuzzySet set = IntervalType2FuzzySet.of(range, new GaussianMembershipFunction(0.5, 5.0),
+				new GaussianMembershipFunction(1.5, 5.0));
+		double[] interval = new double[2];
+		for (TypeReduction reduction : TypeReduction.values()) {
+			assertEquals(5.0, set.centroid(reduction), 1e-9);
+			assertEquals(set.centroid(reduction), set.centroid(reduction, interval), 0.0);
+		}
+		set.centroid(TypeReduction.ENHANCED_KARNIK_MENDEL, interval);
+		assertTrue(interval[0] < 5.0 && interval[0] > 3.0);
+		assertEquals(10.0, interval[0] + interval[1], 1e-9);
+		DiscreteFuzzySet type1 = DiscreteFuzzySet.of(range, new GaussianMembershipFunction(1.0, 5.0));
+		IntervalType2FuzzySet same = IntervalType2FuzzySet.of(range, new GaussianMembershipFunction(1.0, 5.0),
+				new GaussianMembershipFunction(1.0, 5.0));
+		assertEquals(type1.centroid(), same.centroid(TypeReduction.ENHANCED_KARNIK_MENDEL), 1e-12);
+		assertEquals(0.0, same.uncertainty(), 0.0);
+	}
+
+}
@@ -0,0 +1,101 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package fuzzy.system;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Measures the throughput of ANFIS training: one epoch (least squares pass,
+ * gradient descent over the mini-batches and error pass) over random
+ * samples of a smooth function of three inputs, with three gaussian terms
+ * each and 27 first-order rules, with the default options, on pools of one
+ * thread and of every core. Reports samples per second per core. Run with
+ * <code>java fuzzy.system.AnfisBenchmark [samples]</code>; the default is
+ * 100,000 samples.
+ *
+ * @since 0.5
+ * @see AnfisTrainer
+ */
+public class AnfisBenchmark {
+
+	private static final int INPUTS = 3;
+	private static final int TERMS = 3;
+	private static final int WARMUP = 3;
+	private static final int RUNS = 5;
+
+	static TskFuzzySystem grid() {
+		final TskFuzzySystem.Builder builder = TskFuzzySystem.builder().output("y").conjunction(TNorm.PRODUCT);
+		for (int v = 0; v < INPUTS; v++) {
+			final Term[] terms = new Term[TERMS];
+			for (int t = 0; t < TERMS; t++) {
+				terms[t] = new Term("t" + t, Shape.GAUSSIAN, 0.25, t / (TERMS - 1.0));
+			}
+			builder.input(new LinguisticVariable("x" + v, 0.0, 1.0, terms));
+		}
+		int rules = 1;
+		for (int v = 0; v < INPUTS; v++) {
+			rules *= TERMS;
+		}
+		for (int r = 0; r < rules; r++) {
+			Rule rule = null;
+			int digits = r;
+			for (int v = 0; v < INPUTS; v++) {
+				rule = rule == null ? Rule.when("x" + v, "t" + digits % TERMS) : rule.and("x" + v, "t" + digits % TERMS);
+				digits /= TERMS;
+			}
+			builder.linear("y", "c" + r, new double[INPUTS + 1]).rule(rule.then("y", "c" + r));
+		}
+		return builder.build();
+	}
+
+	/**
+	 * @param args number of samples
+	 */
+	public static void main(String[] args) {
+		final int count = args.length == 0 ? 100000 : Integer.parseInt(args[0]);
+		final Random random = new Random(1);
+		final double[] inputs = new double[count * INPUTS];
+		final double[] targets = new double[count];
+		for (int s = 0; s < count; s++) {
+			double y = 0.0;
+			for (int v = 0; v < INPUTS; v++) {
+				inputs[s * INPUTS + v] = random.nextDouble();
+				y += Math.sin(3 * inputs[s * INPUTS + v]) * (v + 1);
+			}
+			targets[s] = y;
+		}
+		final TskFuzzySystem system = grid();
+		final int cores = Runtime.getRuntime().availableProcessors();
+		for (int threads : cores > 1 ? new int[] { 1, cores } : new int[] { 1 }) {
+			final ForkJoinPool pool = new ForkJoinPool(threads);
+			final AnfisTrainer trainer = AnfisTrainer.builder().pool(pool).epochs(1).build();
+			AnfisTrainer.Result result = null;
+			for (int i = 0; i < WARMUP; i++) {
+				trainer.train(system, inputs, targets);
+			}
+			long best = Long.MAX_VALUE;
+			for (int i = 0; i < RUNS; i++) {
+				final long start = System.nanoTime();
+				result = trainer.train(system, inputs, targets);
+				best = Math.min(best, System.nanoTime() - start);
+			}
+			pool.shutdown();
+			final double perSecond = count / (best / 1e9);
+			System.out.printf("%d samples, %d rules, %d threads: epoch %.1f ms, %.0f samples/s, %.0f samples/s per core, %s%n",
+					count, system.getRules().size(), threads, best / 1e6, perSecond, perSecond / threads, result);
+		}
+	}
+
+}
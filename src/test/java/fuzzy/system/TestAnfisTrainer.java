@@ -0,0 +1,195 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package fuzzy.system;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+/**
+ * Tests for ANFIS Trainer.
+ *
+ * @since 0.5
+ * @see AnfisTrainer
+ */
+public class TestAnfisTrainer {
+
+	/**
+	 * @return a single input, first-order system with gaussian terms and
+	 * consequents of zero
+	 */
+	static TskFuzzySystem initial(double lower, double upper, int terms) {
+		return initial(lower, upper, terms, 1);
+	}
+
+	/**
+	 * @return a single input system with gaussian terms and consequents of
+	 * zero, of order zero or one
+	 */
+	static TskFuzzySystem initial(double lower, double upper, int terms, int order) {
+		final Term[] inputTerms = new Term[terms];
+		final TskFuzzySystem.Builder builder = TskFuzzySystem.builder().output("y");
+		final double width = (upper - lower) / (terms - 1);
+		for (int t = 0; t < terms; t++) {
+			inputTerms[t] = new Term("t" + t, Shape.GAUSSIAN, width / 2, lower + t * width);
+			if (order == 0) {
+				builder.constant("y", "c" + t, 0.0);
+			} else {
+				builder.linear("y", "c" + t, 0.0, 0.0);
+			}
+			builder.rule(Rule.when("x", "t" + t).then("y", "c" + t));
+		}
+		return builder.input(new LinguisticVariable("x", lower, upper, inputTerms)).conjunction(TNorm.PRODUCT).build();
+	}
+
+	/**
+	 * @return inputs then targets of evenly spaced samples of the sine
+	 */
+	static double[][] sine(int count) {
+		final double[] inputs = new double[count];
+		final double[] targets = new double[count];
+		for (int s = 0; s < count; s++) {
+			inputs[s] = 2 * Math.PI * s / (count - 1);
+			targets[s] = Math.sin(inputs[s]);
+		}
+		return new double[][] { inputs, targets };
+	}
+
+	private static double rmse(FuzzySystem system, double[] inputs, double[] targets) {
+		double sum = 0.0;
+		for (int s = 0; s < inputs.length; s++) {
+			final double e = system.evaluate(inputs[s])[0] - targets[s];
+			sum += e * e;
+		}
+		return Math.sqrt(sum / inputs.length);
+	}
+
+	@Test
+	public void testSolve() {
+		double[] a = { 4.0, 2.0, 2.0, 3.0 };
+		double[] b = { 10.0, 11.0 };
+		assertTrue(AnfisTrainer.solve(a, b, 2));
+		assertArrayEquals(new double[] { 1.0, 3.0 }, b, 1e-12);
+		assertTrue(!AnfisTrainer.solve(new double[] { 1.0, 2.0, 2.0, 1.0 }, new double[2], 2));
+	}
+
+	@Test
+	public void testLeastSquares() {
+		double[] inputs = new double[200];
+		double[] targets = new double[200];
+		for (int s = 0; s < inputs.length; s++) {
+			inputs[s] = s / 20.0;
+			targets[s] = 2 * inputs[s] + 1;
+		}
+		AnfisTrainer.Result result = AnfisTrainer.builder().epochs(3).learningRate(0.0).build()
+				.train(initial(0.0, 10.0, 3), inputs, targets);
+		TskFuzzySystem system = result.getSystem();
+		assertEquals(1, system.getOrder());
+		assertTrue(result.getTrainingErrors()[0] < 1e-6);
+		assertEquals(0, result.getValidationErrors().length);
+		assertEquals(11.0, system.evaluate(5.0)[0], 1e-6);
+	}
+
+	@Test
+	public void testZeroOrder() {
+		double[][] samples = sine(500);
+		AnfisTrainer.Result result = AnfisTrainer.builder().epochs(20).batchSize(50).learningRate(0.05).build()
+				.train(initial(0.0, 2 * Math.PI, 5, 0), samples[0], samples[1]);
+		TskFuzzySystem system = result.getSystem();
+		// the consequents stay constants
+		assertEquals(0, system.getOrder());
+		for (int t = 0; t < 5; t++) {
+			assertEquals(0.0, system.getCoefficients(0, "c" + t)[1], 0.0);
+		}
+		assertEquals(result.getTrainingErrors()[result.getBestEpoch()], rmse(system, samples[0], samples[1]), 1e-12);
+		assertTrue(result.getTrainingErrors()[result.getBestEpoch()] < 0.2);
+	}
+
+	@Test
+	public void testGradientDescent() {
+		double[][] samples = sine(500);
+		TskFuzzySystem initial = initial(-2.0, 4.0, 3);
+		AnfisTrainer.Result fitted = AnfisTrainer.builder().epochs(1).learningRate(0.0).build()
+				.train(initial, samples[0], samples[1]);
+		AnfisTrainer.Result trained = AnfisTrainer.builder().epochs(200).batchSize(50).learningRate(0.05).build()
+				.train(initial, samples[0], samples[1]);
+		double[] errors = trained.getTrainingErrors();
+		assertTrue(errors[trained.getBestEpoch()] < fitted.getTrainingErrors()[0] / 2);
+		assertEquals(errors[trained.getBestEpoch()], rmse(trained.getSystem(), samples[0], samples[1]), 1e-12);
+		assertTrue(!trained.getSystem().getInput(0).equals(initial.getInput(0)));
+	}
+
+	@Test
+	public void testSameForAnyParallelism() {
+		double[][] samples = sine(1000);
+		TskFuzzySystem initial = initial(0.0, 2 * Math.PI, 4);
+		AnfisTrainer.Builder builder = AnfisTrainer.builder().epochs(5).batchSize(100).chunkSize(8).learningRate(0.1);
+		ForkJoinPool one = new ForkJoinPool(1);
+		ForkJoinPool four = new ForkJoinPool(4);
+		try {
+			AnfisTrainer.Result a = builder.pool(one).build().train(initial, samples[0], samples[1]);
+			AnfisTrainer.Result b = builder.pool(four).build().train(initial, samples[0], samples[1]);
+			assertArrayEquals(a.getTrainingErrors(), b.getTrainingErrors(), 0.0);
+			assertEquals(a.getSystem().getInput(0), b.getSystem().getInput(0));
+			for (int t = 0; t < 4; t++) {
+				assertArrayEquals(a.getSystem().getCoefficients(0, "c" + t), b.getSystem().getCoefficients(0, "c" + t), 0.0);
+			}
+		} finally {
+			one.shutdown();
+			four.shutdown();
+		}
+	}
+
+	@Test
+	public void testEarlyStopping() {
+		double[][] samples = sine(200);
+		double[][] validation = sine(37);
+		AnfisTrainer.Result result = AnfisTrainer.builder().epochs(100).learningRate(0.0).patience(2).build()
+				.train(initial(0.0, 2 * Math.PI, 4), samples[0], samples[1], validation[0], validation[1]);
+		assertTrue(result.getEpochCount() < 100);
+		assertEquals(result.getEpochCount(), result.getValidationErrors().length);
+		assertTrue(result.getBestEpoch() <= result.getEpochCount() - 3);
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testDisjunction() {
+		TskFuzzySystem system = TskFuzzySystem.builder()
+				.input(new LinguisticVariable("x", 0.0, 1.0, new Term("a", Shape.GAUSSIAN, 0.5, 0.0), new Term("b", Shape.GAUSSIAN, 0.5, 1.0)))
+				.output("y").constant("y", "c", 0.0)
+				.rule(Rule.when("x", "a").or("x", "b").then("y", "c"))
+				.conjunction(TNorm.PRODUCT)
+				.build();
+		AnfisTrainer.builder().build().train(system, new double[] { 0.5 }, new double[] { 1.0 });
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testShapeWithoutDerivatives() {
+		TskFuzzySystem system = TskFuzzySystem.builder()
+				.input(new LinguisticVariable("x", 0.0, 1.0, new Term("a", Shape.S_SHAPED, 0.0, 1.0)))
+				.output("y").constant("y", "c", 0.0)
+				.rule(Rule.when("x", "a").then("y", "c"))
+				.build();
+		AnfisTrainer.builder().build().train(system, new double[] { 0.5 }, new double[] { 1.0 });
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testSampleSizes() {
+		AnfisTrainer.builder().build().train(initial(0.0, 1.0, 2), new double[] { 0.5, 0.6 }, new double[] { 1.0 });
+	}
+
+}
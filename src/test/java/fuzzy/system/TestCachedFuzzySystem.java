@@ -0,0 +1,125 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package fuzzy.system;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+/**
+ * Tests for Cached Fuzzy System.
+ *
+ * @since 0.5
+ * @see CachedFuzzySystem
+ */
+public class TestCachedFuzzySystem {
+
+	private static final MamdaniFuzzySystem TIPPER = TestMamdaniFuzzySystem.tipper().build();
+
+	@Test
+	public void testQuantizedHits() {
+		final CachedFuzzySystem cached = new CachedFuzzySystem(TIPPER, new double[] { 0.1, 0.5 }, 100);
+		final double[] expected = TIPPER.evaluate(49 * 0.1, 4 * 0.5);
+		assertArrayEquals(expected, cached.evaluate(4.91, 2.2), 0.0);
+		assertArrayEquals(expected, cached.evaluate(4.94, 1.8), 0.0);
+		assertArrayEquals(expected, cached.evaluate(4.86, 2.0), 0.0);
+		assertEquals(1, cached.getMissCount());
+		assertEquals(2, cached.getHitCount());
+		assertEquals(1, cached.size());
+		cached.evaluate(4.96, 2.0);
+		assertEquals(2, cached.getMissCount());
+		cached.clear();
+		assertEquals(0, cached.size());
+	}
+
+	@Test
+	public void testExactInputs() {
+		final CachedFuzzySystem cached = new CachedFuzzySystem(TIPPER, new double[] { 0.0, 0.0 }, 100);
+		cached.evaluate(5.0, 5.0);
+		cached.evaluate(Math.nextUp(5.0), 5.0);
+		cached.evaluate(5.0, 5.0);
+		assertEquals(2, cached.getMissCount());
+		assertEquals(1, cached.getHitCount());
+		assertArrayEquals(TIPPER.evaluate(Math.nextUp(5.0), 5.0), cached.evaluate(Math.nextUp(5.0), 5.0), 0.0);
+	}
+
+	@Test
+	public void testLeastRecentlyUsedEviction() {
+		final CachedFuzzySystem cached = new CachedFuzzySystem(TIPPER, new double[] { 1.0, 1.0 }, 2, 1);
+		cached.evaluate(1.0, 1.0);
+		cached.evaluate(2.0, 2.0);
+		cached.evaluate(1.0, 1.0);
+		cached.evaluate(3.0, 3.0);
+		assertEquals(1, cached.getEvictionCount());
+		assertEquals(2, cached.size());
+		cached.evaluate(1.0, 1.0);
+		assertEquals(2, cached.getHitCount());
+		cached.evaluate(2.0, 2.0);
+		assertEquals(4, cached.getMissCount());
+		assertEquals(2, cached.getEvictionCount());
+	}
+
+	@Test
+	public void testCachedKeysAreNotReused() {
+		final CachedFuzzySystem cached = new CachedFuzzySystem(TIPPER, new double[] { 1.0, 1.0 }, 10, 1);
+		cached.evaluate(1.0, 1.0);
+		cached.evaluate(2.0, 2.0);
+		cached.evaluate(3.0, 3.0);
+		assertArrayEquals(TIPPER.evaluate(1.0, 1.0), cached.evaluate(1.0, 1.0), 0.0);
+		assertArrayEquals(TIPPER.evaluate(2.0, 2.0), cached.evaluate(2.0, 2.0), 0.0);
+		assertEquals(2, cached.getHitCount());
+		assertEquals(3, cached.size());
+	}
+
+	@Test
+	public void testNotFiniteInputsAreNotCached() {
+		final CachedFuzzySystem cached = new CachedFuzzySystem(TIPPER, new double[] { 0.1, 0.1 }, 10);
+		cached.evaluate(Double.NaN, 1.0);
+		cached.evaluate(1e300, 1.0);
+		assertEquals(0, cached.size());
+		assertEquals(0, cached.getMissCount());
+	}
+
+	@Test
+	public void testConcurrentAccess() {
+		final CachedFuzzySystem cached = new CachedFuzzySystem(TIPPER, new double[] { 0.5, 0.5 }, 64, 4);
+		final double[] expected = new double[4000];
+		for (int i = 0; i < expected.length; i++) {
+			expected[i] = TIPPER.evaluate((i % 20) * 0.5, (i / 400) * 0.5)[0];
+		}
+		final double[] results = new double[expected.length];
+		IntStream.range(0, results.length).parallel().forEach(i -> {
+			results[i] = cached.evaluate((i % 20) * 0.5 + 0.1, (i / 400) * 0.5 - 0.1)[0];
+		});
+		assertArrayEquals(expected, results, 0.0);
+		assertEquals(expected.length, cached.getHitCount() + cached.getMissCount());
+		// two threads may miss the same inputs at once, and both cache them
+		assertTrue(cached.getEvictionCount() <= cached.getMissCount() - cached.size());
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testWrongNumberOfSteps() {
+		new CachedFuzzySystem(TIPPER, new double[] { 0.1 }, 10);
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testNegativeStep() {
+		new CachedFuzzySystem(TIPPER, new double[] { 0.1, -1.0 }, 10);
+	}
+
+}
@@ -0,0 +1,141 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package fuzzy.system;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Tests for Control Surface.
+ *
+ * @since 0.5
+ * @see ControlSurface
+ */
+public class TestControlSurface {
+
+	/**
+	 * A smooth two-input TSK system, with gaussian terms.
+	 */
+	private static TskFuzzySystem smooth() {
+		final LinguisticVariable a = new LinguisticVariable("a", 0.0, 10.0,
+				new Term("low", Shape.GAUSSIAN, 3.0, 0.0), new Term("high", Shape.GAUSSIAN, 3.0, 10.0));
+		final LinguisticVariable b = new LinguisticVariable("b", -1.0, 1.0,
+				new Term("low", Shape.GAUSSIAN, 0.6, -1.0), new Term("high", Shape.GAUSSIAN, 0.6, 1.0));
+		return TskFuzzySystem.builder()
+				.input(a).input(b)
+				.output("y")
+				.linear("y", "p", 0.0, 1.0, 2.0)
+				.constant("y", "q", 4.0)
+				.linear("y", "r", 1.0, -0.5, 0.0)
+				.rule(Rule.when("a", "low").and("b", "low").then("y", "p"))
+				.rule(Rule.when("a", "high").then("y", "q"))
+				.rule(Rule.when("b", "high").then("y", "r"))
+				.conjunction(TNorm.PRODUCT)
+				.build();
+	}
+
+	@Test
+	public void testLinearFunctionIsExact() {
+		final TskFuzzySystem system = TskFuzzySystem.builder()
+				.input(new LinguisticVariable("x", 0.0, 10.0, new Term("any", Shape.TRIANGULAR, -100.0, 5.0, 100.0)))
+				.output("y")
+				.linear("y", "line", 1.0, 2.0)
+				.rule(Rule.when("x", "any").then("y", "line"))
+				.build();
+		for (ControlSurface.Interpolation interpolation : ControlSurface.Interpolation.values()) {
+			final ControlSurface surface = ControlSurface.builder(system).grid(0, 0.0, 10.0, 5)
+					.interpolation(interpolation).build();
+			assertEquals(0.0, surface.getMaximumError(0), 1e-12);
+			for (double x = 0.0; x <= 10.0; x += 0.37) {
+				assertEquals(interpolation + " " + x, 1.0 + 2.0 * x, surface.evaluate(x)[0], 1e-12);
+			}
+			// clamped to the grid
+			assertEquals(21.0, surface.evaluate(12.0)[0], 1e-12);
+			assertEquals(1.0, surface.evaluate(-3.0)[0], 1e-12);
+		}
+	}
+
+	@Test
+	public void testNodesAndMaximumError() {
+		final TskFuzzySystem system = smooth();
+		final ControlSurface surface = ControlSurface.builder(system).grid(0, 0.0, 10.0, 11).grid(1, -1.0, 1.0, 9)
+				.build();
+		for (int i = 0; i < 11; i++) {
+			for (int j = 0; j < 9; j++) {
+				final double a = i;
+				final double b = j == 8 ? 1.0 : -1.0 + j * 0.25;
+				assertEquals(system.evaluate(a, b)[0], surface.evaluate(a, b)[0], 1e-12);
+			}
+		}
+		double maximum = 0.0;
+		for (int i = 0; i < 10; i++) {
+			for (int j = 0; j < 8; j++) {
+				final double a = i + 0.5;
+				final double b = -1.0 + j * 0.25 + 0.125;
+				maximum = Math.max(maximum, Math.abs(system.evaluate(a, b)[0] - surface.evaluate(a, b)[0]));
+			}
+		}
+		assertEquals(maximum, surface.getMaximumError(0), 1e-12);
+		assertTrue(maximum > 0.0);
+	}
+
+	@Test
+	public void testCubicMoreAccurateOnSmoothSurface() {
+		final TskFuzzySystem system = smooth();
+		final ControlSurface linear = ControlSurface.builder(system).grid(0, 0.0, 10.0, 11).grid(1, -1.0, 1.0, 9)
+				.build();
+		final ControlSurface cubic = ControlSurface.builder(system).grid(0, 0.0, 10.0, 11).grid(1, -1.0, 1.0, 9)
+				.interpolation(ControlSurface.Interpolation.CUBIC).build();
+		assertTrue(cubic.getMaximumError(0) < linear.getMaximumError(0) / 4);
+	}
+
+	@Test
+	public void testOffHeap() {
+		final MamdaniFuzzySystem tipper = TestMamdaniFuzzySystem.tipper().build();
+		final ControlSurface heap = ControlSurface.builder(tipper).grid(0, 0.0, 10.0, 6).grid(1, 0.5, 9.5, 6)
+				.build();
+		final ControlSurface direct = ControlSurface.builder(tipper).grid(0, 0.0, 10.0, 6).grid(1, 0.5, 9.5, 6)
+				.offHeapThreshold(0).build();
+		assertFalse(heap.isOffHeap());
+		assertTrue(direct.isOffHeap());
+		for (double service = 0.0; service <= 10.0; service += 0.7) {
+			for (double food = 0.5; food <= 9.5; food += 0.9) {
+				assertArrayEquals(heap.evaluate(service, food), direct.evaluate(service, food), 0.0);
+			}
+		}
+		assertEquals(heap.getMaximumError(0), direct.getMaximumError(0), 0.0);
+		assertArrayEquals(tipper.evaluate(4.0, 2.3), heap.evaluate(4.0, 2.3), 1e-12);
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testTooFewPoints() {
+		ControlSurface.builder(smooth()).grid(0, 0.0, 10.0, 1).build();
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testTooLargeOffHeap() {
+		// 2^28 values, 2 GB: rejected before sampling the system
+		ControlSurface.builder(smooth()).grid(0, 0.0, 10.0, 1 << 14).grid(1, -1.0, 1.0, 1 << 14).build();
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testInvalidBounds() {
+		ControlSurface.builder(smooth()).grid(1, 1.0, -1.0, 5).build();
+	}
+
+}
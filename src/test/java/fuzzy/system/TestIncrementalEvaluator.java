@@ -0,0 +1,181 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package fuzzy.system;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests for Incremental Evaluator.
+ *
+ * @since 0.5
+ * @see IncrementalEvaluator
+ */
+public class TestIncrementalEvaluator {
+
+	private static LinguisticVariable variable(String name) {
+		return new LinguisticVariable(name, 0.0, 10.0,
+				new Term("low", Shape.TRIANGULAR, -5.0, 0.0, 5.0),
+				new Term("mid", Shape.TRIANGULAR, 0.0, 5.0, 10.0),
+				new Term("high", Shape.TRIANGULAR, 5.0, 10.0, 15.0));
+	}
+
+	private static List<Rule> rules() {
+		final List<Rule> rules = new ArrayList<Rule>();
+		final String[] terms = { "low", "mid", "high" };
+		for (int i = 0; i < 3; i++) {
+			for (int j = 0; j < 3; j++) {
+				rules.add(Rule.when("a", terms[i]).and("b", terms[j]).then("y", terms[(i + j) % 3]));
+			}
+			rules.add(Rule.when("c", terms[i]).then("z", terms[2 - i]).withWeight(0.5));
+		}
+		rules.add(Rule.whenNot("a", "mid").or("c", "high").then("y", "mid").then("z", "low"));
+		return rules;
+	}
+
+	private static TskFuzzySystem tsk() {
+		return TskFuzzySystem.builder()
+				.input(variable("a")).input(variable("b")).input(variable("c"))
+				.output("y").output("z")
+				.linear("y", "low", 1.0, 0.5, -0.25, 0.0)
+				.linear("y", "mid", 2.0, 0.0, 1.0, 0.5)
+				.constant("y", "high", 7.0)
+				.constant("z", "low", -1.0)
+				.linear("z", "mid", 0.0, 0.0, 0.0, 2.0)
+				.constant("z", "high", 3.0)
+				.rules(rules())
+				.defaultValue(-100.0)
+				.build();
+	}
+
+	private static SamFuzzySystem sam() {
+		final LinguisticVariable y = new LinguisticVariable("y", 0.0, 10.0,
+				new Term("low", Shape.TRIANGULAR, 0.0, 2.0, 4.0),
+				new Term("mid", Shape.GAUSSIAN, 1.0, 5.0),
+				new Term("high", Shape.TRAPEZOIDAL, 6.0, 8.0, 9.0, 10.0));
+		final LinguisticVariable z = new LinguisticVariable("z", 0.0, 10.0,
+				new Term("low", Shape.TRIANGULAR, 0.0, 1.0, 3.0),
+				new Term("mid", Shape.TRIANGULAR, 3.0, 5.0, 7.0),
+				new Term("high", Shape.GENERALIZED_BELL, 1.0, 2.0, 9.0));
+		return SamFuzzySystem.builder()
+				.input(variable("a")).input(variable("b")).input(variable("c"))
+				.output(y).output(z)
+				.rules(rules())
+				.build();
+	}
+
+	private static MamdaniFuzzySystem mamdani() {
+		final LinguisticVariable y = new LinguisticVariable("y", 0.0, 10.0,
+				new Term("low", Shape.TRIANGULAR, 0.0, 2.0, 4.0),
+				new Term("mid", Shape.TRIANGULAR, 3.0, 5.0, 7.0),
+				new Term("high", Shape.TRIANGULAR, 6.0, 8.0, 10.0));
+		return MamdaniFuzzySystem.builder()
+				.input(variable("a")).input(variable("b")).input(variable("c"))
+				.output(y).output(new LinguisticVariable("z", 0.0, 10.0, y.getTerms()))
+				.rules(rules())
+				.build();
+	}
+
+	/**
+	 * Changes one input at a time, at random, sometimes out of every
+	 * support, and compares with a full evaluation.
+	 */
+	private static void randomWalk(FuzzySystem system, IncrementalEvaluator evaluator, double delta) {
+		final Random random = new Random(3);
+		final double[] inputs = { 1.0, 2.0, 3.0 };
+		evaluator.reset(inputs);
+		final double[] actual = new double[2];
+		for (int step = 0; step < 2000; step++) {
+			final int input = random.nextInt(3);
+			inputs[input] = random.nextInt(10) == 0 ? -20.0 : random.nextDouble() * 10.0;
+			evaluator.update(input, inputs[input]);
+			final double[] expected = system.evaluate(inputs);
+			evaluator.getOutputs(actual);
+			assertEquals(step + " y", expected[0], actual[0], delta);
+			assertEquals(step + " z", expected[1], actual[1], delta);
+		}
+	}
+
+	@Test
+	public void testTsk() {
+		final TskFuzzySystem system = tsk();
+		randomWalk(system, new IncrementalEvaluator(system, new double[3]), 1e-9);
+	}
+
+	@Test
+	public void testSam() {
+		final SamFuzzySystem system = sam();
+		randomWalk(system, new IncrementalEvaluator(system, new double[3]), 1e-9);
+		randomWalk(system, new IncrementalEvaluator(system, new double[3], 1), 1e-12);
+	}
+
+	@Test
+	public void testMamdani() {
+		final MamdaniFuzzySystem system = mamdani();
+		randomWalk(system, new IncrementalEvaluator(system, new double[3]), 0.0);
+	}
+
+	@Test
+	public void testRecomputedRules() {
+		final TskFuzzySystem system = tsk();
+		final IncrementalEvaluator evaluator = new IncrementalEvaluator(system, new double[] { 1.0, 2.0, 3.0 });
+		assertEquals(13, evaluator.getRecomputedRuleCount());
+		evaluator.update(1, 4.0);
+		assertEquals(9, evaluator.getRecomputedRuleCount());
+		evaluator.update(2, 4.0);
+		assertEquals(4, evaluator.getRecomputedRuleCount());
+		assertEquals(4.0, evaluator.getInput(2), 0.0);
+		final TskFuzzySystem.Workspace workspace = system.newWorkspace();
+		system.evaluate(new double[] { 1.0, 4.0, 4.0 }, new double[2], workspace);
+		for (int k = 0; k < system.getRules().size(); k++) {
+			assertEquals(workspace.getFiringStrength(k), evaluator.getFiringStrength(k), 0.0);
+		}
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testUnsupportedSystem() {
+		new IncrementalEvaluator(new FuzzySystem() {
+			@Override
+			public int getInputCount() {
+				return 0;
+			}
+			@Override
+			public LinguisticVariable getInput(int i) {
+				return null;
+			}
+			@Override
+			public int getOutputCount() {
+				return 0;
+			}
+			@Override
+			public String getOutputName(int i) {
+				return null;
+			}
+			@Override
+			public void evaluate(double[] inputs, double[] outputs) {
+			}
+		}, new double[0]);
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testTooFewInputs() {
+		new IncrementalEvaluator(tsk(), new double[2]);
+	}
+
+}
@@ -0,0 +1,154 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package fuzzy.system;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.commons.functor.generator.range.DoubleRange;
+import org.junit.Test;
+
+import fuzzy.df.TypeReduction;
+
+/**
+ * Tests for Interval Type-2 Fuzzy System.
+ *
+ * @since 0.5
+ * @see IntervalType2FuzzySystem
+ */
+public class TestIntervalType2FuzzySystem {
+
+	private static final DoubleRange TIP = new DoubleRange(0.0, 30.0, 0.1);
+
+	/**
+	 * @param blur relative uncertainty of the membership functions
+	 * @return the lower or upper variables of the tipper
+	 */
+	private static LinguisticVariable[] tipperVariables(double blur) {
+		return new LinguisticVariable[] {
+			new LinguisticVariable("service", 0.0, 10.0,
+					new Term("poor", Shape.GAUSSIAN, 1.5 * (1 + blur), 0.0),
+					new Term("good", Shape.GAUSSIAN, 1.5 * (1 + blur), 5.0),
+					new Term("excellent", Shape.GAUSSIAN, 1.5 * (1 + blur), 10.0)),
+			new LinguisticVariable("food", 0.0, 10.0,
+					new Term("rancid", Shape.TRAPEZOIDAL, 0.0, 0.0, 1.0, 3.0 + 2 * blur),
+					new Term("delicious", Shape.TRAPEZOIDAL, 7.0 - 2 * blur, 9.0, 10.0, 10.0)),
+			new LinguisticVariable("tip", 0.0, 30.0,
+					new Term("cheap", Shape.TRIANGULAR, 0.0 - 5 * blur, 5.0, 10.0 + 5 * blur),
+					new Term("average", Shape.TRIANGULAR, 10.0 - 5 * blur, 15.0, 20.0 + 5 * blur),
+					new Term("generous", Shape.TRIANGULAR, 20.0 - 5 * blur, 25.0, 30.0 + 5 * blur))
+		};
+	}
+
+	/**
+	 * The tipper of {@link TestMamdaniFuzzySystem}, with a footprint of
+	 * uncertainty around each membership function.
+	 */
+	private static IntervalType2FuzzySystem.Builder tipper(double blur) {
+		final LinguisticVariable[] lower = tipperVariables(-blur);
+		final LinguisticVariable[] upper = tipperVariables(blur);
+		return IntervalType2FuzzySystem.builder()
+				.input(lower[0], upper[0])
+				.input(lower[1], upper[1])
+				.output(lower[2], upper[2], TIP)
+				.rule(Rule.when("service", "poor").or("food", "rancid").then("tip", "cheap"))
+				.rule(Rule.when("service", "good").then("tip", "average"))
+				.rule(Rule.when("service", "excellent").or("food", "delicious").then("tip", "generous"));
+	}
+
+	@Test
+	public void testSameAsMamdaniWithoutUncertainty() {
+		MamdaniFuzzySystem mamdani = TestMamdaniFuzzySystem.tipper().build();
+		for (TypeReduction reduction : TypeReduction.values()) {
+			IntervalType2FuzzySystem system = tipper(0.0).typeReduction(reduction).build();
+			for (double service = 0.5; service < 10.0; service += 2.25) {
+				for (double food = 0.5; food < 10.0; food += 2.25) {
+					assertEquals(mamdani.evaluate(service, food)[0], system.evaluate(service, food)[0], 1e-9);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testCentroidInterval() {
+		IntervalType2FuzzySystem system = tipper(0.2).build();
+		IntervalType2FuzzySystem.Workspace workspace = system.newWorkspace();
+		double[] out = new double[1];
+		for (double service = 0.5; service < 10.0; service += 2.25) {
+			for (double food = 0.5; food < 10.0; food += 2.25) {
+				system.evaluate(new double[] { service, food }, out, workspace);
+				for (int k = 0; k < 3; k++) {
+					assertTrue(workspace.getLowerFiringStrength(k) <= workspace.getUpperFiringStrength(k));
+				}
+				assertTrue(workspace.getAggregate(0).uncertainty() > 0.0);
+				assertTrue(workspace.getLeftCentroid(0) < workspace.getRightCentroid(0));
+				assertEquals((workspace.getLeftCentroid(0) + workspace.getRightCentroid(0)) / 2, out[0], 1e-12);
+				double exact = out[0];
+				for (TypeReduction reduction : TypeReduction.values()) {
+					assertEquals(exact, tipper(0.2).typeReduction(reduction).build().evaluate(service, food)[0], 1.0);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testNegation() {
+		LinguisticVariable lower = new LinguisticVariable("x", 0.0, 10.0, new Term("a", Shape.TRIANGULAR, 2.0, 5.0, 8.0));
+		LinguisticVariable upper = new LinguisticVariable("x", 0.0, 10.0, new Term("a", Shape.TRIANGULAR, 0.0, 5.0, 10.0));
+		LinguisticVariable y = new LinguisticVariable("y", 0.0, 1.0, new Term("b", Shape.TRIANGULAR, 0.0, 0.5, 1.0));
+		IntervalType2FuzzySystem system = IntervalType2FuzzySystem.builder()
+				.input(lower, upper)
+				.output(y, y)
+				.rule(Rule.when("x", "a").then("y", "b"))
+				.rule(Rule.whenNot("x", "a").then("y", "b"))
+				.build();
+		IntervalType2FuzzySystem.Workspace workspace = system.newWorkspace();
+		system.evaluate(new double[] { 3.5 }, new double[1], workspace);
+		assertEquals(0.5, workspace.getLowerFiringStrength(0), 1e-12);
+		assertEquals(0.7, workspace.getUpperFiringStrength(0), 1e-12);
+		assertEquals(0.3, workspace.getLowerFiringStrength(1), 1e-12);
+		assertEquals(0.5, workspace.getUpperFiringStrength(1), 1e-12);
+		assertEquals(0.5, system.evaluate(3.5)[0], 1e-12);
+	}
+
+	@Test
+	public void testDefaultValue() {
+		LinguisticVariable x = new LinguisticVariable("x", 0.0, 10.0, new Term("a", Shape.TRIANGULAR, 2.0, 5.0, 8.0));
+		LinguisticVariable y = new LinguisticVariable("y", 0.0, 1.0, new Term("b", Shape.TRIANGULAR, 0.0, 0.5, 1.0));
+		IntervalType2FuzzySystem system = IntervalType2FuzzySystem.builder()
+				.input(x, x)
+				.output(y, y)
+				.rule(Rule.when("x", "a").then("y", "b"))
+				.defaultValue(-1.0)
+				.build();
+		assertEquals(-1.0, system.evaluate(9.0)[0], 0.0);
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testMismatchedVariables() {
+		LinguisticVariable lower = new LinguisticVariable("x", 0.0, 10.0, new Term("a", Shape.TRIANGULAR, 2.0, 5.0, 8.0));
+		LinguisticVariable upper = new LinguisticVariable("x", 0.0, 10.0, new Term("b", Shape.TRIANGULAR, 0.0, 5.0, 10.0));
+		IntervalType2FuzzySystem.builder()
+				.input(lower, upper)
+				.output(lower, upper)
+				.rule(Rule.when("x", "b").then("x", "b"))
+				.build();
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testWorkspaceOfAnotherSystem() {
+		tipper(0.1).build().evaluate(new double[] { 1.0, 1.0 }, new double[1], tipper(0.1).build().newWorkspace());
+	}
+
+}
@@ -0,0 +1,213 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package fuzzy.system;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.junit.Test;
+
+import fuzzy.df.BisectorDefuzzificationFunction;
+import fuzzy.df.LargestOfMaximaDefuzzificationFunction;
+import fuzzy.df.LeftmostMaximumDefuzzificationFunction;
+import fuzzy.df.MeanOfMaximaDefuzzificationFunction;
+import fuzzy.df.RightmostMaximumDefuzzificationFunction;
+import fuzzy.df.SmallestOfMaximaDefuzzificationFunction;
+
+/**
+ * Tests for Java Source Generator.
+ *
+ * @since 0.5
+ * @see JavaSourceGenerator
+ */
+public class TestJavaSourceGenerator {
+
+	private static void assertSameOutputs(FuzzySystem expected, FuzzySystem actual) {
+		assertEquals(expected.getInputCount(), actual.getInputCount());
+		assertEquals(expected.getOutputCount(), actual.getOutputCount());
+		final Random random = new Random(7L);
+		for (int i = 0; i < 500; i++) {
+			final double[] x = new double[expected.getInputCount()];
+			for (int v = 0; v < x.length; v++) {
+				x[v] = 12.0 * random.nextDouble() - 1.0;
+			}
+			assertArrayEquals(expected.evaluate(x), actual.evaluate(x), 0.0);
+		}
+	}
+
+	@Test
+	public void testTipper() {
+		final MamdaniFuzzySystem tipper = TestMamdaniFuzzySystem.tipper().build();
+		final FuzzySystem compiled = JavaSourceGenerator.compile(tipper, "generated.Tipper");
+		assertEquals("generated.Tipper", compiled.getClass().getName());
+		assertEquals(tipper.getInput(1), compiled.getInput(1));
+		assertEquals("tip", compiled.getOutputName(0));
+		assertEquals(tipper.toString(), compiled.toString());
+		assertSameOutputs(tipper, compiled);
+	}
+
+	@Test
+	public void testDefuzzificationsAndOperators() {
+		assertSameOutputs(TestMamdaniFuzzySystem.tipper().implication(TNorm.PRODUCT).aggregation(SNorm.BOUNDED_SUM)
+				.defuzzification(new BisectorDefuzzificationFunction<Double>()).build(),
+				JavaSourceGenerator.compile(TestMamdaniFuzzySystem.tipper().implication(TNorm.PRODUCT)
+						.aggregation(SNorm.BOUNDED_SUM).defuzzification(new BisectorDefuzzificationFunction<Double>())
+						.build(), "Bisector"));
+		final MamdaniFuzzySystem som = TestMamdaniFuzzySystem.tipper().conjunction(TNorm.HAMACHER_PRODUCT)
+				.disjunction(SNorm.EINSTEIN_SUM).implication(TNorm.DRASTIC_PRODUCT).aggregation(SNorm.DRASTIC_SUM)
+				.defuzzification(new SmallestOfMaximaDefuzzificationFunction<Double>()).build();
+		assertSameOutputs(som, JavaSourceGenerator.compile(som, "SmallestOfMaxima"));
+		final MamdaniFuzzySystem lom = TestMamdaniFuzzySystem.tipper().disjunction(SNorm.PROBABILISTIC_SUM)
+				.implication(TNorm.EINSTEIN_PRODUCT)
+				.defuzzification(new LargestOfMaximaDefuzzificationFunction<Double>()).build();
+		assertSameOutputs(lom, JavaSourceGenerator.compile(lom, "LargestOfMaxima"));
+		final MamdaniFuzzySystem mom = TestMamdaniFuzzySystem.tipper().implication(TNorm.BOUNDED_DIFFERENCE)
+				.defuzzification(new MeanOfMaximaDefuzzificationFunction<Double>()).defaultValue(-1.0).build();
+		assertSameOutputs(mom, JavaSourceGenerator.compile(mom, "MeanOfMaxima"));
+		final MamdaniFuzzySystem lm = TestMamdaniFuzzySystem.tipper()
+				.defuzzification(new LeftmostMaximumDefuzzificationFunction<Double>()).build();
+		assertSameOutputs(lm, JavaSourceGenerator.compile(lm, "LeftmostMaximum"));
+		final MamdaniFuzzySystem rm = TestMamdaniFuzzySystem.tipper()
+				.defuzzification(new RightmostMaximumDefuzzificationFunction<Double>()).build();
+		assertSameOutputs(rm, JavaSourceGenerator.compile(rm, "RightmostMaximum"));
+	}
+
+	/**
+	 * Enough rules and terms of every shape to be split into several methods.
+	 */
+	private static MamdaniFuzzySystem.Builder larger() {
+		final MamdaniFuzzySystem.Builder builder = MamdaniFuzzySystem.builder();
+		final Shape[] shapes = Shape.values();
+		for (int v = 0; v < 3; v++) {
+			final Term[] terms = new Term[shapes.length];
+			for (int t = 0; t < terms.length; t++) {
+				terms[t] = term("t" + t, shapes[t], 10.0 * t / (terms.length - 1));
+			}
+			builder.input(new LinguisticVariable("x" + v, 0.0, 10.0, terms));
+		}
+		builder.output(new LinguisticVariable("u", 0.0, 1.0,
+				new Term("low", Shape.TRIANGULAR, 0.0, 0.0, 0.6),
+				new Term("high", Shape.TRIANGULAR, 0.4, 1.0, 1.0)));
+		builder.output(new LinguisticVariable("w", -1.0, 1.0,
+				new Term("negative", Shape.GAUSSIAN, 0.4, -1.0),
+				new Term("positive", Shape.GAUSSIAN, 0.4, 1.0)));
+		for (int r = 0; r < 100; r++) {
+			final Rule rule = (r % 7 == 0 ? Rule.whenNot("x0", "t" + r % shapes.length)
+					: Rule.when("x0", "t" + r % shapes.length));
+			final Rule both = r % 3 == 0 ? rule.or("x1", "t" + (r / 3) % shapes.length)
+					: rule.and("x1", "t" + (r / 3) % shapes.length).andNot("x2", "t" + (r / 5) % shapes.length);
+			builder.rule(both.then("u", r % 2 == 0 ? "low" : "high").then("w", r % 5 < 2 ? "negative" : "positive")
+					.withWeight(0.5 + 0.005 * r));
+		}
+		return builder;
+	}
+
+	private static Term term(String name, Shape shape, double c) {
+		switch (shape) {
+		case TRIANGULAR:
+			return new Term(name, shape, c - 2.0, c, c + 2.0);
+		case TRAPEZOIDAL:
+		case PI_SHAPED:
+			return new Term(name, shape, c - 2.0, c - 0.5, c + 0.5, c + 2.0);
+		case GAUSSIAN:
+			return new Term(name, shape, 1.0, c);
+		case GENERALIZED_BELL:
+			return new Term(name, shape, 1.5, 2.0, c);
+		case SIGMOIDAL:
+			return new Term(name, shape, 2.0, c);
+		case DIFFERENTIAL_SIGMOIDAL:
+		case PRODUCT_SIGMOIDAL:
+			return new Term(name, shape, 3.0, c - 1.0, -3.0, c + 1.0);
+		case S_SHAPED:
+		case Z_SHAPED:
+			return new Term(name, shape, c - 1.5, c + 1.5);
+		default:
+			return new Term(name, shape, c - 2.0, 0.0, c, 1.0, c + 2.0, 0.0);
+		}
+	}
+
+	@Test
+	public void testLargerSystem() {
+		final MamdaniFuzzySystem system = larger().conjunction(TNorm.PRODUCT).build();
+		final FuzzySystem compiled = JavaSourceGenerator.compile(system, "fuzzy.generated.Larger");
+		assertSameOutputs(system, compiled);
+		final String source = JavaSourceGenerator.generate(system, "fuzzy.generated.Larger");
+		assertTrue(source.contains("private static void fire3("));
+		assertTrue(source.contains("private static final DoubleMembershipFunction F"));
+	}
+
+	@Test
+	public void testTsk() {
+		final TskFuzzySystem.Builder builder = TskFuzzySystem.builder()
+				.input(new LinguisticVariable("x", 0.0, 10.0,
+						new Term("low", Shape.TRAPEZOIDAL, -1.0, 0.0, 3.0, 6.0),
+						new Term("high", Shape.TRAPEZOIDAL, 4.0, 7.0, 10.0, 11.0)))
+				.input(new LinguisticVariable("y", 0.0, 10.0,
+						new Term("near", Shape.GAUSSIAN, 2.0, 0.0),
+						new Term("far", Shape.SIGMOIDAL, 1.5, 6.0)))
+				.output("z")
+				.linear("z", "slow", 1.0, 0.5, -0.25)
+				.constant("z", "fast", 8.0)
+				.rule(Rule.when("x", "low").and("y", "near").then("z", "slow"))
+				.rule(Rule.when("x", "high").or("y", "far").then("z", "fast"))
+				.rule(Rule.whenNot("x", "low").then("z", "slow").withWeight(0.3))
+				.defaultValue(Double.NaN);
+		final TskFuzzySystem tsk = builder.build();
+		assertSameOutputs(tsk, JavaSourceGenerator.compile(tsk, "fuzzy.generated.Tsk"));
+		final TskFuzzySystem constant = TskFuzzySystem.builder()
+				.input(tsk.getInput(0))
+				.output("z")
+				.constant("z", "small", -2.0)
+				.constant("z", "large", 3.5)
+				.rule(Rule.when("x", "low").then("z", "small"))
+				.rule(Rule.when("x", "high").then("z", "large"))
+				.conjunction(TNorm.PRODUCT)
+				.build();
+		assertSameOutputs(constant, JavaSourceGenerator.compile(constant, "fuzzy.generated.Constant"));
+	}
+
+	@Test
+	public void testWrite() throws IOException {
+		final File directory = Files.createTempDirectory("generated").toFile();
+		directory.deleteOnExit();
+		final Path file = JavaSourceGenerator.write(TestMamdaniFuzzySystem.tipper().build(), "a.b.Tipper",
+				directory.toPath());
+		file.toFile().deleteOnExit();
+		file.getParent().toFile().deleteOnExit();
+		file.getParent().getParent().toFile().deleteOnExit();
+		assertEquals(directory.toPath().resolve("a").resolve("b").resolve("Tipper.java"), file);
+		final String source = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+		assertTrue(source.contains("package a.b;"));
+		assertTrue(source.contains("public final class Tipper implements FuzzySystem {"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidClassName() {
+		JavaSourceGenerator.generate(TestMamdaniFuzzySystem.tipper().build(), "a.class");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnsupportedSystem() {
+		JavaSourceGenerator.generate(new CachedFuzzySystem(TestMamdaniFuzzySystem.tipper().build(), new double[] { 0.1, 0.1 }, 10), "Cached");
+	}
+
+}
@@ -0,0 +1,237 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package fuzzy.system;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.stream.IntStream;
+
+import org.apache.commons.functor.generator.range.DoubleRange;
+import org.junit.Test;
+
+import fuzzy.df.AdaptiveCentroidDefuzzificationFunction;
+import fuzzy.df.BisectorDefuzzificationFunction;
+import fuzzy.df.CentroidDefuzzificationFunction;
+import fuzzy.df.DefuzzificationFunction;
+import fuzzy.df.LeftmostMaximumDefuzzificationFunction;
+import fuzzy.df.MeanOfMaximaDefuzzificationFunction;
+import fuzzy.df.RightmostMaximumDefuzzificationFunction;
+import fuzzy.mf.DoubleMembershipFunction;
+import fuzzy.mf.GaussianMembershipFunction;
+import fuzzy.mf.MembershipFunction;
+import fuzzy.mf.TrapezoidalMembershipFunction;
+import fuzzy.mf.TriangularMembershipFunction;
+
+/**
+ * Tests for Mamdani Fuzzy System.
+ *
+ * @since 0.5
+ * @see MamdaniFuzzySystem
+ */
+public class TestMamdaniFuzzySystem {
+
+	private static final DoubleRange TIP = new DoubleRange(0.0, 30.0, 0.1);
+
+	/**
+	 * The tipper of the Matlab fuzzy logic toolbox.
+	 */
+	static MamdaniFuzzySystem.Builder tipper() {
+		return MamdaniFuzzySystem.builder()
+				.input(new LinguisticVariable("service", 0.0, 10.0,
+						new Term("poor", Shape.GAUSSIAN, 1.5, 0.0),
+						new Term("good", Shape.GAUSSIAN, 1.5, 5.0),
+						new Term("excellent", Shape.GAUSSIAN, 1.5, 10.0)))
+				.input(new LinguisticVariable("food", 0.0, 10.0,
+						new Term("rancid", Shape.TRAPEZOIDAL, 0.0, 0.0, 1.0, 3.0),
+						new Term("delicious", Shape.TRAPEZOIDAL, 7.0, 9.0, 10.0, 10.0)))
+				.output(new LinguisticVariable("tip", 0.0, 30.0,
+						new Term("cheap", Shape.TRIANGULAR, 0.0, 5.0, 10.0),
+						new Term("average", Shape.TRIANGULAR, 10.0, 15.0, 20.0),
+						new Term("generous", Shape.TRIANGULAR, 20.0, 25.0, 30.0)), TIP)
+				.rule(Rule.when("service", "poor").or("food", "rancid").then("tip", "cheap"))
+				.rule(Rule.when("service", "good").then("tip", "average"))
+				.rule(Rule.when("service", "excellent").or("food", "delicious").then("tip", "generous"));
+	}
+
+	/**
+	 * The tipper, wired by hand with membership functions.
+	 */
+	private static MembershipFunction<Double> handTipper(double service, double food) {
+		final DoubleMembershipFunction poor = new GaussianMembershipFunction(1.5, 0.0);
+		final DoubleMembershipFunction good = new GaussianMembershipFunction(1.5, 5.0);
+		final DoubleMembershipFunction excellent = new GaussianMembershipFunction(1.5, 10.0);
+		final DoubleMembershipFunction rancid = new TrapezoidalMembershipFunction(0.0, 0.0, 1.0, 3.0);
+		final DoubleMembershipFunction delicious = new TrapezoidalMembershipFunction(7.0, 9.0, 10.0, 10.0);
+		final DoubleMembershipFunction cheap = new TriangularMembershipFunction(0.0, 5.0, 10.0);
+		final DoubleMembershipFunction average = new TriangularMembershipFunction(10.0, 15.0, 20.0);
+		final DoubleMembershipFunction generous = new TriangularMembershipFunction(20.0, 25.0, 30.0);
+		final double r1 = Math.max(poor.applyAsDouble(service), rancid.applyAsDouble(food));
+		final double r2 = good.applyAsDouble(service);
+		final double r3 = Math.max(excellent.applyAsDouble(service), delicious.applyAsDouble(food));
+		return x -> Math.max(Math.max(Math.min(r1, cheap.applyAsDouble(x)), Math.min(r2, average.applyAsDouble(x))),
+				Math.min(r3, generous.applyAsDouble(x)));
+	}
+
+	@Test
+	public void testSameAsHandWired() {
+		MamdaniFuzzySystem system = tipper().build();
+		CentroidDefuzzificationFunction<Double> df = new CentroidDefuzzificationFunction<Double>();
+		for (double service = 0.5; service < 10.0; service += 2.25) {
+			for (double food = 0.5; food < 10.0; food += 2.25) {
+				double expected = df.apply(TIP, handTipper(service, food));
+				assertEquals(service + " " + food, expected, system.evaluate(service, food)[0], 0.0);
+			}
+		}
+		// the Matlab tipper gives 15 for average service and food
+		assertEquals(15.0, system.evaluate(5.0, 5.0)[0], 1e-9);
+	}
+
+	@Test
+	public void testOtherDefuzzificationFunction() {
+		DefuzzificationFunction<Double> bisector = new BisectorDefuzzificationFunction<Double>();
+		// not recognized by the system, so the aggregated set is given as a membership function
+		DefuzzificationFunction<Double> wrapped = (x, mf) -> bisector.apply(x, mf);
+		MamdaniFuzzySystem fast = tipper().defuzzification(bisector).build();
+		MamdaniFuzzySystem slow = tipper().defuzzification(wrapped).build();
+		assertEquals(bisector.apply(TIP, handTipper(2.0, 8.0)), fast.evaluate(2.0, 8.0)[0], 0.0);
+		assertEquals(fast.evaluate(2.0, 8.0)[0], slow.evaluate(2.0, 8.0)[0], 0.0);
+		MamdaniFuzzySystem mom = tipper().defuzzification(new MeanOfMaximaDefuzzificationFunction<Double>()).build();
+		assertEquals(new MeanOfMaximaDefuzzificationFunction<Double>().apply(TIP, handTipper(2.0, 8.0)),
+				mom.evaluate(2.0, 8.0)[0], 0.0);
+	}
+
+	@Test
+	public void testLeftmostAndRightmostMaximum() {
+		DefuzzificationFunction<Double> leftmost = new LeftmostMaximumDefuzzificationFunction<Double>();
+		DefuzzificationFunction<Double> rightmost = new RightmostMaximumDefuzzificationFunction<Double>();
+		MamdaniFuzzySystem lm = tipper().defuzzification(leftmost).build();
+		MamdaniFuzzySystem rm = tipper().defuzzification(rightmost).build();
+		// not recognized by the system, so the aggregated set is given as a membership function
+		MamdaniFuzzySystem slowLm = tipper().defuzzification((x, mf) -> leftmost.apply(x, mf)).build();
+		MamdaniFuzzySystem slowRm = tipper().defuzzification((x, mf) -> rightmost.apply(x, mf)).build();
+		for (double service = 0.0; service <= 10.0; service += 0.5) {
+			for (double food = 0.0; food <= 10.0; food += 0.5) {
+				assertEquals(slowLm.evaluate(service, food)[0], lm.evaluate(service, food)[0], 0.0);
+				assertEquals(slowRm.evaluate(service, food)[0], rm.evaluate(service, food)[0], 0.0);
+			}
+		}
+		assertEquals(leftmost.apply(TIP, handTipper(2.0, 8.0)), lm.evaluate(2.0, 8.0)[0], 0.0);
+		assertEquals(rightmost.apply(TIP, handTipper(2.0, 8.0)), rm.evaluate(2.0, 8.0)[0], 0.0);
+	}
+
+	@Test
+	public void testAdaptiveDefuzzificationFunction() {
+		// samples between the crisp values of the universe, which see the
+		// aggregated set interpolated
+		MamdaniFuzzySystem centroid = tipper().build();
+		MamdaniFuzzySystem adaptive = tipper().defuzzification(new AdaptiveCentroidDefuzzificationFunction<Double>())
+				.build();
+		for (double service = 0.5; service < 10.0; service += 2.25) {
+			for (double food = 0.5; food < 10.0; food += 2.25) {
+				assertEquals(service + " " + food, centroid.evaluate(service, food)[0],
+						adaptive.evaluate(service, food)[0], 0.05);
+			}
+		}
+		assertEquals(15.0, adaptive.evaluate(5.0, 5.0)[0], 1e-3);
+	}
+
+	@Test
+	public void testOperators() {
+		MamdaniFuzzySystem system = tipper().disjunction(SNorm.PROBABILISTIC_SUM).implication(TNorm.PRODUCT)
+				.aggregation(SNorm.BOUNDED_SUM).build();
+		final double service = 3.0;
+		final double food = 8.0;
+		final double r1 = SNorm.PROBABILISTIC_SUM.applyAsDouble(new GaussianMembershipFunction(1.5, 0.0).applyAsDouble(service),
+				new TrapezoidalMembershipFunction(0.0, 0.0, 1.0, 3.0).applyAsDouble(food));
+		final double r2 = new GaussianMembershipFunction(1.5, 5.0).applyAsDouble(service);
+		final double r3 = SNorm.PROBABILISTIC_SUM.applyAsDouble(new GaussianMembershipFunction(1.5, 10.0).applyAsDouble(service),
+				new TrapezoidalMembershipFunction(7.0, 9.0, 10.0, 10.0).applyAsDouble(food));
+		MembershipFunction<Double> expected = x -> {
+			double m = 0.0;
+			m = Math.min(1.0, m + r1 * new TriangularMembershipFunction(0.0, 5.0, 10.0).applyAsDouble(x));
+			m = Math.min(1.0, m + r2 * new TriangularMembershipFunction(10.0, 15.0, 20.0).applyAsDouble(x));
+			m = Math.min(1.0, m + r3 * new TriangularMembershipFunction(20.0, 25.0, 30.0).applyAsDouble(x));
+			return m;
+		};
+		assertEquals(new CentroidDefuzzificationFunction<Double>().apply(TIP, expected), system.evaluate(service, food)[0], 1e-12);
+	}
+
+	@Test
+	public void testWeightsAndNegation() {
+		MamdaniFuzzySystem system = MamdaniFuzzySystem.builder()
+				.input(new LinguisticVariable("x", 0.0, 1.0, new Term("high", Shape.TRIANGULAR, 0.0, 1.0, 1.0)))
+				.output(new LinguisticVariable("y", 0.0, 1.0, new Term("any", Shape.TRAPEZOIDAL, 0.0, 0.0, 1.0, 1.0)))
+				.rule(Rule.whenNot("x", "high").then("y", "any").withWeight(0.5))
+				.build();
+		MamdaniFuzzySystem.Workspace workspace = system.newWorkspace();
+		double[] outputs = new double[1];
+		system.evaluate(new double[] { 0.25 }, outputs, workspace);
+		assertEquals(0.375, workspace.getFiringStrength(0), 0.0);
+		assertEquals(0.375, workspace.getAggregate(0).height(), 0.0);
+		assertEquals(0.5, outputs[0], 1e-9);
+	}
+
+	@Test
+	public void testDefaultValue() {
+		MamdaniFuzzySystem system = MamdaniFuzzySystem.builder()
+				.input(new LinguisticVariable("x", 0.0, 10.0, new Term("low", Shape.TRIANGULAR, 0.0, 1.0, 2.0)))
+				.output(new LinguisticVariable("y", 0.0, 1.0, new Term("any", Shape.TRIANGULAR, 0.0, 0.5, 1.0)))
+				.rule(Rule.when("x", "low").then("y", "any"))
+				.build();
+		assertTrue(Double.isNaN(system.evaluate(5.0)[0]));
+		assertEquals(-1.0, MamdaniFuzzySystem.builder()
+				.input(system.getInput(0)).output(system.getOutput(0)).rules(system.getRules())
+				.defaultValue(-1.0).build().evaluate(5.0)[0], 0.0);
+		assertEquals(101, system.newWorkspace().getAggregate(0).size());
+	}
+
+	@Test
+	public void testThreadSafe() {
+		final MamdaniFuzzySystem system = tipper().build();
+		final double[] expected = new double[1000];
+		for (int i = 0; i < expected.length; i++) {
+			expected[i] = system.evaluate(i % 10 + 0.5, i / 100 + 0.25)[0];
+		}
+		final double[] results = new double[expected.length];
+		IntStream.range(0, results.length).parallel().forEach(i -> {
+			final double[] out = new double[1];
+			system.evaluate(new double[] { i % 10 + 0.5, i / 100 + 0.25 }, out);
+			results[i] = out[0];
+		});
+		assertArrayEquals(expected, results, 0.0);
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testUnknownTerm() {
+		tipper().rule(Rule.when("service", "awful").then("tip", "cheap")).build();
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testUnknownOutput() {
+		tipper().rule(Rule.when("service", "poor").then("bill", "cheap")).build();
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testDuplicateVariable() {
+		tipper().input(new LinguisticVariable("tip", 0.0, 1.0)).build();
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testWorkspaceOfAnotherSystem() {
+		tipper().build().evaluate(new double[2], new double[1], tipper().build().newWorkspace());
+	}
+
+}
@@ -0,0 +1,207 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package fuzzy.system;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.apache.commons.functor.generator.range.BoundType;
+import org.apache.commons.functor.generator.range.DoubleRange;
+import org.junit.Test;
+
+import fuzzy.df.BisectorDefuzzificationFunction;
+import fuzzy.df.LeftmostMaximumDefuzzificationFunction;
+import fuzzy.df.MeanOfMaximaDefuzzificationFunction;
+import fuzzy.df.RightmostMaximumDefuzzificationFunction;
+
+/**
+ * Tests for Mapped Fuzzy System.
+ *
+ * @since 0.5
+ * @see MappedFuzzySystem
+ */
+public class TestMappedFuzzySystem {
+
+	private static Path temporaryFile() throws IOException {
+		final File file = File.createTempFile("fuzzy", ".nfz");
+		file.deleteOnExit();
+		return file.toPath();
+	}
+
+	private static void assertSameOutputs(FuzzySystem expected, FuzzySystem actual, int inputs, long seed) {
+		final Random random = new Random(seed);
+		for (int i = 0; i < 500; i++) {
+			final double[] x = new double[inputs];
+			for (int v = 0; v < inputs; v++) {
+				x[v] = 10.0 * random.nextDouble();
+			}
+			assertArrayEquals(expected.evaluate(x), actual.evaluate(x), 0.0);
+		}
+	}
+
+	@Test
+	public void testTipper() throws IOException {
+		final MamdaniFuzzySystem tipper = TestMamdaniFuzzySystem.tipper().build();
+		final Path file = temporaryFile();
+		MappedFuzzySystem.write(tipper, file);
+		final MappedFuzzySystem mapped = MappedFuzzySystem.load(file);
+		assertEquals(2, mapped.getInputCount());
+		assertEquals(1, mapped.getOutputCount());
+		assertEquals(3, mapped.getRuleCount());
+		assertSameOutputs(tipper, mapped, 2, 1L);
+		assertEquals(tipper.getInput(0), mapped.getInput(0));
+		assertEquals(tipper.getInput(1), mapped.getInput(1));
+		assertEquals(tipper.getOutput(0), mapped.getOutput(0));
+		assertEquals("tip", mapped.getOutputName(0));
+	}
+
+	@Test
+	public void testOperatorsAndDefuzzifications() {
+		final MamdaniFuzzySystem bisector = TestMamdaniFuzzySystem.tipper()
+				.implication(TNorm.PRODUCT).aggregation(SNorm.BOUNDED_SUM)
+				.defuzzification(new BisectorDefuzzificationFunction<Double>()).build();
+		assertSameOutputs(bisector, MappedFuzzySystem.wrap(MappedFuzzySystem.toBuffer(bisector)), 2, 2L);
+		final MamdaniFuzzySystem mom = TestMamdaniFuzzySystem.tipper()
+				.defuzzification(new MeanOfMaximaDefuzzificationFunction<Double>()).defaultValue(-1.0).build();
+		final MappedFuzzySystem mapped = MappedFuzzySystem.wrap(MappedFuzzySystem.toBuffer(mom));
+		assertSameOutputs(mom, mapped, 2, 3L);
+		assertEquals(-1.0, mapped.getDefaultValue(), 0.0);
+		final MamdaniFuzzySystem lm = TestMamdaniFuzzySystem.tipper()
+				.defuzzification(new LeftmostMaximumDefuzzificationFunction<Double>()).build();
+		assertSameOutputs(lm, MappedFuzzySystem.wrap(MappedFuzzySystem.toBuffer(lm)), 2, 4L);
+		final MamdaniFuzzySystem rm = TestMamdaniFuzzySystem.tipper()
+				.defuzzification(new RightmostMaximumDefuzzificationFunction<Double>()).build();
+		assertSameOutputs(rm, MappedFuzzySystem.wrap(MappedFuzzySystem.toBuffer(rm)), 2, 5L);
+	}
+
+	/**
+	 * Three inputs of five triangles, two outputs and 125 rules, with
+	 * negated antecedents and weights.
+	 */
+	private static MamdaniFuzzySystem.Builder larger() {
+		final MamdaniFuzzySystem.Builder builder = MamdaniFuzzySystem.builder()
+				.conjunction(TNorm.PRODUCT).disjunction(SNorm.PROBABILISTIC_SUM);
+		final String[] names = { "x", "y", "z" };
+		for (String name : names) {
+			final Term[] terms = new Term[5];
+			for (int t = 0; t < terms.length; t++) {
+				terms[t] = new Term("t" + t, Shape.TRIANGULAR, 2.5 * t - 2.5, 2.5 * t, 2.5 * t + 2.5);
+			}
+			builder.input(new LinguisticVariable(name, 0.0, 10.0, terms));
+		}
+		builder.output(new LinguisticVariable("u", -1.0, 1.0,
+				new Term("low", Shape.GAUSSIAN, 0.3, -1.0),
+				new Term("high", Shape.GAUSSIAN, 0.3, 1.0)),
+				new DoubleRange(-1.0, BoundType.CLOSED, 1.0, BoundType.CLOSED, 0.01));
+		builder.output(new LinguisticVariable("w", 0.0, 1.0,
+				new Term("off", Shape.TRIANGULAR, 0.0, 0.0, 0.5),
+				new Term("on", Shape.TRIANGULAR, 0.5, 1.0, 1.0)));
+		for (int i = 0; i < 5; i++) {
+			for (int j = 0; j < 5; j++) {
+				for (int k = 0; k < 5; k++) {
+					final Rule rule = Rule.when("x", "t" + i).and("y", "t" + j).andNot("z", "t" + k)
+							.then("u", (i + j + k) % 2 == 0 ? "low" : "high").withWeight(0.5 + 0.1 * k);
+					builder.rule((i + j) % 3 == 0 ? rule.then("w", "on") : rule);
+				}
+			}
+		}
+		return builder;
+	}
+
+	@Test
+	public void testLargerSystem() throws IOException {
+		final MamdaniFuzzySystem system = larger().build();
+		final Path file = temporaryFile();
+		MappedFuzzySystem.write(system, file);
+		final MappedFuzzySystem mapped = MappedFuzzySystem.load(file);
+		assertEquals(125, mapped.getRuleCount());
+		assertSameOutputs(system, mapped, 3, 4L);
+		assertEquals(system.getInput(2), mapped.getInput(2));
+		assertEquals(system.getOutput(1), mapped.getOutput(1));
+	}
+
+	@Test
+	public void testIndexedRules() {
+		final MamdaniFuzzySystem system = larger().indexRules(true).build();
+		final MappedFuzzySystem mapped = MappedFuzzySystem.wrap(MappedFuzzySystem.toBuffer(system));
+		assertTrue(mapped.isRuleIndexed());
+		assertTrue(!MappedFuzzySystem.wrap(MappedFuzzySystem.toBuffer(larger().build())).isRuleIndexed());
+		assertSameOutputs(system, mapped, 3, 6L);
+		final MamdaniFuzzySystem.Workspace expected = system.newWorkspace();
+		final MappedFuzzySystem.Workspace actual = mapped.newWorkspace();
+		final double[] inputs = { 1.0, 4.0, 8.5 };
+		final double[] outputs = new double[2];
+		system.evaluate(inputs, outputs, expected);
+		mapped.evaluate(inputs, outputs, actual);
+		// only the rules on the two terms of x and of y that may fire are visited
+		assertTrue(actual.getVisitedRuleCount() < mapped.getRuleCount());
+		assertEquals(expected.getVisitedRuleCount(), actual.getVisitedRuleCount());
+		assertEquals(expected.getFiredRuleCount(), actual.getFiredRuleCount());
+		for (int k = 0; k < mapped.getRuleCount(); k++) {
+			assertEquals(expected.getFiringStrength(k), actual.getFiringStrength(k), 0.0);
+		}
+		assertEquals(expected.getAggregate(1), actual.getAggregate(1));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testWorkspaceOfAnotherSystem() {
+		final ByteBuffer buffer = MappedFuzzySystem.toBuffer(TestMamdaniFuzzySystem.tipper().build());
+		MappedFuzzySystem.wrap(buffer).evaluate(new double[2], new double[1],
+				MappedFuzzySystem.wrap(buffer).newWorkspace());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testCorruptAntecedent() {
+		final ByteBuffer buffer = MappedFuzzySystem.toBuffer(TestMamdaniFuzzySystem.tipper().build());
+		final int n = buffer.getInt(12);
+		final int r = buffer.getInt(20);
+		final int t = buffer.getInt(24);
+		// first antecedent term, after the term and parameter offsets, shapes and antecedent offsets
+		buffer.putInt(MappedFuzzySystem.HEADER_SIZE + 4 * ((n + 1) + t + (t + 1) + (r + 1)), t);
+		MappedFuzzySystem.wrap(buffer);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testBadMagic() throws IOException {
+		final Path file = temporaryFile();
+		Files.write(file, new byte[MappedFuzzySystem.HEADER_SIZE]);
+		MappedFuzzySystem.load(file);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnsupportedVersion() {
+		final ByteBuffer buffer = MappedFuzzySystem.toBuffer(TestMamdaniFuzzySystem.tipper().build());
+		buffer.putInt(4, MappedFuzzySystem.VERSION + 1);
+		MappedFuzzySystem.wrap(buffer);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testTruncated() throws IOException {
+		final ByteBuffer buffer = MappedFuzzySystem.toBuffer(TestMamdaniFuzzySystem.tipper().build());
+		final byte[] bytes = new byte[buffer.limit() / 2];
+		buffer.get(bytes);
+		final Path file = temporaryFile();
+		Files.write(file, bytes);
+		MappedFuzzySystem.load(file);
+	}
+
+}
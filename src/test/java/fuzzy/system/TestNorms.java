@@ -0,0 +1,68 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package fuzzy.system;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * Tests for t-norms and s-norms.
+ *
+ * @since 0.5
+ * @see TNorm
+ * @see SNorm
+ */
+public class TestNorms {
+
+	private static final double[] VALUES = new double[] { 0.0, 0.1, 0.25, 0.5, 0.8, 1.0 };
+
+	@Test
+	public void testBoundaryConditions() {
+		for (double a : VALUES) {
+			for (TNorm t : TNorm.values()) {
+				assertEquals(t + " " + a, a, t.applyAsDouble(a, 1.0), 1e-15);
+				assertEquals(t + " " + a, 0.0, t.applyAsDouble(a, 0.0), 1e-15);
+			}
+			for (SNorm s : SNorm.values()) {
+				assertEquals(s + " " + a, a, s.applyAsDouble(a, 0.0), 1e-15);
+				assertEquals(s + " " + a, 1.0, s.applyAsDouble(a, 1.0), 1e-15);
+			}
+		}
+	}
+
+	@Test
+	public void testCommutativeAndBounded() {
+		for (double a : VALUES) {
+			for (double b : VALUES) {
+				for (TNorm t : TNorm.values()) {
+					assertEquals(t.applyAsDouble(a, b), t.applyAsDouble(b, a), 1e-15);
+					assertEquals(Math.min(a, b), Math.max(t.applyAsDouble(a, b), Math.min(a, b)), 1e-15);
+				}
+				for (SNorm s : SNorm.values()) {
+					assertEquals(s.applyAsDouble(a, b), s.applyAsDouble(b, a), 1e-15);
+					assertEquals(Math.max(a, b), Math.min(s.applyAsDouble(a, b), Math.max(a, b)), 1e-15);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testValues() {
+		assertEquals(0.3, TNorm.BOUNDED_DIFFERENCE.applyAsDouble(0.5, 0.8), 1e-15);
+		assertEquals(0.9, SNorm.PROBABILISTIC_SUM.applyAsDouble(0.5, 0.8), 1e-15);
+		assertEquals(0.4 / 0.9, TNorm.HAMACHER_PRODUCT.applyAsDouble(0.5, 0.8), 1e-15);
+	}
+
+}
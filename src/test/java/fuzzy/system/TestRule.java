@@ -0,0 +1,74 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package fuzzy.system;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/**
+ * Tests for Rule.
+ *
+ * @since 0.5
+ * @see Rule
+ */
+public class TestRule {
+
+	@Test
+	public void testBuild() {
+		Rule rule = Rule.when("service", "poor").orNot("food", "delicious").then("tip", "cheap").withWeight(0.5);
+		assertTrue(rule.isDisjunctive());
+		assertEquals(2, rule.getAntecedents().size());
+		assertTrue(rule.getAntecedents().get(1).isNegated());
+		assertEquals("tip", rule.getConsequents().get(0).getVariable());
+		assertEquals(0.5, rule.getWeight(), 0.0);
+		assertEquals("IF service IS poor OR food IS NOT delicious THEN tip IS cheap WITH 0.5", rule.toString());
+		assertFalse(Rule.when("a", "b").and("c", "d").isDisjunctive());
+	}
+
+	@Test
+	public void testImmutable() {
+		Rule rule = Rule.when("service", "poor");
+		Rule other = rule.then("tip", "cheap");
+		assertEquals(0, rule.getConsequents().size());
+		assertEquals(1, other.getConsequents().size());
+		assertEquals(other, Rule.when("service", "poor").then("tip", "cheap"));
+		assertEquals(other.hashCode(), Rule.when("service", "poor").then("tip", "cheap").hashCode());
+	}
+
+	@Test
+	public void testOf() {
+		final Rule rule = Rule.of(Arrays.asList(new Rule.Proposition("service", "poor", false),
+				new Rule.Proposition("food", "delicious", true)), true,
+				Arrays.asList(new Rule.Proposition("tip", "cheap", false)), 0.5);
+		assertEquals(Rule.when("service", "poor").orNot("food", "delicious").then("tip", "cheap").withWeight(0.5), rule);
+		assertFalse(Rule.of(Arrays.asList(new Rule.Proposition("a", "b", false)), true,
+				Arrays.<Rule.Proposition>asList(), 1.0).isDisjunctive());
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testMixedConnectives() {
+		Rule.when("a", "b").and("c", "d").or("e", "f");
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testInvalidWeight() {
+		Rule.when("a", "b").withWeight(1.5);
+	}
+
+}
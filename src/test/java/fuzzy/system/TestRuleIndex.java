@@ -0,0 +1,154 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package fuzzy.system;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests for the rule index.
+ *
+ * @since 0.5
+ * @see RuleIndex
+ */
+public class TestRuleIndex {
+
+	private static final int TERMS = 20;
+
+	/**
+	 * A variable over [0, 19] with overlapping triangles centered on the
+	 * integers, and a gaussian.
+	 */
+	private static LinguisticVariable grid(String name) {
+		final List<Term> terms = new ArrayList<Term>();
+		for (int i = 0; i < TERMS; i++) {
+			terms.add(new Term("t" + i, Shape.TRIANGULAR, i - 1.0, i, i + 1.0));
+		}
+		terms.add(new Term("wide", Shape.GAUSSIAN, 3.0, 9.5));
+		return new LinguisticVariable(name, 0.0, TERMS - 1.0, terms);
+	}
+
+	private static List<Rule> rules() {
+		final List<Rule> rules = new ArrayList<Rule>();
+		for (int i = 0; i < TERMS; i++) {
+			for (int j = 0; j < TERMS; j++) {
+				rules.add(Rule.when("a", "t" + i).and("b", "t" + j).then("y", (i + j) % 2 == 0 ? "even" : "odd"));
+			}
+		}
+		rules.add(Rule.when("a", "t3").or("b", "t7").then("y", "odd"));
+		rules.add(Rule.whenNot("a", "t5").andNot("b", "t5").then("y", "even").withWeight(0.1));
+		rules.add(Rule.when("a", "wide").andNot("b", "t2").then("y", "odd"));
+		rules.add(Rule.when("a", "t4").and("a", "t4").then("y", "even"));
+		return rules;
+	}
+
+	private static MamdaniFuzzySystem mamdani(boolean indexed) {
+		return MamdaniFuzzySystem.builder()
+				.input(grid("a"))
+				.input(grid("b"))
+				.output(new LinguisticVariable("y", 0.0, 1.0,
+						new Term("even", Shape.TRIANGULAR, 0.0, 0.25, 0.5),
+						new Term("odd", Shape.TRIANGULAR, 0.5, 0.75, 1.0)))
+				.rules(rules())
+				.indexRules(indexed)
+				.build();
+	}
+
+	private static double[][] samples() {
+		final Random random = new Random(7);
+		final double[][] samples = new double[500][];
+		for (int s = 0; s < samples.length; s++) {
+			samples[s] = new double[] { random.nextDouble() * 21.0 - 1.0, random.nextDouble() * 21.0 - 1.0 };
+		}
+		// endpoints of the supports, and crisp values outside them
+		samples[0] = new double[] { 3.0, 7.0 };
+		samples[1] = new double[] { 0.0, 19.0 };
+		samples[2] = new double[] { -5.0, 25.0 };
+		samples[3] = new double[] { 4.5, 4.5 };
+		return samples;
+	}
+
+	@Test
+	public void testMamdaniSameAsWithoutIndex() {
+		final MamdaniFuzzySystem plain = mamdani(false);
+		final MamdaniFuzzySystem indexed = mamdani(true);
+		assertFalse(plain.isRuleIndexed());
+		assertTrue(indexed.isRuleIndexed());
+		final MamdaniFuzzySystem.Workspace plainWorkspace = plain.newWorkspace();
+		final MamdaniFuzzySystem.Workspace indexedWorkspace = indexed.newWorkspace();
+		final double[] expected = new double[1];
+		final double[] actual = new double[1];
+		for (double[] sample : samples()) {
+			plain.evaluate(sample, expected, plainWorkspace);
+			indexed.evaluate(sample, actual, indexedWorkspace);
+			assertEquals(expected[0], actual[0], 0.0);
+			for (int k = 0; k < plain.getRules().size(); k++) {
+				assertEquals(plainWorkspace.getFiringStrength(k), indexedWorkspace.getFiringStrength(k), 0.0);
+			}
+			assertEquals(plainWorkspace.getFiredRuleCount(), indexedWorkspace.getFiredRuleCount());
+			assertEquals(plain.getRules().size(), plainWorkspace.getVisitedRuleCount());
+			assertTrue(indexedWorkspace.getVisitedRuleCount() <= 4 + 4);
+		}
+	}
+
+	@Test
+	public void testVisitedRules() {
+		final MamdaniFuzzySystem indexed = mamdani(true);
+		final MamdaniFuzzySystem.Workspace workspace = indexed.newWorkspace();
+		indexed.evaluate(new double[] { 4.5, 10.5 }, new double[1], workspace);
+		// t4 and t5 of a, t10 and t11 of b, the disjunctive, negated and gaussian rules, and t4 of a twice
+		assertEquals(4 + 4, workspace.getVisitedRuleCount());
+		assertEquals(4 + 3, workspace.getFiredRuleCount());
+		indexed.evaluate(new double[] { 4.0, 10.0 }, new double[1], workspace);
+		assertEquals(1 + 3, workspace.getFiredRuleCount());
+	}
+
+	@Test
+	public void testTskAndSamSameAsWithoutIndex() {
+		for (boolean indexed : new boolean[] { false, true }) {
+			final TskFuzzySystem.Builder tsk = TskFuzzySystem.builder()
+					.input(grid("a"))
+					.input(grid("b"))
+					.output("y")
+					.linear("y", "even", 0.0, 1.0, -1.0)
+					.constant("y", "odd", 5.0)
+					.rules(rules())
+					.indexRules(indexed);
+			final SamFuzzySystem.Builder sam = SamFuzzySystem.builder()
+					.input(grid("a"))
+					.input(grid("b"))
+					.output(new LinguisticVariable("y", 0.0, 1.0,
+							new Term("even", Shape.TRIANGULAR, 0.0, 0.25, 0.5),
+							new Term("odd", Shape.TRAPEZOIDAL, 0.5, 0.6, 0.8, 1.0)))
+					.rules(rules())
+					.indexRules(indexed);
+			final TskFuzzySystem tskSystem = tsk.build();
+			final SamFuzzySystem samSystem = sam.build();
+			final TskFuzzySystem tskPlain = tsk.indexRules(false).build();
+			final SamFuzzySystem samPlain = sam.indexRules(false).build();
+			for (double[] sample : samples()) {
+				assertEquals(tskPlain.evaluate(sample)[0], tskSystem.evaluate(sample)[0], 0.0);
+				assertEquals(samPlain.evaluate(sample)[0], samSystem.evaluate(sample)[0], 0.0);
+			}
+		}
+	}
+
+}
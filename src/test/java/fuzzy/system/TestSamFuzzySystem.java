@@ -0,0 +1,146 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package fuzzy.system;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.commons.functor.generator.range.DoubleRange;
+import org.junit.Test;
+
+import fuzzy.df.CentroidDefuzzificationFunction;
+import fuzzy.mf.DoubleMembershipFunction;
+import fuzzy.mf.GaussianMembershipFunction;
+import fuzzy.mf.TrapezoidalMembershipFunction;
+
+/**
+ * Tests for SAM Fuzzy System.
+ *
+ * @since 0.5
+ * @see SamFuzzySystem
+ */
+public class TestSamFuzzySystem {
+
+	private static SamFuzzySystem.Builder tipper() {
+		return SamFuzzySystem.builder()
+				.input(new LinguisticVariable("service", 0.0, 10.0,
+						new Term("poor", Shape.GAUSSIAN, 1.5, 0.0),
+						new Term("good", Shape.GAUSSIAN, 1.5, 5.0),
+						new Term("excellent", Shape.GAUSSIAN, 1.5, 10.0)))
+				.input(new LinguisticVariable("food", 0.0, 10.0,
+						new Term("rancid", Shape.TRAPEZOIDAL, 0.0, 0.0, 1.0, 3.0),
+						new Term("delicious", Shape.TRAPEZOIDAL, 7.0, 9.0, 10.0, 10.0)))
+				.output(new LinguisticVariable("tip", 0.0, 30.0,
+						new Term("cheap", Shape.TRIANGULAR, 0.0, 5.0, 10.0),
+						new Term("average", Shape.TRAPEZOIDAL, 10.0, 14.0, 16.0, 20.0),
+						new Term("generous", Shape.TRIANGULAR, 20.0, 28.0, 30.0)))
+				.rule(Rule.when("service", "poor").or("food", "rancid").then("tip", "cheap"))
+				.rule(Rule.when("service", "good").then("tip", "average"))
+				.rule(Rule.when("service", "excellent").or("food", "delicious").then("tip", "generous"));
+	}
+
+	@Test
+	public void testClosedFormVolumesAndCentroids() {
+		final SamFuzzySystem system = tipper().build();
+		assertEquals(5.0, system.getVolume(0, 0), 1e-12);
+		assertEquals(5.0, system.getCentroid(0, 0), 1e-12);
+		assertEquals(6.0, system.getVolume(0, 1), 1e-12);
+		assertEquals(15.0, system.getCentroid(0, 1), 1e-12);
+		assertEquals(5.0, system.getVolume(0, 2), 1e-12);
+		assertEquals(26.0, system.getCentroid(0, 2), 1e-12);
+	}
+
+	@Test
+	public void testSameAsHandComputed() {
+		final SamFuzzySystem system = tipper().build();
+		final DoubleMembershipFunction poor = new GaussianMembershipFunction(1.5, 0.0);
+		final DoubleMembershipFunction good = new GaussianMembershipFunction(1.5, 5.0);
+		final DoubleMembershipFunction excellent = new GaussianMembershipFunction(1.5, 10.0);
+		final DoubleMembershipFunction rancid = new TrapezoidalMembershipFunction(0.0, 0.0, 1.0, 3.0);
+		final DoubleMembershipFunction delicious = new TrapezoidalMembershipFunction(7.0, 9.0, 10.0, 10.0);
+		for (double service = 0.5; service < 10.0; service += 2.25) {
+			for (double food = 0.5; food < 10.0; food += 2.25) {
+				final double a1 = Math.max(poor.applyAsDouble(service), rancid.applyAsDouble(food));
+				final double a2 = good.applyAsDouble(service);
+				final double a3 = Math.max(excellent.applyAsDouble(service), delicious.applyAsDouble(food));
+				final double expected = (a1 * 5.0 * 5.0 + a2 * 6.0 * 15.0 + a3 * 5.0 * 26.0)
+						/ (a1 * 5.0 + a2 * 6.0 + a3 * 5.0);
+				assertEquals(service + " " + food, expected, system.evaluate(service, food)[0], 1e-12);
+			}
+		}
+	}
+
+	@Test
+	public void testQuadratureAndTruncation() {
+		final LinguisticVariable output = new LinguisticVariable("y", 0.0, 10.0,
+				new Term("bell", Shape.GENERALIZED_BELL, 2.0, 3.0, 6.0),
+				new Term("gauss", Shape.GAUSSIAN, 2.0, 9.0),
+				new Term("line", Shape.PIECEWISE_LINEAR, 0.0, 1.0, 10.0, 0.0));
+		final SamFuzzySystem system = SamFuzzySystem.builder()
+				.input(new LinguisticVariable("x", 0.0, 1.0, new Term("any", Shape.TRIANGULAR, -1.0, 0.0, 2.0)))
+				.output(output)
+				.rule(Rule.when("x", "any").then("y", "bell"))
+				.build();
+		final DoubleRange universe = new DoubleRange(0.0, 10.0, 1e-4);
+		final CentroidDefuzzificationFunction<Double> centroid = new CentroidDefuzzificationFunction<Double>();
+		for (int t = 0; t < 3; t++) {
+			final DoubleMembershipFunction mf = output.getTerms().get(t).getMembershipFunction();
+			assertEquals(centroid.apply(universe, mf), system.getCentroid(0, t), 1e-3);
+			double volume = 0.0;
+			for (double x = 0.5e-4; x < 10.0; x += 1e-4) {
+				volume += mf.applyAsDouble(x) * 1e-4;
+			}
+			assertEquals(volume, system.getVolume(0, t), 1e-5);
+		}
+		assertEquals(5.0, system.getVolume(0, 2), 1e-12);
+		assertEquals(10.0 / 3.0, system.getCentroid(0, 2), 1e-12);
+		// a single rule gives the centroid of its consequent
+		assertEquals(system.getCentroid(0, 0), system.evaluate(0.5)[0], 1e-12);
+	}
+
+	@Test
+	public void testFiringStrengthsAndDefaultValue() {
+		final SamFuzzySystem system = tipper()
+				.rule(Rule.when("service", "good").andNot("food", "rancid").then("tip", "average").withWeight(0.5))
+				.defaultValue(-1.0)
+				.build();
+		final SamFuzzySystem.Workspace workspace = system.newWorkspace();
+		final double[] out = new double[1];
+		system.evaluate(new double[] { 5.0, 0.5 }, out, workspace);
+		assertEquals(1.0, workspace.getFiringStrength(0), 0.0);
+		assertEquals(1.0, workspace.getFiringStrength(1), 0.0);
+		assertEquals(0.0, workspace.getFiringStrength(3), 0.0);
+		final SamFuzzySystem none = SamFuzzySystem.builder()
+				.input(new LinguisticVariable("x", 0.0, 10.0, new Term("high", Shape.TRIANGULAR, 5.0, 10.0, 15.0)))
+				.output(new LinguisticVariable("y", 0.0, 1.0, new Term("one", Shape.TRIANGULAR, 0.0, 1.0, 2.0)))
+				.rule(Rule.when("x", "high").then("y", "one"))
+				.build();
+		assertTrue(Double.isNaN(none.evaluate(0.0)[0]));
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testZeroVolume() {
+		SamFuzzySystem.builder()
+				.input(new LinguisticVariable("x", 0.0, 10.0, new Term("any", Shape.TRIANGULAR, 0.0, 5.0, 10.0)))
+				.output(new LinguisticVariable("y", 0.0, 1.0, new Term("out", Shape.TRIANGULAR, 5.0, 6.0, 7.0)))
+				.rule(Rule.when("x", "any").then("y", "out"))
+				.build();
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testUnknownTerm() {
+		tipper().rule(Rule.when("service", "good").then("tip", "missing")).build();
+	}
+
+}
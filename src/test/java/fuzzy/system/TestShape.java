@@ -0,0 +1,61 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package fuzzy.system;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import fuzzy.mf.DoubleMembershipFunction;
+import fuzzy.mf.GeneralizedBellShapedMembershipFunction;
+import fuzzy.mf.PiecewiseLinearMembershipFunction;
+import fuzzy.mf.TrapezoidalMembershipFunction;
+
+/**
+ * Tests for Shape.
+ *
+ * @since 0.5
+ * @see Shape
+ */
+public class TestShape {
+
+	@Test
+	public void testCreate() {
+		assertEquals(new TrapezoidalMembershipFunction(1.0, 2.0, 3.0, 4.0), Shape.TRAPEZOIDAL.create(1.0, 2.0, 3.0, 4.0));
+		assertEquals(new GeneralizedBellShapedMembershipFunction(2.0, 4.0, 6.0),
+				Shape.GENERALIZED_BELL.create(2.0, 4.0, 6.0));
+		assertEquals(new PiecewiseLinearMembershipFunction(new double[] { 0.0, 1.0, 3.0 }, new double[] { 0.0, 1.0, 0.0 }),
+				Shape.PIECEWISE_LINEAR.create(0.0, 0.0, 1.0, 1.0, 3.0, 0.0));
+		for (Shape shape : Shape.values()) {
+			int count = shape.getParameterCount() < 0 ? 4 : shape.getParameterCount();
+			double[] parameters = new double[count];
+			for (int i = 0; i < count; i++) {
+				parameters[i] = i + 1;
+			}
+			DoubleMembershipFunction mf = shape.create(parameters);
+			assertEquals(shape.toString(), mf.applyAsDouble(2.5), mf.applyAsDouble(2.5), 0.0);
+		}
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testWrongParameterCount() {
+		Shape.TRIANGULAR.create(1.0, 2.0);
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testOddPiecewiseParameters() {
+		Shape.PIECEWISE_LINEAR.create(1.0, 2.0, 3.0, 4.0, 5.0);
+	}
+
+}
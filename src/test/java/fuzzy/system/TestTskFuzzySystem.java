@@ -0,0 +1,202 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package fuzzy.system;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests for TSK Fuzzy System.
+ *
+ * @since 0.5
+ * @see TskFuzzySystem
+ */
+public class TestTskFuzzySystem {
+
+	private static LinguisticVariable variable(String name) {
+		return new LinguisticVariable(name, 0.0, 10.0,
+				new Term("low", Shape.TRIANGULAR, -10.0, 0.0, 10.0),
+				new Term("high", Shape.TRIANGULAR, 0.0, 10.0, 20.0));
+	}
+
+	/**
+	 * Zero order: y = 2 when x is low, 8 when x is high, hence 2 + 0.6 x.
+	 */
+	private static TskFuzzySystem zeroOrder() {
+		return TskFuzzySystem.builder()
+				.input(variable("x"))
+				.output("y")
+				.constant("y", "small", 2.0)
+				.constant("y", "large", 8.0)
+				.rule(Rule.when("x", "low").then("y", "small"))
+				.rule(Rule.when("x", "high").then("y", "large"))
+				.build();
+	}
+
+	/**
+	 * First order, with both operators, a weight and a negation.
+	 */
+	static TskFuzzySystem.Builder firstOrder() {
+		return TskFuzzySystem.builder()
+				.input(variable("a"))
+				.input(variable("b"))
+				.output("y")
+				.output("z")
+				.linear("y", "plane", 1.0, 2.0, 3.0)
+				.linear("y", "slope", 0.0, -1.0, 0.5)
+				.constant("z", "one", 1.0)
+				.constant("z", "ten", 10.0)
+				.rule(Rule.when("a", "low").and("b", "low").then("y", "plane").then("z", "one"))
+				.rule(Rule.when("a", "high").orNot("b", "high").then("y", "slope").withWeight(0.5))
+				.rule(Rule.whenNot("a", "low").and("b", "high").then("z", "ten"));
+	}
+
+	@Test
+	public void testZeroOrder() {
+		final TskFuzzySystem system = zeroOrder();
+		assertEquals(0, system.getOrder());
+		for (double x = 0.0; x <= 10.0; x += 0.25) {
+			assertEquals(String.valueOf(x), 2.0 + 0.6 * x, system.evaluate(x)[0], 1e-12);
+		}
+	}
+
+	@Test
+	public void testFirstOrder() {
+		final TskFuzzySystem system = firstOrder().build();
+		assertEquals(1, system.getOrder());
+		final double a = 3.0;
+		final double b = 6.0;
+		final double aLow = 0.7, aHigh = 0.3, bLow = 0.4, bHigh = 0.6;
+		final double w1 = Math.min(aLow, bLow);
+		final double w2 = Math.max(aHigh, 1.0 - bHigh) * 0.5;
+		final double w3 = Math.min(1.0 - aLow, bHigh);
+		final double y = (w1 * (1.0 + 2.0 * a + 3.0 * b) + w2 * (-a + 0.5 * b)) / (w1 + w2);
+		final double z = (w1 * 1.0 + w3 * 10.0) / (w1 + w3);
+		assertArrayEquals(new double[] { y, z }, system.evaluate(a, b), 1e-12);
+	}
+
+	@Test
+	public void testFiringStrengths() {
+		final TskFuzzySystem system = firstOrder().build();
+		final TskFuzzySystem.Workspace workspace = system.newWorkspace();
+		system.evaluate(new double[] { 3.0, 6.0 }, new double[2], workspace);
+		assertEquals(0.4, workspace.getFiringStrength(0), 1e-15);
+		assertEquals(0.2, workspace.getFiringStrength(1), 1e-15);
+		assertEquals(0.3, workspace.getFiringStrength(2), 1e-15);
+	}
+
+	@Test
+	public void testEvaluateAllSameAsEvaluate() {
+		for (TNorm conjunction : new TNorm[] { TNorm.MINIMUM, TNorm.PRODUCT, TNorm.EINSTEIN_PRODUCT }) {
+			final TskFuzzySystem system = firstOrder().conjunction(conjunction).build();
+			final int count = 2 * TskFuzzySystem.CHUNK_SIZE + 17;
+			final Random random = new Random(42);
+			final double[][] inputs = new double[2][count];
+			for (int s = 0; s < count; s++) {
+				inputs[0][s] = random.nextDouble() * 10.0;
+				inputs[1][s] = random.nextDouble() * 10.0;
+			}
+			final double[][] outputs = new double[2][count];
+			final double[][] strengths = new double[3][count];
+			final TskFuzzySystem.Workspace workspace = system.newWorkspace();
+			system.evaluateAll(inputs, outputs, strengths, count, workspace);
+			final double[] out = new double[2];
+			for (int s = 0; s < count; s++) {
+				system.evaluate(new double[] { inputs[0][s], inputs[1][s] }, out, workspace);
+				assertEquals(out[0], outputs[0][s], 0.0);
+				assertEquals(out[1], outputs[1][s], 0.0);
+				for (int k = 0; k < 3; k++) {
+					assertEquals(workspace.getFiringStrength(k), strengths[k][s], 0.0);
+				}
+			}
+		}
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testEvaluateAllShortInput() {
+		final TskFuzzySystem system = firstOrder().build();
+		system.evaluateAll(new double[][] { new double[4], new double[3] }, new double[2][4], null, 4,
+				system.newWorkspace());
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testEvaluateAllShortStrengths() {
+		final TskFuzzySystem system = firstOrder().build();
+		system.evaluateAll(new double[2][4], new double[2][4], new double[][] { new double[4], new double[4],
+				new double[1] }, 4, system.newWorkspace());
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testEvaluateAllNegativeCount() {
+		final TskFuzzySystem system = firstOrder().build();
+		system.evaluateAll(new double[2][4], new double[2][4], null, -1, system.newWorkspace());
+	}
+
+	@Test
+	public void testDefaultValue() {
+		final TskFuzzySystem system = TskFuzzySystem.builder()
+				.input(variable("x"))
+				.output("y")
+				.constant("y", "c", 1.0)
+				.rule(Rule.when("x", "high").then("y", "c"))
+				.defaultValue(-1.0)
+				.build();
+		assertEquals(-1.0, system.evaluate(0.0)[0], 0.0);
+		assertEquals(1.0, system.evaluate(5.0)[0], 0.0);
+		final double[][] outputs = new double[1][2];
+		system.evaluateAll(new double[][] { { 0.0, 5.0 } }, outputs, null, 2, system.newWorkspace());
+		assertArrayEquals(new double[] { -1.0, 1.0 }, outputs[0], 0.0);
+		assertTrue(Double.isNaN(zeroOrder().evaluate(-10.0)[0]));
+	}
+
+	@Test
+	public void testCoefficients() {
+		final TskFuzzySystem system = firstOrder().build();
+		assertArrayEquals(new double[] { 0.0, -1.0, 0.5 }, system.getCoefficients(0, "slope"), 0.0);
+		assertArrayEquals(new double[] { 10.0, 0.0, 0.0 }, system.getCoefficients(1, "ten"), 0.0);
+		assertEquals("z", system.getOutputName(1));
+		assertEquals(3, system.getRules().size());
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testWrongCoefficientCount() {
+		firstOrder().linear("y", "bad", 1.0, 2.0).build();
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testUnknownOutput() {
+		TskFuzzySystem.builder().constant("y", "c", 1.0);
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testDuplicateTerm() {
+		firstOrder().constant("z", "one", 2.0);
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testUnknownTerm() {
+		firstOrder().rule(Rule.when("a", "low").then("y", "missing")).build();
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testWorkspaceOfAnotherSystem() {
+		firstOrder().build().evaluate(new double[2], new double[2], zeroOrder().newWorkspace());
+	}
+
+}
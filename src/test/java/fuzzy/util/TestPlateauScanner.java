@@ -0,0 +1,99 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package fuzzy.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import org.junit.Test;
+
+import fuzzy.util.PlateauScanner.Plateaus;
+
+/**
+ * Tests for the plateau scanner.
+ *
+ * @since 0.5
+ * @see PlateauScanner
+ */
+public class TestPlateauScanner {
+
+	@Test
+	public void testRoundSameAsBigDecimal() {
+		Random random = new Random(42);
+		double[] special = new double[] { 1.0, 0.5, 1.0625, 0.00048828125, 0.99995, 0.99994999, 0.12345,
+				-0.12345, 1e-30, 123456.5, 9.9995, Double.MIN_VALUE, Double.MAX_VALUE };
+		for (RoundingMode mode : RoundingMode.values()) {
+			if (mode == RoundingMode.UNNECESSARY) {
+				continue;
+			}
+			for (int precision : new int[] { 0, 1, 4, 8, 15 }) {
+				PlateauScanner scanner = new PlateauScanner(precision, mode);
+				MathContext mc = new MathContext(precision, mode);
+				for (double value : special) {
+					assertEquals(mode + " " + precision + " " + value,
+							new BigDecimal(value, mc).doubleValue(), scanner.round(value), 0.0);
+				}
+				for (int i = 0; i < 20000; i++) {
+					// mostly fuzzy values, some on a coarse grid to hit ties
+					double value = i % 3 == 0 ? random.nextInt(200000) / 100000.0 : random.nextDouble();
+					assertEquals(mode + " " + precision + " " + value,
+							new BigDecimal(value, mc).doubleValue(), scanner.round(value), 0.0);
+				}
+			}
+		}
+	}
+
+	@Test(expected = NumberFormatException.class)
+	public void testRoundNaN() {
+		new PlateauScanner().round(Double.NaN);
+	}
+
+	@Test
+	public void testScan() {
+		double[] fuzzyValues = new double[] { 0.2, 0.99996, 1.0, 0.5, 1.0, 1.0, 0.3, 0.99999 };
+		Plateaus plateaus = new PlateauScanner().scan(fuzzyValues);
+		assertEquals(1.0, plateaus.getHeight(), 0.0);
+		assertEquals(3, plateaus.size());
+		assertEquals(5, plateaus.getCount());
+		assertEquals(1, plateaus.getStart(0));
+		assertEquals(3, plateaus.getEnd(0));
+		assertEquals(4, plateaus.getStart(1));
+		assertEquals(6, plateaus.getEnd(1));
+		assertEquals(7, plateaus.getStart(2));
+		assertEquals(8, plateaus.getEnd(2));
+
+		double[] crispValues = new double[] { -3, -2, -1, 0, 1, 2, 3, 4 };
+		assertEquals(-1.0, plateaus.smallest(crispValues), 0.0);
+		assertEquals(4.0, plateaus.largest(crispValues), 0.0);
+		assertEquals(0.8, plateaus.mean(crispValues), 1e-15);
+
+		Plateaus exact = new PlateauScanner(0, RoundingMode.HALF_UP).scan(fuzzyValues, 0, 3, plateaus);
+		assertEquals(1, exact.size());
+		assertEquals(2, exact.getStart(0));
+	}
+
+	@Test
+	public void testScanEmpty() {
+		Plateaus plateaus = new PlateauScanner().scan(new double[0]);
+		assertTrue(plateaus.isEmpty());
+		assertEquals(0.0, plateaus.smallest(new double[0]), 0.0);
+		assertEquals(Double.NaN, plateaus.mean(new double[0]), 0.0);
+	}
+
+}